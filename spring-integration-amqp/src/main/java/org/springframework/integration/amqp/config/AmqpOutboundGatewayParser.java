@@ -51,6 +51,15 @@ public class AmqpOutboundGatewayParser extends AbstractConsumerEndpointParser {
 		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "routing-key");
 		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "routing-key-expression");
 		IntegrationNamespaceUtils.setReferenceIfAttributeDefined(builder, element, "reply-channel", "outputChannel");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "use-reply-listener");
+		if ("true".equals(element.getAttribute("use-reply-listener"))
+				&& !StringUtils.hasText(element.getAttribute("reply-queue"))) {
+			parserContext.getReaderContext().error(
+					"The 'reply-queue' attribute is required when 'use-reply-listener' is true.", element);
+		}
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "reply-queue", "replyQueueName");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "reply-timeout");
+		IntegrationNamespaceUtils.setReferenceIfAttributeDefined(builder, element, "error-channel");
 		
 		IntegrationNamespaceUtils.configureHeaderMapper(element, builder, parserContext, DefaultAmqpHeaderMapper.class, null);
 		
@@ -13,37 +13,100 @@
 
 package org.springframework.integration.amqp.outbound;
 
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ConfirmListener;
 
 import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Address;
+import org.springframework.amqp.core.AmqpAdmin;
 import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.core.ExchangeTypes;
+import org.springframework.amqp.core.MessageListener;
 import org.springframework.amqp.core.MessagePostProcessor;
 import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.connection.ChannelProxy;
+import org.springframework.amqp.rabbit.connection.RabbitUtils;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
 import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.integration.Message;
+import org.springframework.integration.MessageChannel;
+import org.springframework.integration.MessageDeliveryException;
+import org.springframework.integration.MessageHandlingException;
+import org.springframework.integration.MessageTimeoutException;
+import org.springframework.integration.MessagingException;
 import org.springframework.integration.amqp.support.AmqpHeaderMapper;
 import org.springframework.integration.amqp.support.DefaultAmqpHeaderMapper;
+import org.springframework.integration.channel.MessagePublishingErrorHandler;
+import org.springframework.integration.context.IntegrationContextUtils;
 import org.springframework.integration.handler.AbstractReplyProducingMessageHandler;
 import org.springframework.integration.handler.ExpressionEvaluatingMessageProcessor;
 import org.springframework.integration.support.MessageBuilder;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
 
 /**
  * Adapter that converts and sends Messages to an AMQP Exchange.
+ * <p>
+ * When {@link #setPublisherConfirms(boolean) publisher confirms} are enabled, Messages
+ * are published on a single dedicated Channel in confirm mode instead of through the
+ * AmqpTemplate. Messages are accumulated and published in batches of up to
+ * {@link #setBatchSize(int) batch size} Messages; an incomplete batch is published every
+ * {@link #setBatchTimeout(long) batch timeout} milliseconds when a {@link TaskScheduler}
+ * is available. The sender does not wait for the broker; outstanding confirms are tracked
+ * by delivery tag, and each Message that is nacked by the broker, or not confirmed within
+ * the {@link #setConfirmTimeout(long) confirm timeout}, is sent to the error channel
+ * within a {@link MessageDeliveryException}. Nacks are handed to a dedicated thread, so
+ * that the error channel is never invoked on the connection's thread.
+ * <p>
+ * When a reply is expected and the {@link #setUseReplyListener(boolean) reply listener}
+ * is enabled, the requests carry a generated correlation id and the address of a single
+ * long-lived reply queue instead of using {@link RabbitTemplate#sendAndReceive}, which
+ * creates a reply queue and blocks the sender for every request. The sending thread
+ * returns as soon as the request has been sent; the listener correlates each reply to
+ * its request and sends the reply Message on the listener's thread. This mode requires a
+ * {@link #setReplyQueueName(String) reply queue}, so that the listener can resume
+ * consuming after the connection is re-established, and a {@link TaskScheduler} that
+ * times out requests which receive no reply.
  * 
  * @author Mark Fisher
  * @author Oleg Zhurakousky
  * @since 2.1
  */
-public class AmqpOutboundEndpoint extends AbstractReplyProducingMessageHandler {
+public class AmqpOutboundEndpoint extends AbstractReplyProducingMessageHandler implements DisposableBean {
 
 	private static final ExpressionParser expressionParser = new SpelExpressionParser(new SpelParserConfiguration(true, true));
 
+	private static final String CORRELATION_ID_CHARSET = "UTF-8";
+
 
 	private final AmqpTemplate amqpTemplate;
 
@@ -63,9 +126,106 @@ public class AmqpOutboundEndpoint extends AbstractReplyProducingMessageHandler {
 
 	private volatile AmqpHeaderMapper headerMapper = new DefaultAmqpHeaderMapper();
 
+	private volatile boolean publisherConfirms;
+
+	private volatile int batchSize = 1;
+
+	private volatile long batchTimeout = 1000;
+
+	private volatile long confirmTimeout = 30000;
+
+	private volatile MessageChannel errorChannel;
+
+	private volatile MessagePublishingErrorHandler errorHandler;
+
+	private volatile ScheduledFuture<?> confirmTask;
+
+	private final MessagePropertiesConverter messagePropertiesConverter = new DefaultMessagePropertiesConverter();
+
+	private final List<Message<?>> batch = new ArrayList<Message<?>>();
+
+	private final SortedMap<Long, PendingConfirm> pendingConfirms = new TreeMap<Long, PendingConfirm>();
+
+	private final Object confirmMonitor = new Object();
+
+	/**
+	 * Held while a batch is published, so that the sequence numbers of a Channel are
+	 * obtained and published in order; never acquired while holding the confirmMonitor.
+	 */
+	private final Object publishMonitor = new Object();
+
+	private Channel confirmChannel;
+
+	private volatile ExecutorService confirmFailureExecutor;
+
+	private final AtomicLong ackedMessageCount = new AtomicLong();
+
+	private final AtomicLong nackedMessageCount = new AtomicLong();
+
+	private volatile boolean useReplyListener;
+
+	private volatile String replyQueueName;
+
+	private volatile long replyTimeout = 5000;
+
+	private volatile SimpleMessageListenerContainer replyContainer;
+
+	private volatile String replyAddress;
+
+	private volatile ScheduledFuture<?> replyTimeoutTask;
+
+	private final ReplyListener replyListener = new ReplyListener();
+
+	private final Object replyListenerMonitor = new Object();
+
+	private final ConcurrentMap<String, PendingReply> pendingReplies = new ConcurrentHashMap<String, PendingReply>();
+
+	private final AtomicLong replyTimeoutCount = new AtomicLong();
+
+	private final AtomicLong lateReplyCount = new AtomicLong();
+
 	@Override
 	protected void onInit() {
 		super.onInit();
+		if (this.publisherConfirms || this.isAsync()) {
+			this.errorHandler = (this.getBeanFactory() != null) ?
+					new MessagePublishingErrorHandler(IntegrationContextUtils.getChannelResolver(this.getBeanFactory())) :
+					new MessagePublishingErrorHandler();
+			if (this.errorChannel != null) {
+				this.errorHandler.setDefaultErrorChannel(this.errorChannel);
+			}
+		}
+		if (this.isAsync()) {
+			Assert.state(this.amqpTemplate instanceof RabbitTemplate, "RabbitTemplate implementation is required for the reply listener");
+			Assert.state(StringUtils.hasText(this.replyQueueName), "a reply queue name is required for the reply listener");
+			TaskScheduler taskScheduler = this.getTaskScheduler();
+			Assert.state(taskScheduler != null, "a TaskScheduler is required for the reply listener, to time out requests");
+			this.replyTimeoutTask = taskScheduler.scheduleWithFixedDelay(new Runnable() {
+				public void run() {
+					expireReplies();
+				}
+			}, Math.min(1000, this.replyTimeout));
+		}
+		if (this.publisherConfirms) {
+			Assert.state(!this.expectReply, "publisher confirms are not supported by the outbound gateway");
+			Assert.state(this.amqpTemplate instanceof RabbitTemplate, "RabbitTemplate implementation is required for publisher confirms");
+			CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("amqp-confirm-failures-");
+			threadFactory.setDaemon(true);
+			this.confirmFailureExecutor = Executors.newSingleThreadExecutor(threadFactory);
+			TaskScheduler taskScheduler = this.getTaskScheduler();
+			if (taskScheduler != null) {
+				this.confirmTask = taskScheduler.scheduleWithFixedDelay(new Runnable() {
+					public void run() {
+						flush();
+						expireConfirms();
+					}
+				}, Math.min(this.batchTimeout, this.confirmTimeout));
+			}
+			else if (logger.isWarnEnabled()) {
+				logger.warn("No TaskScheduler is available, incomplete batches will only be published once full or on destroy()," +
+						" and unconfirmed Messages will not time out");
+			}
+		}
 		Assert.state(exchangeNameExpression == null || "".equals(exchangeName),
 				"Either an exchangeName or an exchangeNameExpression can be provided, but not both");
 		if (exchangeNameExpression != null) {
@@ -109,6 +269,151 @@ public class AmqpOutboundEndpoint extends AbstractReplyProducingMessageHandler {
 		this.expectReply = expectReply;
 	}
 
+	/**
+	 * Specify whether Messages should be published on a dedicated Channel in publisher
+	 * confirm mode. Only supported when no reply is expected, and requires a RabbitTemplate.
+	 * Default is false.
+	 */
+	public void setPublisherConfirms(boolean publisherConfirms) {
+		this.publisherConfirms = publisherConfirms;
+	}
+
+	/**
+	 * Specify the maximum number of Messages to publish at once when publisher confirms
+	 * are enabled. Default is 1 (each Message is published immediately).
+	 */
+	public void setBatchSize(int batchSize) {
+		Assert.isTrue(batchSize > 0, "'batchSize' must be greater than 0");
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Specify the interval in milliseconds at which an incomplete batch is published.
+	 * Default is 1000.
+	 */
+	public void setBatchTimeout(long batchTimeout) {
+		Assert.isTrue(batchTimeout > 0, "'batchTimeout' must be greater than 0");
+		this.batchTimeout = batchTimeout;
+	}
+
+	/**
+	 * Specify the time in milliseconds after which a published Message that has not been
+	 * confirmed by the broker is considered to have failed. Default is 30000.
+	 */
+	public void setConfirmTimeout(long confirmTimeout) {
+		Assert.isTrue(confirmTimeout > 0, "'confirmTimeout' must be greater than 0");
+		this.confirmTimeout = confirmTimeout;
+	}
+
+	/**
+	 * Specify whether the replies for all requests should be received by a single
+	 * long-lived listener instead of {@link RabbitTemplate#sendAndReceive}. The listener
+	 * consumes from the {@link #setReplyQueueName(String) reply queue}, which is then
+	 * required. Only applies when a reply is expected, and requires a RabbitTemplate and
+	 * a {@link #setTaskScheduler(TaskScheduler) TaskScheduler}.
+	 * <p>
+	 * Default is 'false'.
+	 */
+	public void setUseReplyListener(boolean useReplyListener) {
+		this.useReplyListener = useReplyListener;
+	}
+
+	/**
+	 * Specify the name of the queue on which the reply listener consumes. The queue is
+	 * declared as a durable queue if necessary, so that it outlives a lost connection, and
+	 * must be dedicated to this endpoint, since every message arriving on it is treated as
+	 * a reply to one of its requests. Required when using the reply listener.
+	 */
+	public void setReplyQueueName(String replyQueueName) {
+		this.replyQueueName = replyQueueName;
+	}
+
+	/**
+	 * Specify the time in milliseconds to wait for a reply when relying upon the reply
+	 * listener. A request that receives no reply within this time is sent to the error
+	 * channel within a {@link MessageTimeoutException}. Default is 5000.
+	 */
+	public void setReplyTimeout(long replyTimeout) {
+		Assert.isTrue(replyTimeout > 0, "'replyTimeout' must be greater than 0");
+		this.replyTimeout = replyTimeout;
+	}
+
+	/**
+	 * Specify the channel to which Messages that are nacked, time out, or cannot be
+	 * published are sent when publisher confirms are enabled, as well as requests whose
+	 * reply cannot be received or handled when relying upon the reply listener. If not
+	 * provided, the 'errorChannel' header of each Message is used, falling back to the
+	 * global 'errorChannel'.
+	 */
+	public void setErrorChannel(MessageChannel errorChannel) {
+		this.errorChannel = errorChannel;
+	}
+
+	/**
+	 * Specify the scheduler that sends incomplete batches, expires unconfirmed Messages
+	 * and times out requests awaiting a reply from the reply listener. If not provided,
+	 * the context's 'taskScheduler' bean is used; one is required when using the reply
+	 * listener. This is public so that an endpoint created outside of an application
+	 * context can still batch and time out confirms and replies.
+	 */
+	@Override
+	public void setTaskScheduler(TaskScheduler taskScheduler) {
+		super.setTaskScheduler(taskScheduler);
+	}
+
+	/**
+	 * Return the number of published Messages that have been acked by the broker.
+	 */
+	@ManagedAttribute
+	public long getAckedMessageCount() {
+		return this.ackedMessageCount.get();
+	}
+
+	/**
+	 * Return the number of Messages that have been nacked by the broker, have not been
+	 * confirmed in time, or could not be published.
+	 */
+	@ManagedAttribute
+	public long getNackedMessageCount() {
+		return this.nackedMessageCount.get();
+	}
+
+	/**
+	 * Return the number of published Messages that are awaiting a confirm.
+	 */
+	@ManagedAttribute
+	public int getPendingConfirmCount() {
+		synchronized (this.confirmMonitor) {
+			return this.pendingConfirms.size();
+		}
+	}
+
+	/**
+	 * Return the number of requests that did not receive a reply within the 'replyTimeout'
+	 * while relying upon the reply listener.
+	 */
+	@ManagedAttribute
+	public long getReplyTimeoutCount() {
+		return this.replyTimeoutCount.get();
+	}
+
+	/**
+	 * Return the number of replies received by the reply listener that could not be
+	 * matched to a pending request, typically because that request had already timed out.
+	 */
+	@ManagedAttribute
+	public long getLateReplyCount() {
+		return this.lateReplyCount.get();
+	}
+
+	/**
+	 * Return the number of requests currently awaiting a reply from the reply listener.
+	 */
+	@ManagedAttribute
+	public int getPendingReplyCount() {
+		return this.pendingReplies.size();
+	}
+
 	@Override
 	public String getComponentType() {
 		return expectReply ? "amqp:outbound-channel-adapter" : "amqp:outbound-gateway";
@@ -116,6 +421,17 @@ public class AmqpOutboundEndpoint extends AbstractReplyProducingMessageHandler {
 
 	@Override
 	protected Object handleRequestMessage(Message<?> requestMessage) {
+		if (this.publisherConfirms) {
+			boolean batchComplete = false;
+			synchronized (this.confirmMonitor) {
+				this.batch.add(requestMessage);
+				batchComplete = this.batch.size() >= this.batchSize;
+			}
+			if (batchComplete) {
+				this.flush();
+			}
+			return null;
+		}
 		String exchangeName = this.exchangeName;
 		String routingKey = this.routingKey;
 		if (this.exchangeNameGenerator != null) {
@@ -124,6 +440,10 @@ public class AmqpOutboundEndpoint extends AbstractReplyProducingMessageHandler {
 		if (this.routingKeyGenerator != null) {
 			routingKey = this.routingKeyGenerator.processMessage(requestMessage);
 		}
+		if (this.isAsync()) {
+			this.sendWithReplyListener(exchangeName, routingKey, requestMessage);
+			return null;
+		}
 		if (this.expectReply) {
 			return this.sendAndReceive(exchangeName, routingKey, requestMessage);
 		}
@@ -155,6 +475,10 @@ public class AmqpOutboundEndpoint extends AbstractReplyProducingMessageHandler {
 		if (amqpReplyMessage == null) {
 			return null;
 		}
+		return this.buildReplyMessage(amqpReplyMessage, converter);
+	}
+
+	private Message<?> buildReplyMessage(org.springframework.amqp.core.Message amqpReplyMessage, MessageConverter converter) {
 		Object replyObject = converter.fromMessage(amqpReplyMessage);
 		MessageBuilder<?> builder = (replyObject instanceof Message)
 				? MessageBuilder.fromMessage((Message<?>) replyObject)
@@ -164,4 +488,467 @@ public class AmqpOutboundEndpoint extends AbstractReplyProducingMessageHandler {
 		return builder.build();
 	}
 
+	/**
+	 * Sends the request with a generated correlation id and the reply listener's queue as its
+	 * replyTo address. The reply is produced by the listener once it arrives.
+	 */
+	private void sendWithReplyListener(String exchangeName, String routingKey, Message<?> requestMessage) {
+		String replyAddress = this.getReplyAddress();
+		MessageConverter converter = ((RabbitTemplate) this.amqpTemplate).getMessageConverter();
+		MessageProperties amqpMessageProperties = new MessageProperties();
+		this.headerMapper.fromHeadersToRequest(requestMessage.getHeaders(), amqpMessageProperties);
+		org.springframework.amqp.core.Message amqpMessage = converter.toMessage(requestMessage.getPayload(), amqpMessageProperties);
+		String correlationId = UUID.randomUUID().toString();
+		amqpMessage.getMessageProperties().setCorrelationId(encodeCorrelationId(correlationId));
+		amqpMessage.getMessageProperties().setReplyTo(replyAddress);
+		this.pendingReplies.put(correlationId, new PendingReply(requestMessage));
+		try {
+			this.amqpTemplate.send(exchangeName, routingKey, amqpMessage);
+		}
+		catch (RuntimeException e) {
+			this.pendingReplies.remove(correlationId);
+			throw e;
+		}
+	}
+
+	/**
+	 * Starts the reply listener on first use and returns the replyTo address of its queue.
+	 */
+	private String getReplyAddress() {
+		if (this.replyContainer == null) {
+			synchronized (this.replyListenerMonitor) {
+				if (this.replyContainer == null) {
+					RabbitTemplate rabbitTemplate = (RabbitTemplate) this.amqpTemplate;
+					AmqpAdmin admin = new RabbitAdmin(rabbitTemplate.getConnectionFactory());
+					Queue queue = new Queue(this.replyQueueName);
+					admin.declareQueue(queue);
+					SimpleMessageListenerContainer container = new SimpleMessageListenerContainer(rabbitTemplate.getConnectionFactory());
+					container.setQueues(queue);
+					container.setMessageListener(this.replyListener);
+					container.afterPropertiesSet();
+					container.start();
+					this.replyAddress = new Address(ExchangeTypes.DIRECT, "", queue.getName()).toString();
+					this.replyContainer = container;
+				}
+			}
+		}
+		return this.replyAddress;
+	}
+
+	private void expireReplies() {
+		long expiry = System.currentTimeMillis() - this.replyTimeout;
+		for (Map.Entry<String, PendingReply> entry : this.pendingReplies.entrySet()) {
+			PendingReply pendingReply = entry.getValue();
+			// the reply may be claimed by the listener concurrently
+			if (pendingReply.createdTime < expiry && this.pendingReplies.remove(entry.getKey(), pendingReply)) {
+				this.replyTimeoutCount.incrementAndGet();
+				this.errorHandler.handleError(new MessageTimeoutException(pendingReply.requestMessage,
+						"failed to receive AMQP reply within timeout of: " + this.replyTimeout + "ms"));
+			}
+		}
+	}
+
+	@Override
+	protected boolean isAsync() {
+		return this.expectReply && this.useReplyListener;
+	}
+
+	/**
+	 * Publish any Messages of the current incomplete batch.
+	 */
+	public void flush() {
+		List<MessageDeliveryException> failures = new ArrayList<MessageDeliveryException>();
+		this.publishBatch(failures);
+		this.handleFailures(failures);
+	}
+
+	/**
+	 * Publishes the pending batch, waits up to the confirm timeout for outstanding
+	 * confirms, and closes the dedicated Channel. Stops the reply listener, if one has
+	 * been started, and sends the requests still awaiting a reply to the error channel.
+	 */
+	public void destroy() {
+		if (this.replyTimeoutTask != null) {
+			this.replyTimeoutTask.cancel(false);
+		}
+		synchronized (this.replyListenerMonitor) {
+			if (this.replyContainer != null) {
+				this.replyContainer.destroy();
+				this.replyContainer = null;
+			}
+		}
+		for (Map.Entry<String, PendingReply> entry : this.pendingReplies.entrySet()) {
+			PendingReply pendingReply = entry.getValue();
+			if (this.pendingReplies.remove(entry.getKey(), pendingReply)) {
+				this.errorHandler.handleError(new MessageHandlingException(pendingReply.requestMessage,
+						"endpoint was destroyed before the AMQP reply was received"));
+			}
+		}
+		if (this.confirmTask != null) {
+			this.confirmTask.cancel(false);
+		}
+		List<MessageDeliveryException> failures = new ArrayList<MessageDeliveryException>();
+		this.publishBatch(failures);
+		Channel channel = null;
+		synchronized (this.confirmMonitor) {
+			long deadline = System.currentTimeMillis() + this.confirmTimeout;
+			long remaining = this.confirmTimeout;
+			while (!this.pendingConfirms.isEmpty() && this.confirmChannel != null
+					&& this.confirmChannel.isOpen() && remaining > 0) {
+				try {
+					this.confirmMonitor.wait(remaining);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+				remaining = deadline - System.currentTimeMillis();
+			}
+			channel = this.releaseConfirmChannel(failures, "no publisher confirm received before shutdown");
+		}
+		this.closeConfirmChannel(channel);
+		this.handleFailures(failures);
+		if (this.confirmFailureExecutor != null) {
+			this.confirmFailureExecutor.shutdown();
+		}
+	}
+
+	/**
+	 * Publishes the Messages of the current batch, if any. The Channel is opened (or a broken
+	 * one closed), and the Messages are published, without holding the confirmMonitor: the
+	 * connection's thread may be waiting for that monitor to deliver a confirm, while those
+	 * RPCs wait for it, and so does basicPublish while the broker has stopped the flow.
+	 */
+	private void publishBatch(List<MessageDeliveryException> failures) {
+		synchronized (this.confirmMonitor) {
+			if (this.batch.isEmpty()) {
+				return;
+			}
+		}
+		Channel channel = null;
+		Exception openFailure = null;
+		try {
+			channel = this.obtainConfirmChannel(failures);
+		}
+		catch (Exception e) {
+			openFailure = e;
+		}
+		Channel brokenChannel = null;
+		synchronized (this.publishMonitor) {
+			List<Message<?>> messages = null;
+			synchronized (this.confirmMonitor) {
+				messages = new ArrayList<Message<?>>(this.batch);
+				this.batch.clear();
+			}
+			if (messages.isEmpty()) {
+				// published by another thread in the meantime
+				return;
+			}
+			if (openFailure != null) {
+				for (Message<?> message : messages) {
+					failures.add(new MessageDeliveryException(message, "failed to open AMQP channel for publishing", openFailure));
+				}
+				return;
+			}
+			brokenChannel = this.publishMessages(channel, messages, failures);
+		}
+		this.closeConfirmChannel(brokenChannel);
+	}
+
+	/**
+	 * Must be called while holding the publishMonitor, but not the confirmMonitor. Each
+	 * Message is registered as pending under the confirmMonitor before it is published,
+	 * so that its confirm can never arrive first, and then published without the monitor.
+	 * @return the Channel if it broke and has been released, so that the caller can close it
+	 */
+	private Channel publishMessages(Channel channel, List<Message<?>> messages, List<MessageDeliveryException> failures) {
+		MessageConverter converter = ((RabbitTemplate) this.amqpTemplate).getMessageConverter();
+		for (int i = 0; i < messages.size(); i++) {
+			Message<?> message = messages.get(i);
+			org.springframework.amqp.core.Message amqpMessage = null;
+			String exchangeName = this.exchangeName;
+			String routingKey = this.routingKey;
+			try {
+				if (this.exchangeNameGenerator != null) {
+					exchangeName = this.exchangeNameGenerator.processMessage(message);
+				}
+				if (this.routingKeyGenerator != null) {
+					routingKey = this.routingKeyGenerator.processMessage(message);
+				}
+				MessageProperties amqpMessageProperties = new MessageProperties();
+				this.headerMapper.fromHeadersToRequest(message.getHeaders(), amqpMessageProperties);
+				amqpMessage = converter.toMessage(message.getPayload(), amqpMessageProperties);
+			}
+			catch (Exception e) {
+				failures.add(new MessageDeliveryException(message, "failed to prepare Message for publishing", e));
+				continue;
+			}
+			long deliveryTag = channel.getNextPublishSeqNo();
+			synchronized (this.confirmMonitor) {
+				if (channel != this.confirmChannel) {
+					// released by another thread since it was obtained
+					for (int j = i; j < messages.size(); j++) {
+						failures.add(new MessageDeliveryException(messages.get(j), "AMQP channel was closed before publishing"));
+					}
+					return null;
+				}
+				this.pendingConfirms.put(deliveryTag, new PendingConfirm(message));
+			}
+			try {
+				channel.basicPublish(exchangeName, routingKey, false, false,
+						this.messagePropertiesConverter.fromMessageProperties(amqpMessage.getMessageProperties(), "UTF-8"),
+						amqpMessage.getBody());
+			}
+			catch (Exception e) {
+				// the Channel is broken, the remaining Messages of the batch cannot be published either
+				synchronized (this.confirmMonitor) {
+					boolean current = (channel == this.confirmChannel);
+					if (current) {
+						this.pendingConfirms.remove(deliveryTag);
+					}
+					// if released by another thread, that thread has already failed this Message's pending confirm
+					for (int j = (current ? i : i + 1); j < messages.size(); j++) {
+						failures.add(new MessageDeliveryException(messages.get(j), "failed to publish AMQP message", e));
+					}
+					return current ?
+							this.releaseConfirmChannel(failures, "AMQP channel failed before the publisher confirm was received") :
+							null;
+				}
+			}
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("published batch of " + messages.size() + " messages");
+		}
+		return null;
+	}
+
+	/**
+	 * Must be called without holding the confirmMonitor. Returns the current Channel if it is
+	 * open, or else opens a new one in confirm mode; if another thread installs a Channel in
+	 * the meantime, that one is used instead.
+	 */
+	private Channel obtainConfirmChannel(List<MessageDeliveryException> failures) throws Exception {
+		Channel closedChannel = null;
+		synchronized (this.confirmMonitor) {
+			if (this.confirmChannel != null) {
+				if (this.confirmChannel.isOpen()) {
+					return this.confirmChannel;
+				}
+				closedChannel = this.releaseConfirmChannel(failures,
+						"AMQP channel was closed before the publisher confirm was received");
+			}
+		}
+		this.closeConfirmChannel(closedChannel);
+		final Channel channel = ((RabbitTemplate) this.amqpTemplate).getConnectionFactory()
+				.createConnection().createChannel(false);
+		try {
+			channel.confirmSelect();
+		}
+		catch (Exception e) {
+			this.closeConfirmChannel(channel);
+			throw e;
+		}
+		channel.addConfirmListener(new ConfirmListener() {
+			public void handleAck(long deliveryTag, boolean multiple) {
+				confirmed(channel, deliveryTag, multiple, true);
+			}
+			public void handleNack(long deliveryTag, boolean multiple) {
+				confirmed(channel, deliveryTag, multiple, false);
+			}
+		});
+		Channel currentChannel = null;
+		synchronized (this.confirmMonitor) {
+			if (this.confirmChannel == null) {
+				this.confirmChannel = channel;
+				return channel;
+			}
+			currentChannel = this.confirmChannel;
+		}
+		this.closeConfirmChannel(channel);
+		return currentChannel;
+	}
+
+	/**
+	 * Must be called while holding the confirmMonitor. Fails all pending confirms, since
+	 * the delivery tags of a new Channel start afresh.
+	 * @return the released Channel, to be closed by the caller once it has released the monitor
+	 */
+	private Channel releaseConfirmChannel(List<MessageDeliveryException> failures, String reason) {
+		Channel channel = this.confirmChannel;
+		this.confirmChannel = null;
+		for (PendingConfirm pendingConfirm : this.pendingConfirms.values()) {
+			failures.add(new MessageDeliveryException(pendingConfirm.message, reason));
+		}
+		this.pendingConfirms.clear();
+		return channel;
+	}
+
+	/**
+	 * Must be called without holding the confirmMonitor.
+	 */
+	private void closeConfirmChannel(Channel channel) {
+		if (channel != null) {
+			// close the physical channel rather than returning a confirm-mode channel to the cache
+			RabbitUtils.closeChannel((channel instanceof ChannelProxy) ? ((ChannelProxy) channel).getTargetChannel() : channel);
+		}
+	}
+
+	private void confirmed(Channel channel, long deliveryTag, boolean multiple, boolean ack) {
+		List<MessageDeliveryException> failures = new ArrayList<MessageDeliveryException>();
+		synchronized (this.confirmMonitor) {
+			if (channel != this.confirmChannel) {
+				return;
+			}
+			List<PendingConfirm> confirmed = new ArrayList<PendingConfirm>();
+			if (multiple) {
+				SortedMap<Long, PendingConfirm> upToTag = this.pendingConfirms.headMap(deliveryTag + 1);
+				confirmed.addAll(upToTag.values());
+				upToTag.clear();
+			}
+			else {
+				PendingConfirm pendingConfirm = this.pendingConfirms.remove(deliveryTag);
+				if (pendingConfirm != null) {
+					confirmed.add(pendingConfirm);
+				}
+			}
+			if (ack) {
+				this.ackedMessageCount.addAndGet(confirmed.size());
+			}
+			else {
+				for (PendingConfirm pendingConfirm : confirmed) {
+					failures.add(new MessageDeliveryException(pendingConfirm.message, "AMQP message was nacked by the broker"));
+				}
+			}
+			this.confirmMonitor.notifyAll();
+		}
+		this.handleFailuresAsync(failures);
+	}
+
+	private void expireConfirms() {
+		List<MessageDeliveryException> failures = new ArrayList<MessageDeliveryException>();
+		synchronized (this.confirmMonitor) {
+			long expiry = System.currentTimeMillis() - this.confirmTimeout;
+			Iterator<PendingConfirm> iterator = this.pendingConfirms.values().iterator();
+			while (iterator.hasNext()) {
+				PendingConfirm pendingConfirm = iterator.next();
+				if (pendingConfirm.timestamp > expiry) {
+					break;
+				}
+				iterator.remove();
+				failures.add(new MessageDeliveryException(pendingConfirm.message,
+						"no publisher confirm received within " + this.confirmTimeout + " ms"));
+			}
+		}
+		this.handleFailures(failures);
+	}
+
+	private void handleFailures(List<MessageDeliveryException> failures) {
+		if (failures.isEmpty()) {
+			return;
+		}
+		this.nackedMessageCount.addAndGet(failures.size());
+		for (MessageDeliveryException failure : failures) {
+			this.errorHandler.handleError(failure);
+		}
+	}
+
+	/**
+	 * Hands the failures to the confirm failure thread; used on the connection's thread,
+	 * which must not block on the error channel.
+	 */
+	private void handleFailuresAsync(final List<MessageDeliveryException> failures) {
+		if (failures.isEmpty()) {
+			return;
+		}
+		this.nackedMessageCount.addAndGet(failures.size());
+		Runnable task = new Runnable() {
+			public void run() {
+				for (MessageDeliveryException failure : failures) {
+					errorHandler.handleError(failure);
+				}
+			}
+		};
+		try {
+			this.confirmFailureExecutor.execute(task);
+		}
+		catch (RejectedExecutionException e) {
+			// destroyed in the meantime
+			task.run();
+		}
+	}
+
+
+	private static class PendingReply {
+
+		private final Message<?> requestMessage;
+
+		private final long createdTime = System.currentTimeMillis();
+
+		private PendingReply(Message<?> requestMessage) {
+			this.requestMessage = requestMessage;
+		}
+	}
+
+
+	private static byte[] encodeCorrelationId(String correlationId) {
+		try {
+			return correlationId.getBytes(CORRELATION_ID_CHARSET);
+		}
+		catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String decodeCorrelationId(byte[] correlationId) {
+		try {
+			return new String(correlationId, CORRELATION_ID_CHARSET);
+		}
+		catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+
+	/**
+	 * Receives the replies for all requests of this endpoint and produces each reply
+	 * Message for the request with the same correlation id.
+	 */
+	private class ReplyListener implements MessageListener {
+
+		public void onMessage(org.springframework.amqp.core.Message amqpReplyMessage) {
+			byte[] correlationId = amqpReplyMessage.getMessageProperties().getCorrelationId();
+			PendingReply pendingReply = (correlationId != null) ? pendingReplies.remove(decodeCorrelationId(correlationId)) : null;
+			if (pendingReply == null) {
+				lateReplyCount.incrementAndGet();
+				if (logger.isWarnEnabled()) {
+					logger.warn("Discarding reply that matches no pending request: " + amqpReplyMessage);
+				}
+				return;
+			}
+			Message<?> requestMessage = pendingReply.requestMessage;
+			try {
+				MessageConverter converter = ((RabbitTemplate) amqpTemplate).getMessageConverter();
+				handleAsyncResult(buildReplyMessage(amqpReplyMessage, converter), requestMessage);
+			}
+			catch (MessagingException e) {
+				errorHandler.handleError(e);
+			}
+			catch (Throwable t) {
+				errorHandler.handleError(new MessageHandlingException(requestMessage, t));
+			}
+		}
+	}
+
+
+	private static class PendingConfirm {
+
+		private final Message<?> message;
+
+		private final long timestamp = System.currentTimeMillis();
+
+		private PendingConfirm(Message<?> message) {
+			this.message = message;
+		}
+	}
+
 }
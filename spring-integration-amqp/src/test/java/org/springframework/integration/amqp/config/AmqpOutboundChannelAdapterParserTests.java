@@ -97,4 +97,15 @@ public class AmqpOutboundChannelAdapterParserTests {
 		Mockito.verify(amqpTemplate, Mockito.times(1)).send(Mockito.any(String.class), Mockito.any(String.class), Mockito.any(org.springframework.amqp.core.Message.class));
 	}
 
+	@Test
+	public void withPublisherConfirms() {
+		Object eventDrivenConsumer = context.getBean("withPublisherConfirms");
+		AmqpOutboundEndpoint endpoint = TestUtils.getPropertyValue(eventDrivenConsumer, "handler", AmqpOutboundEndpoint.class);
+		assertEquals(Boolean.TRUE, TestUtils.getPropertyValue(endpoint, "publisherConfirms"));
+		assertEquals(50, TestUtils.getPropertyValue(endpoint, "batchSize"));
+		assertEquals(100L, TestUtils.getPropertyValue(endpoint, "batchTimeout"));
+		assertEquals(5000L, TestUtils.getPropertyValue(endpoint, "confirmTimeout"));
+		assertEquals(context.getBean("nackChannel"), TestUtils.getPropertyValue(endpoint, "errorChannel"));
+	}
+
 }
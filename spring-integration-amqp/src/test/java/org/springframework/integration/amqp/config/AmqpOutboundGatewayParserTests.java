@@ -23,6 +23,7 @@ import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.parsing.BeanDefinitionParsingException;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 import org.springframework.integration.Message;
@@ -56,6 +57,24 @@ public class AmqpOutboundGatewayParserTests {
 		assertEquals(context.getBean("fromRabbit"), TestUtils.getPropertyValue(gateway, "outputChannel"));
 	}
 	
+	@Test
+	public void withReplyListener() {
+		ApplicationContext context = new ClassPathXmlApplicationContext("AmqpOutboundGatewayParserTests-context.xml", this.getClass());
+		Object edc = context.getBean("withReplyListener");
+		AmqpOutboundEndpoint gateway = TestUtils.getPropertyValue(edc, "handler", AmqpOutboundEndpoint.class);
+		assertEquals(Boolean.TRUE, TestUtils.getPropertyValue(gateway, "useReplyListener"));
+		assertEquals("si.test.replies", TestUtils.getPropertyValue(gateway, "replyQueueName"));
+		assertEquals(2000L, TestUtils.getPropertyValue(gateway, "replyTimeout"));
+		assertEquals(context.getBean("replyErrors"), TestUtils.getPropertyValue(gateway, "errorChannel"));
+		// the context's default scheduler times out the requests
+		assertNotNull(TestUtils.getPropertyValue(gateway, "replyTimeoutTask"));
+	}
+
+	@Test(expected = BeanDefinitionParsingException.class)
+	public void withReplyListenerWithoutReplyQueueFails() {
+		new ClassPathXmlApplicationContext("AmqpOutboundGatewayWithoutReplyQueue-fail-context.xml", this.getClass());
+	}
+
 	@SuppressWarnings("rawtypes")
 	@Test
 	public void withHeaderMapperCustomRequestResponse() {
@@ -0,0 +1,359 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.amqp.outbound;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ConfirmListener;
+
+import org.springframework.amqp.core.MessageListener;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.integration.Message;
+import org.springframework.integration.MessageDeliveryException;
+import org.springframework.integration.MessageHandlingException;
+import org.springframework.integration.MessageTimeoutException;
+import org.springframework.integration.amqp.AmqpHeaders;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.message.ErrorMessage;
+import org.springframework.integration.message.GenericMessage;
+import org.springframework.integration.test.util.TestUtils;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * @since 2.1
+ */
+public class AmqpOutboundEndpointTests {
+
+	private Channel channel;
+
+	private RabbitTemplate amqpTemplate;
+
+	@Before
+	public void setup() throws Exception {
+		ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+		Connection connection = mock(Connection.class);
+		this.channel = mock(Channel.class);
+		when(connectionFactory.createConnection()).thenReturn(connection);
+		when(connection.createChannel(false)).thenReturn(this.channel);
+		when(this.channel.isOpen()).thenReturn(true);
+		when(this.channel.getNextPublishSeqNo()).thenReturn(1L, 2L, 3L, 4L, 5L);
+		this.amqpTemplate = new RabbitTemplate(connectionFactory);
+	}
+
+	@Test
+	public void publishesBatchesAndRoutesNacksToErrorChannel() throws Exception {
+		QueueChannel errorChannel = new QueueChannel();
+		AmqpOutboundEndpoint endpoint = new AmqpOutboundEndpoint(this.amqpTemplate);
+		endpoint.setExchangeName("test.exchange");
+		endpoint.setPublisherConfirms(true);
+		endpoint.setBatchSize(3);
+		endpoint.setErrorChannel(errorChannel);
+		endpoint.afterPropertiesSet();
+		endpoint.handleMessage(new GenericMessage<String>("test0"));
+		endpoint.handleMessage(new GenericMessage<String>("test1"));
+		verify(this.channel, never()).basicPublish(anyString(), anyString(), anyBoolean(), anyBoolean(),
+				any(AMQP.BasicProperties.class), any(byte[].class));
+		endpoint.handleMessage(new GenericMessage<String>("test2"));
+		verify(this.channel).confirmSelect();
+		verify(this.channel, times(3)).basicPublish(anyString(), anyString(), anyBoolean(), anyBoolean(),
+				any(AMQP.BasicProperties.class), any(byte[].class));
+		assertEquals(3, endpoint.getPendingConfirmCount());
+
+		ArgumentCaptor<ConfirmListener> listener = ArgumentCaptor.forClass(ConfirmListener.class);
+		verify(this.channel).addConfirmListener(listener.capture());
+		listener.getValue().handleAck(2, true);
+		assertEquals(2, endpoint.getAckedMessageCount());
+		assertEquals(1, endpoint.getPendingConfirmCount());
+		assertNull(errorChannel.receive(0));
+
+		listener.getValue().handleNack(3, false);
+		assertEquals(1, endpoint.getNackedMessageCount());
+		assertEquals(0, endpoint.getPendingConfirmCount());
+		// nacks are sent to the error channel on another thread than the connection's
+		Message<?> errorMessage = errorChannel.receive(2000);
+		assertNotNull(errorMessage);
+		assertTrue(errorMessage instanceof ErrorMessage);
+		MessageDeliveryException exception = (MessageDeliveryException) errorMessage.getPayload();
+		assertEquals("test2", exception.getFailedMessage().getPayload());
+		endpoint.destroy();
+	}
+
+	@Test
+	public void closedChannelIsReplacedAndItsPendingConfirmsFailed() throws Exception {
+		QueueChannel errorChannel = new QueueChannel();
+		AmqpOutboundEndpoint endpoint = new AmqpOutboundEndpoint(this.amqpTemplate);
+		endpoint.setPublisherConfirms(true);
+		endpoint.setConfirmTimeout(100);
+		endpoint.setErrorChannel(errorChannel);
+		endpoint.afterPropertiesSet();
+		endpoint.handleMessage(new GenericMessage<String>("foo"));
+		assertEquals(1, endpoint.getPendingConfirmCount());
+		when(this.channel.isOpen()).thenReturn(false, true);
+		endpoint.handleMessage(new GenericMessage<String>("bar"));
+		verify(this.channel, times(2)).confirmSelect();
+		verify(this.channel).close();
+		Message<?> errorMessage = errorChannel.receive(0);
+		assertNotNull(errorMessage);
+		assertEquals("foo", ((MessageDeliveryException) errorMessage.getPayload()).getFailedMessage().getPayload());
+		assertEquals(1, endpoint.getPendingConfirmCount());
+		endpoint.destroy();
+	}
+
+	@Test(timeout = 10000)
+	public void confirmsAreHandledWhilePublishIsBlocked() throws Exception {
+		AmqpOutboundEndpoint endpoint = new AmqpOutboundEndpoint(this.amqpTemplate);
+		endpoint.setPublisherConfirms(true);
+		endpoint.setConfirmTimeout(100);
+		endpoint.afterPropertiesSet();
+		endpoint.handleMessage(new GenericMessage<String>("foo"));
+		ArgumentCaptor<ConfirmListener> listener = ArgumentCaptor.forClass(ConfirmListener.class);
+		verify(this.channel).addConfirmListener(listener.capture());
+
+		// basicPublish blocks while the broker has stopped the flow
+		final CountDownLatch publishing = new CountDownLatch(1);
+		final CountDownLatch flowResumed = new CountDownLatch(1);
+		doAnswer(new Answer<Object>() {
+			public Object answer(InvocationOnMock invocation) throws Throwable {
+				publishing.countDown();
+				flowResumed.await(10, TimeUnit.SECONDS);
+				return null;
+			}
+		}).when(this.channel).basicPublish(anyString(), anyString(), anyBoolean(), anyBoolean(),
+				any(AMQP.BasicProperties.class), any(byte[].class));
+		final AmqpOutboundEndpoint blockedEndpoint = endpoint;
+		Thread sender = new Thread(new Runnable() {
+			public void run() {
+				blockedEndpoint.handleMessage(new GenericMessage<String>("bar"));
+			}
+		});
+		sender.start();
+		assertTrue(publishing.await(10, TimeUnit.SECONDS));
+
+		// the connection's thread can still deliver confirms
+		listener.getValue().handleAck(1, false);
+		assertEquals(1, endpoint.getAckedMessageCount());
+		assertEquals(1, endpoint.getPendingConfirmCount());
+		flowResumed.countDown();
+		sender.join(10000);
+		listener.getValue().handleAck(2, false);
+		assertEquals(2, endpoint.getAckedMessageCount());
+		assertEquals(0, endpoint.getPendingConfirmCount());
+		endpoint.destroy();
+	}
+
+	@Test
+	public void unconfirmedMessageTimesOut() throws Exception {
+		ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+		scheduler.afterPropertiesSet();
+		QueueChannel errorChannel = new QueueChannel();
+		AmqpOutboundEndpoint endpoint = new AmqpOutboundEndpoint(this.amqpTemplate);
+		endpoint.setPublisherConfirms(true);
+		endpoint.setBatchSize(10);
+		endpoint.setBatchTimeout(50);
+		endpoint.setConfirmTimeout(100);
+		endpoint.setErrorChannel(errorChannel);
+		endpoint.setTaskScheduler(scheduler);
+		endpoint.afterPropertiesSet();
+		endpoint.handleMessage(new GenericMessage<String>("foo"));
+		Message<?> errorMessage = errorChannel.receive(2000);
+		assertNotNull(errorMessage);
+		MessageDeliveryException exception = (MessageDeliveryException) errorMessage.getPayload();
+		assertEquals("foo", exception.getFailedMessage().getPayload());
+		verify(this.channel).basicPublish(anyString(), anyString(), anyBoolean(), anyBoolean(),
+				any(AMQP.BasicProperties.class), any(byte[].class));
+		assertEquals(0, endpoint.getPendingConfirmCount());
+		endpoint.destroy();
+		scheduler.destroy();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void replyListenerCorrelatesReplies() throws Exception {
+		ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+		scheduler.afterPropertiesSet();
+		RabbitTemplate template = this.createSendingTemplate();
+		QueueChannel replyChannel = new QueueChannel();
+		AmqpOutboundEndpoint endpoint = this.createReplyListenerEndpoint(template, scheduler);
+		endpoint.setOutputChannel(replyChannel);
+		endpoint.afterPropertiesSet();
+		endpoint.handleMessage(new GenericMessage<String>("foo"));
+		endpoint.handleMessage(new GenericMessage<String>("bar"));
+		assertNull(replyChannel.receive(0));
+		assertEquals(2, endpoint.getPendingReplyCount());
+
+		// the reply queue is declared once, as a durable queue, and consumed by a started container
+		verify(this.channel).queueDeclare(eq("test.replies"), eq(true), eq(false), eq(false), anyMap());
+		SimpleMessageListenerContainer container =
+				TestUtils.getPropertyValue(endpoint, "replyContainer", SimpleMessageListenerContainer.class);
+		assertTrue(container.isRunning());
+
+		ArgumentCaptor<org.springframework.amqp.core.Message> requests =
+				ArgumentCaptor.forClass(org.springframework.amqp.core.Message.class);
+		verify(template, times(2)).send(eq("test.exchange"), eq(""), requests.capture());
+		MessageProperties fooProperties = requests.getAllValues().get(0).getMessageProperties();
+		MessageProperties barProperties = requests.getAllValues().get(1).getMessageProperties();
+		assertEquals("direct:///test.replies", fooProperties.getReplyTo());
+		assertNotNull(fooProperties.getCorrelationId());
+		// correlation ids are UUIDs encoded as UTF-8
+		UUID.fromString(new String(fooProperties.getCorrelationId(), "UTF-8"));
+
+		MessageListener listener = TestUtils.getPropertyValue(endpoint, "replyListener", MessageListener.class);
+		listener.onMessage(this.createReply("BAR", barProperties.getCorrelationId()));
+		listener.onMessage(this.createReply("FOO", fooProperties.getCorrelationId()));
+		Message<?> barReply = replyChannel.receive(0);
+		assertEquals("BAR", barReply.getPayload());
+		// the reply headers are mapped by the DefaultAmqpHeaderMapper
+		assertEquals(MessageProperties.CONTENT_TYPE_TEXT_PLAIN, barReply.getHeaders().get(AmqpHeaders.CONTENT_TYPE));
+		assertTrue(Arrays.equals(barProperties.getCorrelationId(),
+				(byte[]) barReply.getHeaders().get(AmqpHeaders.CORRELATION_ID)));
+		assertEquals("FOO", replyChannel.receive(0).getPayload());
+		assertEquals(0, endpoint.getPendingReplyCount());
+
+		listener.onMessage(this.createReply("LATE", fooProperties.getCorrelationId()));
+		assertNull(replyChannel.receive(0));
+		assertEquals(1, endpoint.getLateReplyCount());
+		endpoint.destroy();
+		assertFalse(container.isRunning());
+		scheduler.destroy();
+	}
+
+	@Test
+	public void replyListenerTimesOutRequests() {
+		ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+		scheduler.afterPropertiesSet();
+		QueueChannel errorChannel = new QueueChannel();
+		AmqpOutboundEndpoint endpoint = this.createReplyListenerEndpoint(this.createSendingTemplate(), scheduler);
+		endpoint.setOutputChannel(new QueueChannel());
+		endpoint.setReplyTimeout(100);
+		endpoint.setErrorChannel(errorChannel);
+		endpoint.afterPropertiesSet();
+		endpoint.handleMessage(new GenericMessage<String>("foo"));
+		Message<?> errorMessage = errorChannel.receive(2000);
+		assertNotNull(errorMessage);
+		MessageTimeoutException exception = (MessageTimeoutException) errorMessage.getPayload();
+		assertEquals("foo", exception.getFailedMessage().getPayload());
+		assertEquals(1, endpoint.getReplyTimeoutCount());
+		assertEquals(0, endpoint.getPendingReplyCount());
+		endpoint.destroy();
+		scheduler.destroy();
+	}
+
+	@Test
+	public void destroyRoutesPendingRequestsToErrorChannel() {
+		ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+		scheduler.afterPropertiesSet();
+		QueueChannel errorChannel = new QueueChannel();
+		AmqpOutboundEndpoint endpoint = this.createReplyListenerEndpoint(this.createSendingTemplate(), scheduler);
+		endpoint.setOutputChannel(new QueueChannel());
+		endpoint.setErrorChannel(errorChannel);
+		endpoint.afterPropertiesSet();
+		endpoint.handleMessage(new GenericMessage<String>("foo"));
+		assertEquals(1, endpoint.getPendingReplyCount());
+		endpoint.destroy();
+		Message<?> errorMessage = errorChannel.receive(0);
+		assertNotNull(errorMessage);
+		MessageHandlingException exception = (MessageHandlingException) errorMessage.getPayload();
+		assertEquals("foo", exception.getFailedMessage().getPayload());
+		assertEquals(0, endpoint.getPendingReplyCount());
+		assertEquals(0, endpoint.getReplyTimeoutCount());
+		scheduler.destroy();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void replyListenerRequiresReplyQueue() {
+		ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+		scheduler.afterPropertiesSet();
+		try {
+			AmqpOutboundEndpoint endpoint = this.createReplyListenerEndpoint(this.amqpTemplate, scheduler);
+			endpoint.setReplyQueueName(null);
+			endpoint.afterPropertiesSet();
+		}
+		finally {
+			scheduler.destroy();
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void replyListenerRequiresTaskScheduler() {
+		AmqpOutboundEndpoint endpoint = this.createReplyListenerEndpoint(this.amqpTemplate, null);
+		endpoint.afterPropertiesSet();
+	}
+
+	/**
+	 * Returns a template that declares queues on the mocked Channel but does not send.
+	 */
+	private RabbitTemplate createSendingTemplate() {
+		RabbitTemplate template = spy(this.amqpTemplate);
+		doNothing().when(template).send(anyString(), anyString(), any(org.springframework.amqp.core.Message.class));
+		return template;
+	}
+
+	private AmqpOutboundEndpoint createReplyListenerEndpoint(RabbitTemplate template, TaskScheduler scheduler) {
+		AmqpOutboundEndpoint endpoint = new AmqpOutboundEndpoint(template);
+		endpoint.setExchangeName("test.exchange");
+		endpoint.setExpectReply(true);
+		endpoint.setUseReplyListener(true);
+		endpoint.setReplyQueueName("test.replies");
+		if (scheduler != null) {
+			endpoint.setTaskScheduler(scheduler);
+		}
+		return endpoint;
+	}
+
+	private org.springframework.amqp.core.Message createReply(String payload, byte[] correlationId) {
+		MessageProperties properties = new MessageProperties();
+		properties.setContentType(MessageProperties.CONTENT_TYPE_TEXT_PLAIN);
+		properties.setCorrelationId(correlationId);
+		return new org.springframework.amqp.core.Message(payload.getBytes(), properties);
+	}
+
+}
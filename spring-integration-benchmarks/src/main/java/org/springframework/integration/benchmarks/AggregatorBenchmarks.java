@@ -0,0 +1,86 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.integration.aggregator.AggregatingMessageHandler;
+import org.springframework.integration.aggregator.DefaultAggregatingMessageGroupProcessor;
+import org.springframework.integration.channel.NullChannel;
+import org.springframework.integration.store.SimpleMessageStore;
+import org.springframework.integration.support.MessageBuilder;
+
+/**
+ * Measures the cost of correlating and releasing a complete message group
+ * through an {@link AggregatingMessageHandler} backed by a
+ * {@link SimpleMessageStore}. Each operation builds and aggregates one
+ * group of the given size.
+ *
+ * @since 2.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AggregatorBenchmarks {
+
+	@Param({"2", "10", "100"})
+	private int groupSize;
+
+	private AggregatingMessageHandler handler;
+
+	private long correlationId;
+
+
+	@Setup
+	public void setup() throws Exception {
+		this.handler = new AggregatingMessageHandler(new DefaultAggregatingMessageGroupProcessor(),
+				new SimpleMessageStore());
+		this.handler.setOutputChannel(new NullChannel());
+		// otherwise every released group would stay in the store
+		this.handler.setExpireGroupsUponCompletion(true);
+		this.handler.afterPropertiesSet();
+	}
+
+
+	@Benchmark
+	public void aggregateGroup() {
+		Long correlationId = this.correlationId++;
+		for (int i = 1; i <= this.groupSize; i++) {
+			this.handler.handleMessage(MessageBuilder.withPayload(i)
+					.setCorrelationId(correlationId)
+					.setSequenceNumber(i)
+					.setSequenceSize(this.groupSize)
+					.build());
+		}
+	}
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.benchmarks;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.openjdk.jmh.annotations.Mode;
+
+import org.springframework.util.Assert;
+
+/**
+ * Holds the primary score of each benchmark run and compares a run against a
+ * previously stored baseline. Scores are kept in a properties file keyed by
+ * benchmark name, parameters and mode, so a baseline can be recorded on one
+ * revision and compared from another.
+ *
+ * @since 2.1
+ */
+public class BaselineReport {
+
+	private static final String THROUGHPUT_SUFFIX = ":" + Mode.Throughput.shortLabel();
+
+	private final Map<String, Double> scores = new TreeMap<String, Double>();
+
+
+	/**
+	 * Builds the key identifying one benchmark configuration, e.g.
+	 * <code>ChannelBenchmarks.executorChannelSend[dispatcherThreads=4]:thrpt</code>.
+	 */
+	public static String keyFor(String benchmark, Map<String, String> params, Mode mode) {
+		StringBuilder key = new StringBuilder(benchmark);
+		if (params != null && !params.isEmpty()) {
+			key.append('[');
+			String separator = "";
+			for (Map.Entry<String, String> param : new TreeMap<String, String>(params).entrySet()) {
+				key.append(separator).append(param.getKey()).append('=').append(param.getValue());
+				separator = ",";
+			}
+			key.append(']');
+		}
+		return key.append(':').append(mode.shortLabel()).toString();
+	}
+
+	public static BaselineReport load(File file) throws IOException {
+		Properties properties = new Properties();
+		InputStream inputStream = new FileInputStream(file);
+		try {
+			properties.load(inputStream);
+		}
+		finally {
+			inputStream.close();
+		}
+		BaselineReport report = new BaselineReport();
+		for (String key : properties.stringPropertyNames()) {
+			report.addScore(key, Double.parseDouble(properties.getProperty(key)));
+		}
+		return report;
+	}
+
+	public void addScore(String key, double score) {
+		Assert.hasText(key, "key must not be empty");
+		this.scores.put(key, score);
+	}
+
+	public Double getScore(String key) {
+		return this.scores.get(key);
+	}
+
+	public void store(File file) throws IOException {
+		File directory = file.getAbsoluteFile().getParentFile();
+		if (directory != null && !directory.exists()) {
+			Assert.state(directory.mkdirs(), "failed to create directory " + directory);
+		}
+		Properties properties = new Properties();
+		for (Map.Entry<String, Double> entry : this.scores.entrySet()) {
+			properties.setProperty(entry.getKey(), entry.getValue().toString());
+		}
+		OutputStream outputStream = new FileOutputStream(file);
+		try {
+			properties.store(outputStream, "Spring Integration benchmark results");
+		}
+		finally {
+			outputStream.close();
+		}
+	}
+
+	/**
+	 * Prints the change of each score relative to the baseline and returns the
+	 * keys of the benchmarks that regressed by more than the given percentage.
+	 * Higher scores are better for throughput benchmarks, lower scores for all
+	 * other modes. Benchmarks missing from either report are listed but never
+	 * count as regressions.
+	 */
+	public List<String> compareTo(BaselineReport baseline, double thresholdPercent, PrintStream out) {
+		List<String> regressions = new ArrayList<String>();
+		out.println(String.format("%-90s %14s %14s %9s", "Benchmark", "Baseline", "Current", "Change"));
+		for (Map.Entry<String, Double> entry : this.scores.entrySet()) {
+			String key = entry.getKey();
+			double current = entry.getValue();
+			Double previous = baseline.getScore(key);
+			if (previous == null) {
+				out.println(String.format("%-90s %14s %14.3f %9s", key, "-", current, "new"));
+				continue;
+			}
+			double change = (previous == 0) ? 0 : (current - previous) * 100 / previous;
+			double improvement = key.endsWith(THROUGHPUT_SUFFIX) ? change : -change;
+			boolean regressed = improvement < -thresholdPercent;
+			if (regressed) {
+				regressions.add(key);
+			}
+			out.println(String.format("%-90s %14.3f %14.3f %+8.1f%%%s", key, previous, current, change,
+					(regressed ? "  REGRESSION" : "")));
+		}
+		for (String key : baseline.scores.keySet()) {
+			if (!this.scores.containsKey(key)) {
+				out.println(String.format("%-90s %14.3f %14s %9s", key, baseline.getScore(key), "-", "missing"));
+			}
+		}
+		return regressions;
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.benchmarks;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.util.Statistics;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * Runs the benchmarks matching the regular expression given as the first
+ * argument (all of them by default) and records their scores. Any further
+ * arguments of the form <code>name=value1,value2</code> override the values
+ * of a benchmark parameter. For sampled latency benchmarks, the 50th, 90th
+ * and 99th percentiles are recorded next to the mean.
+ * <p>
+ * The following system properties are supported:
+ * <ul>
+ * <li><code>benchmark.results</code>: file to store the scores of this run in,
+ * which can serve as the baseline of a later run</li>
+ * <li><code>benchmark.baseline</code>: file with the scores of a previous run
+ * to compare against</li>
+ * <li><code>benchmark.threshold</code>: percentage beyond which a change is
+ * reported as a regression (default 10)</li>
+ * <li><code>benchmark.failOnRegression</code>: exit with a non-zero status if
+ * any benchmark regressed</li>
+ * </ul>
+ *
+ * @since 2.1
+ */
+public class BenchmarkRunner {
+
+	private static final double[] PERCENTILES = { 50, 90, 99 };
+
+	public static void main(String[] args) throws Exception {
+		String include = (args.length > 0) ? args[0] : ".*";
+		ChainedOptionsBuilder options = new OptionsBuilder().include(include);
+		for (int i = 1; i < args.length; i++) {
+			String[] param = StringUtils.split(args[i], "=");
+			if (param == null) {
+				throw new IllegalArgumentException("expected a parameter of the form name=value1,value2 but was: " + args[i]);
+			}
+			options.param(param[0], StringUtils.commaDelimitedListToStringArray(param[1]));
+		}
+		Collection<RunResult> results = new Runner(options.build()).run();
+
+		BaselineReport report = new BaselineReport();
+		for (RunResult result : results) {
+			BenchmarkParams params = result.getParams();
+			Map<String, String> paramValues = new HashMap<String, String>();
+			for (Object name : params.getParamsKeys()) {
+				paramValues.put((String) name, params.getParam((String) name));
+			}
+			String key = BaselineReport.keyFor(params.getBenchmark(), paramValues, params.getMode());
+			report.addScore(key, result.getPrimaryResult().getScore());
+			if (params.getMode() == Mode.SampleTime) {
+				Statistics statistics = result.getPrimaryResult().getStatistics();
+				for (double percentile : PERCENTILES) {
+					report.addScore(key + ":p" + (int) percentile, statistics.getPercentile(percentile));
+				}
+			}
+		}
+
+		String resultsFile = System.getProperty("benchmark.results");
+		if (resultsFile != null) {
+			report.store(new File(resultsFile));
+			System.out.println("Benchmark results written to " + resultsFile);
+		}
+		String baselineFile = System.getProperty("benchmark.baseline");
+		if (baselineFile != null) {
+			double threshold = Double.parseDouble(System.getProperty("benchmark.threshold", "10"));
+			List<String> regressions = report.compareTo(BaselineReport.load(new File(baselineFile)), threshold, System.out);
+			if (!regressions.isEmpty()) {
+				System.out.println(regressions.size() + " benchmark(s) regressed by more than " + threshold + "%");
+				if (Boolean.getBoolean("benchmark.failOnRegression")) {
+					System.exit(1);
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.benchmarks;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.integration.Message;
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.channel.ExecutorChannel;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.core.MessageHandler;
+import org.springframework.integration.support.MessageBuilder;
+
+/**
+ * Measures the per-message cost of sending through the point-to-point
+ * channel implementations. The ExecutorChannel suite is run with a varying
+ * number of dispatcher threads; the QueueChannel suite has both a
+ * single-threaded send/receive pair and a producer/consumer group.
+ *
+ * @since 2.1
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChannelBenchmarks {
+
+	private static final Message<String> MESSAGE = MessageBuilder.withPayload("benchmark").build();
+
+
+	@Benchmark
+	public boolean directChannelSend(DirectChannelState state) {
+		return state.channel.send(MESSAGE);
+	}
+
+	@Benchmark
+	public boolean executorChannelSend(ExecutorChannelState state) {
+		return state.channel.send(MESSAGE);
+	}
+
+	@Benchmark
+	public Message<?> queueChannelSendAndReceive(QueueChannelState state) {
+		state.channel.send(MESSAGE);
+		return state.channel.receive(0);
+	}
+
+	@Benchmark
+	@Group("queueChannel")
+	@GroupThreads(1)
+	public boolean queueChannelProducer(SharedQueueChannelState state) {
+		return state.channel.send(MESSAGE, 0);
+	}
+
+	@Benchmark
+	@Group("queueChannel")
+	@GroupThreads(1)
+	public Message<?> queueChannelConsumer(SharedQueueChannelState state) {
+		return state.channel.receive(0);
+	}
+
+
+	@State(Scope.Thread)
+	public static class DirectChannelState {
+
+		private final DirectChannel channel = new DirectChannel();
+
+		@Setup
+		public void setup() {
+			this.channel.subscribe(new CountingHandler());
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class ExecutorChannelState {
+
+		@Param({"1", "4"})
+		private int dispatcherThreads;
+
+		private ThreadPoolExecutor executor;
+
+		private ExecutorChannel channel;
+
+		@Setup
+		public void setup() {
+			// the bounded queue and caller-runs policy apply back pressure to the senders
+			this.executor = new ThreadPoolExecutor(this.dispatcherThreads, this.dispatcherThreads,
+					0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(1024),
+					new ThreadPoolExecutor.CallerRunsPolicy());
+			this.channel = new ExecutorChannel(this.executor);
+			this.channel.subscribe(new CountingHandler());
+		}
+
+		@TearDown
+		public void tearDown() throws InterruptedException {
+			this.executor.shutdown();
+			this.executor.awaitTermination(10, TimeUnit.SECONDS);
+		}
+	}
+
+
+	@State(Scope.Thread)
+	public static class QueueChannelState {
+
+		private final QueueChannel channel = new QueueChannel();
+	}
+
+
+	@State(Scope.Group)
+	public static class SharedQueueChannelState {
+
+		private final QueueChannel channel = new QueueChannel(1024);
+	}
+
+
+	private static class CountingHandler implements MessageHandler {
+
+		private final AtomicLong count = new AtomicLong();
+
+		public void handleMessage(Message<?> message) {
+			this.count.incrementAndGet();
+		}
+	}
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.integration.Message;
+import org.springframework.integration.MessageHeaders;
+import org.springframework.integration.support.MessageBuilder;
+
+/**
+ * Measures the cost of creating messages and their headers, including the
+ * generation of the message id.
+ *
+ * @since 2.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageBenchmarks {
+
+	@Param({"16", "1024", "65536"})
+	private int payloadSize;
+
+	@Param({"0", "4", "16"})
+	private int headerCount;
+
+	private byte[] payload;
+
+	private Map<String, Object> headers;
+
+	private Message<byte[]> message;
+
+
+	@Setup
+	public void setup() {
+		this.payload = new byte[this.payloadSize];
+		this.headers = new HashMap<String, Object>();
+		for (int i = 0; i < this.headerCount; i++) {
+			this.headers.put("header" + i, "value" + i);
+		}
+		this.message = MessageBuilder.withPayload(this.payload).copyHeaders(this.headers).build();
+	}
+
+
+	@Benchmark
+	public Message<byte[]> buildMessage() {
+		return MessageBuilder.withPayload(this.payload).copyHeaders(this.headers).build();
+	}
+
+	@Benchmark
+	public Message<byte[]> copyMessageAndSetHeader() {
+		return MessageBuilder.fromMessage(this.message).setHeader("benchmark", "value").build();
+	}
+
+	@Benchmark
+	public MessageHeaders createMessageHeaders() {
+		return new MessageHeaders(this.headers);
+	}
+
+}
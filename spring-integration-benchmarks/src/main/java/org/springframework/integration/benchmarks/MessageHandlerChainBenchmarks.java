@@ -0,0 +1,91 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.integration.Message;
+import org.springframework.integration.channel.NullChannel;
+import org.springframework.integration.core.MessageHandler;
+import org.springframework.integration.handler.AbstractReplyProducingMessageHandler;
+import org.springframework.integration.handler.MessageHandlerChain;
+import org.springframework.integration.support.MessageBuilder;
+
+/**
+ * Measures the traversal cost of a {@link MessageHandlerChain} made of
+ * pass-through handlers, as a function of the chain length.
+ *
+ * @since 2.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageHandlerChainBenchmarks {
+
+	@Param({"1", "4", "16"})
+	private int chainLength;
+
+	private final Message<String> message = MessageBuilder.withPayload("benchmark").build();
+
+	private MessageHandlerChain chain;
+
+
+	@Setup
+	public void setup() throws Exception {
+		List<MessageHandler> handlers = new ArrayList<MessageHandler>();
+		for (int i = 0; i < this.chainLength; i++) {
+			handlers.add(new PassThroughHandler());
+		}
+		this.chain = new MessageHandlerChain();
+		this.chain.setHandlers(handlers);
+		this.chain.setOutputChannel(new NullChannel());
+		this.chain.afterPropertiesSet();
+	}
+
+
+	@Benchmark
+	public void handleMessage() {
+		this.chain.handleMessage(this.message);
+	}
+
+
+	private static class PassThroughHandler extends AbstractReplyProducingMessageHandler {
+
+		@Override
+		protected Object handleRequestMessage(Message<?> requestMessage) {
+			return requestMessage;
+		}
+	}
+
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.benchmarks;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.integration.Message;
+import org.springframework.integration.aggregator.AggregatingMessageHandler;
+import org.springframework.integration.aggregator.DefaultAggregatingMessageGroupProcessor;
+import org.springframework.integration.channel.NullChannel;
+import org.springframework.integration.store.MessageGroup;
+import org.springframework.integration.store.MessageGroupCallback;
+import org.springframework.integration.store.MessageGroupQueue;
+import org.springframework.integration.store.MessageGroupStore;
+import org.springframework.integration.support.MessageBuilder;
+
+/**
+ * Drives each {@link MessageGroupStore} implementation through the same
+ * workloads, as a function of the message group size:
+ * <ul>
+ * <li>adding messages to a group, which is removed once it is full</li>
+ * <li>correlating and releasing a complete group through an aggregator</li>
+ * <li>expiring a full group as the reaper does</li>
+ * <li>polling from and offering to a {@link MessageGroupQueue} holding a full group</li>
+ * </ul>
+ * This class reports throughput; {@link MessageStoreLatencyBenchmarks} runs
+ * the same workloads and reports sampled latency with percentiles.
+ * <p>
+ * Only the self-contained stores are run by default. The others need a local
+ * server and are selected with the storeType parameter, for example
+ * <code>-p storeType=redis,mongodb</code>.
+ *
+ * @since 2.1
+ * @see MessageStoreFixture
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageStoreBenchmarks {
+
+	@Benchmark
+	public MessageGroup addMessageToGroup(StoreState state) {
+		if (state.groupCount == state.groupSize) {
+			state.store.removeMessageGroup(state.groupId);
+			state.groupId = state.newGroupId();
+			state.groupCount = 0;
+		}
+		return state.store.addMessageToGroup(state.groupId, state.messages[state.groupCount++]);
+	}
+
+	@Benchmark
+	public void releaseGroup(AggregatorState state) {
+		String groupId = state.newGroupId();
+		for (int i = 1; i <= state.groupSize; i++) {
+			state.handler.handleMessage(MessageBuilder.withPayload(i)
+					.setCorrelationId(groupId)
+					.setSequenceNumber(i)
+					.setSequenceSize(state.groupSize)
+					.build());
+		}
+	}
+
+	@Benchmark
+	public int expireGroup(ExpiryState state) {
+		return state.store.expireMessageGroups(0);
+	}
+
+	@Benchmark
+	public boolean pollAndOffer(QueueState state) {
+		// keeps the group at its full size by moving the head to the tail
+		return state.queue.offer(state.queue.poll());
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class StoreState {
+
+		@Param({"simple", "jdbc", "gemfire"})
+		private String storeType;
+
+		@Param({"10", "100", "1000"})
+		int groupSize;
+
+		private final String runId = UUID.randomUUID().toString();
+
+		private long groupCounter;
+
+		private MessageStoreFixture fixture;
+
+		MessageGroupStore store;
+
+		String groupId;
+
+		int groupCount;
+
+		Message<?>[] messages;
+
+		@Setup(Level.Trial)
+		public void createStore() throws Exception {
+			this.fixture = MessageStoreFixture.create(this.storeType);
+			this.store = this.fixture.getMessageStore();
+			this.groupId = this.newGroupId();
+			this.messages = new Message<?>[this.groupSize];
+			for (int i = 0; i < this.groupSize; i++) {
+				this.messages[i] = MessageBuilder.withPayload(i).build();
+			}
+			this.initialize();
+		}
+
+		/**
+		 * Invoked once the store has been created; JMH does not guarantee
+		 * the order of the setup methods within a state class hierarchy.
+		 */
+		void initialize() throws Exception {
+		}
+
+		@TearDown(Level.Trial)
+		public void destroyStore() throws Exception {
+			this.store.removeMessageGroup(this.groupId);
+			this.fixture.destroy();
+		}
+
+		/**
+		 * Group ids are unique per run, so that nothing is left behind
+		 * by (or collides with) an earlier run on a shared server.
+		 */
+		String newGroupId() {
+			return this.runId + "-" + this.groupCounter++;
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class AggregatorState extends StoreState {
+
+		AggregatingMessageHandler handler;
+
+		@Override
+		void initialize() throws Exception {
+			this.handler = new AggregatingMessageHandler(new DefaultAggregatingMessageGroupProcessor(), this.store);
+			this.handler.setOutputChannel(new NullChannel());
+			this.handler.setExpireGroupsUponCompletion(true);
+			this.handler.afterPropertiesSet();
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class ExpiryState extends StoreState {
+
+		@Override
+		void initialize() {
+			// as the aggregator does for expired groups
+			this.store.registerMessageGroupExpiryCallback(new MessageGroupCallback() {
+				public void execute(MessageGroupStore messageGroupStore, MessageGroup group) {
+					messageGroupStore.removeMessageGroup(group.getGroupId());
+				}
+			});
+		}
+
+		@Setup(Level.Invocation)
+		public void fillGroup() {
+			String groupId = this.newGroupId();
+			// fresh ids for every group; reusing this.messages would make the groups share messages
+			for (int i = 0; i < this.groupSize; i++) {
+				this.store.addMessageToGroup(groupId, MessageBuilder.withPayload(i).build());
+			}
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class QueueState extends StoreState {
+
+		MessageGroupQueue queue;
+
+		@Override
+		void initialize() {
+			this.queue = new MessageGroupQueue(this.store, this.groupId);
+			for (Message<?> message : this.messages) {
+				this.queue.offer(message);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.benchmarks;
+
+import javax.sql.DataSource;
+
+import org.springframework.data.gemfire.CacheFactoryBean;
+import org.springframework.data.mongodb.MongoDbFactory;
+import org.springframework.data.mongodb.core.SimpleMongoDbFactory;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.integration.gemfire.store.GemfireMessageStore;
+import org.springframework.integration.jdbc.JdbcMessageStore;
+import org.springframework.integration.mongodb.store.MongoDbMessageStore;
+import org.springframework.integration.redis.store.RedisMessageStore;
+import org.springframework.integration.store.MessageGroupStore;
+import org.springframework.integration.store.SimpleMessageStore;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.mongodb.Mongo;
+
+/**
+ * Creates a {@link MessageGroupStore} of a given type together with whatever
+ * it needs to run locally, and releases those resources afterwards.
+ * <p>
+ * The simple, jdbc (embedded H2 or HSQLDB) and gemfire (embedded cache) stores
+ * are self-contained. The redis and mongodb stores connect to a server on
+ * localhost; its port can be changed with the <code>benchmark.redis.port</code>
+ * and <code>benchmark.mongodb.port</code> system properties.
+ *
+ * @since 2.1
+ */
+public abstract class MessageStoreFixture {
+
+	public static MessageStoreFixture create(String storeType) throws Exception {
+		if ("simple".equals(storeType)) {
+			return new SimpleFixture();
+		}
+		if ("jdbc".equals(storeType) || "h2".equals(storeType)) {
+			return new JdbcFixture(EmbeddedDatabaseType.H2, "h2");
+		}
+		if ("hsqldb".equals(storeType)) {
+			return new JdbcFixture(EmbeddedDatabaseType.HSQL, "hsqldb");
+		}
+		if ("gemfire".equals(storeType)) {
+			return new GemfireFixture();
+		}
+		if ("redis".equals(storeType)) {
+			return new RedisFixture(Integer.getInteger("benchmark.redis.port", 6379));
+		}
+		if ("mongodb".equals(storeType)) {
+			return new MongoDbFixture(Integer.getInteger("benchmark.mongodb.port", 27017));
+		}
+		throw new IllegalArgumentException("unknown store type [" + storeType + "], expected one of "
+				+ "simple, jdbc, h2, hsqldb, gemfire, redis or mongodb");
+	}
+
+	public abstract MessageGroupStore getMessageStore();
+
+	public void destroy() throws Exception {
+	}
+
+
+	private static class SimpleFixture extends MessageStoreFixture {
+
+		private final SimpleMessageStore store = new SimpleMessageStore();
+
+		@Override
+		public MessageGroupStore getMessageStore() {
+			return this.store;
+		}
+	}
+
+
+	private static class JdbcFixture extends MessageStoreFixture {
+
+		private final EmbeddedDatabase database;
+
+		private final JdbcMessageStore store;
+
+		JdbcFixture(EmbeddedDatabaseType type, String platform) {
+			this.database = new EmbeddedDatabaseBuilder().setType(type)
+					.addScript("classpath:org/springframework/integration/jdbc/schema-" + platform + ".sql")
+					.build();
+			this.store = new JdbcMessageStore((DataSource) this.database);
+		}
+
+		@Override
+		public MessageGroupStore getMessageStore() {
+			return this.store;
+		}
+
+		@Override
+		public void destroy() {
+			this.database.shutdown();
+		}
+	}
+
+
+	private static class GemfireFixture extends MessageStoreFixture {
+
+		private final Cache cache;
+
+		private final GemfireMessageStore store;
+
+		GemfireFixture() throws Exception {
+			CacheFactoryBean cacheFactoryBean = new CacheFactoryBean();
+			cacheFactoryBean.afterPropertiesSet();
+			this.cache = (Cache) cacheFactoryBean.getObject();
+			this.store = new GemfireMessageStore(this.cache);
+			this.store.afterPropertiesSet();
+		}
+
+		@Override
+		public MessageGroupStore getMessageStore() {
+			return this.store;
+		}
+
+		@Override
+		public void destroy() {
+			this.cache.close();
+		}
+	}
+
+
+	private static class RedisFixture extends MessageStoreFixture {
+
+		private final JedisConnectionFactory connectionFactory;
+
+		private final RedisMessageStore store;
+
+		RedisFixture(int port) {
+			this.connectionFactory = new JedisConnectionFactory();
+			this.connectionFactory.setPort(port);
+			this.connectionFactory.afterPropertiesSet();
+			this.store = new RedisMessageStore(this.connectionFactory);
+		}
+
+		@Override
+		public MessageGroupStore getMessageStore() {
+			return this.store;
+		}
+
+		@Override
+		public void destroy() throws Exception {
+			this.connectionFactory.destroy();
+		}
+	}
+
+
+	private static class MongoDbFixture extends MessageStoreFixture {
+
+		private final MongoDbFactory mongoDbFactory;
+
+		private final MongoDbMessageStore store;
+
+		MongoDbFixture(int port) throws Exception {
+			this.mongoDbFactory = new SimpleMongoDbFactory(new Mongo("localhost", port), "springIntegrationBenchmarks");
+			this.store = new MongoDbMessageStore(this.mongoDbFactory);
+			this.store.afterPropertiesSet();
+		}
+
+		@Override
+		public MessageGroupStore getMessageStore() {
+			return this.store;
+		}
+
+		@Override
+		public void destroy() {
+			// the database is dedicated to the benchmarks
+			this.mongoDbFactory.getDb().dropDatabase();
+		}
+	}
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.benchmarks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Mode;
+
+/**
+ * @since 2.1
+ */
+public class BaselineReportTests {
+
+	@Test
+	public void keyContainsSortedParamsAndMode() {
+		Map<String, String> params = new HashMap<String, String>();
+		params.put("payloadSize", "16");
+		params.put("headerCount", "4");
+		assertEquals("MessageBenchmarks.buildMessage[headerCount=4,payloadSize=16]:thrpt",
+				BaselineReport.keyFor("MessageBenchmarks.buildMessage", params, Mode.Throughput));
+		assertEquals("MessageBenchmarks.buildMessage:avgt",
+				BaselineReport.keyFor("MessageBenchmarks.buildMessage", null, Mode.AverageTime));
+	}
+
+	@Test
+	public void regressionsDependOnMode() {
+		BaselineReport baseline = new BaselineReport();
+		baseline.addScore("a:thrpt", 100);
+		baseline.addScore("b:thrpt", 100);
+		baseline.addScore("c:avgt", 100);
+		baseline.addScore("d:avgt", 100);
+		baseline.addScore("removed:thrpt", 100);
+		BaselineReport current = new BaselineReport();
+		current.addScore("a:thrpt", 80);
+		current.addScore("b:thrpt", 120);
+		current.addScore("c:avgt", 120);
+		current.addScore("d:avgt", 95);
+		current.addScore("added:thrpt", 100);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		List<String> regressions = current.compareTo(baseline, 10, new PrintStream(output));
+		assertEquals(2, regressions.size());
+		assertTrue(regressions.contains("a:thrpt"));
+		assertTrue(regressions.contains("c:avgt"));
+		String report = output.toString();
+		assertTrue(report.contains("new"));
+		assertTrue(report.contains("missing"));
+	}
+
+	@Test
+	public void storeAndLoad() throws Exception {
+		File file = File.createTempFile("baseline", ".properties");
+		file.deleteOnExit();
+		BaselineReport report = new BaselineReport();
+		report.addScore("a[x=1]:thrpt", 12.5);
+		report.store(file);
+		assertEquals(Double.valueOf(12.5), BaselineReport.load(file).getScore("a[x=1]:thrpt"));
+	}
+
+}
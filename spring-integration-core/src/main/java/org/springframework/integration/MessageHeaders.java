@@ -19,11 +19,16 @@ package org.springframework.integration;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -32,6 +37,8 @@ import java.util.UUID;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.springframework.util.Assert;
+
 /**
  * The headers for a {@link Message}.<br>
  * IMPORTANT: MessageHeaders are immutable. Any mutating operation (e.g., put(..), putAll(..) etc.) 
@@ -60,6 +67,8 @@ public final class MessageHeaders implements Map<String, Object>, Serializable {
 	
 	private static volatile IdGenerator idGenerator = null;
 
+	private static volatile boolean deferIdAndTimestamp = false;
+
 	/**
 	 * The key for the Message ID. This is an automatically generated UUID and
 	 * should never be explicitly set in the header map <b>except</b> in the
@@ -87,19 +96,205 @@ public final class MessageHeaders implements Map<String, Object>, Serializable {
 	public static final String SEQUENCE_DETAILS = "sequenceDetails";
 
 
-	private final Map<String, Object> headers;
+	/**
+	 * The number of ancestors whose entries may be shared before a copy is taken
+	 * instead; bounds both the cost of a lookup and the replaced values held on to.
+	 */
+	private static final int MAX_SHARING_DEPTH = 4;
+
+	private static final ObjectStreamField[] serialPersistentFields = {
+			new ObjectStreamField("headers", Map.class) };
+
+
+	/**
+	 * The entries of these headers, or only the entries that differ from
+	 * the parent's if the rest is shared with a parent.
+	 */
+	private volatile Map<String, Object> headers;
+
+	private final MessageHeaders parent;
+
+	private final int depth;
+
+	/**
+	 * The number of entries, including the parent's; only used if there is a parent.
+	 */
+	private final int sharedSize;
+
+	/**
+	 * Whether the ID and TIMESTAMP headers still have to be generated. They are
+	 * added to a copy of the header map the first time either is needed, so that
+	 * the map itself is never modified once other threads may be reading it.
+	 */
+	private transient volatile boolean deferred;
 
 
+	/**
+	 * Create headers with the given entries, except for the ID and TIMESTAMP,
+	 * which are always generated. If the map is another MessageHeaders instance
+	 * or a view created by {@link #overlay(MessageHeaders)}, its entries are
+	 * shared rather than copied, unless the view removes any of them, in which
+	 * case a copy is taken so that the removed values are not held on to.
+	 */
 	public MessageHeaders(Map<String, Object> headers) {
-		this.headers = (headers != null) ? new HashMap<String, Object>(headers) : new HashMap<String, Object>();
-		if (MessageHeaders.idGenerator == null){
-			this.headers.put(ID, UUID.randomUUID());
+		MessageHeaders parent = null;
+		Map<String, Object> map = null;
+		Set<String> removedNames = null;
+		UUID restoredId = null;
+		Long restoredTimestamp = null;
+		if (headers instanceof HeaderOverlay) {
+			HeaderOverlay overlay = (HeaderOverlay) headers;
+			parent = overlay.parent;
+			map = new HashMap<String, Object>(overlay.changes);
+			if (!overlay.removedNames.isEmpty()) {
+				removedNames = overlay.removedNames;
+			}
+			restoredId = overlay.restoredId;
+			restoredTimestamp = overlay.restoredTimestamp;
+		}
+		else if (headers instanceof MessageHeaders) {
+			parent = (MessageHeaders) headers;
+			map = new HashMap<String, Object>();
+		}
+		if (parent != null && (parent.depth >= MAX_SHARING_DEPTH || removedNames != null)) {
+			// flatten, so that lookups never walk a long chain of ancestors
+			// and removed values are not kept reachable through the parent
+			Map<String, Object> merged = new HashMap<String, Object>();
+			parent.collectHeaders(merged);
+			if (removedNames != null) {
+				merged.keySet().removeAll(removedNames);
+			}
+			merged.remove(ID);
+			merged.remove(TIMESTAMP);
+			merged.putAll(map);
+			parent = null;
+			map = merged;
+		}
+		if (map == null) {
+			map = (headers != null) ? new HashMap<String, Object>(headers) : new HashMap<String, Object>();
+		}
+		this.parent = parent;
+		this.depth = (parent != null) ? parent.depth + 1 : 0;
+		int sharedSize = 0;
+		if (parent != null) {
+			// the parent's ID and TIMESTAMP are counted in place of these headers' own
+			sharedSize = parent.size();
+			for (String key : map.keySet()) {
+				if (!ID.equals(key) && !TIMESTAMP.equals(key) && !parent.containsKey(key)) {
+					sharedSize++;
+				}
+			}
+		}
+		this.sharedSize = sharedSize;
+		if (restoredId != null) {
+			map.put(ID, restoredId);
+			map.put(TIMESTAMP, (restoredTimestamp != null) ? restoredTimestamp : new Long(System.currentTimeMillis()));
+		}
+		else if (MessageHeaders.deferIdAndTimestamp) {
+			map.remove(ID);
+			map.remove(TIMESTAMP);
+			this.deferred = true;
+		}
+		else {
+			map.put(ID, generateId());
+			map.put(TIMESTAMP, new Long(System.currentTimeMillis()));
+		}
+		this.headers = map;
+	}
+
+	/**
+	 * Return a modifiable view of the given headers that records changes to them
+	 * instead of copying them, for {@link org.springframework.integration.support.MessageBuilder}.
+	 * MessageHeaders created from the view share the unchanged entries with the
+	 * given ones and, as always, get a new ID and TIMESTAMP.
+	 */
+	public static Map<String, Object> overlay(MessageHeaders headers) {
+		Assert.notNull(headers, "headers must not be null");
+		return new HeaderOverlay(headers, null, null);
+	}
+
+	/**
+	 * Return a modifiable view of the given headers from which MessageHeaders
+	 * with the given ID and TIMESTAMP are created, rather than with new ones.
+	 * This is only meant for restoring a Message that existed before, such as
+	 * one read back by a MessageStore or a MessageCodec; any other use defeats
+	 * the uniqueness of the ID.
+	 * @param headers the headers, may be <code>null</code>; any ID and TIMESTAMP among them are ignored
+	 * @param id the ID
+	 * @param timestamp the TIMESTAMP, or <code>null</code> for the current time
+	 */
+	public static Map<String, Object> restoringOverlay(Map<String, Object> headers, UUID id, Long timestamp) {
+		Assert.notNull(id, "id must not be null");
+		HeaderOverlay overlay;
+		if (headers instanceof HeaderOverlay) {
+			HeaderOverlay original = (HeaderOverlay) headers;
+			overlay = new HeaderOverlay(original.parent, id, timestamp);
+			overlay.changes.putAll(original.changes);
+			overlay.removedNames.addAll(original.removedNames);
+		}
+		else if (headers instanceof MessageHeaders) {
+			overlay = new HeaderOverlay((MessageHeaders) headers, id, timestamp);
 		}
 		else {
-			this.headers.put(ID, MessageHeaders.idGenerator.generateId());
+			overlay = new HeaderOverlay(null, id, timestamp);
+			if (headers != null) {
+				overlay.putAll(headers);
+			}
+		}
+		return overlay;
+	}
+
+	private static UUID generateId() {
+		IdGenerator generator = MessageHeaders.idGenerator;
+		return (generator != null) ? generator.generateId() : UUID.randomUUID();
+	}
+
+	private Map<String, Object> materializedHeaders() {
+		if (this.deferred) {
+			synchronized (this) {
+				if (this.deferred) {
+					Map<String, Object> materialized = new HashMap<String, Object>(this.headers);
+					if (!materialized.containsKey(ID)) {
+						materialized.put(ID, generateId());
+					}
+					if (!materialized.containsKey(TIMESTAMP)) {
+						materialized.put(TIMESTAMP, new Long(System.currentTimeMillis()));
+					}
+					this.headers = materialized;
+					this.deferred = false;
+				}
+			}
+		}
+		return this.headers;
+	}
+
+	/**
+	 * Return all entries of these headers in a single map. Unless the entries
+	 * are all held locally, the map is assembled for each call rather than kept
+	 * for the lifetime of the Message.
+	 */
+	private Map<String, Object> getMergedHeaders() {
+		Map<String, Object> headers = this.materializedHeaders();
+		if (this.parent == null) {
+			return headers;
 		}
-		
-		this.headers.put(TIMESTAMP, new Long(System.currentTimeMillis()));
+		Map<String, Object> merged = new HashMap<String, Object>();
+		this.collectHeaders(merged);
+		return merged;
+	}
+
+	/**
+	 * Add all entries of these headers to the given map, without generating
+	 * deferred ID and TIMESTAMP values.
+	 */
+	private void collectHeaders(Map<String, Object> target) {
+		Map<String, Object> headers = this.headers;
+		if (this.parent != null) {
+			this.parent.collectHeaders(target);
+			target.remove(ID);
+			target.remove(TIMESTAMP);
+		}
+		target.putAll(headers);
 	}
 
 	public UUID getId() {
@@ -142,7 +337,7 @@ public final class MessageHeaders implements Map<String, Object>, Serializable {
 
 	@SuppressWarnings("unchecked")
 	public <T> T get(Object key, Class<T> type) {
-		Object value = this.headers.get(key);
+		Object value = this.get(key);
 		if (value == null) {
 			return null;
 		}
@@ -154,7 +349,7 @@ public final class MessageHeaders implements Map<String, Object>, Serializable {
 	}
 
 	public int hashCode() {
-		return this.headers.hashCode();
+		return this.getMergedHeaders().hashCode();
 	}
 
 	public boolean equals(Object obj) {
@@ -163,13 +358,13 @@ public final class MessageHeaders implements Map<String, Object>, Serializable {
 		}
 		if (obj != null && obj instanceof MessageHeaders) {
 			MessageHeaders other = (MessageHeaders) obj;
-			return this.headers.equals(other.headers);
+			return this.getMergedHeaders().equals(other.getMergedHeaders());
 		}
 		return false;
 	}
 
 	public String toString() {
-		return this.headers.toString();
+		return this.getMergedHeaders().toString();
 	}
 
 	/*
@@ -177,35 +372,71 @@ public final class MessageHeaders implements Map<String, Object>, Serializable {
 	 */
 
 	public boolean containsKey(Object key) {
-		return this.headers.containsKey(key);
+		if (this.deferred && (ID.equals(key) || TIMESTAMP.equals(key))) {
+			return true;
+		}
+		if (this.headers.containsKey(key)) {
+			return true;
+		}
+		return this.parent != null && this.parent.containsKey(key);
 	}
 
 	public boolean containsValue(Object value) {
-		return this.headers.containsValue(value);
+		return this.getMergedHeaders().containsValue(value);
 	}
 
 	public Set<Map.Entry<String, Object>> entrySet() {
-		return Collections.unmodifiableSet(this.headers.entrySet());
+		return Collections.unmodifiableSet(this.getMergedHeaders().entrySet());
 	}
 
 	public Object get(Object key) {
-		return this.headers.get(key);
+		if (this.deferred && (ID.equals(key) || TIMESTAMP.equals(key))) {
+			return this.materializedHeaders().get(key);
+		}
+		Map<String, Object> headers = this.headers;
+		Object value = headers.get(key);
+		if (value != null || this.parent == null || headers.containsKey(key)) {
+			return value;
+		}
+		return this.parent.get(key);
 	}
 
 	public boolean isEmpty() {
-		return this.headers.isEmpty();
+		return !this.deferred && this.parent == null && this.headers.isEmpty();
 	}
 
 	public Set<String> keySet() {
-		return Collections.unmodifiableSet(this.headers.keySet());
+		if (this.deferred) {
+			// the names are known before the values; copying the headers (as
+			// MessageBuilder does) skips ID and TIMESTAMP, so they are not generated
+			Map<String, Object> headers = new HashMap<String, Object>();
+			this.collectHeaders(headers);
+			Set<String> keys = new HashSet<String>(headers.keySet());
+			keys.add(ID);
+			keys.add(TIMESTAMP);
+			return Collections.unmodifiableSet(keys);
+		}
+		return Collections.unmodifiableSet(this.getMergedHeaders().keySet());
 	}
 
 	public int size() {
-		return this.headers.size();
+		if (this.parent != null) {
+			return this.sharedSize;
+		}
+		// deferred ID and TIMESTAMP values are counted before they are generated
+		Map<String, Object> headers = this.headers;
+		int size = headers.size();
+		if (!headers.containsKey(ID)) {
+			size++;
+		}
+		if (!headers.containsKey(TIMESTAMP)) {
+			size++;
+		}
+		return size;
 	}
 
 	public Collection<Object> values() {
-		return Collections.unmodifiableCollection(this.headers.values());
+		return Collections.unmodifiableCollection(this.getMergedHeaders().values());
 	}
 
 	/*
@@ -240,9 +471,14 @@ public final class MessageHeaders implements Map<String, Object>, Serializable {
 	 * Serialization methods
 	 */
 
+	/**
+	 * Headers are always written as a single map of their serializable entries,
+	 * so that shared entries are not written more than once.
+	 */
 	private void writeObject(ObjectOutputStream out) throws IOException {
+		Map<String, Object> headers = new HashMap<String, Object>(this.getMergedHeaders());
 		List<String> keysToRemove = new ArrayList<String>();
-		for (Map.Entry<String, Object> entry : this.headers.entrySet()) {
+		for (Map.Entry<String, Object> entry : headers.entrySet()) {
 			if (!(entry.getValue() instanceof Serializable)) {
 				keysToRemove.add(entry.getKey());
 			}
@@ -251,16 +487,143 @@ public final class MessageHeaders implements Map<String, Object>, Serializable {
 			if (logger.isInfoEnabled()) {
 				logger.info("removing non-serializable header: " + key);
 			}
-			this.headers.remove(key);
+			headers.remove(key);
 		}
-		out.defaultWriteObject();
+		ObjectOutputStream.PutField fields = out.putFields();
+		fields.put("headers", headers);
+		out.writeFields();
 	}
 
 	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
 		in.defaultReadObject();
 	}
 
+	/**
+	 * Strategy for generating the value of the {@link #ID} header. Built-in
+	 * alternatives to {@link UUID#randomUUID()} are available in the
+	 * <code>org.springframework.integration.support</code> package.
+	 */
 	public static interface IdGenerator {
 		UUID generateId();
 	}
+
+
+	/**
+	 * A modifiable view of existing MessageHeaders that records changes to them
+	 * instead of copying them. MessageHeaders created from it share the unchanged
+	 * entries with the original, so deriving a Message costs in proportion to the
+	 * headers that changed rather than to all of them.
+	 * <p>
+	 * The view does not contain the original ID and TIMESTAMP, and any put into
+	 * it are ignored: the derived headers get new ones, unless the view is created
+	 * by {@link MessageHeaders#restoringOverlay(Map, UUID, Long)}.
+	 */
+	static final class HeaderOverlay extends AbstractMap<String, Object> {
+
+		private final MessageHeaders parent;
+
+		private final UUID restoredId;
+
+		private final Long restoredTimestamp;
+
+		private final Map<String, Object> changes = new HashMap<String, Object>();
+
+		private final Set<String> removedNames = new HashSet<String>();
+
+		HeaderOverlay(MessageHeaders parent, UUID restoredId, Long restoredTimestamp) {
+			this.parent = parent;
+			this.restoredId = restoredId;
+			this.restoredTimestamp = restoredTimestamp;
+		}
+
+		@Override
+		public Object get(Object key) {
+			if (this.changes.containsKey(key)) {
+				return this.changes.get(key);
+			}
+			if (this.parent == null || this.isHidden(key)) {
+				return null;
+			}
+			return this.parent.get(key);
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return this.changes.containsKey(key) || this.isInherited(key);
+		}
+
+		@Override
+		public Object put(String key, Object value) {
+			Object previousValue = this.get(key);
+			this.changes.put(key, value);
+			this.removedNames.remove(key);
+			return previousValue;
+		}
+
+		@Override
+		public Object remove(Object key) {
+			Object previousValue = this.get(key);
+			this.changes.remove(key);
+			if (key instanceof String && this.isInherited(key)) {
+				this.removedNames.add((String) key);
+			}
+			return previousValue;
+		}
+
+		@Override
+		public Set<Map.Entry<String, Object>> entrySet() {
+			return new AbstractSet<Map.Entry<String, Object>>() {
+
+				@Override
+				public Iterator<Map.Entry<String, Object>> iterator() {
+					final Iterator<Map.Entry<String, Object>> iterator = snapshot().entrySet().iterator();
+					return new Iterator<Map.Entry<String, Object>>() {
+
+						private Map.Entry<String, Object> current;
+
+						public boolean hasNext() {
+							return iterator.hasNext();
+						}
+
+						public Map.Entry<String, Object> next() {
+							this.current = iterator.next();
+							return this.current;
+						}
+
+						public void remove() {
+							Assert.state(this.current != null, "next() has not been called");
+							HeaderOverlay.this.remove(this.current.getKey());
+							this.current = null;
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return snapshot().size();
+				}
+			};
+		}
+
+		private Map<String, Object> snapshot() {
+			Map<String, Object> snapshot = new HashMap<String, Object>();
+			if (this.parent != null) {
+				this.parent.collectHeaders(snapshot);
+				snapshot.remove(ID);
+				snapshot.remove(TIMESTAMP);
+				snapshot.keySet().removeAll(this.removedNames);
+			}
+			snapshot.putAll(this.changes);
+			return snapshot;
+		}
+
+		private boolean isInherited(Object key) {
+			return this.parent != null && !this.isHidden(key) && this.parent.containsKey(key);
+		}
+
+		private boolean isHidden(Object key) {
+			return ID.equals(key) || TIMESTAMP.equals(key) || this.removedNames.contains(key);
+		}
+	}
+
 }
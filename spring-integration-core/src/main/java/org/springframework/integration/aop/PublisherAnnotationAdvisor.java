@@ -37,7 +37,7 @@ import org.springframework.beans.factory.BeanFactoryAware;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.integration.MessageChannel;
 import org.springframework.integration.annotation.Publisher;
-import org.springframework.integration.support.channel.BeanFactoryChannelResolver;
+import org.springframework.integration.context.IntegrationContextUtils;
 import org.springframework.util.Assert;
 
 /**
@@ -73,7 +73,7 @@ public class PublisherAnnotationAdvisor extends AbstractPointcutAdvisor implemen
 	}
 
 	public void setBeanFactory(BeanFactory beanFactory) {
-		this.interceptor.setChannelResolver(new BeanFactoryChannelResolver(beanFactory));
+		this.interceptor.setChannelResolver(IntegrationContextUtils.getChannelResolver(beanFactory));
 	}
 
 	public Advice getAdvice() {
@@ -16,30 +16,38 @@
 
 package org.springframework.integration.channel;
 
+import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.Map;
+import java.util.List;
 import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.atomic.AtomicLong;
 
-import org.springframework.beans.DirectFieldAccessor;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessageHeaders;
+import org.springframework.integration.core.MessageSelector;
 import org.springframework.integration.util.UpperBound;
 
 /**
  * A message channel that prioritizes messages based on a {@link Comparator}.
  * The default comparator is based upon the message header's 'priority'.
+ * <p>
+ * Alternatively, the channel can be created for a fixed number of priority
+ * levels, in which case it is backed by a {@link PriorityLevelQueue}. That
+ * avoids the single lock of a comparator-ordered queue, which makes it the
+ * better choice under contention when priorities are small integers.
  * 
  * @author Mark Fisher
  * @author Oleg Zhurakousky
  */
 public class PriorityChannel extends QueueChannel {
 
+	/**
+	 * Bounds the comparator-ordered queue; <code>null</code> when the
+	 * channel is backed by a {@link PriorityLevelQueue}.
+	 */
 	private final UpperBound upperBound;
 	
 	private final AtomicLong sequenceCounter = new AtomicLong();
-	
-	private static final String SEQUENCE_HEADER_NAME = "__priorityChannelSequence__";
 
 
 	/**
@@ -54,6 +62,18 @@ public class PriorityChannel extends QueueChannel {
 		this.upperBound = new UpperBound(capacity);
 	}
 
+	/**
+	 * Create a channel with the specified queue capacity for the priorities
+	 * 0 to <code>priorityLevels - 1</code>, as given by the value of
+	 * {@link MessageHeaders#getPriority()}. If the capacity is a non-positive
+	 * value, the queue will be unbounded.
+	 * @see PriorityLevelQueue
+	 */
+	public PriorityChannel(int capacity, int priorityLevels) {
+		super(new PriorityLevelQueue(priorityLevels, capacity));
+		this.upperBound = null;
+	}
+
 	/**
 	 * Create a channel with the specified queue capacity. Message priority
 	 * will be based upon the value of {@link MessageHeaders#getPriority()}.
@@ -81,30 +101,119 @@ public class PriorityChannel extends QueueChannel {
 	}
 
 
-	@SuppressWarnings({ "rawtypes", "unchecked" })
 	@Override
 	protected boolean doSend(Message<?> message, long timeout) {
+		if (this.upperBound == null) {
+			return super.doSend(message, timeout);
+		}
 		if (!upperBound.tryAcquire(timeout)) {
 			return false;
 		}
-		Map innerMap = (Map) new DirectFieldAccessor(message.getHeaders()).getPropertyValue("headers");
-		innerMap.put(SEQUENCE_HEADER_NAME, sequenceCounter.incrementAndGet());
-		return super.doSend(message, 0);
+		return super.doSend(new SequencedMessage(message, sequenceCounter.incrementAndGet()), 0);
 	}
 
-	@SuppressWarnings({ "rawtypes"})
 	@Override
 	protected Message<?> doReceive(long timeout) {
 		Message<?> message = super.doReceive(timeout);
-
+		if (this.upperBound == null) {
+			return message;
+		}
 		if (message != null) {
-			Map innerMap = (Map) new DirectFieldAccessor(message.getHeaders()).getPropertyValue("headers");
-			innerMap.remove(SEQUENCE_HEADER_NAME);
 			upperBound.release();
+			return ((SequencedMessage) message).message;
 		}
-		return message;
+		return null;
 	}
-	
+
+	@Override
+	protected int doDrain(List<Message<?>> messages, int maxMessages) {
+		if (this.upperBound == null) {
+			return super.doDrain(messages, maxMessages);
+		}
+		int count = 0;
+		Message<?> message;
+		while (count < maxMessages && (message = this.doReceive(0)) != null) {
+			messages.add(message);
+			count++;
+		}
+		return count;
+	}
+
+	@Override
+	public List<Message<?>> clear() {
+		if (this.upperBound == null) {
+			return super.clear();
+		}
+		return this.unwrap(super.clear());
+	}
+
+	@Override
+	public List<Message<?>> purge(final MessageSelector selector) {
+		if (selector == null) {
+			return this.clear();
+		}
+		if (this.upperBound == null) {
+			return super.purge(selector);
+		}
+		return this.unwrap(super.purge(new MessageSelector() {
+			public boolean accept(Message<?> message) {
+				return selector.accept(((SequencedMessage) message).message);
+			}
+		}));
+	}
+
+	/**
+	 * Replace the queue entries removed by {@link #clear()} or
+	 * {@link #purge(MessageSelector)} with the Messages sent, releasing
+	 * their capacity.
+	 */
+	private List<Message<?>> unwrap(List<Message<?>> removed) {
+		List<Message<?>> messages = new ArrayList<Message<?>>(removed.size());
+		for (Message<?> message : removed) {
+			messages.add(((SequencedMessage) message).message);
+			upperBound.release();
+		}
+		return messages;
+	}
+
+
+	/**
+	 * The queue entry for a Message, which records the order in which it
+	 * was sent, so that Messages of equal priority are received in that
+	 * order. This keeps the Message itself untouched.
+	 */
+	private static class SequencedMessage implements Message<Object> {
+
+		private final Message<?> message;
+
+		private final long sequence;
+
+		/**
+		 * The priority header, read once rather than on every comparison.
+		 */
+		private final int priority;
+
+		SequencedMessage(Message<?> message, long sequence) {
+			this.message = message;
+			this.sequence = sequence;
+			Integer priority = message.getHeaders().getPriority();
+			this.priority = (priority != null) ? priority : 0;
+		}
+
+		public MessageHeaders getHeaders() {
+			return this.message.getHeaders();
+		}
+
+		public Object getPayload() {
+			return this.message.getPayload();
+		}
+
+		public String toString() {
+			return this.message.toString();
+		}
+	}
+
+
 	private static class SequenceFallbackComparator implements Comparator<Message<?>> {
 		
 		private final Comparator<Message<?>> targetComparator;
@@ -113,24 +222,24 @@ public class PriorityChannel extends QueueChannel {
 			this.targetComparator = targetComparator;
 		}
 
-		public int compare(Message<?> message1, Message<?> message2) {
+		public int compare(Message<?> entry1, Message<?> entry2) {
+			SequencedMessage sequenced1 = (SequencedMessage) entry1;
+			SequencedMessage sequenced2 = (SequencedMessage) entry2;
+			Message<?> message1 = sequenced1.message;
+			Message<?> message2 = sequenced2.message;
 			int compareResult = 0;
 			if (this.targetComparator != null){
 				compareResult = this.targetComparator.compare(message1, message2);
 			}
 			else {
-				Integer priority1 = message1.getHeaders().getPriority();
-				Integer priority2 = message2.getHeaders().getPriority();
-				
-				priority1 = priority1 != null ? priority1 : 0;
-				priority2 = priority2 != null ? priority2 : 0;
-				compareResult = priority2.compareTo(priority1);
+				int priority1 = sequenced1.priority;
+				int priority2 = sequenced2.priority;
+				compareResult = (priority2 < priority1) ? -1 : ((priority2 == priority1) ? 0 : 1);
 			}
 		
 			if (compareResult == 0){
-				Long sequence1 = (Long) message1.getHeaders().get(SEQUENCE_HEADER_NAME);
-				Long sequence2 = (Long) message2.getHeaders().get(SEQUENCE_HEADER_NAME);
-				compareResult = sequence1.compareTo(sequence2);
+				compareResult = (sequenced1.sequence < sequenced2.sequence) ? -1
+						: ((sequenced1.sequence == sequenced2.sequence) ? 0 : 1);
 			}
 			return compareResult;
 		}
@@ -0,0 +1,362 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.channel;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.integration.Message;
+import org.springframework.integration.MessageHeaders;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link BlockingQueue} that orders Messages by a small number of discrete
+ * priority levels, taken from the {@link MessageHeaders#PRIORITY} header. Messages
+ * with a higher priority are received first, and Messages with the same priority
+ * in the order they were added.
+ * <p>
+ * Each level is a lock-free FIFO queue, and a bitmap records which levels may hold
+ * Messages, so adding and removing a Message takes constant time. A single counter
+ * enforces the capacity. Locks are only taken to wake up threads that wait for
+ * a Message (or for space) to become available.
+ * <p>
+ * A Message without a priority has priority 0. Priorities below 0 or beyond the
+ * highest level are treated as the lowest or highest level, respectively.
+ *
+ * @since 2.1
+ * @see PriorityChannel#PriorityChannel(int, int)
+ */
+public class PriorityLevelQueue extends AbstractQueue<Message<?>> implements BlockingQueue<Message<?>> {
+
+	public static final int MAX_PRIORITY_LEVELS = 64;
+
+
+	private final ConcurrentLinkedQueue<Message<?>>[] levels;
+
+	/**
+	 * Bit n is set when level n may be non-empty; it is always set while it is.
+	 */
+	private final AtomicLong nonEmptyLevels = new AtomicLong();
+
+	private final AtomicInteger count = new AtomicInteger();
+
+	private final int capacity;
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final Condition notEmpty = this.lock.newCondition();
+
+	private final Condition notFull = this.lock.newCondition();
+
+	private final AtomicInteger waitingReceivers = new AtomicInteger();
+
+	private final AtomicInteger waitingSenders = new AtomicInteger();
+
+
+	/**
+	 * Create a queue for priorities 0 to <code>priorityLevels - 1</code>. If the
+	 * capacity is a non-positive value, the queue will be unbounded.
+	 */
+	public PriorityLevelQueue(int priorityLevels, int capacity) {
+		Assert.isTrue(priorityLevels > 0 && priorityLevels <= MAX_PRIORITY_LEVELS,
+				"priorityLevels must be between 1 and " + MAX_PRIORITY_LEVELS);
+		@SuppressWarnings("unchecked")
+		ConcurrentLinkedQueue<Message<?>>[] levels = (ConcurrentLinkedQueue<Message<?>>[]) new ConcurrentLinkedQueue<?>[priorityLevels];
+		this.levels = levels;
+		for (int i = 0; i < priorityLevels; i++) {
+			this.levels[i] = new ConcurrentLinkedQueue<Message<?>>();
+		}
+		this.capacity = (capacity > 0) ? capacity : Integer.MAX_VALUE;
+	}
+
+
+	public int getPriorityLevels() {
+		return this.levels.length;
+	}
+
+	public boolean offer(Message<?> message) {
+		Assert.notNull(message, "message must not be null");
+		if (!this.reserve()) {
+			return false;
+		}
+		int level = this.levelOf(message);
+		this.levels[level].offer(message);
+		this.markNonEmpty(level);
+		this.signalIfWaiting(this.waitingReceivers, this.notEmpty);
+		return true;
+	}
+
+	public boolean offer(Message<?> message, long timeout, TimeUnit unit) throws InterruptedException {
+		if (this.offer(message)) {
+			return true;
+		}
+		long nanos = unit.toNanos(timeout);
+		this.lock.lockInterruptibly();
+		this.waitingSenders.incrementAndGet();
+		try {
+			while (!this.offer(message)) {
+				if (nanos <= 0) {
+					return false;
+				}
+				nanos = this.notFull.awaitNanos(nanos);
+			}
+			return true;
+		}
+		finally {
+			this.waitingSenders.decrementAndGet();
+			this.lock.unlock();
+		}
+	}
+
+	public void put(Message<?> message) throws InterruptedException {
+		if (this.offer(message)) {
+			return;
+		}
+		this.lock.lockInterruptibly();
+		this.waitingSenders.incrementAndGet();
+		try {
+			while (!this.offer(message)) {
+				this.notFull.await();
+			}
+		}
+		finally {
+			this.waitingSenders.decrementAndGet();
+			this.lock.unlock();
+		}
+	}
+
+	public Message<?> poll() {
+		long candidates = this.nonEmptyLevels.get();
+		while (candidates != 0) {
+			int level = 63 - Long.numberOfLeadingZeros(candidates);
+			Message<?> message = this.levels[level].poll();
+			if (this.levels[level].isEmpty()) {
+				this.markEmpty(level);
+			}
+			if (message != null) {
+				this.count.decrementAndGet();
+				this.signalIfWaiting(this.waitingSenders, this.notFull);
+				return message;
+			}
+			candidates &= ~(1L << level);
+		}
+		return null;
+	}
+
+	public Message<?> poll(long timeout, TimeUnit unit) throws InterruptedException {
+		Message<?> message = this.poll();
+		if (message != null) {
+			return message;
+		}
+		long nanos = unit.toNanos(timeout);
+		this.lock.lockInterruptibly();
+		this.waitingReceivers.incrementAndGet();
+		try {
+			while ((message = this.poll()) == null) {
+				if (nanos <= 0) {
+					return null;
+				}
+				nanos = this.notEmpty.awaitNanos(nanos);
+			}
+			return message;
+		}
+		finally {
+			this.waitingReceivers.decrementAndGet();
+			this.lock.unlock();
+		}
+	}
+
+	public Message<?> take() throws InterruptedException {
+		Message<?> message = this.poll();
+		if (message != null) {
+			return message;
+		}
+		this.lock.lockInterruptibly();
+		this.waitingReceivers.incrementAndGet();
+		try {
+			while ((message = this.poll()) == null) {
+				this.notEmpty.await();
+			}
+			return message;
+		}
+		finally {
+			this.waitingReceivers.decrementAndGet();
+			this.lock.unlock();
+		}
+	}
+
+	public Message<?> peek() {
+		for (int level = this.levels.length - 1; level >= 0; level--) {
+			Message<?> message = this.levels[level].peek();
+			if (message != null) {
+				return message;
+			}
+		}
+		return null;
+	}
+
+	public int drainTo(Collection<? super Message<?>> collection) {
+		return this.drainTo(collection, Integer.MAX_VALUE);
+	}
+
+	public int drainTo(Collection<? super Message<?>> collection, int maxElements) {
+		Assert.isTrue(collection != this, "cannot drain a queue to itself");
+		int drained = 0;
+		Message<?> message;
+		while (drained < maxElements && (message = this.poll()) != null) {
+			collection.add(message);
+			drained++;
+		}
+		return drained;
+	}
+
+	@Override
+	public boolean remove(Object object) {
+		for (int level = this.levels.length - 1; level >= 0; level--) {
+			if (this.levels[level].remove(object)) {
+				this.removed();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public Iterator<Message<?>> iterator() {
+		return new LevelIterator();
+	}
+
+	@Override
+	public int size() {
+		return this.count.get();
+	}
+
+	public int remainingCapacity() {
+		return this.capacity - this.count.get();
+	}
+
+	private int levelOf(Message<?> message) {
+		Integer priority = message.getHeaders().getPriority();
+		if (priority == null || priority < 0) {
+			return 0;
+		}
+		return Math.min(priority, this.levels.length - 1);
+	}
+
+	private boolean reserve() {
+		while (true) {
+			int current = this.count.get();
+			if (current >= this.capacity) {
+				return false;
+			}
+			if (this.count.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+	}
+
+	private void removed() {
+		this.count.decrementAndGet();
+		this.signalIfWaiting(this.waitingSenders, this.notFull);
+	}
+
+	private void markNonEmpty(int level) {
+		long bit = 1L << level;
+		while (true) {
+			long current = this.nonEmptyLevels.get();
+			if ((current & bit) != 0 || this.nonEmptyLevels.compareAndSet(current, current | bit)) {
+				return;
+			}
+		}
+	}
+
+	private void markEmpty(int level) {
+		long bit = 1L << level;
+		while (true) {
+			long current = this.nonEmptyLevels.get();
+			if ((current & bit) == 0 || this.nonEmptyLevels.compareAndSet(current, current & ~bit)) {
+				break;
+			}
+		}
+		// a Message may have been added after the level was found empty; its sender
+		// only sets the bit if it saw it set, so the bit has to be restored here
+		if (!this.levels[level].isEmpty()) {
+			this.markNonEmpty(level);
+		}
+	}
+
+	/**
+	 * A waiting thread registers itself before checking the queue again while
+	 * holding the lock, so it either sees the change or is signalled.
+	 */
+	private void signalIfWaiting(AtomicInteger waiting, Condition condition) {
+		if (waiting.get() > 0) {
+			this.lock.lock();
+			try {
+				condition.signal();
+			}
+			finally {
+				this.lock.unlock();
+			}
+		}
+	}
+
+
+	private class LevelIterator implements Iterator<Message<?>> {
+
+		private int level = levels.length;
+
+		private Iterator<Message<?>> current;
+
+		private Iterator<Message<?>> last;
+
+		public boolean hasNext() {
+			while (this.current == null || !this.current.hasNext()) {
+				if (this.level == 0) {
+					return false;
+				}
+				this.current = levels[--this.level].iterator();
+			}
+			return true;
+		}
+
+		public Message<?> next() {
+			if (!this.hasNext()) {
+				throw new NoSuchElementException();
+			}
+			this.last = this.current;
+			return this.current.next();
+		}
+
+		public void remove() {
+			Assert.state(this.last != null, "next() has not been called");
+			this.last.remove();
+			this.last = null;
+			PriorityLevelQueue.this.removed();
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2011 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -31,7 +31,11 @@ import org.springframework.util.Assert;
  * a {@link BlockingQueue} whose capacity may be specified upon construction.
  * The capacity must be a positive integer value. For a zero-capacity version
  * based upon a {@link java.util.concurrent.SynchronousQueue}, consider the
- * {@link RendezvousChannel}.
+ * {@link RendezvousChannel}. For high throughput with a pre-sized queue,
+ * consider providing a {@link RingBufferQueue}.
+ * <p>
+ * Consumers may receive several Messages at once, see
+ * {@link #setReceiveBatchSize(int)}.
  * 
  * @author Mark Fisher
  * @author Oleg Zhurakousky
@@ -40,6 +44,8 @@ public class QueueChannel extends AbstractPollableChannel {
 
 	private final BlockingQueue<Message<?>> queue;
 
+	private volatile int receiveBatchSize = 1;
+
 	/**
 	 * Create a channel with the specified queue.
 	 */
@@ -67,6 +73,54 @@ public class QueueChannel extends AbstractPollableChannel {
 	}
 
 
+	/**
+	 * Set the maximum number of Messages a polling consumer should take from
+	 * this channel at once (default 1). The consumer then waits for the first
+	 * Message only and takes whichever others are available along with it,
+	 * which saves a round trip through the queue per Message.
+	 * @see #receiveBatch(long)
+	 */
+	public void setReceiveBatchSize(int receiveBatchSize) {
+		Assert.isTrue(receiveBatchSize > 0, "receiveBatchSize must be a positive integer");
+		this.receiveBatchSize = receiveBatchSize;
+	}
+
+	public int getReceiveBatchSize() {
+		return this.receiveBatchSize;
+	}
+
+	/**
+	 * Receive up to the receive batch size number of Messages. The timeout
+	 * applies to the first Message only, as for {@link #receive(long)}. The
+	 * interceptors' preReceive is invoked once per batch, and their
+	 * postReceive once per Message.
+	 * @return the Messages received, which is an empty list if none was
+	 * available within the allotted time
+	 */
+	public List<Message<?>> receiveBatch(long timeout) {
+		List<Message<?>> messages = new ArrayList<Message<?>>();
+		if (!this.getInterceptors().preReceive(this)) {
+			return messages;
+		}
+		Message<?> first = this.getInterceptors().postReceive(this.doReceive(timeout), this);
+		if (first == null) {
+			return messages;
+		}
+		messages.add(first);
+		int batchSize = this.receiveBatchSize;
+		if (batchSize > 1) {
+			List<Message<?>> others = new ArrayList<Message<?>>(batchSize - 1);
+			this.doDrain(others, batchSize - 1);
+			for (Message<?> message : others) {
+				message = this.getInterceptors().postReceive(message, this);
+				if (message != null) {
+					messages.add(message);
+				}
+			}
+		}
+		return messages;
+	}
+
 	protected boolean doSend(Message<?> message, long timeout) {
 		Assert.notNull(message, "'message' must not be null");
 		try {
@@ -101,6 +155,15 @@ public class QueueChannel extends AbstractPollableChannel {
 		}
 	}
 
+	/**
+	 * Take up to the given number of Messages that are immediately available.
+	 * Subclasses that do not queue the Messages as sent must override this
+	 * method as well as {@link #doReceive(long)}.
+	 */
+	protected int doDrain(List<Message<?>> messages, int maxMessages) {
+		return this.queue.drainTo(messages, maxMessages);
+	}
+
 	/**
 	 * Remove all {@link Message Messages} from this channel.
 	 */
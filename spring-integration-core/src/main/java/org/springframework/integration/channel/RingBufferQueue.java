@@ -0,0 +1,449 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.channel;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.integration.Message;
+import org.springframework.util.Assert;
+
+/**
+ * A bounded {@link BlockingQueue} of Messages backed by an array that is
+ * allocated upon construction and reused as a ring. Senders and receivers
+ * claim slots with a single compare-and-set each, so no node is allocated
+ * per Message and neither side takes a lock while the queue is neither
+ * empty nor full. {@link #drainTo(Collection, int)} claims all available
+ * slots up to the given maximum at once.
+ * <p>
+ * How a thread waits for a Message (or for space) is determined by the
+ * {@link WaitStrategy}. Only {@link WaitStrategy#BLOCKING} needs a lock, and
+ * then only to signal threads that are actually waiting.
+ * <p>
+ * Removing a Message other than the head (as done when purging a channel)
+ * leaves its slot empty; the capacity it occupies is released once the
+ * receivers have moved past it.
+ *
+ * @since 2.1
+ * @see QueueChannel#QueueChannel(BlockingQueue)
+ */
+public class RingBufferQueue extends AbstractQueue<Message<?>> implements BlockingQueue<Message<?>> {
+
+	/**
+	 * The ways a thread can wait for a Message or for space in the queue.
+	 */
+	public static enum WaitStrategy {
+
+		/**
+		 * Wait on a lock condition until signalled. This uses the least
+		 * CPU, but a sender or receiver has to take the lock whenever
+		 * another thread is waiting.
+		 */
+		BLOCKING,
+
+		/**
+		 * Spin for a while, then park for short periods. No thread is ever
+		 * signalled, so a waiting thread may react up to one period late.
+		 */
+		SPIN_THEN_PARK,
+
+		/**
+		 * Spin for a while, then yield the processor between attempts. This
+		 * reacts fastest, at the cost of keeping a core busy while waiting.
+		 */
+		YIELDING
+	}
+
+
+	private static final int SPIN_TRIES = 100;
+
+	private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+	/**
+	 * Marks the slot of a Message that was removed before it was received.
+	 */
+	private static final Object REMOVED = new Object();
+
+
+	private final int capacity;
+
+	private final AtomicReferenceArray<Object> slots;
+
+	/**
+	 * The position a slot is ready for: a sender may fill the slot at position
+	 * p when its sequence is p, and a receiver may empty it when it is p + 1.
+	 */
+	private final AtomicLongArray sequences;
+
+	private final AtomicLong sendPosition = new AtomicLong();
+
+	private final AtomicLong receivePosition = new AtomicLong();
+
+	private final AtomicInteger removedCount = new AtomicInteger();
+
+	private final WaitStrategy waitStrategy;
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final Condition notEmpty = this.lock.newCondition();
+
+	private final Condition notFull = this.lock.newCondition();
+
+	private final AtomicInteger waitingReceivers = new AtomicInteger();
+
+	private final AtomicInteger waitingSenders = new AtomicInteger();
+
+
+	/**
+	 * Create a queue of the given capacity whose threads wait by blocking.
+	 */
+	public RingBufferQueue(int capacity) {
+		this(capacity, WaitStrategy.BLOCKING);
+	}
+
+	/**
+	 * Create a queue of the given capacity whose threads wait according to
+	 * the given strategy.
+	 */
+	public RingBufferQueue(int capacity, WaitStrategy waitStrategy) {
+		Assert.isTrue(capacity > 0, "capacity must be a positive integer");
+		Assert.notNull(waitStrategy, "waitStrategy must not be null");
+		this.capacity = capacity;
+		this.slots = new AtomicReferenceArray<Object>(capacity);
+		this.sequences = new AtomicLongArray(capacity);
+		for (int i = 0; i < capacity; i++) {
+			this.sequences.set(i, i);
+		}
+		this.waitStrategy = waitStrategy;
+	}
+
+
+	public WaitStrategy getWaitStrategy() {
+		return this.waitStrategy;
+	}
+
+	public boolean offer(Message<?> message) {
+		Assert.notNull(message, "message must not be null");
+		long position = this.sendPosition.get();
+		while (true) {
+			int index = this.indexOf(position);
+			long available = this.sequences.get(index) - position;
+			if (available == 0) {
+				if (this.sendPosition.compareAndSet(position, position + 1)) {
+					this.slots.set(index, message);
+					this.sequences.set(index, position + 1);
+					this.signalIfWaiting(this.waitingReceivers, this.notEmpty);
+					return true;
+				}
+				position = this.sendPosition.get();
+			}
+			else if (available < 0) {
+				// the slot still holds the Message sent one round earlier
+				return false;
+			}
+			else {
+				position = this.sendPosition.get();
+			}
+		}
+	}
+
+	public boolean offer(Message<?> message, long timeout, TimeUnit unit) throws InterruptedException {
+		return this.offer(message, unit.toNanos(timeout), true);
+	}
+
+	public void put(Message<?> message) throws InterruptedException {
+		this.offer(message, 0, false);
+	}
+
+	public Message<?> poll() {
+		while (true) {
+			long position = this.receivePosition.get();
+			int index = this.indexOf(position);
+			long available = this.sequences.get(index) - (position + 1);
+			if (available < 0) {
+				return null;
+			}
+			if (available == 0 && this.receivePosition.compareAndSet(position, position + 1)) {
+				Message<?> message = this.release(index, position);
+				this.signalIfWaiting(this.waitingSenders, this.notFull);
+				if (message != null) {
+					return message;
+				}
+			}
+		}
+	}
+
+	public Message<?> poll(long timeout, TimeUnit unit) throws InterruptedException {
+		return this.poll(unit.toNanos(timeout), true);
+	}
+
+	public Message<?> take() throws InterruptedException {
+		return this.poll(0, false);
+	}
+
+	public Message<?> peek() {
+		long position = this.receivePosition.get();
+		long end = this.sendPosition.get();
+		for (; position < end; position++) {
+			Object value = this.slots.get(this.indexOf(position));
+			if (value instanceof Message) {
+				return (Message<?>) value;
+			}
+		}
+		return null;
+	}
+
+	public int drainTo(Collection<? super Message<?>> collection) {
+		return this.drainTo(collection, Integer.MAX_VALUE);
+	}
+
+	public int drainTo(Collection<? super Message<?>> collection, int maxElements) {
+		Assert.isTrue(collection != this, "cannot drain a queue to itself");
+		int drained = 0;
+		while (drained < maxElements) {
+			long position = this.receivePosition.get();
+			int claimable = 0;
+			int limit = Math.min(maxElements - drained, this.capacity);
+			while (claimable < limit && this.sequences.get(this.indexOf(position + claimable)) == position + claimable + 1) {
+				claimable++;
+			}
+			if (claimable == 0) {
+				if (this.receivePosition.get() == position) {
+					break;
+				}
+				continue;
+			}
+			if (this.receivePosition.compareAndSet(position, position + claimable)) {
+				for (int i = 0; i < claimable; i++) {
+					Message<?> message = this.release(this.indexOf(position + i), position + i);
+					if (message != null) {
+						collection.add(message);
+						drained++;
+					}
+				}
+				this.signalIfWaiting(this.waitingSenders, this.notFull);
+			}
+		}
+		return drained;
+	}
+
+	/**
+	 * Removes the given Message if it has been sent but not yet received.
+	 */
+	@Override
+	public boolean remove(Object object) {
+		if (object == null) {
+			return false;
+		}
+		long end = this.sendPosition.get();
+		for (long position = this.receivePosition.get(); position < end; position++) {
+			if (this.slots.compareAndSet(this.indexOf(position), object, REMOVED)) {
+				this.removedCount.incrementAndGet();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns a weakly consistent iterator over a snapshot of the Messages
+	 * that have been sent but not yet received. Removal through the iterator
+	 * behaves like {@link #remove(Object)}.
+	 */
+	@Override
+	public Iterator<Message<?>> iterator() {
+		List<Message<?>> snapshot = new ArrayList<Message<?>>();
+		long end = this.sendPosition.get();
+		for (long position = this.receivePosition.get(); position < end; position++) {
+			Object value = this.slots.get(this.indexOf(position));
+			if (value instanceof Message) {
+				snapshot.add((Message<?>) value);
+			}
+		}
+		final Iterator<Message<?>> iterator = snapshot.iterator();
+		return new Iterator<Message<?>>() {
+
+			private Message<?> last;
+
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			public Message<?> next() {
+				this.last = iterator.next();
+				return this.last;
+			}
+
+			public void remove() {
+				Assert.state(this.last != null, "next() has not been called");
+				RingBufferQueue.this.remove(this.last);
+				this.last = null;
+			}
+		};
+	}
+
+	@Override
+	public int size() {
+		long occupied = this.sendPosition.get() - this.receivePosition.get() - this.removedCount.get();
+		return (int) Math.max(0, Math.min(occupied, this.capacity));
+	}
+
+	public int remainingCapacity() {
+		long occupied = this.sendPosition.get() - this.receivePosition.get();
+		return (int) Math.max(0, this.capacity - occupied);
+	}
+
+	private int indexOf(long position) {
+		return (int) (position % this.capacity);
+	}
+
+	/**
+	 * Empties a claimed slot and makes it available to the sender one round
+	 * ahead. Returns <code>null</code> if its Message had been removed.
+	 */
+	private Message<?> release(int index, long position) {
+		Object value = this.slots.getAndSet(index, null);
+		this.sequences.set(index, position + this.capacity);
+		if (value == REMOVED) {
+			this.removedCount.decrementAndGet();
+			return null;
+		}
+		return (Message<?>) value;
+	}
+
+	private boolean offer(Message<?> message, long nanos, boolean timed) throws InterruptedException {
+		if (this.offer(message)) {
+			return true;
+		}
+		if (timed && nanos <= 0) {
+			return false;
+		}
+		if (this.waitStrategy == WaitStrategy.BLOCKING) {
+			this.lock.lockInterruptibly();
+			this.waitingSenders.incrementAndGet();
+			try {
+				while (!this.offer(message)) {
+					if (!timed) {
+						this.notFull.await();
+					}
+					else if (nanos <= 0) {
+						return false;
+					}
+					else {
+						nanos = this.notFull.awaitNanos(nanos);
+					}
+				}
+				return true;
+			}
+			finally {
+				this.waitingSenders.decrementAndGet();
+				this.lock.unlock();
+			}
+		}
+		long deadline = System.nanoTime() + nanos;
+		for (int attempt = 0; !this.offer(message); attempt++) {
+			if (timed && deadline - System.nanoTime() <= 0) {
+				return false;
+			}
+			this.idle(attempt);
+		}
+		return true;
+	}
+
+	private Message<?> poll(long nanos, boolean timed) throws InterruptedException {
+		Message<?> message = this.poll();
+		if (message != null || (timed && nanos <= 0)) {
+			return message;
+		}
+		if (this.waitStrategy == WaitStrategy.BLOCKING) {
+			this.lock.lockInterruptibly();
+			this.waitingReceivers.incrementAndGet();
+			try {
+				while ((message = this.poll()) == null) {
+					if (!timed) {
+						this.notEmpty.await();
+					}
+					else if (nanos <= 0) {
+						return null;
+					}
+					else {
+						nanos = this.notEmpty.awaitNanos(nanos);
+					}
+				}
+				return message;
+			}
+			finally {
+				this.waitingReceivers.decrementAndGet();
+				this.lock.unlock();
+			}
+		}
+		long deadline = System.nanoTime() + nanos;
+		for (int attempt = 0; (message = this.poll()) == null; attempt++) {
+			if (timed && deadline - System.nanoTime() <= 0) {
+				return null;
+			}
+			this.idle(attempt);
+		}
+		return message;
+	}
+
+	/**
+	 * Backs off after an unsuccessful attempt of a non-blocking wait.
+	 */
+	private void idle(int attempt) throws InterruptedException {
+		if (attempt >= SPIN_TRIES) {
+			if (this.waitStrategy == WaitStrategy.YIELDING) {
+				Thread.yield();
+			}
+			else {
+				LockSupport.parkNanos(PARK_NANOS);
+			}
+		}
+		if (Thread.interrupted()) {
+			throw new InterruptedException();
+		}
+	}
+
+	/**
+	 * A waiting thread registers itself before checking the queue again while
+	 * holding the lock, so it either sees the change or is signalled.
+	 */
+	private void signalIfWaiting(AtomicInteger waiting, Condition condition) {
+		if (waiting.get() > 0) {
+			this.lock.lock();
+			try {
+				condition.signal();
+			}
+			finally {
+				this.lock.unlock();
+			}
+		}
+	}
+
+}
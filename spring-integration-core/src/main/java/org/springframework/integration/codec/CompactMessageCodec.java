@@ -0,0 +1,486 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.serializer.support.SerializationFailedException;
+import org.springframework.integration.Message;
+import org.springframework.integration.MessageHeaders;
+import org.springframework.integration.message.ErrorMessage;
+import org.springframework.integration.message.GenericMessage;
+import org.springframework.util.Assert;
+
+/**
+ * {@link MessageCodec} with a compact binary format. The ID and TIMESTAMP are
+ * written as fixed-width numbers, other header names are written as an index
+ * into a table of well-known names where possible, and values of the common
+ * types (String, byte[], UUID and the primitive wrappers) are written without
+ * any class information.
+ * <p>
+ * Values of other types require Java serialization, which is disabled by default,
+ * since decoding would then deserialize arbitrary objects from the input; this
+ * must never be enabled for input received from untrusted peers. When disabled,
+ * header values of other types are dropped, as non-Serializable values are when
+ * serializing the {@link MessageHeaders}, and a payload of another type cannot be
+ * encoded. When {@link #setJavaSerializationEnabled(boolean) enabled}, such values
+ * are Java-serialized, and {@link #deserialize(InputStream)} also reads a
+ * Java-serialized Message, for compatibility with data written before a store
+ * switched to this codec.
+ * <p>
+ * The length of every String, byte[] and serialized value that is read is checked
+ * against the {@link #setMaxValueLength(int) maximum value length}, and the bytes
+ * are only allocated as they are actually read from the input.
+ * <p>
+ * The table of header names can be extended with application-specific names
+ * through the constructor. Since names are written as their index, the codec
+ * that decodes a Message must have been created with the same names, in the
+ * same order, as the one that encoded it.
+ *
+ * @since 2.1
+ */
+public class CompactMessageCodec implements MessageCodec {
+
+	private static final Log logger = LogFactory.getLog(CompactMessageCodec.class);
+
+	private static final int MAGIC = 0xC1;
+
+	private static final int VERSION = 1;
+
+	/**
+	 * The first byte of a Java serialization stream.
+	 */
+	private static final int JAVA_SERIALIZATION_MAGIC = 0xAC;
+
+	private static final List<String> STANDARD_HEADER_NAMES = Arrays.asList(
+			MessageHeaders.CORRELATION_ID, MessageHeaders.EXPIRATION_DATE, MessageHeaders.PRIORITY,
+			MessageHeaders.SEQUENCE_NUMBER, MessageHeaders.SEQUENCE_SIZE, MessageHeaders.SEQUENCE_DETAILS,
+			MessageHeaders.REPLY_CHANNEL, MessageHeaders.ERROR_CHANNEL);
+
+	private static final int INLINE_NAME = 0;
+
+	private static final int NULL = 0;
+
+	private static final int STRING = 1;
+
+	private static final int BYTES = 2;
+
+	private static final int INTEGER = 3;
+
+	private static final int LONG = 4;
+
+	private static final int BOOLEAN = 5;
+
+	private static final int DOUBLE = 6;
+
+	private static final int FLOAT = 7;
+
+	private static final int SHORT = 8;
+
+	private static final int BYTE = 9;
+
+	private static final int CHARACTER = 10;
+
+	private static final int UUID_VALUE = 11;
+
+	private static final int SERIALIZED = 12;
+
+	private static final int DEFAULT_MAX_VALUE_LENGTH = 10 * 1024 * 1024;
+
+	/**
+	 * Values up to this length are allocated at once when the input
+	 * claims to hold them; longer ones grow as they are read.
+	 */
+	private static final int CHUNK_SIZE = 8192;
+
+
+	private final List<String> headerNames;
+
+	private final Map<String, Integer> headerNameIndexes = new HashMap<String, Integer>();
+
+	private volatile boolean javaSerializationEnabled;
+
+	private volatile int maxValueLength = DEFAULT_MAX_VALUE_LENGTH;
+
+
+	/**
+	 * Create a codec with the well-known {@link MessageHeaders} names as its
+	 * table of header names.
+	 */
+	public CompactMessageCodec() {
+		this(Collections.<String>emptyList());
+	}
+
+	/**
+	 * Create a codec whose table of header names contains the given names
+	 * in addition to the well-known {@link MessageHeaders} names.
+	 */
+	public CompactMessageCodec(List<String> additionalHeaderNames) {
+		Assert.notNull(additionalHeaderNames, "'additionalHeaderNames' must not be null");
+		List<String> headerNames = new ArrayList<String>(STANDARD_HEADER_NAMES);
+		for (String name : additionalHeaderNames) {
+			Assert.hasText(name, "header names must not be empty");
+			if (!headerNames.contains(name)) {
+				headerNames.add(name);
+			}
+		}
+		Assert.isTrue(headerNames.size() < 256, "at most 255 header names are supported");
+		this.headerNames = headerNames;
+		for (int i = 0; i < headerNames.size(); i++) {
+			// index 0 is reserved for names that are written inline
+			this.headerNameIndexes.put(headerNames.get(i), i + 1);
+		}
+	}
+
+
+	/**
+	 * Specify whether values of types without a compact representation are
+	 * Java-serialized, and whether Java-serialized values and Messages are
+	 * read. Only enable this when all input comes from a trusted source, such
+	 * as a MessageStore that only this application writes to.
+	 * <p>
+	 * Default is 'false'.
+	 */
+	public void setJavaSerializationEnabled(boolean javaSerializationEnabled) {
+		this.javaSerializationEnabled = javaSerializationEnabled;
+	}
+
+	/**
+	 * Specify the maximum length in bytes of a single String, byte[] or
+	 * serialized value that is decoded. Input that claims a longer value is
+	 * rejected before any memory is allocated for it.
+	 * <p>
+	 * Default is 10MB.
+	 */
+	public void setMaxValueLength(int maxValueLength) {
+		Assert.isTrue(maxValueLength > 0, "'maxValueLength' must be greater than 0");
+		this.maxValueLength = maxValueLength;
+	}
+
+	public byte[] encode(Message<?> message) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		try {
+			this.serialize(message, bytes);
+		}
+		catch (IOException e) {
+			throw new SerializationFailedException("failed to encode Message", e);
+		}
+		return bytes.toByteArray();
+	}
+
+	public Message<?> decode(byte[] bytes) {
+		Assert.notNull(bytes, "bytes must not be null");
+		try {
+			return this.deserialize(new ByteArrayInputStream(bytes));
+		}
+		catch (IOException e) {
+			throw new SerializationFailedException("failed to decode Message", e);
+		}
+	}
+
+	public void serialize(Message<?> message, OutputStream outputStream) throws IOException {
+		Assert.notNull(message, "message must not be null");
+		DataOutputStream out = new DataOutputStream(outputStream);
+		out.writeByte(MAGIC);
+		out.writeByte(VERSION);
+		MessageHeaders headers = message.getHeaders();
+		UUID id = headers.getId();
+		out.writeLong(id.getMostSignificantBits());
+		out.writeLong(id.getLeastSignificantBits());
+		out.writeLong(headers.getTimestamp());
+		List<Map.Entry<String, Object>> entries = new ArrayList<Map.Entry<String, Object>>(headers.size());
+		for (Map.Entry<String, Object> entry : headers.entrySet()) {
+			String name = entry.getKey();
+			if (MessageHeaders.ID.equals(name) || MessageHeaders.TIMESTAMP.equals(name)) {
+				continue;
+			}
+			if (!this.isEncodable(entry.getValue())) {
+				if (logger.isInfoEnabled()) {
+					logger.info("removing header that cannot be encoded: " + name);
+				}
+				continue;
+			}
+			entries.add(entry);
+		}
+		out.writeShort(entries.size());
+		for (Map.Entry<String, Object> entry : entries) {
+			Integer index = this.headerNameIndexes.get(entry.getKey());
+			if (index != null) {
+				out.writeByte(index);
+			}
+			else {
+				out.writeByte(INLINE_NAME);
+				this.writeString(entry.getKey(), out);
+			}
+			this.writeValue(entry.getValue(), out);
+		}
+		if (!this.isEncodable(message.getPayload())) {
+			throw new SerializationFailedException("cannot encode payload of type ["
+					+ message.getPayload().getClass().getName() + "], it requires Java serialization, which is "
+					+ (this.javaSerializationEnabled ? "only supported for Serializable objects" : "not enabled"));
+		}
+		this.writeValue(message.getPayload(), out);
+		out.flush();
+	}
+
+	public Message<?> deserialize(InputStream inputStream) throws IOException {
+		PushbackInputStream pushback = new PushbackInputStream(inputStream, 1);
+		int first = pushback.read();
+		if (first < 0) {
+			throw new EOFException();
+		}
+		if (first == JAVA_SERIALIZATION_MAGIC) {
+			this.assertJavaSerializationEnabled();
+			pushback.unread(first);
+			Object object = this.readSerialized(pushback);
+			if (!(object instanceof Message)) {
+				throw new StreamCorruptedException("expected a serialized Message but found: " + object);
+			}
+			return (Message<?>) object;
+		}
+		DataInputStream in = new DataInputStream(pushback);
+		if (first != MAGIC) {
+			throw new StreamCorruptedException("not an encoded Message");
+		}
+		int version = in.readUnsignedByte();
+		if (version != VERSION) {
+			throw new StreamCorruptedException("unsupported version: " + version);
+		}
+		UUID id = new UUID(in.readLong(), in.readLong());
+		long timestamp = in.readLong();
+		int headerCount = in.readUnsignedShort();
+		Map<String, Object> headers = new HashMap<String, Object>(headerCount * 2);
+		for (int i = 0; i < headerCount; i++) {
+			int index = in.readUnsignedByte();
+			String name;
+			if (index == INLINE_NAME) {
+				name = this.readString(in);
+			}
+			else if (index <= this.headerNames.size()) {
+				name = this.headerNames.get(index - 1);
+			}
+			else {
+				throw new StreamCorruptedException("unknown header name index " + index
+						+ ", was the Message encoded with a different table of header names?");
+			}
+			headers.put(name, this.readValue(in));
+		}
+		Object payload = this.readValue(in);
+		// the decoded Message keeps the ID and TIMESTAMP of the encoded one
+		Map<String, Object> restoredHeaders = MessageHeaders.restoringOverlay(headers, id, timestamp);
+		if (payload instanceof Throwable) {
+			return new ErrorMessage((Throwable) payload, restoredHeaders);
+		}
+		return new GenericMessage<Object>(payload, restoredHeaders);
+	}
+
+	private boolean isEncodable(Object value) {
+		if (value == null || hasCompactForm(value)) {
+			return true;
+		}
+		return this.javaSerializationEnabled && value instanceof Serializable;
+	}
+
+	private static boolean hasCompactForm(Object value) {
+		return value instanceof String || value instanceof byte[] || value instanceof Integer
+				|| value instanceof Long || value instanceof Boolean || value instanceof Double
+				|| value instanceof Float || value instanceof Short || value instanceof Byte
+				|| value instanceof Character || value instanceof UUID;
+	}
+
+	private void writeValue(Object value, DataOutputStream out) throws IOException {
+		if (value == null) {
+			out.writeByte(NULL);
+		}
+		else if (value instanceof String) {
+			out.writeByte(STRING);
+			this.writeString((String) value, out);
+		}
+		else if (value instanceof byte[]) {
+			byte[] bytes = (byte[]) value;
+			out.writeByte(BYTES);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+		else if (value instanceof Integer) {
+			out.writeByte(INTEGER);
+			out.writeInt((Integer) value);
+		}
+		else if (value instanceof Long) {
+			out.writeByte(LONG);
+			out.writeLong((Long) value);
+		}
+		else if (value instanceof Boolean) {
+			out.writeByte(BOOLEAN);
+			out.writeBoolean((Boolean) value);
+		}
+		else if (value instanceof Double) {
+			out.writeByte(DOUBLE);
+			out.writeDouble((Double) value);
+		}
+		else if (value instanceof Float) {
+			out.writeByte(FLOAT);
+			out.writeFloat((Float) value);
+		}
+		else if (value instanceof Short) {
+			out.writeByte(SHORT);
+			out.writeShort((Short) value);
+		}
+		else if (value instanceof Byte) {
+			out.writeByte(BYTE);
+			out.writeByte((Byte) value);
+		}
+		else if (value instanceof Character) {
+			out.writeByte(CHARACTER);
+			out.writeChar((Character) value);
+		}
+		else if (value instanceof UUID) {
+			UUID uuid = (UUID) value;
+			out.writeByte(UUID_VALUE);
+			out.writeLong(uuid.getMostSignificantBits());
+			out.writeLong(uuid.getLeastSignificantBits());
+		}
+		else {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+			ObjectOutputStream objectOut = new ObjectOutputStream(bytes);
+			objectOut.writeObject(value);
+			objectOut.flush();
+			out.writeByte(SERIALIZED);
+			out.writeInt(bytes.size());
+			bytes.writeTo(out);
+		}
+	}
+
+	private Object readValue(DataInputStream in) throws IOException {
+		int type = in.readUnsignedByte();
+		switch (type) {
+			case NULL:
+				return null;
+			case STRING:
+				return this.readString(in);
+			case BYTES:
+				return this.readBytes(in);
+			case INTEGER:
+				return in.readInt();
+			case LONG:
+				return in.readLong();
+			case BOOLEAN:
+				return in.readBoolean();
+			case DOUBLE:
+				return in.readDouble();
+			case FLOAT:
+				return in.readFloat();
+			case SHORT:
+				return in.readShort();
+			case BYTE:
+				return in.readByte();
+			case CHARACTER:
+				return in.readChar();
+			case UUID_VALUE:
+				return new UUID(in.readLong(), in.readLong());
+			case SERIALIZED:
+				this.assertJavaSerializationEnabled();
+				return this.readSerialized(new ByteArrayInputStream(this.readBytes(in)));
+			default:
+				throw new StreamCorruptedException("unknown value type " + type);
+		}
+	}
+
+	/**
+	 * Strings are written as their UTF-8 bytes, without the 64K limit of
+	 * {@link DataOutputStream#writeUTF(String)}.
+	 */
+	private void writeString(String value, DataOutputStream out) throws IOException {
+		byte[] bytes = value.getBytes("UTF-8");
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private String readString(DataInputStream in) throws IOException {
+		return new String(this.readBytes(in), "UTF-8");
+	}
+
+	private byte[] readBytes(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			throw new StreamCorruptedException("negative length: " + length);
+		}
+		if (length > this.maxValueLength) {
+			throw new StreamCorruptedException("length " + length
+					+ " exceeds the maximum value length of " + this.maxValueLength);
+		}
+		if (length <= CHUNK_SIZE || length <= in.available()) {
+			byte[] bytes = new byte[length];
+			in.readFully(bytes);
+			return bytes;
+		}
+		// the input may not hold as many bytes as it claims, so only allocate what is read
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(CHUNK_SIZE);
+		byte[] chunk = new byte[CHUNK_SIZE];
+		int remaining = length;
+		while (remaining > 0) {
+			int count = in.read(chunk, 0, Math.min(remaining, CHUNK_SIZE));
+			if (count < 0) {
+				throw new EOFException("expected " + remaining + " more bytes");
+			}
+			bytes.write(chunk, 0, count);
+			remaining -= count;
+		}
+		return bytes.toByteArray();
+	}
+
+	private void assertJavaSerializationEnabled() throws IOException {
+		if (!this.javaSerializationEnabled) {
+			throw new StreamCorruptedException("input contains a Java-serialized value, but Java serialization is not enabled");
+		}
+	}
+
+	private Object readSerialized(InputStream inputStream) throws IOException {
+		ObjectInputStream objectIn = new ObjectInputStream(inputStream);
+		try {
+			return objectIn.readObject();
+		}
+		catch (ClassNotFoundException e) {
+			IOException ioe = new IOException("failed to deserialize object type");
+			ioe.initCause(e);
+			throw ioe;
+		}
+	}
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.codec;
+
+import org.springframework.core.serializer.Deserializer;
+import org.springframework.core.serializer.Serializer;
+import org.springframework.integration.Message;
+
+/**
+ * Strategy for writing a {@link Message} (payload and headers) to bytes and
+ * reading it back, as done by MessageStores and transports that keep or send
+ * the whole Message. A decoded Message has the ID and TIMESTAMP of the
+ * encoded one.
+ *
+ * @since 2.1
+ * @see CompactMessageCodec
+ */
+public interface MessageCodec extends Serializer<Message<?>>, Deserializer<Message<?>> {
+
+	/**
+	 * Encode the Message to a byte array.
+	 * @throws org.springframework.core.serializer.support.SerializationFailedException
+	 * if the Message cannot be encoded
+	 */
+	byte[] encode(Message<?> message);
+
+	/**
+	 * Decode a Message from a byte array produced by {@link #encode(Message)}.
+	 * @throws org.springframework.core.serializer.support.SerializationFailedException
+	 * if the bytes cannot be decoded
+	 */
+	Message<?> decode(byte[] bytes);
+
+}
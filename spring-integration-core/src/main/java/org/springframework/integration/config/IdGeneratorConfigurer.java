@@ -30,48 +30,143 @@ import org.springframework.context.event.ContextClosedEvent;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.integration.MessageHeaders;
 import org.springframework.integration.MessageHeaders.IdGenerator;
+import org.springframework.integration.support.ThreadLocalRandomIdGenerator;
+import org.springframework.integration.support.TimeCounterIdGenerator;
+import org.springframework.util.Assert;
 import org.springframework.util.ReflectionUtils;
 
 /**
+ * Installs the {@link IdGenerator} used for the {@link MessageHeaders#ID} header
+ * of every Message while the ApplicationContext that defines it is running.
+ * A custom IdGenerator bean in the context takes precedence; otherwise one of the
+ * built-in {@link Strategy strategies} may be selected by declaring this class as
+ * a bean, which is then used instead of the instance registered by default:
+ * <pre>
+ * &lt;bean class="org.springframework.integration.config.IdGeneratorConfigurer"&gt;
+ *     &lt;property name="strategy" value="TIME_COUNTER"/&gt;
+ *     &lt;property name="deferIdAndTimestamp" value="true"/&gt;
+ * &lt;/bean&gt;
+ * </pre>
+ * With 'deferIdAndTimestamp', the ID and TIMESTAMP headers are only generated
+ * when they are first read, so Messages that are never inspected for either do
+ * not pay for them. The TIMESTAMP then reflects that first read rather than the
+ * creation of the Message.
+ *
  * @author Oleg Zhurakousky
  * @author Mark Fisher
  * @since 2.0.4
  */
 public final class IdGeneratorConfigurer implements ApplicationListener<ApplicationContextEvent> {
 
+	/**
+	 * The built-in ways of generating Message IDs.
+	 */
+	public static enum Strategy {
+
+		/**
+		 * {@link java.util.UUID#randomUUID()}, the default.
+		 */
+		RANDOM,
+
+		/**
+		 * @see TimeCounterIdGenerator
+		 */
+		TIME_COUNTER,
+
+		/**
+		 * @see ThreadLocalRandomIdGenerator
+		 */
+		THREAD_LOCAL_RANDOM
+	}
+
+
 	private static volatile String generatorContextId;
 
 	private final Log logger = LogFactory.getLog(getClass());
 
+	private volatile Strategy strategy = Strategy.RANDOM;
+
+	private volatile boolean deferIdAndTimestamp;
+
+	private volatile IdGenerator builtInIdGenerator;
+
+
+	/**
+	 * Select the built-in strategy used when the ApplicationContext does
+	 * not contain an {@link IdGenerator} bean.
+	 */
+	public void setStrategy(Strategy strategy) {
+		Assert.notNull(strategy, "strategy must not be null");
+		this.strategy = strategy;
+	}
+
+	/**
+	 * Specify whether the ID and TIMESTAMP headers are generated when first read
+	 * instead of when a Message is created. Default is <code>false</code>.
+	 */
+	public void setDeferIdAndTimestamp(boolean deferIdAndTimestamp) {
+		this.deferIdAndTimestamp = deferIdAndTimestamp;
+	}
+
 	public void onApplicationEvent(ApplicationContextEvent event) {
 		ApplicationContext context = event.getApplicationContext();
 		if (event instanceof ContextRefreshedEvent) {
+			boolean configured = false;
 			boolean contextHasIdGenerator = context.getBeanNamesForType(IdGenerator.class).length > 0;
 			if (contextHasIdGenerator) {
-				if (this.setIdGenerator(context)) {
-					IdGeneratorConfigurer.generatorContextId = context.getId();
-				}
+				configured = this.setIdGenerator(context);
+			}
+			else if (this.strategy != Strategy.RANDOM) {
+				configured = this.setIdGenerator(this.getBuiltInIdGenerator());
+			}
+			if (this.deferIdAndTimestamp) {
+				configured |= this.setDeferIdAndTimestampField(true);
+			}
+			if (configured) {
+				IdGeneratorConfigurer.generatorContextId = context.getId();
 			}
 		}
 		else if (event instanceof ContextClosedEvent) {
 			if (context.getId().equals(IdGeneratorConfigurer.generatorContextId)) {
 				this.unsetIdGenerator();
+				this.setDeferIdAndTimestampField(false);
 				IdGeneratorConfigurer.generatorContextId = null;
 			}
 		}	
 	}
 
+	private IdGenerator getBuiltInIdGenerator() {
+		if (this.builtInIdGenerator == null) {
+			this.builtInIdGenerator = (this.strategy == Strategy.TIME_COUNTER)
+					? new TimeCounterIdGenerator() : new ThreadLocalRandomIdGenerator();
+		}
+		return this.builtInIdGenerator;
+	}
+
 	private boolean setIdGenerator(ApplicationContext context) {
 		try {
 			IdGenerator idGeneratorBean = context.getBean(IdGenerator.class);
 			if (logger.isDebugEnabled()) {
 				logger.debug("using custom MessageHeaders.IdGenerator [" + idGeneratorBean.getClass() + "]");
 			}
+			return this.setIdGenerator(idGeneratorBean);
+		}
+		catch (NoSuchBeanDefinitionException e) {
+			// No custom IdGenerator. We will use the default.
+			if (logger.isDebugEnabled()) {
+				logger.debug("Unable to locate MessageHeaders.IdGenerator. Will use default: UUID.randomUUID()");
+			}
+			return false;
+		}
+	}
+
+	private boolean setIdGenerator(IdGenerator idGenerator) {
+		try {
 			Field idGeneratorField = ReflectionUtils.findField(MessageHeaders.class, "idGenerator");
 			ReflectionUtils.makeAccessible(idGeneratorField);
 			IdGenerator currentIdGenerator = (IdGenerator) ReflectionUtils.getField(idGeneratorField, null);
 			if (currentIdGenerator != null) {
-				if (currentIdGenerator.equals(idGeneratorBean)) {
+				if (currentIdGenerator.equals(idGenerator)) {
 					// same instance is already set, nothing needs to be done
 					return false;
 				}
@@ -81,16 +176,9 @@ public final class IdGeneratorConfigurer implements ApplicationListener<Applicat
 				}
 			}
 			if (logger.isInfoEnabled()) {
-				logger.info("Message IDs will be generated using custom IdGenerator [" + idGeneratorBean.getClass() + "]");
+				logger.info("Message IDs will be generated using custom IdGenerator [" + idGenerator.getClass() + "]");
 			}
-			ReflectionUtils.setField(idGeneratorField, null, idGeneratorBean);
-		}
-		catch (NoSuchBeanDefinitionException e) {
-			// No custom IdGenerator. We will use the default.
-			if (logger.isDebugEnabled()) {
-				logger.debug("Unable to locate MessageHeaders.IdGenerator. Will use default: UUID.randomUUID()");
-			}
-			return false;
+			ReflectionUtils.setField(idGeneratorField, null, idGenerator);
 		}
 		catch (IllegalStateException e) {
 			// thrown from ReflectionUtils
@@ -103,6 +191,24 @@ public final class IdGeneratorConfigurer implements ApplicationListener<Applicat
 		return true;
 	}
 
+	private boolean setDeferIdAndTimestampField(boolean deferIdAndTimestamp) {
+		try {
+			Field deferField = ReflectionUtils.findField(MessageHeaders.class, "deferIdAndTimestamp");
+			ReflectionUtils.makeAccessible(deferField);
+			deferField.setBoolean(null, deferIdAndTimestamp);
+			if (deferIdAndTimestamp && logger.isInfoEnabled()) {
+				logger.info("Message IDs and timestamps will be generated when first read");
+			}
+			return true;
+		}
+		catch (Exception e) {
+			if (logger.isWarnEnabled()) {
+				logger.warn("Unexpected exception occurred while accessing deferIdAndTimestamp of MessageHeaders.", e);
+			}
+			return false;
+		}
+	}
+
 	private void unsetIdGenerator() {
 		try {
 			Field idGeneratorField = ReflectionUtils.findField(MessageHeaders.class, "idGenerator");
@@ -37,7 +37,8 @@ import org.springframework.integration.context.IntegrationContextUtils;
 /**
  * A {@link BeanFactoryPostProcessor} implementation that provides default beans for the error handling and task
  * scheduling if those beans have not already been explicitly defined within the registry. It also registers a single
- * null channel with the bean name "nullChannel".
+ * null channel with the bean name "nullChannel", and a caching channel resolver shared by the components that
+ * resolve channel names per message.
  * 
  * @author Mark Fisher
  * @author Oleg Zhurakousky
@@ -60,6 +61,9 @@ class DefaultConfiguringBeanFactoryPostProcessor implements BeanFactoryPostProce
 			if (!beanFactory.containsBean(IntegrationContextUtils.TASK_SCHEDULER_BEAN_NAME)) {
 				this.registerTaskScheduler(registry);
 			}
+			if (!registry.containsBeanDefinition(IntegrationContextUtils.CHANNEL_RESOLVER_BEAN_NAME)) {
+				this.registerChannelResolver(registry);
+			}
 			this.registerIdGeneratorConfigurer(registry);
 		}
 		else if (logger.isWarnEnabled()) {
@@ -138,6 +142,22 @@ class DefaultConfiguringBeanFactoryPostProcessor implements BeanFactoryPostProce
 		BeanDefinitionReaderUtils.registerBeanDefinition(componentDefinition, registry);
 	}
 
+	/**
+	 * Register a CachingChannelResolver in the given BeanDefinitionRegistry. Only the local registry is checked
+	 * for an existing one, since a parent's resolver does not see the channels of this BeanFactory.
+	 */
+	private void registerChannelResolver(BeanDefinitionRegistry registry) {
+		BeanDefinitionBuilder resolverBuilder = BeanDefinitionBuilder.genericBeanDefinition(
+				IntegrationNamespaceUtils.BASE_PACKAGE + ".support.channel.CachingChannelResolver");
+		resolverBuilder.addConstructorArgValue(BeanDefinitionBuilder.genericBeanDefinition(
+				IntegrationNamespaceUtils.BASE_PACKAGE + ".support.channel.BeanFactoryChannelResolver")
+				.getBeanDefinition());
+		resolverBuilder.setRole(BeanDefinition.ROLE_INFRASTRUCTURE);
+		BeanDefinitionHolder resolverHolder = new BeanDefinitionHolder(resolverBuilder.getBeanDefinition(),
+				IntegrationContextUtils.CHANNEL_RESOLVER_BEAN_NAME);
+		BeanDefinitionReaderUtils.registerBeanDefinition(resolverHolder, registry);
+	}
+
 	/**
 	 * Register a TaskScheduler in the given BeanDefinitionRegistry. 
 	 */
@@ -40,6 +40,10 @@ public class JsonToObjectTransformerParser extends AbstractTransformerParser {
 		if (StringUtils.hasText(objectMapper)) {
 			builder.addConstructorArgReference(objectMapper);
 		}
+		if ("BYTES".equals(element.getAttribute("input-type"))) {
+			builder.getRawBeanDefinition().setBeanClassName(
+					"org.springframework.integration.json.JsonBytesToObjectTransformer");
+		}
 	}
 
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2011 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -38,6 +38,10 @@ public class ObjectToJsonTransformerParser extends AbstractTransformerParser {
 		if (StringUtils.hasText(objectMapper)) {
 			builder.addConstructorArgReference(objectMapper);
 		}
+		if ("BYTES".equals(element.getAttribute("result-type"))) {
+			builder.getRawBeanDefinition().setBeanClassName(
+					"org.springframework.integration.json.ObjectToJsonBytesTransformer");
+		}
 	}
 
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2009 the original author or authors.
+ * Copyright 2002-2011 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -49,28 +49,47 @@ public class PointToPointChannelParser extends AbstractChannelParser {
 		// configure a queue-based channel if any queue sub-element is defined
 		if ((queueElement = DomUtils.getChildElementByTagName(element, "queue")) != null) {
 			builder = BeanDefinitionBuilder.genericBeanDefinition(CHANNEL_PACKAGE + ".QueueChannel");
-			boolean hasStoreRef = this.parseStoreRef(builder, queueElement, element.getAttribute(ID_ATTRIBUTE));
-			boolean hasQueueRef = this.parseQueueRef(builder, queueElement);
-			if (!hasStoreRef) {
-				boolean hasCapacity = this.parseQueueCapacity(builder, queueElement);
-				if (hasCapacity && hasQueueRef) {
+			IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, queueElement, "receive-batch-size");
+			if (StringUtils.hasText(queueElement.getAttribute("wait-strategy"))) {
+				this.parseRingBuffer(builder, queueElement, element, parserContext);
+			}
+			else {
+				boolean hasStoreRef = this.parseStoreRef(builder, queueElement, element.getAttribute(ID_ATTRIBUTE));
+				boolean hasQueueRef = this.parseQueueRef(builder, queueElement);
+				if (!hasStoreRef) {
+					boolean hasCapacity = this.parseQueueCapacity(builder, queueElement);
+					if (hasCapacity && hasQueueRef) {
+						parserContext.getReaderContext().error(
+								"The 'capacity' attribute is not allowed" + " when providing a 'ref' to a custom queue.",
+								element);
+					}
+				}
+				if (hasStoreRef && hasQueueRef) {
 					parserContext.getReaderContext().error(
-							"The 'capacity' attribute is not allowed" + " when providing a 'ref' to a custom queue.",
+							"The 'message-store' attribute is not allowed" + " when providing a 'ref' to a custom queue.",
 							element);
 				}
 			}
-			if (hasStoreRef && hasQueueRef) {
-				parserContext.getReaderContext().error(
-						"The 'message-store' attribute is not allowed" + " when providing a 'ref' to a custom queue.",
-						element);
-			}
 		}
 		else if ((queueElement = DomUtils.getChildElementByTagName(element, "priority-queue")) != null) {
 			builder = BeanDefinitionBuilder.genericBeanDefinition(CHANNEL_PACKAGE + ".PriorityChannel");
-			this.parseQueueCapacity(builder, queueElement);
 			String comparatorRef = queueElement.getAttribute("comparator");
-			if (StringUtils.hasText(comparatorRef)) {
-				builder.addConstructorArgReference(comparatorRef);
+			String priorityLevels = queueElement.getAttribute("priority-levels");
+			if (StringUtils.hasText(priorityLevels)) {
+				if (StringUtils.hasText(comparatorRef)) {
+					parserContext.getReaderContext().error(
+							"The 'comparator' and 'priority-levels' attributes are mutually exclusive.", element);
+				}
+				if (!this.parseQueueCapacity(builder, queueElement)) {
+					builder.addConstructorArgValue("0");
+				}
+				builder.addConstructorArgValue(priorityLevels);
+			}
+			else {
+				this.parseQueueCapacity(builder, queueElement);
+				if (StringUtils.hasText(comparatorRef)) {
+					builder.addConstructorArgReference(comparatorRef);
+				}
 			}
 		}
 		else if ((queueElement = DomUtils.getChildElementByTagName(element, "rendezvous-queue")) != null) {
@@ -150,6 +169,24 @@ public class PointToPointChannelParser extends AbstractChannelParser {
 		return false;
 	}
 
+	private void parseRingBuffer(BeanDefinitionBuilder builder, Element queueElement, Element element,
+			ParserContext parserContext) {
+		if (StringUtils.hasText(queueElement.getAttribute("ref"))
+				|| StringUtils.hasText(queueElement.getAttribute("message-store"))) {
+			parserContext.getReaderContext().error(
+					"The 'wait-strategy' attribute is not allowed with a 'ref' or 'message-store' attribute.", element);
+		}
+		BeanDefinitionBuilder queueBuilder = BeanDefinitionBuilder
+				.genericBeanDefinition(CHANNEL_PACKAGE + ".RingBufferQueue");
+		if (!this.parseQueueCapacity(queueBuilder, queueElement)) {
+			parserContext.getReaderContext().error(
+					"The 'capacity' attribute is required with the 'wait-strategy' attribute.", element);
+		}
+		String waitStrategy = queueElement.getAttribute("wait-strategy");
+		queueBuilder.addConstructorArgValue(waitStrategy.trim().replace('-', '_').toUpperCase());
+		builder.addConstructorArgValue(queueBuilder.getBeanDefinition());
+	}
+
 	private boolean parseQueueRef(BeanDefinitionBuilder builder, Element queueElement) {
 		String queueRef = queueElement.getAttribute("ref");
 		if (StringUtils.hasText(queueRef)) {
@@ -17,10 +17,13 @@
 package org.springframework.integration.context;
 
 import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.HierarchicalBeanFactory;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.integration.MessageChannel;
 import org.springframework.integration.scheduling.PollerMetadata;
 import org.springframework.integration.store.MetadataStore;
+import org.springframework.integration.support.channel.BeanFactoryChannelResolver;
+import org.springframework.integration.support.channel.ChannelResolver;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.util.Assert;
 
@@ -42,6 +45,8 @@ public abstract class IntegrationContextUtils {
 
 	public static final String INTEGRATION_CONVERSION_SERVICE_BEAN_NAME = "integrationConversionService";
 
+	public static final String CHANNEL_RESOLVER_BEAN_NAME = "integrationChannelResolver";
+
 	public static final String DEFAULT_POLLER_METADATA_BEAN_NAME = "org.springframework.integration.context.defaultPollerMetadata";
 
 
@@ -96,6 +101,23 @@ public abstract class IntegrationContextUtils {
 		return getBeanOfType(beanFactory, INTEGRATION_CONVERSION_SERVICE_BEAN_NAME, ConversionService.class);
 	}
 
+	/**
+	 * Return the {@link ChannelResolver} bean whose name is "integrationChannelResolver"
+	 * if defined in the given BeanFactory itself (rather than in a parent), or else a new
+	 * {@link BeanFactoryChannelResolver} for the given BeanFactory.
+	 * @param beanFactory BeanFactory for lookup, must not be null.
+	 */
+	public static ChannelResolver getChannelResolver(BeanFactory beanFactory) {
+		Assert.notNull(beanFactory, "BeanFactory must not be null");
+		boolean containsResolver = (beanFactory instanceof HierarchicalBeanFactory)
+				? ((HierarchicalBeanFactory) beanFactory).containsLocalBean(CHANNEL_RESOLVER_BEAN_NAME)
+				: beanFactory.containsBean(CHANNEL_RESOLVER_BEAN_NAME);
+		if (containsResolver) {
+			return beanFactory.getBean(CHANNEL_RESOLVER_BEAN_NAME, ChannelResolver.class);
+		}
+		return new BeanFactoryChannelResolver(beanFactory);
+	}
+
 	private static <T> T getBeanOfType(BeanFactory beanFactory, String beanName, Class<T> type) {
 		Assert.notNull(beanFactory, "BeanFactory must not be null");
 		if (!beanFactory.containsBean(beanName)) {
@@ -29,6 +29,7 @@ import org.springframework.integration.MessageChannel;
 import org.springframework.integration.MessageDeliveryException;
 import org.springframework.integration.MessageHeaders;
 import org.springframework.integration.MessagingException;
+import org.springframework.integration.context.IntegrationContextUtils;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.integration.support.channel.BeanFactoryChannelResolver;
 import org.springframework.integration.support.channel.ChannelResolutionException;
@@ -90,7 +91,9 @@ public class MessagingTemplate implements MessagingOperations, BeanFactoryAware,
 	/**
 	 * Set the {@link ChannelResolver} that is to be used to resolve
 	 * {@link MessageChannel} references for this template.
-	 * <p>When running within an application context, the default resolver is a
+	 * <p>When running within an application context, the default resolver is the
+	 * one shared within that context, which caches the channels it resolves (see
+	 * {@link IntegrationContextUtils#getChannelResolver(BeanFactory)}), or else a
 	 * {@link BeanFactoryChannelResolver}.
 	 */
 	public void setChannelResolver(ChannelResolver channelResolver) {
@@ -128,7 +131,7 @@ public class MessagingTemplate implements MessagingOperations, BeanFactoryAware,
 
 	public void setBeanFactory(BeanFactory beanFactory) {
 		if (this.channelResolver == null && beanFactory != null) {
-			this.channelResolver = new BeanFactoryChannelResolver(beanFactory);
+			this.channelResolver = IntegrationContextUtils.getChannelResolver(beanFactory);
 		}
 	}
 
@@ -29,9 +29,9 @@ import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.integration.MessageHandlingException;
 import org.springframework.integration.MessagingException;
 import org.springframework.integration.channel.MessagePublishingErrorHandler;
+import org.springframework.integration.context.IntegrationContextUtils;
 import org.springframework.integration.message.ErrorMessage;
 import org.springframework.integration.scheduling.PollerMetadata;
-import org.springframework.integration.support.channel.BeanFactoryChannelResolver;
 import org.springframework.integration.util.ErrorHandlingTaskExecutor;
 import org.springframework.scheduling.Trigger;
 import org.springframework.scheduling.support.PeriodicTrigger;
@@ -103,6 +103,20 @@ public abstract class AbstractPollingEndpoint extends AbstractEndpoint implement
 		this.errorHandler = errorHandler;
 	}
 
+	/**
+	 * Return the ErrorHandler for failures of a poll, for those that subclasses
+	 * report without throwing them from {@link #doPoll()}. Unless one has been
+	 * provided, this is a {@link MessagePublishingErrorHandler}.
+	 */
+	protected ErrorHandler getErrorHandler() {
+		if (this.errorHandler == null) {
+			this.errorHandler = (this.getBeanFactory() != null)
+					? new MessagePublishingErrorHandler(IntegrationContextUtils.getChannelResolver(this.getBeanFactory()))
+					: new MessagePublishingErrorHandler();
+		}
+		return this.errorHandler;
+	}
+
 	public void setBeanClassLoader(ClassLoader classLoader) {
 		this.beanClassLoader = classLoader;
 	}
@@ -123,7 +137,7 @@ public abstract class AbstractPollingEndpoint extends AbstractEndpoint implement
 					if (this.errorHandler == null) {
 						Assert.notNull(this.getBeanFactory(), "BeanFactory is required");
 						this.errorHandler = new MessagePublishingErrorHandler(
-								new BeanFactoryChannelResolver(getBeanFactory()));
+								IntegrationContextUtils.getChannelResolver(getBeanFactory()));
 					}
 					this.taskExecutor = new ErrorHandlingTaskExecutor(this.taskExecutor, this.errorHandler);
 				}
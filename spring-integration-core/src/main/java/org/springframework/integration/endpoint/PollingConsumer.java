@@ -16,10 +16,13 @@
 
 package org.springframework.integration.endpoint;
 
+import java.util.List;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import org.springframework.integration.Message;
+import org.springframework.integration.channel.QueueChannel;
 import org.springframework.integration.core.MessageHandler;
 import org.springframework.integration.core.PollableChannel;
 import org.springframework.util.Assert;
@@ -27,6 +30,14 @@ import org.springframework.util.Assert;
 /**
  * Message Endpoint that connects any {@link MessageHandler} implementation
  * to a {@link PollableChannel}.
+ * <p>
+ * If the channel is a {@link QueueChannel} with a receive batch size greater
+ * than 1, the Messages are received in batches, and each poll hands the whole
+ * batch to the handler, within the poll's transaction if there is one. A poll
+ * therefore counts as one Message against 'max-messages-per-poll' however many
+ * it handles. If the handler fails for a Message, the rest of the batch is still
+ * handled. The first failure is then rethrown, and any further ones are passed
+ * to the poller's ErrorHandler.
  * 
  * @author Mark Fisher
  * @author Oleg Zhurakousky
@@ -55,6 +66,10 @@ public class PollingConsumer extends AbstractPollingEndpoint {
 
 	@Override
 	protected boolean doPoll() {
+		if (this.inputChannel instanceof QueueChannel
+				&& ((QueueChannel) this.inputChannel).getReceiveBatchSize() > 1) {
+			return this.doPollBatch((QueueChannel) this.inputChannel);
+		}
 		Message<?> message = (this.receiveTimeout >= 0)
 				? this.inputChannel.receive(this.receiveTimeout)
 				: this.inputChannel.receive();
@@ -70,4 +85,36 @@ public class PollingConsumer extends AbstractPollingEndpoint {
 		this.handler.handleMessage(message);
 		return true;
 	}
+
+	private boolean doPollBatch(QueueChannel channel) {
+		List<Message<?>> messages = channel.receiveBatch(this.receiveTimeout);
+		if (this.logger.isDebugEnabled()){
+			this.logger.debug("Poll resulted in " + messages.size() + " Message(s)");
+		}
+		if (messages.isEmpty()) {
+			if (this.logger.isDebugEnabled()){
+				this.logger.debug("Received no Message during the poll, returning 'false'");
+			}
+			return false;
+		}
+		RuntimeException failure = null;
+		for (Message<?> message : messages) {
+			try {
+				this.handler.handleMessage(message);
+			}
+			catch (RuntimeException e) {
+				if (failure == null) {
+					failure = e;
+				}
+				else {
+					this.getErrorHandler().handleError(e);
+				}
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+		return true;
+	}
+
 }
@@ -48,7 +48,6 @@ import org.springframework.integration.annotation.Payload;
 import org.springframework.integration.context.IntegrationContextUtils;
 import org.springframework.integration.endpoint.AbstractEndpoint;
 import org.springframework.integration.history.TrackableComponent;
-import org.springframework.integration.support.channel.BeanFactoryChannelResolver;
 import org.springframework.integration.support.channel.ChannelResolver;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
@@ -215,7 +214,7 @@ public class GatewayProxyFactoryBean extends AbstractEndpoint implements Trackab
 			}
 			BeanFactory beanFactory = this.getBeanFactory();
 			if (this.channelResolver == null && beanFactory != null) {
-				this.channelResolver = new BeanFactoryChannelResolver(beanFactory);
+				this.channelResolver = IntegrationContextUtils.getChannelResolver(beanFactory);
 			}
 			Class<?> proxyInterface = this.determineServiceInterface();
 			Method[] methods = ReflectionUtils.getAllDeclaredMethods(proxyInterface);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2011 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -131,6 +131,13 @@ public abstract class MessagingGatewaySupport extends AbstractEndpoint implement
 		this.messagingTemplate.setReceiveTimeout(replyTimeout);
 	}
 
+	/**
+	 * Return the timeout value for receiving reply messages.
+	 */
+	protected long getReplyTimeout() {
+		return this.replyTimeout;
+	}
+
 	/**
 	 * Provide an {@link InboundMessageMapper} for creating request Messages
 	 * from any object passed in a send or sendAndReceive operation.
@@ -207,6 +214,54 @@ public abstract class MessagingGatewaySupport extends AbstractEndpoint implement
 		return (Message<?>) this.doSendAndReceive(object, false);
 	}
 
+	/**
+	 * Send a request Message without waiting for its reply. The reply is sent to the given
+	 * callback channel by whichever thread produces it, as is an ErrorMessage if the flow
+	 * fails downstream. If an error channel has been provided, failures are passed to it
+	 * instead, with the callback channel as the reply channel, just as the error flow's reply
+	 * is returned by {@link #sendAndReceiveMessage(Object)}. A failure to send the request is
+	 * rethrown if there is no error channel. No reply timeout applies; if one is required,
+	 * it is up to the caller to enforce it.
+	 * @since 2.1
+	 */
+	@SuppressWarnings("unchecked")
+	protected void sendAndReceiveMessageAsync(Object object, MessageChannel callbackChannel) {
+		this.initializeIfNecessary();
+		Assert.notNull(object, "request must not be null");
+		Assert.notNull(callbackChannel, "callbackChannel must not be null");
+		if (this.requestChannel == null) {
+			throw new MessagingException("No request channel available. Cannot send request message.");
+		}
+		if (this.replyChannel != null && this.replyMessageCorrelator == null) {
+			this.registerReplyMessageCorrelator();
+		}
+		Message<?> requestMessage = null;
+		try {
+			requestMessage = (object instanceof Message<?>)
+					? (Message<?>) object : this.requestMapper.toMessage(object);
+		}
+		catch (Exception e) {
+			this.rethrow(e, "failed to map request");
+		}
+		requestMessage = this.historyWritingPostProcessor.postProcessMessage(requestMessage);
+		MessageChannel errorCallbackChannel = (this.errorChannel != null)
+				? new ErrorFlowChannel(callbackChannel) : callbackChannel;
+		requestMessage = MessageBuilder.fromMessage(requestMessage)
+				.setReplyChannel(callbackChannel).setErrorChannel(errorCallbackChannel).build();
+		try {
+			this.messagingTemplate.send(this.requestChannel, requestMessage);
+		}
+		catch (Exception e) {
+			logger.warn("failure occurred in gateway sendAndReceiveMessageAsync", e);
+			if (this.errorChannel != null) {
+				errorCallbackChannel.send(new ErrorMessage(e));
+			}
+			else {
+				this.rethrow(e, "failed to send message");
+			}
+		}
+	}
+
 	@SuppressWarnings("unchecked")
 	private Object doSendAndReceive(Object object, boolean shouldConvert) {
 		this.initializeIfNecessary();
@@ -318,6 +373,30 @@ public abstract class MessagingGatewaySupport extends AbstractEndpoint implement
 	}
 
 
+	/**
+	 * Passes an ErrorMessage on to the error channel, so that the reply of the error flow
+	 * is sent to the callback channel of {@link #sendAndReceiveMessageAsync(Object, MessageChannel)}.
+	 */
+	private class ErrorFlowChannel implements MessageChannel {
+
+		private final MessageChannel callbackChannel;
+
+		ErrorFlowChannel(MessageChannel callbackChannel) {
+			this.callbackChannel = callbackChannel;
+		}
+
+		public boolean send(Message<?> message) {
+			return this.send(message, -1);
+		}
+
+		public boolean send(Message<?> message, long timeout) {
+			Message<?> errorMessage = MessageBuilder.fromMessage(message).setReplyChannel(this.callbackChannel).build();
+			messagingTemplate.send(errorChannel, errorMessage);
+			return true;
+		}
+	}
+
+
 	private static class DefaultRequestMapper implements InboundMessageMapper<Object> {
 
 		public Message<?> toMessage(Object object) throws Exception {
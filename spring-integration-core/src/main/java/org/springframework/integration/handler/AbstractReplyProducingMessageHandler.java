@@ -99,7 +99,7 @@ public abstract class AbstractReplyProducingMessageHandler extends AbstractMessa
 			MessageHeaders requestHeaders = message.getHeaders();
 			this.handleResult(result, requestHeaders);
 		}
-		else if (this.requiresReply) {
+		else if (this.requiresReply && !this.isAsync()) {
 			throw new ReplyRequiredException(message, "No reply produced by handler '" +
 					this.getComponentName() + "', and its 'requiresReply' property is set to true.");
 		}
@@ -108,6 +108,23 @@ public abstract class AbstractReplyProducingMessageHandler extends AbstractMessa
 		}
 	}
 
+	/**
+	 * Handle the result for a request Message that has been produced after
+	 * {@link #handleRequestMessage(Message)} returned (typically <code>null</code>),
+	 * for example on a callback thread. The result is treated exactly as if it had been
+	 * returned by that method.
+	 * @since 2.1
+	 */
+	protected final void handleAsyncResult(Object result, Message<?> requestMessage) {
+		if (result != null) {
+			this.handleResult(result, requestMessage.getHeaders());
+		}
+		else if (this.requiresReply) {
+			throw new ReplyRequiredException(requestMessage, "No reply produced by handler '" +
+					this.getComponentName() + "', and its 'requiresReply' property is set to true.");
+		}
+	}
+
 	private void handleResult(Object result, MessageHeaders requestHeaders) {
 		if (result instanceof Iterable<?> && this.shouldSplitReply((Iterable<?>) result)) {
 			for (Object o : (Iterable<?>) result) {
@@ -192,6 +209,16 @@ public abstract class AbstractReplyProducingMessageHandler extends AbstractMessa
 		return false;
 	}
 
+	/**
+	 * Subclasses that produce their replies through {@link #handleAsyncResult(Object, Message)}
+	 * should return true, so that 'requiresReply' is only enforced once the result is available.
+	 * False by default.
+	 * @since 2.1
+	 */
+	protected boolean isAsync() {
+		return false;
+	}
+
 	/**
 	 * Subclasses may override this. True by default.
 	 */
@@ -36,7 +36,6 @@ import org.springframework.integration.core.MessagingTemplate;
 import org.springframework.integration.message.ErrorMessage;
 import org.springframework.integration.store.MessageStore;
 import org.springframework.integration.store.SimpleMessageStore;
-import org.springframework.integration.support.channel.BeanFactoryChannelResolver;
 import org.springframework.integration.support.channel.ChannelResolutionException;
 import org.springframework.integration.support.channel.ChannelResolver;
 import org.springframework.scheduling.TaskScheduler;
@@ -193,7 +192,7 @@ public class DelayHandler extends IntegrationObjectSupport implements MessageHan
 			((InitializingBean) this.getTaskScheduler()).afterPropertiesSet();
 		}
 		if (this.getBeanFactory() != null){
-			this.channelResolver = new BeanFactoryChannelResolver(this.getBeanFactory());
+			this.channelResolver = IntegrationContextUtils.getChannelResolver(this.getBeanFactory());
 		}
 	}
 
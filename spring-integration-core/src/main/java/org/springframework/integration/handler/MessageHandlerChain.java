@@ -26,11 +26,11 @@ import org.springframework.core.Ordered;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessageChannel;
 import org.springframework.integration.MessageHandlingException;
+import org.springframework.integration.context.IntegrationContextUtils;
 import org.springframework.integration.context.IntegrationObjectSupport;
 import org.springframework.integration.core.MessageHandler;
 import org.springframework.integration.core.MessageProducer;
 import org.springframework.integration.filter.MessageFilter;
-import org.springframework.integration.support.channel.BeanFactoryChannelResolver;
 import org.springframework.integration.support.channel.ChannelResolver;
 import org.springframework.util.Assert;
 
@@ -122,7 +122,7 @@ public class MessageHandlerChain extends AbstractMessageHandler implements Messa
 				this.configureChain();
 				BeanFactory beanFactory = this.getBeanFactory();
 				if (this.channelResolver == null && beanFactory != null) {
-					this.channelResolver = new BeanFactoryChannelResolver(beanFactory);
+					this.channelResolver = IntegrationContextUtils.getChannelResolver(beanFactory);
 				}
 				this.initialized = true;
 			}
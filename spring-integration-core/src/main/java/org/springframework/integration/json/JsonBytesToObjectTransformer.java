@@ -0,0 +1,66 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.json;
+
+import java.io.InputStream;
+
+import org.codehaus.jackson.map.ObjectMapper;
+
+import org.springframework.integration.transformer.AbstractPayloadTransformer;
+import org.springframework.util.Assert;
+
+/**
+ * Transformer implementation that converts a JSON payload received as bytes (a byte[] or an
+ * InputStream) into an instance of the provided target Class. The JSON is parsed directly,
+ * without decoding it to an intermediate String first. String payloads are accepted as well.
+ *
+ * @since 2.1
+ * @see ObjectToJsonBytesTransformer
+ */
+public class JsonBytesToObjectTransformer<T> extends AbstractPayloadTransformer<Object, T> {
+
+	private final Class<T> targetClass;
+
+	private final ObjectMapper objectMapper;
+
+
+	public JsonBytesToObjectTransformer(Class<T> targetClass) {
+		this(targetClass, null);
+	}
+
+	public JsonBytesToObjectTransformer(Class<T> targetClass, ObjectMapper objectMapper) {
+		Assert.notNull(targetClass, "targetClass must not be null");
+		this.targetClass = targetClass;
+		this.objectMapper = (objectMapper != null) ? objectMapper : new ObjectMapper();
+	}
+
+
+	protected T transformPayload(Object payload) throws Exception {
+		if (payload instanceof byte[]) {
+			return this.objectMapper.readValue((byte[]) payload, this.targetClass);
+		}
+		if (payload instanceof InputStream) {
+			return this.objectMapper.readValue((InputStream) payload, this.targetClass);
+		}
+		if (payload instanceof String) {
+			return this.objectMapper.readValue((String) payload, this.targetClass);
+		}
+		throw new IllegalArgumentException("payload must be a byte[], an InputStream or a String, but was: "
+				+ payload.getClass().getName());
+	}
+
+}
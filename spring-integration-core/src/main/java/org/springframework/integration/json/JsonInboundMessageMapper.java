@@ -16,11 +16,12 @@
 
 package org.springframework.integration.json;
 
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
-import org.codehaus.jackson.JsonFactory;
 import org.codehaus.jackson.JsonParser;
 import org.codehaus.jackson.JsonToken;
 import org.codehaus.jackson.map.JsonMappingException;
@@ -37,6 +38,9 @@ import org.springframework.util.Assert;
 
 /**
  * {@link InboundMessageMapper} implementation that maps incoming JSON messages to a {@link Message} with the specified payload type.  
+ * <p>
+ * Adapters that receive bytes may use {@link #toMessage(byte[])} or {@link #toMessage(InputStream)}
+ * instead, which parse the JSON without decoding it to a String first.
  * 
  * @author Jeremy Grelle
  * @author Oleg Zhurakousky
@@ -92,46 +96,75 @@ public class JsonInboundMessageMapper implements InboundMessageMapper<String> {
 	}
 
 	public Message<?> toMessage(String jsonMessage) throws Exception {
-		JsonParser parser = new JsonFactory().createJsonParser(jsonMessage);
-		if (this.mapToPayload) {
-			try {
-				return MessageBuilder.withPayload(readPayload(parser, jsonMessage)).build();
-			}
-			catch (JsonMappingException ex) {
-				throw new IllegalArgumentException("Mapping of JSON message " + jsonMessage +
-						" directly to payload of type " + this.payloadType.getRawClass().getName() + " failed.", ex);
-			}
-		}
-		else {
-			String error = MESSAGE_FORMAT_ERROR + jsonMessage;
-			Assert.isTrue(parser.nextToken() == JsonToken.START_OBJECT, error);
-			Map<String, Object> headers = null;
-			Object payload = null;
-			while(parser.nextToken() != JsonToken.END_OBJECT) {
-				Assert.isTrue(parser.getCurrentToken() == JsonToken.FIELD_NAME, error);
-				boolean isHeadersToken = "headers".equals(parser.getCurrentName());
-				boolean isPayloadToken = "payload".equals(parser.getCurrentName()); 
-				Assert.isTrue(isHeadersToken || isPayloadToken, error);
-				if (isHeadersToken) {
-					Assert.isTrue(parser.nextToken() == JsonToken.START_OBJECT, error);
-					headers = readHeaders(parser, jsonMessage);
+		return this.toMessage(this.objectMapper.getJsonFactory().createJsonParser(jsonMessage), jsonMessage);
+	}
+
+	/**
+	 * Map a JSON message given as bytes. The encoding (UTF-8, UTF-16 or UTF-32) is detected.
+	 * @since 2.1
+	 */
+	public Message<?> toMessage(byte[] jsonMessage) throws Exception {
+		return this.toMessage(this.objectMapper.getJsonFactory().createJsonParser(jsonMessage), jsonMessage);
+	}
+
+	/**
+	 * Map a JSON message read from the given stream, which is closed once the message has been read.
+	 * @since 2.1
+	 */
+	public Message<?> toMessage(InputStream jsonMessage) throws Exception {
+		return this.toMessage(this.objectMapper.getJsonFactory().createJsonParser(jsonMessage), jsonMessage);
+	}
+
+	private Message<?> toMessage(JsonParser parser, Object jsonMessage) throws Exception {
+		String source = (jsonMessage instanceof String) ? (String) jsonMessage : describeSource(jsonMessage);
+		try {
+			if (this.mapToPayload) {
+				try {
+					return MessageBuilder.withPayload(readPayload(parser, source)).build();
 				}
-				else if (isPayloadToken) {
-					parser.nextToken();
-					try {
-						payload = readPayload(parser, jsonMessage);
+				catch (JsonMappingException ex) {
+					throw new IllegalArgumentException("Mapping of JSON message " + describe(jsonMessage) +
+							" directly to payload of type " + this.payloadType.getRawClass().getName() + " failed.", ex);
+				}
+			}
+			else {
+				assertMessageFormat(parser.nextToken() == JsonToken.START_OBJECT, jsonMessage);
+				Map<String, Object> headers = null;
+				Object payload = null;
+				while(parser.nextToken() != JsonToken.END_OBJECT) {
+					assertMessageFormat(parser.getCurrentToken() == JsonToken.FIELD_NAME, jsonMessage);
+					boolean isHeadersToken = "headers".equals(parser.getCurrentName());
+					boolean isPayloadToken = "payload".equals(parser.getCurrentName()); 
+					assertMessageFormat(isHeadersToken || isPayloadToken, jsonMessage);
+					if (isHeadersToken) {
+						assertMessageFormat(parser.nextToken() == JsonToken.START_OBJECT, jsonMessage);
+						headers = readHeaders(parser, source);
 					}
-					catch (JsonMappingException ex) {
-						throw new IllegalArgumentException("Mapping payload of JSON message " + jsonMessage +
-								" to payload type " + this.payloadType.getRawClass().getName() + " failed.", ex);
+					else if (isPayloadToken) {
+						parser.nextToken();
+						try {
+							payload = readPayload(parser, source);
+						}
+						catch (JsonMappingException ex) {
+							throw new IllegalArgumentException("Mapping payload of JSON message " + describe(jsonMessage) +
+									" to payload type " + this.payloadType.getRawClass().getName() + " failed.", ex);
+						}
 					}
 				}
+				assertMessageFormat(headers != null, jsonMessage);
+				return MessageBuilder.withPayload(payload).copyHeaders(headers).build();
 			}
-			Assert.notNull(headers, error);
-			return MessageBuilder.withPayload(payload).copyHeaders(headers).build();
+		}
+		finally {
+			parser.close();
 		}
 	}
 
+	/**
+	 * Read the headers object the parser is positioned at. The JSON message is only used for
+	 * error reporting; when the message is mapped from bytes or a stream, it is a short
+	 * description of that source rather than the JSON text.
+	 */
 	protected Map<String, Object> readHeaders(JsonParser parser, String jsonMessage) throws Exception{
 		Map<String, Object> headers = new LinkedHashMap<String, Object>();
 		while (parser.nextToken() != JsonToken.END_OBJECT) {
@@ -154,4 +187,39 @@ public class JsonInboundMessageMapper implements InboundMessageMapper<String> {
 		return this.objectMapper.readValue(parser, this.payloadType);
 	}
 
+	private static void assertMessageFormat(boolean expression, Object jsonMessage) {
+		if (!expression) {
+			throw new IllegalArgumentException(MESSAGE_FORMAT_ERROR + describe(jsonMessage));
+		}
+	}
+
+	/**
+	 * Render the JSON message for an error message; bytes are only decoded in that case.
+	 */
+	private static String describe(Object jsonMessage) {
+		if (jsonMessage instanceof byte[]) {
+			try {
+				return new String((byte[]) jsonMessage, "UTF-8");
+			}
+			catch (UnsupportedEncodingException e) {
+				// UTF-8 is always supported
+			}
+		}
+		if (jsonMessage instanceof InputStream) {
+			return describeSource(jsonMessage);
+		}
+		return String.valueOf(jsonMessage);
+	}
+
+	/**
+	 * Describe a byte array or stream source without decoding it; passed to the
+	 * {@link #readHeaders} and {@link #readPayload} hooks in place of the JSON text.
+	 */
+	private static String describeSource(Object jsonMessage) {
+		if (jsonMessage instanceof byte[]) {
+			return "(" + ((byte[]) jsonMessage).length + " bytes)";
+		}
+		return "(read from " + jsonMessage.getClass().getName() + ")";
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2011 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,8 +16,10 @@
 
 package org.springframework.integration.json;
 
-import java.io.StringWriter;
+import java.io.OutputStream;
 
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonGenerator;
 import org.codehaus.jackson.map.ObjectMapper;
 
 import org.springframework.integration.Message;
@@ -26,6 +28,10 @@ import org.springframework.util.Assert;
 
 /**
  * {@link OutboundMessageMapper} implementation the converts a {@link Message} to a JSON string representation.
+ * <p>
+ * Adapters that transfer bytes may use {@link #fromMessageAsBytes(Message)} or
+ * {@link #fromMessage(Message, OutputStream)} instead, which write UTF-8 without
+ * creating the intermediate String.
  * 
  * @author Jeremy Grelle
  * @author Mark Fisher
@@ -48,14 +54,38 @@ public class JsonOutboundMessageMapper implements OutboundMessageMapper<String>
 	}
 
 	public String fromMessage(Message<?> message) throws Exception {
-		StringWriter writer = new StringWriter();
-		if (this.shouldExtractPayload) {
-			this.objectMapper.writeValue(writer, message.getPayload());
+		return this.objectMapper.writeValueAsString(this.getValueToWrite(message));
+	}
+
+	/**
+	 * Map the Message to its JSON representation as UTF-8 encoded bytes.
+	 * @since 2.1
+	 */
+	public byte[] fromMessageAsBytes(Message<?> message) throws Exception {
+		return this.objectMapper.writeValueAsBytes(this.getValueToWrite(message));
+	}
+
+	/**
+	 * Write the JSON representation of the Message to the given stream as UTF-8.
+	 * The stream is flushed but not closed.
+	 * @since 2.1
+	 */
+	public void fromMessage(Message<?> message, OutputStream outputStream) throws Exception {
+		Assert.notNull(outputStream, "outputStream must not be null");
+		ObjectMapper objectMapper = this.objectMapper;
+		JsonGenerator generator = objectMapper.getJsonFactory().createJsonGenerator(outputStream, JsonEncoding.UTF8);
+		generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+		try {
+			objectMapper.writeValue(generator, this.getValueToWrite(message));
 		}
-		else {
-			this.objectMapper.writeValue(writer, message);
+		finally {
+			generator.close();
 		}
-		return writer.toString();
+		outputStream.flush();
+	}
+
+	private Object getValueToWrite(Message<?> message) {
+		return this.shouldExtractPayload ? message.getPayload() : message;
 	}
 
 }
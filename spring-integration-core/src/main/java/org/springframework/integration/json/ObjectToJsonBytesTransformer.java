@@ -0,0 +1,50 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.json;
+
+import org.codehaus.jackson.map.ObjectMapper;
+
+import org.springframework.integration.transformer.AbstractPayloadTransformer;
+import org.springframework.util.Assert;
+
+/**
+ * Transformer implementation that converts a payload instance into its JSON representation
+ * as UTF-8 encoded bytes. This avoids an intermediate String when the message is sent by
+ * an adapter that transfers bytes (TCP, HTTP, AMQP).
+ *
+ * @since 2.1
+ */
+public class ObjectToJsonBytesTransformer extends AbstractPayloadTransformer<Object, byte[]> {
+
+	private final ObjectMapper objectMapper;
+
+
+	public ObjectToJsonBytesTransformer(ObjectMapper objectMapper) {
+		Assert.notNull(objectMapper, "objectMapper must not be null");
+		this.objectMapper = objectMapper;
+	}
+
+	public ObjectToJsonBytesTransformer() {
+		this.objectMapper = new ObjectMapper();
+	}
+
+
+	protected byte[] transformPayload(Object payload) throws Exception {
+		return this.objectMapper.writeValueAsBytes(payload);
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2011 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,8 +16,6 @@
 
 package org.springframework.integration.json;
 
-import java.io.StringWriter;
-
 import org.codehaus.jackson.map.ObjectMapper;
 
 import org.springframework.integration.transformer.AbstractPayloadTransformer;
@@ -25,6 +23,7 @@ import org.springframework.util.Assert;
 
 /**
  * Transformer implementation that converts a payload instance into a JSON string representation.
+ * Use {@link ObjectToJsonBytesTransformer} to produce UTF-8 encoded bytes instead.
  *
  * @author Mark Fisher
  * @since 2.0
@@ -45,9 +44,7 @@ public class ObjectToJsonTransformer extends AbstractPayloadTransformer<Object,
 
 
 	protected String transformPayload(Object payload) throws Exception {
-		StringWriter writer = new StringWriter();
-		this.objectMapper.writeValue(writer, payload);
-		return writer.toString();
+		return this.objectMapper.writeValueAsString(payload);
 	}
 
 }
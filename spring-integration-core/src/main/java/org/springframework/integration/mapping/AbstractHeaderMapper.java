@@ -17,12 +17,14 @@
 package org.springframework.integration.mapping;
 
 import java.text.MessageFormat;
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -30,8 +32,6 @@ import org.apache.commons.logging.LogFactory;
 import org.springframework.integration.MessageHeaders;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
-import org.springframework.util.ObjectUtils;
-import org.springframework.util.PatternMatchUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -47,12 +47,12 @@ public abstract class AbstractHeaderMapper<T> implements RequestReplyHeaderMappe
 
 	public static final String STANDARD_REPLY_HEADER_NAME_PATTERN = "STANDARD_REPLY_HEADERS";
 
-	private static final String[] TRANSIENT_HEADER_NAMES = new String[] {
+	private static final Set<String> TRANSIENT_HEADER_NAMES = new HashSet<String>(Arrays.asList(
 		MessageHeaders.ID,
 		MessageHeaders.ERROR_CHANNEL,
 		MessageHeaders.REPLY_CHANNEL,
 		MessageHeaders.TIMESTAMP
-	};
+	));
 
 	protected final Log logger = LogFactory.getLog(this.getClass());
 
@@ -60,14 +60,14 @@ public abstract class AbstractHeaderMapper<T> implements RequestReplyHeaderMappe
 
 	private volatile String userDefinedHeaderPrefix = "";
 
-	private volatile List<String> requestHeaderNames = new ArrayList<String>();
+	private volatile HeaderNameMatcher requestHeaderMatcher;
 
-	private volatile List<String> replyHeaderNames = new ArrayList<String>();
+	private volatile HeaderNameMatcher replyHeaderMatcher;
 
 	protected AbstractHeaderMapper() {
 		this.standardHeaderPrefix = this.getStandardHeaderPrefix();
-		this.requestHeaderNames.addAll(this.getStandardRequestHeaderNames());
-		this.replyHeaderNames.addAll(this.getStandardReplyHeaderNames());
+		this.requestHeaderMatcher = this.createHeaderMatcher(this.getStandardRequestHeaderNames());
+		this.replyHeaderMatcher = this.createHeaderMatcher(this.getStandardReplyHeaderNames());
 	}
 
 	/**
@@ -80,7 +80,7 @@ public abstract class AbstractHeaderMapper<T> implements RequestReplyHeaderMappe
 	 */
 	public void setRequestHeaderNames(String[] requestHeaderNames) {
 		Assert.notNull(requestHeaderNames, "'requestHeaderNames' must not be null");
-		this.requestHeaderNames = Arrays.asList(requestHeaderNames);
+		this.requestHeaderMatcher = this.createHeaderMatcher(Arrays.asList(requestHeaderNames));
 	}
 
 	/**
@@ -92,7 +92,7 @@ public abstract class AbstractHeaderMapper<T> implements RequestReplyHeaderMappe
 	 */
 	public void setReplyHeaderNames(String[] replyHeaderNames) {
 		Assert.notNull(replyHeaderNames, "'replyHeaderNames' must not be null");
-		this.replyHeaderNames = Arrays.asList(replyHeaderNames);
+		this.replyHeaderMatcher = this.createHeaderMatcher(Arrays.asList(replyHeaderNames));
 	}
 
 	/**
@@ -112,35 +112,35 @@ public abstract class AbstractHeaderMapper<T> implements RequestReplyHeaderMappe
 	 * matching on the set of REQUEST headers (if different).
 	 */
 	public void fromHeadersToRequest(MessageHeaders headers, T target) {
-		this.fromHeaders(headers, target, this.requestHeaderNames);
+		this.fromHeaders(headers, target, this.requestHeaderMatcher);
 	}
 	/**
 	 * Maps headers from a Spring Integration MessageHeaders instance to the target instance
 	 * matching on the set of REPLY headers (if different).
 	 */
 	public void fromHeadersToReply(MessageHeaders headers, T target) {
-		this.fromHeaders(headers, target, this.replyHeaderNames);
+		this.fromHeaders(headers, target, this.replyHeaderMatcher);
 	}
 	/**
 	 * Maps headers/properties of the target object to Map of MessageHeaders
 	 * matching on the set of REQUEST headers
 	 */
 	public Map<String, Object> toHeadersFromRequest(T source) {
-		return this.toHeaders(source, this.requestHeaderNames);
+		return this.toHeaders(source, this.requestHeaderMatcher);
 	}
 	/**
 	 * Maps headers/properties of the target object to Map of MessageHeaders
 	 * matching on the set of REPLY headers
 	 */
 	public Map<String, Object> toHeadersFromReply(T source) {
-		return this.toHeaders(source, this.replyHeaderNames);
+		return this.toHeaders(source, this.replyHeaderMatcher);
 	}
 	
-	private void fromHeaders(MessageHeaders headers, T target, List<String> headerPatterns){
+	private void fromHeaders(MessageHeaders headers, T target, HeaderNameMatcher headerMatcher){
 		try {
 			Map<String, Object> subset = new HashMap<String, Object>();
 			for (String headerName : headers.keySet()) {
-				if (this.shouldMapHeader(headerName, headerPatterns)){
+				if (this.shouldMapHeader(headerName, headerMatcher)){
 					subset.put(headerName, headers.get(headerName));
 				}
 			}
@@ -175,21 +175,21 @@ public abstract class AbstractHeaderMapper<T> implements RequestReplyHeaderMappe
 	 * Maps headers from a source instance to the MessageHeaders of a
 	 * Spring Integration Message.
 	 */
-	private Map<String, Object> toHeaders(T source, List<String> headerPatterns) {
+	private Map<String, Object> toHeaders(T source, HeaderNameMatcher headerMatcher) {
 		Map<String, Object> headers = new HashMap<String, Object>();
 		Map<String, Object> standardHeaders = this.extractStandardHeaders(source);
-		this.copyHeaders(this.standardHeaderPrefix, standardHeaders, headers, headerPatterns);
+		this.copyHeaders(this.standardHeaderPrefix, standardHeaders, headers, headerMatcher);
 		Map<String, Object> userDefinedHeaders = this.extractUserDefinedHeaders(source);
-		this.copyHeaders(this.userDefinedHeaderPrefix, userDefinedHeaders, headers, headerPatterns);
+		this.copyHeaders(this.userDefinedHeaderPrefix, userDefinedHeaders, headers, headerMatcher);
 		return headers;
 	}
 
-	private <V> void copyHeaders(String prefix, Map<String, Object> source, Map<String, Object> target, List<String> headerPatterns) {
+	private <V> void copyHeaders(String prefix, Map<String, Object> source, Map<String, Object> target, HeaderNameMatcher headerMatcher) {
 		if (!CollectionUtils.isEmpty(source)) {
 			for (Map.Entry<String, Object> entry : source.entrySet()) {
 				try {
 					String headerName = this.addPrefixIfNecessary(prefix, entry.getKey());
-					if (this.shouldMapHeader(headerName, headerPatterns)){
+					if (this.shouldMapHeader(headerName, headerMatcher)){
 						target.put(headerName, entry.getValue());
 					}
 				}
@@ -203,39 +203,26 @@ public abstract class AbstractHeaderMapper<T> implements RequestReplyHeaderMappe
 		}
 	}
 
-	private boolean shouldMapHeader(String headerName, List<String> patterns) {
-		if (!StringUtils.hasText(headerName)
-				|| ObjectUtils.containsElement(TRANSIENT_HEADER_NAMES, headerName)) {
+	private boolean shouldMapHeader(String headerName, HeaderNameMatcher headerMatcher) {
+		if (!StringUtils.hasText(headerName) || TRANSIENT_HEADER_NAMES.contains(headerName)) {
 			return false;
 		}
-		if (patterns != null && patterns.size() > 0) {
-			for (String pattern : patterns) {
-				if (PatternMatchUtils.simpleMatch(pattern.toLowerCase(), headerName.toLowerCase())) {
-					if (logger.isDebugEnabled()) {
-						logger.debug(MessageFormat.format("headerName=[{0}] WILL be mapped, matched pattern={1}", headerName, pattern));
-					}
-					return true;
-				}
-				else if (STANDARD_REQUEST_HEADER_NAME_PATTERN.equals(pattern)
-						&& this.containsElementIgnoreCase(this.getStandardRequestHeaderNames(), headerName)) {
-					if (logger.isDebugEnabled()) {
-						logger.debug(MessageFormat.format("headerName=[{0}] WILL be mapped, matched pattern={1}", headerName, pattern));
-					}
-					return true;
-				}
-				else if (STANDARD_REPLY_HEADER_NAME_PATTERN.equals(pattern)
-						&& this.containsElementIgnoreCase(this.getStandardReplyHeaderNames(), headerName)) {
-					if (logger.isDebugEnabled()) {
-						logger.debug(MessageFormat.format("headerName=[{0}] WILL be mapped, matched pattern={1}", headerName, pattern));
-					}
-					return true;
-				}
-			}
-		}
+		boolean shouldMap = headerMatcher.matches(headerName);
 		if (logger.isDebugEnabled()) {
-			logger.debug(MessageFormat.format("headerName=[{0}] WILL NOT be mapped", headerName));
+			logger.debug(MessageFormat.format("headerName=[{0}] WILL " + (shouldMap ? "" : "NOT ") + "be mapped", headerName));
 		}
-		return false;
+		return shouldMap;
+	}
+
+	/**
+	 * Compiles the given patterns, expanding the symbolic STANDARD_REQUEST_HEADERS
+	 * and STANDARD_REPLY_HEADERS patterns to the names provided by the subclass.
+	 */
+	private HeaderNameMatcher createHeaderMatcher(List<String> patterns) {
+		Map<String, Collection<String>> symbolicPatterns = new HashMap<String, Collection<String>>();
+		symbolicPatterns.put(STANDARD_REQUEST_HEADER_NAME_PATTERN, this.getStandardRequestHeaderNames());
+		symbolicPatterns.put(STANDARD_REPLY_HEADER_NAME_PATTERN, this.getStandardReplyHeaderNames());
+		return new HeaderNameMatcher(patterns, symbolicPatterns);
 	}
 
 	@SuppressWarnings("unchecked")
@@ -252,15 +239,6 @@ public abstract class AbstractHeaderMapper<T> implements RequestReplyHeaderMappe
 		return (V) value;
 	}
 	
-	private boolean containsElementIgnoreCase(List<String> headerNames, String name) {
-		for (String headerName : headerNames) {
-			if (headerName.equalsIgnoreCase(name)){
-				return true;
-			}
-		}
-		return false;
-	}
-
 	/**
 	 * Adds the prefix to the header name
 	 */
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.mapping;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.util.PatternMatchUtils;
+
+/**
+ * Case-insensitive matcher for header names against a fixed set of simple
+ * wildcard patterns (e.g. "foo*", "*foo" or "*"). The patterns are compiled
+ * once into an exact-name lookup plus prefix, suffix and general wildcard
+ * groups, and each decision is remembered per header name, so repeated
+ * matching of the same names costs a single hash lookup.
+ * <p>
+ * Symbolic patterns (such as a mapper's "STANDARD_REQUEST_HEADERS") may be
+ * expanded to the names they stand for when the matcher is created; they
+ * are still matched literally as well.
+ *
+ * @since 2.1
+ */
+public class HeaderNameMatcher {
+
+	/**
+	 * Upper bound for the per-name decision cache. Header names are usually
+	 * a small, fixed vocabulary, but they are supplied by remote peers, so
+	 * the cache is cleared once it grows beyond this size.
+	 */
+	private static final int MAX_CACHED_DECISIONS = 1024;
+
+	private final Set<String> exactNames = new HashSet<String>();
+
+	private final List<String> prefixes = new ArrayList<String>();
+
+	private final List<String> suffixes = new ArrayList<String>();
+
+	private final List<String> wildcardPatterns = new ArrayList<String>();
+
+	private final boolean matchAll;
+
+	private final Map<String, Boolean> decisions = new ConcurrentHashMap<String, Boolean>();
+
+
+	/**
+	 * Create a matcher for the given patterns.
+	 * @param patterns the simple wildcard patterns, matched case-insensitively
+	 * @param symbolicPatterns optional mapping from a symbolic pattern to the
+	 * header names it stands for; may be null
+	 */
+	public HeaderNameMatcher(Collection<String> patterns, Map<String, ? extends Collection<String>> symbolicPatterns) {
+		boolean matchAll = false;
+		if (patterns != null) {
+			for (String pattern : patterns) {
+				if (pattern == null) {
+					continue;
+				}
+				if (symbolicPatterns != null && symbolicPatterns.containsKey(pattern)) {
+					Collection<String> names = symbolicPatterns.get(pattern);
+					if (names != null) {
+						for (String name : names) {
+							this.exactNames.add(name.toLowerCase());
+						}
+					}
+				}
+				String lowerCasePattern = pattern.toLowerCase();
+				int firstStar = lowerCasePattern.indexOf('*');
+				if (firstStar == -1) {
+					this.exactNames.add(lowerCasePattern);
+				}
+				else if ("*".equals(lowerCasePattern)) {
+					matchAll = true;
+				}
+				else if (firstStar == lowerCasePattern.length() - 1) {
+					this.prefixes.add(lowerCasePattern.substring(0, firstStar));
+				}
+				else if (firstStar == 0 && lowerCasePattern.indexOf('*', 1) == -1) {
+					this.suffixes.add(lowerCasePattern.substring(1));
+				}
+				else {
+					this.wildcardPatterns.add(lowerCasePattern);
+				}
+			}
+		}
+		this.matchAll = matchAll;
+	}
+
+
+	/**
+	 * Return true if the given header name matches any of the patterns.
+	 */
+	public boolean matches(String headerName) {
+		if (headerName == null) {
+			return false;
+		}
+		Boolean decision = this.decisions.get(headerName);
+		if (decision == null) {
+			decision = this.doMatch(headerName.toLowerCase());
+			if (this.decisions.size() >= MAX_CACHED_DECISIONS) {
+				this.decisions.clear();
+			}
+			this.decisions.put(headerName, decision);
+		}
+		return decision;
+	}
+
+	private boolean doMatch(String lowerCaseName) {
+		if (this.matchAll || this.exactNames.contains(lowerCaseName)) {
+			return true;
+		}
+		for (String prefix : this.prefixes) {
+			if (lowerCaseName.startsWith(prefix)) {
+				return true;
+			}
+		}
+		for (String suffix : this.suffixes) {
+			if (lowerCaseName.endsWith(suffix)) {
+				return true;
+			}
+		}
+		for (String pattern : this.wildcardPatterns) {
+			if (PatternMatchUtils.simpleMatch(pattern, lowerCaseName)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
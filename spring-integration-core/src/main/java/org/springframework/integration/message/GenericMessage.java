@@ -17,7 +17,6 @@
 package org.springframework.integration.message;
 
 import java.io.Serializable;
-import java.util.HashMap;
 import java.util.Map;
 
 import org.springframework.integration.Message;
@@ -59,12 +58,7 @@ public class GenericMessage<T> implements Message<T>, Serializable {
 	 */
 	public GenericMessage(T payload, Map<String, Object> headers) {
 		Assert.notNull(payload, "payload must not be null");
-		if (headers == null) {
-			headers = new HashMap<String, Object>();
-		}
-		else {
-			headers = new HashMap<String, Object>(headers);
-		}
+		// MessageHeaders takes its own copy of (or shares) the entries
 		this.headers = new MessageHeaders(headers);
 		this.payload = payload;
 	}
@@ -28,7 +28,7 @@ import org.springframework.beans.factory.BeanFactory;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessageChannel;
 import org.springframework.integration.MessagingException;
-import org.springframework.integration.support.channel.BeanFactoryChannelResolver;
+import org.springframework.integration.context.IntegrationContextUtils;
 import org.springframework.integration.support.channel.ChannelResolutionException;
 import org.springframework.integration.support.channel.ChannelResolver;
 import org.springframework.jmx.export.annotation.ManagedOperation;
@@ -65,11 +65,13 @@ public abstract class AbstractMappingMessageRouter extends AbstractMessageRouter
 	public void setChannelMappings(Map<String, String> channelMappings) {
 		this.channelMappings.clear();
 		this.channelMappings.putAll(channelMappings);
+		this.onChannelMappingsChanged();
 	}
 
 	/**
 	 * Specify the {@link ChannelResolver} strategy to use.
-	 * The default is a BeanFactoryChannelResolver.
+	 * The default is the ChannelResolver shared within the ApplicationContext,
+	 * which caches the channels it resolves, or else a BeanFactoryChannelResolver.
 	 */
 	public void setChannelResolver(ChannelResolver channelResolver) {
 		Assert.notNull(channelResolver, "'channelResolver' must not be null");
@@ -112,6 +114,7 @@ public abstract class AbstractMappingMessageRouter extends AbstractMessageRouter
 	@ManagedOperation
 	public void setChannelMapping(String key, String channelName) {
 		this.channelMappings.put(key, channelName);
+		this.onChannelMappingsChanged();
 	}
 
 	/**
@@ -120,13 +123,21 @@ public abstract class AbstractMappingMessageRouter extends AbstractMessageRouter
 	@ManagedOperation
 	public void removeChannelMapping(String key) {
 		this.channelMappings.remove(key);
+		this.onChannelMappingsChanged();
+	}
+
+	/**
+	 * Invoked after the channel mappings have been changed. Subclasses that
+	 * derive state from the mappings can override this method to discard it.
+	 */
+	protected void onChannelMappingsChanged() {
 	}
 
 	@Override
 	public void onInit() {
 		BeanFactory beanFactory = this.getBeanFactory();
 		if (this.channelResolver == null && beanFactory != null) {
-			this.channelResolver = new BeanFactoryChannelResolver(beanFactory);
+			this.channelResolver = IntegrationContextUtils.getChannelResolver(beanFactory);
 		}
 	}
 
@@ -18,6 +18,8 @@ package org.springframework.integration.router;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.integration.Message;
 import org.springframework.integration.MessageChannel;
@@ -26,22 +28,40 @@ import org.springframework.integration.MessageChannel;
  * A Message Router that resolves the target {@link MessageChannel} for
  * messages whose payload is an Exception. The channel resolution is based upon
  * the most specific cause of the error for which a channel-mapping exists.
+ * <p>
+ * Whether a channel-mapping exists for an exception type is remembered until
+ * the channel mappings change.
  * 
  * @author Mark Fisher
  * @author Oleg Zhurakousky
  */  
 public class ErrorMessageExceptionTypeRouter extends AbstractMappingMessageRouter {
 
+	/**
+	 * Maps each exception type encountered to itself if it has a
+	 * channel-mapping, or else to <code>Void.class</code>.
+	 */
+	private volatile Map<Class<?>, Class<?>> mappedTypes = new ConcurrentHashMap<Class<?>, Class<?>>();
+
+
 	@Override
 	protected List<Object> getChannelKeys(Message<?> message) {
 		String mostSpecificCause = null;
 		Object payload = message.getPayload();
 		if (payload instanceof Throwable) {
+			// obtained before the mappings are read, so that a concurrent change discards the result
+			Map<Class<?>, Class<?>> mappedTypes = this.mappedTypes;
 			Throwable cause = (Throwable) payload;
 			while (cause != null) {
-				String causeName = cause.getClass().getName();
-				if (this.getChannelMappings().keySet().contains(causeName)) {
-					mostSpecificCause = causeName;
+				Class<?> causeType = cause.getClass();
+				Class<?> mappedType = mappedTypes.get(causeType);
+				if (mappedType == null) {
+					mappedType = this.getChannelMappings().containsKey(causeType.getName())
+							? causeType : Void.class;
+					mappedTypes.put(causeType, mappedType);
+				}
+				if (mappedType == causeType) {
+					mostSpecificCause = causeType.getName();
 				}
 				cause = cause.getCause();
 			}
@@ -49,4 +69,9 @@ public class ErrorMessageExceptionTypeRouter extends AbstractMappingMessageRoute
 		return Collections.singletonList((Object) mostSpecificCause);
 	}
 
+	@Override
+	protected void onChannelMappingsChanged() {
+		this.mappedTypes = new ConcurrentHashMap<Class<?>, Class<?>>();
+	}
+
 }
@@ -19,6 +19,8 @@ package org.springframework.integration.router;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.integration.Message;
 import org.springframework.integration.MessageChannel;
@@ -27,6 +29,10 @@ import org.springframework.util.CollectionUtils;
 /**
  * A Message Router that resolves the {@link MessageChannel} based on the
  * {@link Message Message's} payload type.
+ * <p>
+ * The channel key determined for a payload type is remembered until the
+ * channel mappings change, so the type hierarchy is only traversed once
+ * per type.
  * 
  * @author Mark Fisher
  * @author Oleg Zhurakousky
@@ -35,6 +41,9 @@ public class PayloadTypeRouter extends AbstractMappingMessageRouter {
 
 	private static final String ARRAY_SUFFIX = "[]";
 
+	private volatile Map<Class<?>, List<Object>> channelKeysByType = new ConcurrentHashMap<Class<?>, List<Object>>();
+
+
 	/**
 	 * Selects the most appropriate channel name matching channel identifiers which are the
 	 * fully qualified class names encountered while traversing the payload type hierarchy.
@@ -49,13 +58,27 @@ public class PayloadTypeRouter extends AbstractMappingMessageRouter {
 		if (CollectionUtils.isEmpty(this.getChannelMappings())) {
 			return null;
 		}
-		Class<?> type = message.getPayload().getClass();
-		boolean isArray = type.isArray();
-		if (isArray) {
-			type = type.getComponentType();
+		// obtained before the mappings are read, so that a concurrent change discards the result
+		Map<Class<?>, List<Object>> channelKeysByType = this.channelKeysByType;
+		Class<?> payloadType = message.getPayload().getClass();
+		List<Object> channelKeys = channelKeysByType.get(payloadType);
+		if (channelKeys == null) {
+			Class<?> type = payloadType;
+			boolean isArray = type.isArray();
+			if (isArray) {
+				type = type.getComponentType();
+			}
+			String closestMatch =  this.findClosestMatch(type, isArray);
+			channelKeys = (closestMatch != null)
+					? Collections.<Object>singletonList(closestMatch) : Collections.emptyList();
+			channelKeysByType.put(payloadType, channelKeys);
 		}
-		String closestMatch =  this.findClosestMatch(type, isArray);
-		return (closestMatch != null) ? Collections.<Object>singletonList(closestMatch) : null;
+		return channelKeys;
+	}
+
+	@Override
+	protected void onChannelMappingsChanged() {
+		this.channelKeysByType = new ConcurrentHashMap<Class<?>, List<Object>>();
 	}
 
 
@@ -19,13 +19,14 @@ package org.springframework.integration.store;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
-import org.springframework.beans.DirectFieldAccessor;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessageHeaders;
-import org.springframework.integration.support.MessageBuilder;
+import org.springframework.integration.codec.MessageCodec;
 import org.springframework.jmx.export.annotation.ManagedAttribute;
 import org.springframework.util.Assert;
 
@@ -42,6 +43,19 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 	protected static final String MESSAGE_GROUP_KEY_PREFIX = "MESSAGE_GROUP_";
 	
 	protected static final String CREATED_DATE = "CREATED_DATE";
+
+	private volatile MessageCodec messageCodec;
+
+
+	/**
+	 * Specify a {@link MessageCodec} for Messages to be stored as the bytes it
+	 * encodes rather than as Message objects, or <code>null</code> to store the
+	 * Message objects themselves. Messages stored before a codec was set can
+	 * still be retrieved.
+	 */
+	public void setMessageCodec(MessageCodec messageCodec) {
+		this.messageCodec = messageCodec;
+	}
 	
 	// MessageStore methods
 	
@@ -57,13 +71,13 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 	public <T> Message<T> addMessage(Message<T> message) {
 		Assert.notNull(message, "'message' must not be null");
 		UUID messageId = message.getHeaders().getId(); 
-		this.doStore(MESSAGE_KEY_PREFIX + messageId, message);
+		this.doStore(MESSAGE_KEY_PREFIX + messageId, this.toStoredValue(message));
 		return (Message<T>) this.getRawMessage(messageId);
 	}
 
 	public Message<?> removeMessage(UUID id) {
 		Assert.notNull(id, "'id' must not be null");
-		Object message = this.doRemove(MESSAGE_KEY_PREFIX + id);
+		Object message = this.fromStoredValue(this.doRemove(MESSAGE_KEY_PREFIX + id));
 		if (message != null) {
 			Assert.isInstanceOf(Message.class, message);
 		}
@@ -96,27 +110,21 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 	public MessageGroup addMessageToGroup(Object groupId, Message<?> message) {
 		Assert.notNull(groupId, "'groupId' must not be null");
 		Assert.notNull(message, "'message' must not be null");
-		
-		// add message as is to the MG accessible by the caller
-		SimpleMessageGroup messageGroup = this.getSimpleMessageGroup(this.getMessageGroup(groupId));	
-		
-		messageGroup.add(message);	
-		
-		// enrich Message with additional headers and add it to MS
-		Message<?> enrichedMessage = this.enrichMessage(message);
-		
-		this.addMessage(enrichedMessage);
 
-		// build raw MessageGroup and add enriched Message to it
+		// build raw MessageGroup once and add enriched Message to it
 		SimpleMessageGroup rawGroup = this.buildMessageGroup(groupId, true);
+		Message<?> enrichedMessage = this.enrichMessage(message);
 		rawGroup.setLastModified(System.currentTimeMillis());
 		rawGroup.add(enrichedMessage);
-		
-		// store MessageGroupMetadata built from enriched MG
-		this.doStore(MESSAGE_GROUP_KEY_PREFIX + groupId, new MessageGroupMetadata(rawGroup));		
-		
+
+		// store the enriched Message together with the MessageGroupMetadata built from the raw MG
+		Map<Object, Object> objectsToStore = new LinkedHashMap<Object, Object>();
+		objectsToStore.put(MESSAGE_KEY_PREFIX + message.getHeaders().getId(), this.toStoredValue(enrichedMessage));
+		objectsToStore.put(MESSAGE_GROUP_KEY_PREFIX + groupId, new MessageGroupMetadata(rawGroup));
+		this.doStoreAll(objectsToStore);
+
 		// return clean MG
-		return this.getMessageGroup(groupId);
+		return this.normalizeSimpleMessageGroup(rawGroup);
 	}
 
 	/**
@@ -129,9 +137,6 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 		// build raw MG
 		SimpleMessageGroup rawGroup = this.buildMessageGroup(groupId, true);
 		
-		// create a clean instance of 
-		SimpleMessageGroup messageGroup = this.normalizeSimpleMessageGroup(rawGroup);
-		
 		for (Message<?> message : rawGroup.getMessages()) {
 			if (message.getHeaders().getId().equals(messageToRemove.getHeaders().getId())){
 				rawGroup.remove(message);
@@ -141,9 +146,8 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 		rawGroup.setLastModified(System.currentTimeMillis());
 		
 		this.doStore(MESSAGE_GROUP_KEY_PREFIX + groupId, new MessageGroupMetadata(rawGroup));
-		messageGroup = this.getSimpleMessageGroup(this.getMessageGroup(groupId));
 		
-		return messageGroup;
+		return this.normalizeSimpleMessageGroup(rawGroup);
 	}
 	
 
@@ -164,11 +168,7 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 		if (mgm != null) {
 			Assert.isInstanceOf(MessageGroupMetadata.class, mgm);
 			MessageGroupMetadata messageGroupMetadata = (MessageGroupMetadata) mgm;
-		
-			Iterator<UUID> messageIds = messageGroupMetadata.messageIdIterator();
-			while (messageIds.hasNext()){
-				this.removeMessage(messageIds.next());
-			}
+			this.doRemoveAll(this.messageKeys(messageGroupMetadata));
 		}
 	}
 
@@ -210,14 +210,49 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 	protected abstract Object doRemove(Object id);  
 
 	protected abstract Collection<?> doListKeys(String keyPattern);
+
+	/**
+	 * Retrieve the objects stored under the provided keys. The default implementation
+	 * delegates to {@link #doRetrieve(Object)} for each key; implementations backed by a
+	 * remote store should override it to fetch all values in a single round trip.
+	 * @param ids the keys to retrieve
+	 * @return a Map of key to retrieved object; keys with no stored value may be omitted or mapped to null
+	 */
+	protected Map<Object, Object> doRetrieveAll(Collection<?> ids) {
+		Map<Object, Object> retrievedObjects = new LinkedHashMap<Object, Object>();
+		for (Object id : ids) {
+			retrievedObjects.put(id, this.doRetrieve(id));
+		}
+		return retrievedObjects;
+	}
+
+	/**
+	 * Store all provided key/value pairs. The default implementation delegates
+	 * to {@link #doStore(Object, Object)} for each entry.
+	 * @param objectsToStore the key/value pairs to store
+	 */
+	protected void doStoreAll(Map<Object, Object> objectsToStore) {
+		for (Map.Entry<Object, Object> entry : objectsToStore.entrySet()) {
+			this.doStore(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * Remove the objects stored under the provided keys. The default implementation
+	 * delegates to {@link #doRemove(Object)} for each key.
+	 * @param ids the keys to remove
+	 */
+	protected void doRemoveAll(Collection<?> ids) {
+		for (Object id : ids) {
+			this.doRemove(id);
+		}
+	}
 	
-	@SuppressWarnings({ "rawtypes", "unchecked" })
 	private Message<?> normalizeMessage(Message<?> message){
-		Message<?> normalizedMessage = MessageBuilder.fromMessage(message).removeHeader("CREATED_DATE").build();
-		Map innerMap = (Map) new DirectFieldAccessor(normalizedMessage.getHeaders()).getPropertyValue("headers");
-		innerMap.put(MessageHeaders.ID, message.getHeaders().getId());
-		innerMap.put(MessageHeaders.TIMESTAMP, message.getHeaders().getTimestamp());
-		return normalizedMessage;
+		Map<String, Object> headers = MessageHeaders.overlay(message.getHeaders());
+		headers.remove(CREATED_DATE);
+		return createStoredMessage(message.getPayload(), headers,
+				message.getHeaders().getId(), message.getHeaders().getTimestamp());
 	}
 	
 	/**
@@ -225,13 +260,11 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 	 * @param message
 	 * @return
 	 */
-    @SuppressWarnings({ "rawtypes", "unchecked" })
 	private Message<?> enrichMessage(Message<?> message){
-    	Message<?> enrichedMessage = MessageBuilder.fromMessage(message).setHeader(CREATED_DATE, System.currentTimeMillis()).build();
-		Map innerMap = (Map) new DirectFieldAccessor(enrichedMessage.getHeaders()).getPropertyValue("headers");
-		innerMap.put(MessageHeaders.ID, message.getHeaders().getId());
-		innerMap.put(MessageHeaders.TIMESTAMP, message.getHeaders().getTimestamp());
-		return enrichedMessage;
+		Map<String, Object> headers = MessageHeaders.overlay(message.getHeaders());
+		headers.put(CREATED_DATE, System.currentTimeMillis());
+		return createStoredMessage(message.getPayload(), headers,
+				message.getHeaders().getId(), message.getHeaders().getTimestamp());
 	}
 	
 	private SimpleMessageGroup buildMessageGroup(Object groupId, boolean raw){
@@ -240,15 +273,19 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 		if (mgm != null) {
 			Assert.isInstanceOf(MessageGroupMetadata.class, mgm);
 			MessageGroupMetadata messageGroupMetadata = (MessageGroupMetadata) mgm;
-			ArrayList<Message<?>> messages = new ArrayList<Message<?>>();
-			
-			Iterator<UUID> messageIds = messageGroupMetadata.messageIdIterator();
-			while (messageIds.hasNext()){
-				if (raw){
-					messages.add(this.getRawMessage(messageIds.next()));
-				}
-				else {
-					messages.add(this.getMessage(messageIds.next()));
+			List<Object> messageKeys = this.messageKeys(messageGroupMetadata);
+			Map<Object, Object> retrievedMessages = this.doRetrieveAll(messageKeys);
+			ArrayList<Message<?>> messages = new ArrayList<Message<?>>(messageKeys.size());
+			for (Object messageKey : messageKeys) {
+				Object message = this.fromStoredValue(retrievedMessages.get(messageKey));
+				if (message != null) {
+					Assert.isInstanceOf(Message.class, message);
+					if (raw) {
+						messages.add((Message<?>) message);
+					}
+					else {
+						messages.add(this.normalizeMessage((Message<?>) message));
+					}
 				}
 			}
 			
@@ -263,30 +300,46 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 		}
 	}
 
-	private SimpleMessageGroup getSimpleMessageGroup(MessageGroup messageGroup){
-		if (messageGroup instanceof SimpleMessageGroup){
-			return (SimpleMessageGroup) messageGroup;
-		}
-		else {
-			return new SimpleMessageGroup(messageGroup);
+	private List<Object> messageKeys(MessageGroupMetadata messageGroupMetadata){
+		List<Object> messageKeys = new ArrayList<Object>();
+		Iterator<UUID> messageIds = messageGroupMetadata.messageIdIterator();
+		while (messageIds.hasNext()){
+			messageKeys.add(MESSAGE_KEY_PREFIX + messageIds.next());
 		}
+		return messageKeys;
 	}
 	
 	private SimpleMessageGroup normalizeSimpleMessageGroup(SimpleMessageGroup messageGroup){
-		SimpleMessageGroup normalizedGroup = new SimpleMessageGroup(messageGroup.getGroupId());
+		ArrayList<Message<?>> messages = new ArrayList<Message<?>>(messageGroup.size());
 		for (Message<?> message : messageGroup.getMessages()) {
-			Message<?> normailizedMessage = this.normalizeMessage(message);
-			normalizedGroup.add(normailizedMessage);
+			messages.add(this.normalizeMessage(message));
 		}
+		SimpleMessageGroup normalizedGroup = new SimpleMessageGroup(messages, 
+				messageGroup.getGroupId(), messageGroup.getTimestamp(), messageGroup.isComplete());
+		normalizedGroup.setLastModified(messageGroup.getLastModified());
+		normalizedGroup.setLastReleasedMessageSequenceNumber(messageGroup.getLastReleasedMessageSequenceNumber());
 		return normalizedGroup;
 	}
 	
 	private Message<?> getRawMessage(UUID id) {
 		Assert.notNull(id, "'id' must not be null");
-		Object message = this.doRetrieve(MESSAGE_KEY_PREFIX + id);	
+		Object message = this.fromStoredValue(this.doRetrieve(MESSAGE_KEY_PREFIX + id));
 		return (Message<?>) message;
 	}
 
+	private Object toStoredValue(Message<?> message) {
+		MessageCodec messageCodec = this.messageCodec;
+		return (messageCodec != null) ? messageCodec.encode(message) : message;
+	}
+
+	private Object fromStoredValue(Object value) {
+		MessageCodec messageCodec = this.messageCodec;
+		if (messageCodec != null && value instanceof byte[]) {
+			return messageCodec.decode((byte[]) value);
+		}
+		return value;
+	}
+
 	private class MessageGroupIterator implements Iterator<MessageGroup> {
 
 		private final Iterator<?> idIterator;
@@ -300,7 +353,12 @@ public abstract class AbstractKeyValueMessageStore extends AbstractMessageGroupS
 		}
 
 		public MessageGroup next() {
-			Object messageGroupId = idIterator.next();
+			Object messageGroupKey = idIterator.next();
+			// listed keys carry the group prefix which getMessageGroup() adds again
+			String messageGroupId = messageGroupKey.toString();
+			if (messageGroupId.startsWith(MESSAGE_GROUP_KEY_PREFIX)) {
+				messageGroupId = messageGroupId.substring(MESSAGE_GROUP_KEY_PREFIX.length());
+			}
 			return getMessageGroup(messageGroupId);
 		}
 
@@ -0,0 +1,426 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.store;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+
+/**
+ * File-based implementation of {@link MetadataStore} that appends each update
+ * to a log file as it happens, rather than writing all entries at shutdown
+ * like {@link PropertiesPersistingMetadataStore}. An update therefore costs a
+ * single small write, and survives a crash of the process.
+ * <p>
+ * Forcing the writes to the storage device is done for all updates of an
+ * interval at once (group commit), by default every second. Updates of the
+ * last interval may be lost if the operating system crashes; an interval of 0
+ * forces every update before {@link #put(String, String)} returns.
+ * <p>
+ * Each record carries a checksum, so that a record that was only partially
+ * written when a crash occurred is discarded (together with anything after it)
+ * when the log is read upon startup. Once the log holds many more records than
+ * there are keys, it is compacted by writing the current entries to a new file
+ * that replaces it.
+ * <p>
+ * The log is written to 'metadata-store.log' in the base directory, which
+ * defaults to 'java.io.tmpdir' + "/spring-integration/". If the log does not
+ * exist yet but a 'metadata-store.properties' file of a
+ * {@link PropertiesPersistingMetadataStore} does, its entries are imported.
+ *
+ * @since 2.1
+ */
+public class AppendOnlyMetadataStore implements MetadataStore, InitializingBean, DisposableBean {
+
+	private static final String LOG_FILE_NAME = "metadata-store.log";
+
+	private static final String COMPACTION_FILE_NAME = LOG_FILE_NAME + ".compacting";
+
+	private static final String PROPERTIES_FILE_NAME = "metadata-store.properties";
+
+
+	private final Log logger = LogFactory.getLog(getClass());
+
+	private final Map<String, String> metadata = new ConcurrentHashMap<String, String>();
+
+	private final Object writeMonitor = new Object();
+
+	private volatile String baseDirectory = System.getProperty("java.io.tmpdir") + "/spring-integration/";
+
+	private volatile long fsyncInterval = 1000;
+
+	private volatile int compactionThreshold = 1000;
+
+	private volatile File file;
+
+	private volatile FileChannel channel;
+
+	private volatile ScheduledExecutorService fsyncExecutor;
+
+	/**
+	 * Guarded by the writeMonitor, as is the channel's position.
+	 */
+	private int recordCount;
+
+	private volatile boolean dirty;
+
+
+	public void setBaseDirectory(String baseDirectory) {
+		Assert.hasText(baseDirectory, "'baseDirectory' must be non-empty");
+		this.baseDirectory = baseDirectory;
+	}
+
+	/**
+	 * Specify the number of milliseconds between forcing the updates to the
+	 * storage device. The default is 1000. If 0, each update is forced on its own.
+	 */
+	public void setFsyncInterval(long fsyncInterval) {
+		Assert.isTrue(fsyncInterval >= 0, "'fsyncInterval' must not be negative");
+		this.fsyncInterval = fsyncInterval;
+	}
+
+	/**
+	 * Specify the minimum number of records in the log before it is compacted.
+	 * The log is only compacted if it also holds more than twice as many records
+	 * as there are keys. The default is 1000.
+	 */
+	public void setCompactionThreshold(int compactionThreshold) {
+		Assert.isTrue(compactionThreshold > 0, "'compactionThreshold' must be a positive integer");
+		this.compactionThreshold = compactionThreshold;
+	}
+
+	public void afterPropertiesSet() throws Exception {
+		File baseDir = new File(this.baseDirectory);
+		baseDir.mkdirs();
+		this.file = new File(baseDir, LOG_FILE_NAME);
+		File compactionFile = new File(baseDir, COMPACTION_FILE_NAME);
+		boolean importProperties = false;
+		if (!this.file.exists()) {
+			if (compactionFile.exists()) {
+				// the crash occurred after the old log was deleted, but before it was replaced
+				this.replaceLog(compactionFile);
+			}
+			else {
+				importProperties = true;
+			}
+		}
+		else if (compactionFile.exists()) {
+			// the crash occurred before the compacted log was complete
+			compactionFile.delete();
+		}
+		try {
+			this.channel = new RandomAccessFile(this.file, "rw").getChannel();
+			long validLength = this.loadMetadata();
+			if (validLength < this.channel.size()) {
+				logger.warn("Discarding " + (this.channel.size() - validLength) + " bytes of incomplete records at the end of "
+						+ this.file.getAbsolutePath() + ". The updates they were meant to record are lost.");
+				this.channel.truncate(validLength);
+			}
+			this.channel.position(validLength);
+		}
+		catch (IOException e) {
+			throw new IllegalArgumentException("Failed to open metadata-store file '"
+					+ this.file.getAbsolutePath() + "'", e);
+		}
+		if (importProperties) {
+			this.importProperties(new File(baseDir, PROPERTIES_FILE_NAME));
+		}
+		if (this.fsyncInterval > 0) {
+			CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("metadata-store-fsync-");
+			threadFactory.setDaemon(true);
+			this.fsyncExecutor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+			this.fsyncExecutor.scheduleWithFixedDelay(new Runnable() {
+				public void run() {
+					fsync();
+				}
+			}, this.fsyncInterval, this.fsyncInterval, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	public void put(String key, String value) {
+		Assert.notNull(key, "'key' must not be null");
+		Assert.notNull(value, "'value' must not be null");
+		Assert.state(this.channel != null, "metadata-store has not been initialized");
+		ByteBuffer record = this.encode(key, value);
+		synchronized (this.writeMonitor) {
+			long position = -1;
+			try {
+				position = this.channel.position();
+				this.write(this.channel, record);
+				this.recordCount++;
+				if (this.fsyncInterval == 0) {
+					this.channel.force(false);
+				}
+				else {
+					this.dirty = true;
+				}
+			}
+			catch (IOException e) {
+				if (position >= 0) {
+					this.discardFrom(position);
+				}
+				throw new IllegalStateException("Failed to write to metadata-store file '"
+						+ this.file.getAbsolutePath() + "'", e);
+			}
+			this.metadata.put(key, value);
+			if (this.recordCount >= this.compactionThreshold && this.recordCount > 2 * this.metadata.size()) {
+				this.compact();
+			}
+		}
+	}
+
+	public String get(String key) {
+		return this.metadata.get(key);
+	}
+
+	public void destroy() throws Exception {
+		if (this.fsyncExecutor != null) {
+			this.fsyncExecutor.shutdown();
+		}
+		synchronized (this.writeMonitor) {
+			if (this.channel != null) {
+				try {
+					this.channel.force(false);
+				}
+				finally {
+					this.channel.close();
+					this.channel = null;
+				}
+			}
+		}
+	}
+
+	private void fsync() {
+		if (!this.dirty) {
+			return;
+		}
+		synchronized (this.writeMonitor) {
+			try {
+				if (this.channel != null) {
+					this.dirty = false;
+					this.channel.force(false);
+				}
+			}
+			catch (IOException e) {
+				logger.warn("Failed to force updates to metadata-store file '" + this.file.getAbsolutePath() + "'", e);
+			}
+		}
+	}
+
+	/**
+	 * Writes the current entries to a new file which then replaces the log.
+	 * Called with the writeMonitor held.
+	 */
+	private void compact() {
+		File compactionFile = new File(this.file.getParentFile(), COMPACTION_FILE_NAME);
+		try {
+			FileChannel compactionChannel = new RandomAccessFile(compactionFile, "rw").getChannel();
+			try {
+				compactionChannel.truncate(0);
+				for (Map.Entry<String, String> entry : this.metadata.entrySet()) {
+					this.write(compactionChannel, this.encode(entry.getKey(), entry.getValue()));
+				}
+				compactionChannel.force(true);
+			}
+			finally {
+				compactionChannel.close();
+			}
+			this.channel.close();
+			try {
+				this.replaceLog(compactionFile);
+				this.recordCount = this.metadata.size();
+				this.dirty = false;
+			}
+			finally {
+				// the log must remain writable, whether or not it was replaced
+				this.reopenLog();
+			}
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Failed to compact metadata-store file '"
+					+ this.file.getAbsolutePath() + "'", e);
+		}
+	}
+
+	/**
+	 * Truncates the log to the given length, so that the next record is not
+	 * appended to a partially written one. Called with the writeMonitor held.
+	 */
+	private void discardFrom(long position) {
+		try {
+			this.channel.truncate(position);
+			this.channel.position(position);
+		}
+		catch (IOException e) {
+			logger.warn("Failed to discard a partially written record from metadata-store file '"
+					+ this.file.getAbsolutePath() + "'", e);
+		}
+	}
+
+	/**
+	 * Opens the log for appending after compaction. If the log was deleted but not
+	 * replaced by the compacted file, the current entries are written to it anew.
+	 * Called with the writeMonitor held.
+	 */
+	private void reopenLog() throws IOException {
+		boolean lost = !this.file.exists();
+		this.channel = new RandomAccessFile(this.file, "rw").getChannel();
+		if (lost) {
+			for (Map.Entry<String, String> entry : this.metadata.entrySet()) {
+				this.write(this.channel, this.encode(entry.getKey(), entry.getValue()));
+			}
+			this.channel.force(true);
+			this.recordCount = this.metadata.size();
+		}
+		this.channel.position(this.channel.size());
+	}
+
+	private void replaceLog(File compactionFile) throws IOException {
+		if (!compactionFile.renameTo(this.file)) {
+			// some platforms do not replace an existing file
+			this.file.delete();
+			if (!compactionFile.renameTo(this.file)) {
+				throw new IOException("Failed to rename '" + compactionFile.getAbsolutePath() + "' to '"
+						+ this.file.getAbsolutePath() + "'");
+			}
+		}
+	}
+
+	/**
+	 * Reads the log and returns the length of its leading valid records.
+	 */
+	private long loadMetadata() throws IOException {
+		long fileLength = this.file.length();
+		long validLength = 0;
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.file)));
+		try {
+			CRC32 crc = new CRC32();
+			while (validLength < fileLength) {
+				long remaining = fileLength - validLength;
+				byte[] key = this.readBytes(in, remaining);
+				byte[] value = (key != null) ? this.readBytes(in, remaining - 4 - key.length) : null;
+				if (value == null || remaining < 12 + key.length + value.length) {
+					break;
+				}
+				crc.reset();
+				crc.update(key);
+				crc.update(value);
+				if ((int) crc.getValue() != in.readInt()) {
+					break;
+				}
+				this.metadata.put(new String(key, "UTF-8"), new String(value, "UTF-8"));
+				this.recordCount++;
+				validLength += 12 + key.length + value.length;
+			}
+		}
+		catch (EOFException e) {
+			// an incomplete record
+		}
+		finally {
+			try {
+				in.close();
+			}
+			catch (IOException e) {
+				logger.warn("Failed to close FileInputStream for: " + this.file.getAbsolutePath());
+			}
+		}
+		return validLength;
+	}
+
+	/**
+	 * Returns <code>null</code> if the length is not valid for the remaining bytes.
+	 */
+	private byte[] readBytes(DataInputStream in, long remaining) throws IOException {
+		int length = in.readInt();
+		if (length < 0 || length > remaining - 4) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return bytes;
+	}
+
+	private void importProperties(File propertiesFile) {
+		if (propertiesFile.exists()) {
+			try {
+				Properties properties = PropertiesLoaderUtils.loadProperties(new FileSystemResource(propertiesFile));
+				for (Map.Entry<Object, Object> entry : properties.entrySet()) {
+					this.put((String) entry.getKey(), (String) entry.getValue());
+				}
+				this.channel.force(false);
+				this.dirty = false;
+			}
+			catch (IOException e) {
+				// not fatal for the functionality of the component
+				logger.warn("Failed to import the entries of " + propertiesFile.getAbsolutePath(), e);
+			}
+		}
+	}
+
+	private ByteBuffer encode(String key, String value) {
+		try {
+			byte[] keyBytes = key.getBytes("UTF-8");
+			byte[] valueBytes = value.getBytes("UTF-8");
+			CRC32 crc = new CRC32();
+			crc.update(keyBytes);
+			crc.update(valueBytes);
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(12 + keyBytes.length + valueBytes.length);
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeInt(keyBytes.length);
+			out.write(keyBytes);
+			out.writeInt(valueBytes.length);
+			out.write(valueBytes);
+			out.writeInt((int) crc.getValue());
+			return ByteBuffer.wrap(bytes.toByteArray());
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Failed to encode metadata-store entry", e);
+		}
+	}
+
+	private void write(FileChannel channel, ByteBuffer record) throws IOException {
+		while (record.hasRemaining()) {
+			channel.write(record);
+		}
+	}
+
+}
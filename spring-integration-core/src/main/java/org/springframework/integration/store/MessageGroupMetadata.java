@@ -58,6 +58,11 @@ public class MessageGroupMetadata implements Serializable{
 		for (Message<?> message : messageGroup.getMessages()) {
 			Long createdDate = (Long) message.getHeaders().get(CREATED_DATE);
 			Assert.notNull(createdDate > 0,  CREATED_DATE  + " must not be null");
+			// messages added within the same millisecond must not replace each other;
+			// the group's iteration order is preserved by moving later ones forward
+			while (this.messageCreationDateToIdMappings.containsKey(createdDate)) {
+				createdDate++;
+			}
 			this.messageCreationDateToIdMappings.put(createdDate, message.getHeaders().getId());
 		}
 		this.complete = messageGroup.isComplete();
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.store;
+
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.integration.Message;
+import org.springframework.integration.MessageHeaders;
+import org.springframework.integration.message.ErrorMessage;
+import org.springframework.integration.message.GenericMessage;
+
+/**
+ * Creates the Messages that {@link MessageStore} implementations keep and
+ * return. Unlike those built by {@link org.springframework.integration.support.MessageBuilder},
+ * they have the ID (and optionally the TIMESTAMP) of the Message they stand for.
+ * Stores outside of this package use it through
+ * {@link AbstractMessageGroupStore#createStoredMessage(Object, Map, UUID, Long)}.
+ *
+ * @since 2.1
+ */
+abstract class StoredMessageFactory {
+
+	/**
+	 * Create a Message with the given payload, headers, ID and TIMESTAMP. If the
+	 * headers are those of another Message (or a {@link MessageHeaders#overlay(MessageHeaders)
+	 * view} of them), their entries are shared rather than copied.
+	 *
+	 * @param payload the payload
+	 * @param headers the headers, any ID and TIMESTAMP among them are ignored
+	 * @param id the ID
+	 * @param timestamp the TIMESTAMP, or <code>null</code> for the current time
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> Message<T> createMessage(T payload, Map<String, Object> headers, UUID id, Long timestamp) {
+		Map<String, Object> overlay = MessageHeaders.restoringOverlay(headers, id, timestamp);
+		if (payload instanceof Throwable) {
+			return (Message<T>) new ErrorMessage((Throwable) payload, overlay);
+		}
+		return new GenericMessage<T>(payload, overlay);
+	}
+
+}
@@ -45,7 +45,7 @@ public final class MessageBuilder<T> {
 
 	private final T payload;
 
-	private final Map<String, Object> headers = new HashMap<String, Object>();
+	private final Map<String, Object> headers;
 
 	private final Message<T> originalMessage;
 
@@ -59,9 +59,13 @@ public final class MessageBuilder<T> {
 		this.payload = payload;
 		this.originalMessage = originalMessage;
 		if (originalMessage != null) {
-			this.copyHeaders(originalMessage.getHeaders());
+			// the original headers are shared, only changes to them are recorded
+			this.headers = MessageHeaders.overlay(originalMessage.getHeaders());
 			this.modified = (!this.payload.equals(originalMessage.getPayload()));
 		}
+		else {
+			this.headers = new HashMap<String, Object>();
+		}
 	}
 
 	/**
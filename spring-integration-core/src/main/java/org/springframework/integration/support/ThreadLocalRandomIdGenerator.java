@@ -0,0 +1,58 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.support;
+
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.UUID;
+
+import org.springframework.integration.MessageHeaders.IdGenerator;
+
+/**
+ * An {@link IdGenerator} that creates random (version 4) UUIDs like
+ * {@link UUID#randomUUID()}, but from a {@link Random} per thread rather than
+ * a single shared {@link SecureRandom}. Each thread's generator is seeded from
+ * a {@link SecureRandom} once, when that thread generates its first ID, so
+ * threads neither contend with each other nor wait for entropy afterwards.
+ * <p>
+ * The IDs are not suitable where they must be hard to predict.
+ *
+ * @since 2.1
+ */
+public class ThreadLocalRandomIdGenerator implements IdGenerator {
+
+	private final SecureRandom seedGenerator = new SecureRandom();
+
+	private final ThreadLocal<Random> random = new ThreadLocal<Random>() {
+		@Override
+		protected Random initialValue() {
+			return new Random(seedGenerator.nextLong());
+		}
+	};
+
+
+	public UUID generateId() {
+		Random random = this.random.get();
+		long mostSignificantBits = random.nextLong();
+		long leastSignificantBits = random.nextLong();
+		// version 4 and IETF variant, as set by UUID.randomUUID()
+		mostSignificantBits = (mostSignificantBits & 0xffffffffffff0fffL) | 0x0000000000004000L;
+		leastSignificantBits = (leastSignificantBits & 0x3fffffffffffffffL) | 0x8000000000000000L;
+		return new UUID(mostSignificantBits, leastSignificantBits);
+	}
+
+}
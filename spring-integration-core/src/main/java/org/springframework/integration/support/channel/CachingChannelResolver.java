@@ -0,0 +1,155 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.support.channel;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ApplicationContextEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.integration.MessageChannel;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ChannelResolver} that remembers the channels resolved by another
+ * ChannelResolver, so that a channel name is only looked up once.
+ *
+ * <p>The cache is bounded: once it holds the configured limit of channels,
+ * an arbitrary entry is evicted for each new one. When running within an
+ * ApplicationContext, the cache is cleared whenever a context is refreshed
+ * or closed. Channels registered with the BeanFactory later on (if any)
+ * require a call to {@link #clearCache()} to replace a cached channel.
+ *
+ * <p>Names that cannot be resolved are only remembered if
+ * {@link #setCacheUnresolvableNames(boolean) enabled}. Subsequent lookups
+ * of such a name throw a {@link ChannelResolutionException} without
+ * consulting the target resolver, until the cache is cleared.
+ *
+ * <p>If a BeanFactory is available, channels that are not singletons are
+ * never cached.
+ *
+ * @since 2.1
+ */
+public class CachingChannelResolver implements ChannelResolver, BeanFactoryAware,
+		ApplicationListener<ApplicationContextEvent> {
+
+	public static final int DEFAULT_CACHE_LIMIT = 256;
+
+
+	private final ChannelResolver targetResolver;
+
+	private final Map<String, MessageChannel> channels = new ConcurrentHashMap<String, MessageChannel>();
+
+	private final Map<String, Boolean> unresolvableNames = new ConcurrentHashMap<String, Boolean>();
+
+	private volatile int cacheLimit = DEFAULT_CACHE_LIMIT;
+
+	private volatile boolean cacheUnresolvableNames;
+
+	private volatile BeanFactory beanFactory;
+
+
+	/**
+	 * Create a resolver that caches the channels resolved by the given target.
+	 */
+	public CachingChannelResolver(ChannelResolver targetResolver) {
+		Assert.notNull(targetResolver, "'targetResolver' must not be null");
+		this.targetResolver = targetResolver;
+	}
+
+
+	/**
+	 * Specify the maximum number of channels (and, separately, of unresolvable
+	 * names) to be cached. The default is {@value #DEFAULT_CACHE_LIMIT}.
+	 */
+	public void setCacheLimit(int cacheLimit) {
+		Assert.isTrue(cacheLimit > 0, "'cacheLimit' must be a positive integer");
+		this.cacheLimit = cacheLimit;
+	}
+
+	/**
+	 * Specify whether names that cannot be resolved should be remembered
+	 * as such. The default is <code>false</code>.
+	 */
+	public void setCacheUnresolvableNames(boolean cacheUnresolvableNames) {
+		this.cacheUnresolvableNames = cacheUnresolvableNames;
+	}
+
+	public void setBeanFactory(BeanFactory beanFactory) {
+		this.beanFactory = beanFactory;
+	}
+
+	public MessageChannel resolveChannelName(String name) {
+		MessageChannel channel = this.channels.get(name);
+		if (channel != null) {
+			return channel;
+		}
+		if (this.unresolvableNames.containsKey(name)) {
+			throw new ChannelResolutionException("failed to look up MessageChannel with name '" + name
+					+ "' (the name is cached as unresolvable)");
+		}
+		try {
+			channel = this.targetResolver.resolveChannelName(name);
+		}
+		catch (ChannelResolutionException e) {
+			if (this.cacheUnresolvableNames) {
+				this.put(this.unresolvableNames, name, Boolean.TRUE);
+			}
+			throw e;
+		}
+		if (channel != null && this.isCacheable(name)) {
+			this.put(this.channels, name, channel);
+		}
+		return channel;
+	}
+
+	/**
+	 * Remove all channels and unresolvable names from the cache.
+	 */
+	public void clearCache() {
+		this.channels.clear();
+		this.unresolvableNames.clear();
+	}
+
+	public void onApplicationEvent(ApplicationContextEvent event) {
+		if (event instanceof ContextRefreshedEvent || event instanceof ContextClosedEvent) {
+			this.clearCache();
+		}
+	}
+
+	private boolean isCacheable(String name) {
+		BeanFactory beanFactory = this.beanFactory;
+		return beanFactory == null || !beanFactory.containsBean(name) || beanFactory.isSingleton(name);
+	}
+
+	private <V> void put(Map<String, V> cache, String name, V value) {
+		if (cache.size() >= this.cacheLimit) {
+			Iterator<String> names = cache.keySet().iterator();
+			if (names.hasNext()) {
+				names.next();
+				names.remove();
+			}
+		}
+		cache.put(name, value);
+	}
+
+}
@@ -43,6 +43,9 @@ public class MapToObjectTransformer extends AbstractPayloadTransformer<Map<?,?>,
 	private final Class<?> targetClass;
 
 	private final String targetBeanName;
+
+	private volatile ConversionService bindingConversionService;
+
 	/**
 	 * @param targetClass
 	 */
@@ -67,18 +70,31 @@ public class MapToObjectTransformer extends AbstractPayloadTransformer<Map<?,?>,
 		Object target = (this.targetClass != null)
 				? BeanUtils.instantiate(this.targetClass)
 				: this.getBeanFactory().getBean(this.targetBeanName);
-		DataBinder binder = new DataBinder(target);	
-		ConversionService conversionService = null;
-		if (this.getBeanFactory() instanceof ConfigurableBeanFactory){
-			conversionService = ((ConfigurableBeanFactory)this.getBeanFactory()).getConversionService();
-		}
-		if (conversionService == null){
-			conversionService = ConversionServiceFactory.createDefaultConversionService();
-		}
-		binder.setConversionService(conversionService);
+		DataBinder binder = new DataBinder(target);
+		binder.setConversionService(this.getBindingConversionService());
 		binder.bind(new MutablePropertyValues(payload));
 		return target;
 	}
+
+	/**
+	 * Returns the ConversionService of the BeanFactory or, if there is none, a default
+	 * one. It is only looked up (or created) once rather than for every Message, while
+	 * the property descriptors of the target class are cached by the BeanWrapper that
+	 * the DataBinder creates.
+	 */
+	private ConversionService getBindingConversionService() {
+		ConversionService conversionService = this.bindingConversionService;
+		if (conversionService == null) {
+			if (this.getBeanFactory() instanceof ConfigurableBeanFactory){
+				conversionService = ((ConfigurableBeanFactory)this.getBeanFactory()).getConversionService();
+			}
+			if (conversionService == null){
+				conversionService = ConversionServiceFactory.createDefaultConversionService();
+			}
+			this.bindingConversionService = conversionService;
+		}
+		return conversionService;
+	}
 	
 	protected void onInit(){
 		if (StringUtils.hasText(this.targetBeanName)) {
@@ -16,12 +16,19 @@
 
 package org.springframework.integration.transformer;
 
-import java.util.Collection;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
+import org.codehaus.jackson.Base64Variants;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
 import org.codehaus.jackson.map.ObjectMapper;
-import org.springframework.util.CollectionUtils;
+import org.codehaus.jackson.util.TokenBuffer;
 import org.springframework.util.StringUtils;
 
 /**
@@ -52,61 +59,131 @@ import org.springframework.util.StringUtils;
  */
 public class ObjectToMapTransformer extends AbstractPayloadTransformer<Object, Map<?,?>> {
 
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
 	private volatile boolean shouldFlattenKeys = true;
 
 	public void setShouldFlattenKeys(boolean shouldFlattenKeys) {
 		this.shouldFlattenKeys = shouldFlattenKeys;
 	}
 
-	@SuppressWarnings("unchecked")
+	/**
+	 * Writes the payload to a buffer of JSON tokens (rather than to a JSON String), and
+	 * builds the resulting Map (flat or not) from those tokens in a single pass.
+	 */
 	protected Map<String, Object> transformPayload(Object payload) throws Exception {
-		ObjectMapper mapper = new ObjectMapper();
-		Map<String,Object> result = new ObjectMapper().readValue(mapper.writeValueAsString(payload), Map.class);
+		TokenBuffer buffer = new TokenBuffer(this.objectMapper);
+		this.objectMapper.writeValue(buffer, payload);
+		JsonParser parser = buffer.asParser();
+		if (parser.nextToken() != JsonToken.START_OBJECT) {
+			throw new IllegalArgumentException("payload of type [" + payload.getClass().getName()
+					+ "] cannot be represented as a Map");
+		}
 		if (this.shouldFlattenKeys) {
-			result = this.flattenMap(result);
+			Map<String, Object> result = new HashMap<String, Object>();
+			this.flattenObject(parser, "", result);
+			return result;
 		}
-		return result;
+		return this.readObject(parser);
 	}
 
-	private Map<String, Object> flattenMap(Map<String,Object> result){
-		Map<String,Object> resultMap = new HashMap<String, Object>();
-		this.doFlatten("", result, resultMap);
-		return resultMap;
+	/**
+	 * Adds the fields of the current JSON object to the result, with keys that
+	 * document the path to each value (e.g. 'a.b[0].c').
+	 */
+	private void flattenObject(JsonParser parser, String propertyPrefix, Map<String, Object> resultMap) throws IOException {
+		String prefix = StringUtils.hasText(propertyPrefix) ? propertyPrefix + "." : propertyPrefix;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String key = prefix + parser.getCurrentName();
+			this.flattenElement(parser, parser.nextToken(), key, resultMap);
+		}
 	}
 
-	private void doFlatten(String propertyPrefix, Map<String,Object> inputMap, Map<String,Object> resultMap){
-		if (StringUtils.hasText(propertyPrefix)) {
-			propertyPrefix = propertyPrefix + ".";
+	private void flattenElement(JsonParser parser, JsonToken token, String key, Map<String, Object> resultMap) throws IOException {
+		if (token == JsonToken.START_OBJECT) {
+			this.flattenObject(parser, key, resultMap);
 		}
-		for (String key : inputMap.keySet()) {
-			Object value = inputMap.get(key);
-			this.doProcessElement(propertyPrefix + key, value, resultMap);
+		else if (token == JsonToken.START_ARRAY) {
+			int counter = 0;
+			while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+				this.flattenElement(parser, token, key + "[" + counter + "]", resultMap);
+				counter++;
+			}
+		}
+		else {
+			resultMap.put(key, this.readScalar(parser, token));
 		}
 	}
 
-	private void doProcessCollection(String propertyPrefix,  Collection<?> list, Map<String, Object> resultMap) {
-		int counter = 0;
-		for (Object element : list) {
-			this.doProcessElement(propertyPrefix + "[" + counter + "]", element, resultMap);
-			counter ++;
+	private Map<String, Object> readObject(JsonParser parser) throws IOException {
+		Map<String, Object> map = new LinkedHashMap<String, Object>();
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String key = parser.getCurrentName();
+			map.put(key, this.readElement(parser, parser.nextToken()));
 		}
+		return map;
 	}
 
-	@SuppressWarnings("unchecked")
-	private void doProcessElement(String propertyPrefix, Object element, Map<String, Object> resultMap) {
-		if (element instanceof Map) {
-			this.doFlatten(propertyPrefix, (Map<String, Object>) element, resultMap);
+	private Object readElement(JsonParser parser, JsonToken token) throws IOException {
+		if (token == JsonToken.START_OBJECT) {
+			return this.readObject(parser);
 		}
-		else if (element instanceof Collection) {
-			this.doProcessCollection(propertyPrefix, (Collection<?>) element, resultMap);
-		} 
-		else if (element != null && element.getClass().isArray()) {
-			Collection<?> collection =  CollectionUtils.arrayToList(element); 
-			this.doProcessCollection(propertyPrefix, collection, resultMap);
+		if (token == JsonToken.START_ARRAY) {
+			List<Object> list = new ArrayList<Object>();
+			while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+				list.add(this.readElement(parser, token));
+			}
+			return list;
 		}
-		else {
-			resultMap.put(propertyPrefix, element);
+		return this.readScalar(parser, token);
+	}
+
+	/**
+	 * Returns the value that parsing the JSON text of the current token would produce,
+	 * so that the result is the same as for a round trip through a JSON String.
+	 */
+	private Object readScalar(JsonParser parser, JsonToken token) throws IOException {
+		switch (token) {
+			case VALUE_STRING:
+				return parser.getText();
+			case VALUE_TRUE:
+				return Boolean.TRUE;
+			case VALUE_FALSE:
+				return Boolean.FALSE;
+			case VALUE_NULL:
+				return null;
+			case VALUE_NUMBER_INT:
+			case VALUE_NUMBER_FLOAT:
+				return this.normalizeNumber(parser.getNumberValue());
+			case VALUE_EMBEDDED_OBJECT:
+				Object value = parser.getEmbeddedObject();
+				if (value instanceof byte[]) {
+					return Base64Variants.getDefaultVariant().encode((byte[]) value);
+				}
+				return value;
+			default:
+				throw new IllegalStateException("unexpected JSON token: " + token);
+		}
+	}
+
+	private Number normalizeNumber(Number number) {
+		if (number instanceof Integer || number instanceof Short || number instanceof Byte) {
+			return number.intValue();
+		}
+		String text = number.toString();
+		if (text.indexOf('.') >= 0 || text.indexOf('e') >= 0 || text.indexOf('E') >= 0
+				|| number instanceof Double && (((Double) number).isNaN() || ((Double) number).isInfinite())
+				|| number instanceof Float && (((Float) number).isNaN() || ((Float) number).isInfinite())) {
+			return Double.valueOf(text);
+		}
+		BigInteger value = new BigInteger(text);
+		if (value.bitLength() < 32) {
+			return value.intValue();
+		}
+		if (value.bitLength() < 64) {
+			return value.longValue();
 		}
+		return value;
 	}
 
 }
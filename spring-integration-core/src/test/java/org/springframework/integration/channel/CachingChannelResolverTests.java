@@ -0,0 +1,160 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.channel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.integration.MessageChannel;
+import org.springframework.integration.context.IntegrationContextUtils;
+import org.springframework.integration.router.AbstractMappingMessageRouter;
+import org.springframework.integration.router.HeaderValueRouter;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.integration.support.channel.BeanFactoryChannelResolver;
+import org.springframework.integration.support.channel.CachingChannelResolver;
+import org.springframework.integration.support.channel.ChannelResolutionException;
+import org.springframework.integration.support.channel.ChannelResolver;
+
+/**
+ * @since 2.1
+ */
+public class CachingChannelResolverTests {
+
+	@Test
+	public void resolvedChannelIsCached() {
+		CountingChannelResolver target = new CountingChannelResolver();
+		CachingChannelResolver resolver = new CachingChannelResolver(target);
+		MessageChannel channel = resolver.resolveChannelName("foo");
+		assertSame(channel, resolver.resolveChannelName("foo"));
+		assertEquals(1, target.count);
+		resolver.clearCache();
+		assertNotSame(channel, resolver.resolveChannelName("foo"));
+		assertEquals(2, target.count);
+	}
+
+	@Test
+	public void cacheIsBounded() {
+		CountingChannelResolver target = new CountingChannelResolver();
+		CachingChannelResolver resolver = new CachingChannelResolver(target);
+		resolver.setCacheLimit(2);
+		resolver.resolveChannelName("foo");
+		resolver.resolveChannelName("bar");
+		resolver.resolveChannelName("baz");
+		resolver.resolveChannelName("foo");
+		resolver.resolveChannelName("bar");
+		resolver.resolveChannelName("baz");
+		// one of the first two has been evicted by the third
+		assertTrue(target.count > 3);
+	}
+
+	@Test
+	public void unresolvableNamesAreOnlyCachedIfEnabled() {
+		CountingChannelResolver target = new CountingChannelResolver();
+		CachingChannelResolver resolver = new CachingChannelResolver(target);
+		this.assertUnresolvable(resolver, "bad");
+		this.assertUnresolvable(resolver, "bad");
+		assertEquals(2, target.count);
+		resolver.setCacheUnresolvableNames(true);
+		this.assertUnresolvable(resolver, "bad");
+		this.assertUnresolvable(resolver, "bad");
+		assertEquals(3, target.count);
+	}
+
+	@Test
+	public void cacheIsClearedUponRefresh() {
+		GenericApplicationContext context = new GenericApplicationContext();
+		context.registerBeanDefinition("foo", new RootBeanDefinition(QueueChannel.class));
+		RootBeanDefinition prototype = new RootBeanDefinition(QueueChannel.class);
+		prototype.setScope(RootBeanDefinition.SCOPE_PROTOTYPE);
+		context.registerBeanDefinition("bar", prototype);
+		context.refresh();
+		CachingChannelResolver resolver = new CachingChannelResolver(new BeanFactoryChannelResolver(context));
+		resolver.setBeanFactory(context);
+		resolver.setCacheUnresolvableNames(true);
+		assertSame(context.getBean("foo"), resolver.resolveChannelName("foo"));
+		assertNotSame(resolver.resolveChannelName("bar"), resolver.resolveChannelName("bar"));
+		this.assertUnresolvable(resolver, "baz");
+		context.getBeanFactory().registerSingleton("baz", new QueueChannel());
+		this.assertUnresolvable(resolver, "baz");
+		resolver.onApplicationEvent(new ContextRefreshedEvent(context));
+		assertSame(context.getBean("baz"), resolver.resolveChannelName("baz"));
+	}
+
+	@Test
+	public void sharedResolverIsUsedByDefault() {
+		ClassPathXmlApplicationContext context = new ClassPathXmlApplicationContext(
+				"config/channelParserTests.xml", this.getClass());
+		ChannelResolver shared = IntegrationContextUtils.getChannelResolver(context);
+		assertTrue(shared instanceof CachingChannelResolver);
+		assertSame(shared, IntegrationContextUtils.getChannelResolver(context));
+		assertSame(context.getBean("capacityChannel"), shared.resolveChannelName("capacityChannel"));
+		GenericApplicationContext child = new GenericApplicationContext(context);
+		child.refresh();
+		// the parent's resolver does not see the channels of the child
+		assertTrue(IntegrationContextUtils.getChannelResolver(child) instanceof BeanFactoryChannelResolver);
+		context.close();
+	}
+
+	@Test
+	public void tolerantRouterResolvesChannelsRegisteredLater() {
+		GenericApplicationContext context = new GenericApplicationContext();
+		context.refresh();
+		AbstractMappingMessageRouter router = new HeaderValueRouter("target");
+		router.setResolutionRequired(false);
+		router.setDefaultOutputChannel(new NullChannel());
+		router.setBeanFactory(context);
+		router.afterPropertiesSet();
+		router.handleMessage(MessageBuilder.withPayload("test").setHeader("target", "missing").build());
+		context.getBeanFactory().registerSingleton("missing", new QueueChannel());
+		router.handleMessage(MessageBuilder.withPayload("test").setHeader("target", "missing").build());
+		assertEquals(1, ((QueueChannel) context.getBean("missing")).getQueueSize());
+	}
+
+	private void assertUnresolvable(ChannelResolver resolver, String name) {
+		try {
+			resolver.resolveChannelName(name);
+			fail("expected ChannelResolutionException");
+		}
+		catch (ChannelResolutionException e) {
+			// expected
+		}
+	}
+
+
+	private static class CountingChannelResolver implements ChannelResolver {
+
+		private volatile int count;
+
+		public MessageChannel resolveChannelName(String channelName) {
+			this.count++;
+			if (channelName.startsWith("bad")) {
+				throw new ChannelResolutionException("no channel named '" + channelName + "'");
+			}
+			return new QueueChannel();
+		}
+	}
+
+}
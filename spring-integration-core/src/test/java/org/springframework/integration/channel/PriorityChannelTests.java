@@ -23,6 +23,7 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Comparator;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
@@ -32,6 +33,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import org.junit.Test;
 
 import org.springframework.integration.Message;
+import org.springframework.integration.core.MessageSelector;
 import org.springframework.integration.message.GenericMessage;
 import org.springframework.integration.support.MessageBuilder;
 
@@ -283,6 +285,95 @@ public class PriorityChannelTests {
 	}
 
 
+	@Test
+	public void testSentMessageIsNotModified() {
+		PriorityChannel channel = new PriorityChannel();
+		Message<String> message = createPriorityMessage(1);
+		int headerCount = message.getHeaders().size();
+		channel.send(message);
+		assertEquals(headerCount, message.getHeaders().size());
+		assertTrue(message == channel.receive(0));
+		assertEquals(headerCount, message.getHeaders().size());
+	}
+
+	@Test
+	public void testPurgeAndClearReturnSentMessagesAndReleaseCapacity() {
+		PriorityChannel channel = new PriorityChannel(3);
+		Message<String> message1 = createPriorityMessage(1);
+		Message<String> message2 = createPriorityMessage(2);
+		channel.send(message1);
+		channel.send(message2);
+		channel.send(createPriorityMessage(3));
+		assertFalse(channel.send(createPriorityMessage(4), 0));
+		List<Message<?>> purged = channel.purge(new MessageSelector() {
+			public boolean accept(Message<?> message) {
+				return message.getHeaders().getPriority() != 1;
+			}
+		});
+		assertEquals(1, purged.size());
+		assertTrue(message1 == purged.get(0));
+		assertTrue(channel.send(createPriorityMessage(5), 0));
+		List<Message<?>> cleared = channel.clear();
+		assertEquals(3, cleared.size());
+		assertTrue(cleared.contains(message2));
+		assertEquals(0, channel.getQueueSize());
+		assertTrue(channel.send(createPriorityMessage(6), 0));
+	}
+
+	@Test
+	public void testPriorityLevelsWithFifoWithinLevel() {
+		PriorityChannel channel = new PriorityChannel(0, 4);
+		channel.send(MessageBuilder.withPayload("a").setPriority(1).build());
+		channel.send(MessageBuilder.withPayload("b").setPriority(3).build());
+		channel.send(MessageBuilder.withPayload("c").setPriority(1).build());
+		channel.send(MessageBuilder.withPayload("d").build());
+		channel.send(MessageBuilder.withPayload("e").setPriority(7).build());
+		channel.send(MessageBuilder.withPayload("f").setPriority(-5).build());
+		// 7 is beyond the highest level and -5 below the lowest one
+		assertEquals("b", channel.receive(0).getPayload());
+		assertEquals("e", channel.receive(0).getPayload());
+		assertEquals("a", channel.receive(0).getPayload());
+		assertEquals("c", channel.receive(0).getPayload());
+		assertEquals("d", channel.receive(0).getPayload());
+		assertEquals("f", channel.receive(0).getPayload());
+		assertNull(channel.receive(0));
+	}
+
+	@Test
+	public void testPriorityLevelsCapacityEnforced() {
+		PriorityChannel channel = new PriorityChannel(2, 10);
+		assertTrue(channel.send(createPriorityMessage(1), 0));
+		assertTrue(channel.send(createPriorityMessage(2), 0));
+		assertFalse(channel.send(createPriorityMessage(3), 10));
+		assertEquals(0, channel.getRemainingCapacity());
+		assertEquals("test:2", channel.receive(0).getPayload());
+		assertTrue(channel.send(createPriorityMessage(3), 0));
+		Message<?> message = createPriorityMessage(5);
+		List<Message<?>> purged = channel.purge(null);
+		assertEquals(2, purged.size());
+		assertTrue(channel.send(message, 0));
+		assertTrue(message == channel.receive(0));
+	}
+
+	@Test
+	public void testPriorityLevelsBlockingReceive() throws InterruptedException {
+		final PriorityChannel channel = new PriorityChannel(0, 10);
+		final CountDownLatch latch = new CountDownLatch(1);
+		final AtomicBoolean received = new AtomicBoolean();
+		Executors.newSingleThreadExecutor().execute(new Runnable() {
+			public void run() {
+				received.set(channel.receive(5000) != null);
+				latch.countDown();
+			}
+		});
+		Thread.sleep(50);
+		channel.send(createPriorityMessage(3));
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+		assertTrue(received.get());
+		assertNull(channel.receive(10));
+	}
+
+
 	private static Message<String> createPriorityMessage(int priority) {
 		return MessageBuilder.withPayload("test:" + priority).setPriority(priority).build(); 
 	}
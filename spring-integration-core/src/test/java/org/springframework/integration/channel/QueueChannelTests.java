@@ -27,10 +27,13 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
 import org.springframework.integration.Message;
+import org.springframework.integration.MessageChannel;
+import org.springframework.integration.channel.interceptor.ChannelInterceptorAdapter;
 import org.springframework.integration.message.GenericMessage;
 import org.springframework.integration.selector.UnexpiredMessageSelector;
 import org.springframework.integration.support.MessageBuilder;
@@ -237,4 +240,35 @@ public class QueueChannelTests {
 		assertTrue(channel.send(new GenericMessage<String>("roomAvailable"), 0));
 	}
 
+	@Test
+	public void testReceiveBatch() {
+		QueueChannel channel = new QueueChannel(new RingBufferQueue(10));
+		final AtomicInteger preReceiveCount = new AtomicInteger();
+		channel.addInterceptor(new ChannelInterceptorAdapter() {
+			@Override
+			public boolean preReceive(MessageChannel channel) {
+				preReceiveCount.incrementAndGet();
+				return true;
+			}
+			@Override
+			public Message<?> postReceive(Message<?> message, MessageChannel channel) {
+				return (message != null && "skip".equals(message.getPayload())) ? null : message;
+			}
+		});
+		channel.setReceiveBatchSize(3);
+		channel.send(new GenericMessage<String>("test1"));
+		channel.send(new GenericMessage<String>("skip"));
+		channel.send(new GenericMessage<String>("test2"));
+		channel.send(new GenericMessage<String>("test3"));
+		List<Message<?>> batch = channel.receiveBatch(0);
+		assertEquals(2, batch.size());
+		assertEquals("test1", batch.get(0).getPayload());
+		assertEquals("test2", batch.get(1).getPayload());
+		batch = channel.receiveBatch(0);
+		assertEquals(1, batch.size());
+		assertEquals("test3", batch.get(0).getPayload());
+		assertTrue(channel.receiveBatch(0).isEmpty());
+		assertEquals(3, preReceiveCount.get());
+	}
+
 }
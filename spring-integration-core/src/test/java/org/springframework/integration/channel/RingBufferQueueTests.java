@@ -0,0 +1,172 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.channel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import org.springframework.integration.Message;
+import org.springframework.integration.channel.RingBufferQueue.WaitStrategy;
+import org.springframework.integration.message.GenericMessage;
+
+/**
+ * @since 2.1
+ */
+public class RingBufferQueueTests {
+
+	@Test
+	public void fifoAcrossWrapAround() {
+		RingBufferQueue queue = new RingBufferQueue(3);
+		for (int i = 0; i < 10; i++) {
+			assertTrue(queue.offer(new GenericMessage<Integer>(i)));
+			assertTrue(queue.offer(new GenericMessage<Integer>(i + 100)));
+			assertEquals(i, queue.poll().getPayload());
+			assertEquals(i + 100, queue.poll().getPayload());
+		}
+		assertNull(queue.poll());
+		assertEquals(0, queue.size());
+	}
+
+	@Test
+	public void capacityEnforced() throws Exception {
+		RingBufferQueue queue = new RingBufferQueue(2);
+		assertTrue(queue.offer(new GenericMessage<String>("test1")));
+		assertTrue(queue.offer(new GenericMessage<String>("test2")));
+		assertFalse(queue.offer(new GenericMessage<String>("test3")));
+		assertFalse(queue.offer(new GenericMessage<String>("test3"), 10, TimeUnit.MILLISECONDS));
+		assertEquals(0, queue.remainingCapacity());
+		assertEquals(2, queue.size());
+		assertEquals("test1", queue.peek().getPayload());
+		assertEquals("test1", queue.take().getPayload());
+		assertTrue(queue.offer(new GenericMessage<String>("test3")));
+	}
+
+	@Test
+	public void drainToClaimsAvailableMessages() {
+		RingBufferQueue queue = new RingBufferQueue(4);
+		for (int i = 0; i < 4; i++) {
+			queue.offer(new GenericMessage<Integer>(i));
+		}
+		List<Message<?>> drained = new ArrayList<Message<?>>();
+		assertEquals(3, queue.drainTo(drained, 3));
+		assertEquals(1, queue.size());
+		assertEquals(1, queue.drainTo(drained));
+		for (int i = 0; i < 4; i++) {
+			assertEquals(i, drained.get(i).getPayload());
+		}
+		assertEquals(4, queue.remainingCapacity());
+	}
+
+	@Test
+	public void removedMessageIsSkipped() {
+		RingBufferQueue queue = new RingBufferQueue(3);
+		Message<String> message1 = new GenericMessage<String>("test1");
+		Message<String> message2 = new GenericMessage<String>("test2");
+		Message<String> message3 = new GenericMessage<String>("test3");
+		queue.offer(message1);
+		queue.offer(message2);
+		queue.offer(message3);
+		assertTrue(queue.remove(message2));
+		assertFalse(queue.remove(message2));
+		assertEquals(2, queue.size());
+		// the slot is released once the receivers have moved past it
+		assertEquals(0, queue.remainingCapacity());
+		assertEquals(message1, queue.poll());
+		assertEquals(message3, queue.poll());
+		assertNull(queue.poll());
+		assertEquals(3, queue.remainingCapacity());
+	}
+
+	@Test
+	public void blockingStrategy() throws Exception {
+		this.sendAndReceiveConcurrently(WaitStrategy.BLOCKING);
+	}
+
+	@Test
+	public void spinThenParkStrategy() throws Exception {
+		this.sendAndReceiveConcurrently(WaitStrategy.SPIN_THEN_PARK);
+	}
+
+	@Test
+	public void yieldingStrategy() throws Exception {
+		this.sendAndReceiveConcurrently(WaitStrategy.YIELDING);
+	}
+
+	@Test
+	public void receiveTimesOut() throws Exception {
+		for (WaitStrategy waitStrategy : WaitStrategy.values()) {
+			RingBufferQueue queue = new RingBufferQueue(1, waitStrategy);
+			long start = System.currentTimeMillis();
+			assertNull(queue.poll(50, TimeUnit.MILLISECONDS));
+			assertTrue(System.currentTimeMillis() - start >= 40);
+		}
+	}
+
+	private void sendAndReceiveConcurrently(WaitStrategy waitStrategy) throws Exception {
+		final RingBufferQueue queue = new RingBufferQueue(16, waitStrategy);
+		final int threads = 4;
+		final int messagesPerThread = 10000;
+		final AtomicInteger sum = new AtomicInteger();
+		final CountDownLatch latch = new CountDownLatch(threads * 2);
+		ExecutorService executor = Executors.newFixedThreadPool(threads * 2);
+		for (int i = 0; i < threads; i++) {
+			executor.execute(new Runnable() {
+				public void run() {
+					try {
+						for (int j = 1; j <= messagesPerThread; j++) {
+							queue.put(new GenericMessage<Integer>(j));
+						}
+					}
+					catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					latch.countDown();
+				}
+			});
+			executor.execute(new Runnable() {
+				public void run() {
+					try {
+						for (int j = 0; j < messagesPerThread; j++) {
+							sum.addAndGet((Integer) queue.take().getPayload());
+						}
+					}
+					catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					latch.countDown();
+				}
+			});
+		}
+		assertTrue(latch.await(30, TimeUnit.SECONDS));
+		executor.shutdown();
+		assertEquals(threads * (messagesPerThread * (messagesPerThread + 1) / 2), sum.get());
+		assertEquals(0, queue.size());
+	}
+
+}
@@ -37,8 +37,10 @@ import org.springframework.integration.Message;
 import org.springframework.integration.MessageChannel;
 import org.springframework.integration.MessageDeliveryException;
 import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.channel.PriorityLevelQueue;
 import org.springframework.integration.channel.PublishSubscribeChannel;
 import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.channel.RingBufferQueue;
 import org.springframework.integration.config.TestChannelInterceptor;
 import org.springframework.integration.core.PollableChannel;
 import org.springframework.integration.dispatcher.RoundRobinLoadBalancingStrategy;
@@ -72,6 +74,23 @@ public class ChannelParserTests {
 		assertFalse(channel.send(new GenericMessage<String>("test"), 3));
 	}
 
+	@Test
+	public void testChannelWithRingBuffer() {
+		ClassPathXmlApplicationContext context = new ClassPathXmlApplicationContext("channelParserTests.xml", this
+				.getClass());
+		QueueChannel channel = (QueueChannel) context.getBean("ringBufferChannel");
+		Object queue = new DirectFieldAccessor(channel).getPropertyValue("queue");
+		assertThat(queue, is(RingBufferQueue.class));
+		assertEquals(RingBufferQueue.WaitStrategy.SPIN_THEN_PARK, ((RingBufferQueue) queue).getWaitStrategy());
+		assertEquals(8, channel.getRemainingCapacity());
+		assertEquals(4, channel.getReceiveBatchSize());
+		for (int i = 0; i < 8; i++) {
+			assertTrue(channel.send(new GenericMessage<Integer>(i), 0));
+		}
+		assertFalse(channel.send(new GenericMessage<Integer>(8), 0));
+		assertEquals(4, channel.receiveBatch(0).size());
+	}
+
 	@Test
 	public void testDirectChannelByDefault() throws InterruptedException {
 		ClassPathXmlApplicationContext context = new ClassPathXmlApplicationContext("channelParserTests.xml", this
@@ -258,4 +277,21 @@ public class ChannelParserTests {
 		assertTrue(threwException);
 	}
 
+	@Test
+	public void testPriorityChannelWithLevels() {
+		ApplicationContext context = new ClassPathXmlApplicationContext("priorityChannelParserTests.xml", this
+				.getClass());
+		PollableChannel channel = (PollableChannel) context.getBean("priorityChannelWithLevels");
+		Object queue = new DirectFieldAccessor(channel).getPropertyValue("queue");
+		assertThat(queue, is(PriorityLevelQueue.class));
+		assertEquals(10, ((PriorityLevelQueue) queue).getPriorityLevels());
+		assertEquals(10, ((PriorityLevelQueue) queue).remainingCapacity());
+		channel.send(MessageBuilder.withPayload("low").setPriority(1).build());
+		channel.send(MessageBuilder.withPayload("first").setPriority(99).build());
+		channel.send(MessageBuilder.withPayload("second").setPriority(9).build());
+		assertEquals("first", channel.receive(0).getPayload());
+		assertEquals("second", channel.receive(0).getPayload());
+		assertEquals("low", channel.receive(0).getPayload());
+	}
+
 }
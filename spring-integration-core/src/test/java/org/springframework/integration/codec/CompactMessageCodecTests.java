@@ -0,0 +1,207 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.codec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import org.springframework.core.serializer.support.SerializationFailedException;
+import org.springframework.integration.Message;
+import org.springframework.integration.MessageHeaders;
+import org.springframework.integration.MessagingException;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.message.ErrorMessage;
+import org.springframework.integration.support.MessageBuilder;
+
+/**
+ * @since 2.1
+ */
+public class CompactMessageCodecTests {
+
+	private final CompactMessageCodec codec = new CompactMessageCodec();
+
+	@Test
+	public void headersAndPayloadRoundTrip() {
+		UUID correlationId = UUID.randomUUID();
+		Message<String> message = MessageBuilder.withPayload("test")
+				.setCorrelationId(correlationId)
+				.setSequenceNumber(2).setSequenceSize(3).setPriority(5)
+				.setExpirationDate(1234L)
+				.setHeader("string", "foo")
+				.setHeader("bytes", new byte[] {1, 2, 3})
+				.setHeader("boolean", true)
+				.setHeader("double", 1.5d)
+				.setHeader("character", 'x')
+				.setHeader("null", null)
+				.build();
+		Message<?> result = codec.decode(codec.encode(message));
+		MessageHeaders headers = result.getHeaders();
+		assertEquals("test", result.getPayload());
+		assertEquals(message.getHeaders().getId(), headers.getId());
+		assertEquals(message.getHeaders().getTimestamp(), headers.getTimestamp());
+		assertEquals(correlationId, headers.getCorrelationId());
+		assertEquals(Integer.valueOf(2), headers.getSequenceNumber());
+		assertEquals(Integer.valueOf(3), headers.getSequenceSize());
+		assertEquals(Integer.valueOf(5), headers.getPriority());
+		assertEquals(Long.valueOf(1234L), headers.getExpirationDate());
+		assertEquals("foo", headers.get("string"));
+		assertArrayEquals(new byte[] {1, 2, 3}, (byte[]) headers.get("bytes"));
+		assertEquals(Boolean.TRUE, headers.get("boolean"));
+		assertEquals(1.5d, headers.get("double"));
+		assertEquals('x', headers.get("character"));
+		assertFalse(headers.containsKey("null"));
+	}
+
+	@Test
+	public void serializableHeaderRequiresJavaSerialization() {
+		Message<String> message = MessageBuilder.withPayload("test").setHeader("date", new Date(42)).build();
+		assertFalse(codec.decode(codec.encode(message)).getHeaders().containsKey("date"));
+		CompactMessageCodec serializingCodec = new CompactMessageCodec();
+		serializingCodec.setJavaSerializationEnabled(true);
+		byte[] encoded = serializingCodec.encode(message);
+		assertEquals(new Date(42), serializingCodec.decode(encoded).getHeaders().get("date"));
+		try {
+			codec.decode(encoded);
+			fail("expected SerializationFailedException");
+		}
+		catch (SerializationFailedException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void nonSerializableHeaderIsDropped() {
+		Message<byte[]> message = MessageBuilder.withPayload(new byte[] {42})
+				.setReplyChannel(new QueueChannel())
+				.setErrorChannelName("errors")
+				.build();
+		Message<?> result = codec.decode(codec.encode(message));
+		assertArrayEquals(new byte[] {42}, (byte[]) result.getPayload());
+		assertNull(result.getHeaders().getReplyChannel());
+		assertEquals("errors", result.getHeaders().getErrorChannel());
+	}
+
+	@Test
+	public void errorMessageRoundTrip() {
+		CompactMessageCodec serializingCodec = new CompactMessageCodec();
+		serializingCodec.setJavaSerializationEnabled(true);
+		Message<?> result = serializingCodec.decode(serializingCodec.encode(new ErrorMessage(new MessagingException("failed"))));
+		assertTrue(result instanceof ErrorMessage);
+		assertEquals("failed", ((ErrorMessage) result).getPayload().getMessage());
+	}
+
+	@Test(expected = SerializationFailedException.class)
+	public void serializablePayloadRequiresJavaSerialization() {
+		codec.encode(new ErrorMessage(new MessagingException("failed")));
+	}
+
+	@Test
+	public void smallerThanJavaSerialization() throws Exception {
+		Message<String> message = MessageBuilder.withPayload("test")
+				.setCorrelationId(UUID.randomUUID()).setSequenceNumber(1).setSequenceSize(1).build();
+		assertTrue(codec.encode(message).length * 4 < this.serialize(message).length);
+	}
+
+	@Test
+	public void javaSerializedMessageIsDecoded() throws Exception {
+		CompactMessageCodec serializingCodec = new CompactMessageCodec();
+		serializingCodec.setJavaSerializationEnabled(true);
+		Message<String> message = MessageBuilder.withPayload("test").setHeader("foo", "bar").build();
+		Message<?> result = serializingCodec.decode(this.serialize(message));
+		assertEquals(message, result);
+		assertEquals("bar", result.getHeaders().get("foo"));
+	}
+
+	@Test(expected = SerializationFailedException.class)
+	public void javaSerializedMessageIsRejectedByDefault() throws Exception {
+		codec.decode(this.serialize(MessageBuilder.withPayload("test").build()));
+	}
+
+	@Test
+	public void valueLongerThanMaximumIsRejected() {
+		byte[] encoded = codec.encode(MessageBuilder.withPayload(new byte[] {1, 2, 3, 4}).build());
+		CompactMessageCodec limitedCodec = new CompactMessageCodec();
+		limitedCodec.setMaxValueLength(3);
+		try {
+			limitedCodec.decode(encoded);
+			fail("expected SerializationFailedException");
+		}
+		catch (SerializationFailedException e) {
+			assertTrue(e.getCause().getMessage().contains("exceeds the maximum value length"));
+		}
+	}
+
+	@Test
+	public void lengthBeyondInputIsRejected() {
+		byte[] encoded = codec.encode(MessageBuilder.withPayload(new byte[] {1, 2, 3}).build());
+		// claim a 9MB payload, within the default maximum, in a frame that only holds 3 bytes
+		int lengthOffset = encoded.length - 7;
+		int claimed = 9 * 1024 * 1024;
+		encoded[lengthOffset] = (byte) (claimed >>> 24);
+		encoded[lengthOffset + 1] = (byte) (claimed >>> 16);
+		encoded[lengthOffset + 2] = (byte) (claimed >>> 8);
+		encoded[lengthOffset + 3] = (byte) claimed;
+		try {
+			codec.decode(encoded);
+			fail("expected SerializationFailedException");
+		}
+		catch (SerializationFailedException e) {
+			assertTrue(e.getCause() instanceof EOFException);
+		}
+	}
+
+	@Test
+	public void additionalHeaderNamesMustMatch() {
+		Message<String> message = MessageBuilder.withPayload("test").setHeader("foo", "bar").build();
+		CompactMessageCodec extendedCodec = new CompactMessageCodec(Arrays.asList("foo"));
+		byte[] encoded = extendedCodec.encode(message);
+		assertTrue(encoded.length < codec.encode(message).length);
+		assertEquals("bar", extendedCodec.decode(encoded).getHeaders().get("foo"));
+		assertEquals("bar", new CompactMessageCodec(Collections.singletonList("foo")).decode(encoded)
+				.getHeaders().get("foo"));
+		try {
+			codec.decode(encoded);
+			fail("expected SerializationFailedException");
+		}
+		catch (SerializationFailedException e) {
+			// expected
+		}
+	}
+
+	private byte[] serialize(Object object) throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(object);
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+}
@@ -16,11 +16,17 @@
 
 package org.springframework.integration.core;
 
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
 import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.verify;
 
 import java.lang.reflect.Field;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.UUID;
 
 import org.junit.Ignore;
@@ -30,10 +36,15 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.BeanDefinitionStoreException;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 import org.springframework.context.support.GenericXmlApplicationContext;
+import org.springframework.integration.Message;
 import org.springframework.integration.MessageChannel;
 import org.springframework.integration.MessageHeaders;
 import org.springframework.integration.MessageHeaders.IdGenerator;
+import org.springframework.integration.channel.QueueChannel;
 import org.springframework.integration.message.GenericMessage;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.integration.support.ThreadLocalRandomIdGenerator;
+import org.springframework.integration.support.TimeCounterIdGenerator;
 import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StopWatch;
 
@@ -183,6 +194,55 @@ public class MessageIdGenerationTests {
 		}
 	}
 	
+	@Test
+	public void testBuiltInStrategyWithDeferredIdAndTimestamp() throws Exception {
+		ClassPathXmlApplicationContext context = new ClassPathXmlApplicationContext("MessageIdGenerationTests-context-withStrategy.xml", this.getClass());
+		try {
+			assertTrue(this.getIdGenerator() instanceof TimeCounterIdGenerator);
+			QueueChannel channel = context.getBean("input", QueueChannel.class);
+			channel.send(MessageBuilder.withPayload("foo").setHeader("bar", "baz").build());
+			Message<?> message = channel.receive(0);
+			MessageHeaders headers = message.getHeaders();
+			assertTrue(headers.containsKey(MessageHeaders.ID));
+			assertTrue(this.isDeferred(headers));
+
+			// copying the headers leaves them deferred
+			Message<?> copy = MessageBuilder.fromMessage(message).setHeader("qux", "quux").build();
+			assertEquals("baz", copy.getHeaders().get("bar"));
+			assertTrue(this.isDeferred(headers));
+
+			UUID id = headers.getId();
+			assertNotNull(id);
+			assertNotNull(headers.getTimestamp());
+			assertFalse(this.isDeferred(headers));
+			assertEquals(id, headers.getId());
+			assertEquals(3, headers.size());
+			assertFalse(id.equals(copy.getHeaders().getId()));
+		}
+		finally {
+			context.close();
+		}
+		this.assertDestroy();
+		Field deferField = ReflectionUtils.findField(MessageHeaders.class, "deferIdAndTimestamp");
+		ReflectionUtils.makeAccessible(deferField);
+		assertFalse(deferField.getBoolean(null));
+		assertFalse(this.isDeferred(new GenericMessage<String>("foo").getHeaders()));
+	}
+
+	@Test
+	public void testBuiltInIdGeneratorsAreUnique() {
+		IdGenerator[] generators = { new TimeCounterIdGenerator(), new ThreadLocalRandomIdGenerator() };
+		for (IdGenerator generator : generators) {
+			Set<UUID> ids = new HashSet<UUID>();
+			for (int i = 0; i < 10000; i++) {
+				assertTrue(ids.add(generator.generateId()));
+			}
+		}
+		UUID randomId = new ThreadLocalRandomIdGenerator().generateId();
+		assertEquals(4, randomId.version());
+		assertEquals(2, randomId.variant());
+	}
+
 	@Test
 	@Ignore
 	public void performanceTest(){
@@ -218,6 +278,18 @@ public class MessageIdGenerationTests {
 		System.out.println("Time-based ID generator is " + defaultGeneratorElapsedTime/timebasedGeneratorElapsedTime + " times faster");
 	}
 
+	private IdGenerator getIdGenerator() {
+		Field idGenField = ReflectionUtils.findField(MessageHeaders.class, "idGenerator");
+		ReflectionUtils.makeAccessible(idGenField);
+		return (IdGenerator) ReflectionUtils.getField(idGenField, null);
+	}
+
+	private boolean isDeferred(MessageHeaders headers) {
+		Field deferredField = ReflectionUtils.findField(MessageHeaders.class, "deferred");
+		ReflectionUtils.makeAccessible(deferredField);
+		return (Boolean) ReflectionUtils.getField(deferredField, headers);
+	}
+
 	private void assertDestroy() throws Exception {
 		Field idGenField = ReflectionUtils.findField(MessageHeaders.class, "idGenerator");
 		ReflectionUtils.makeAccessible(idGenField);
@@ -38,6 +38,8 @@ import org.junit.Test;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessageRejectedException;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.channel.RingBufferQueue;
 import org.springframework.integration.core.MessageHandler;
 import org.springframework.integration.core.PollableChannel;
 import org.springframework.integration.message.GenericMessage;
@@ -217,6 +219,79 @@ public class PollingConsumerEndpointTests {
 		verify(channelMock);
 	}
 
+	@Test
+	public void batchedReceiveHandlesWholeBatchWithinThePoll() throws Exception {
+		QueueChannel channel = new QueueChannel(new RingBufferQueue(10));
+		channel.setReceiveBatchSize(3);
+		for (int i = 0; i < 5; i++) {
+			channel.send(new GenericMessage<Integer>(i));
+		}
+		endpoint = new PollingConsumer(channel, consumer);
+		endpoint.setTaskScheduler(taskScheduler);
+		endpoint.setTrigger(trigger);
+		endpoint.setBeanFactory(mock(BeanFactory.class));
+		endpoint.setReceiveTimeout(0);
+		endpoint.setMaxMessagesPerPoll(1);
+		endpoint.afterPropertiesSet();
+		endpoint.start();
+		trigger.await();
+		endpoint.stop();
+		// nothing received is left over once the poll is done
+		assertEquals(3, consumer.counter.get());
+		assertEquals(2, channel.getQueueSize());
+		trigger.reset();
+		endpoint.start();
+		trigger.await();
+		endpoint.stop();
+		assertEquals(5, consumer.counter.get());
+		assertEquals(0, channel.getQueueSize());
+	}
+
+	@Test(expected = MessageRejectedException.class)
+	public void batchedReceiveHandlesRestOfBatchAfterFailure() throws Throwable {
+		QueueChannel channel = new QueueChannel(new RingBufferQueue(10));
+		channel.setReceiveBatchSize(3);
+		channel.send(badMessage);
+		channel.send(message);
+		channel.send(message);
+		endpoint = new PollingConsumer(channel, consumer);
+		endpoint.setErrorHandler(errorHandler);
+		endpoint.setTaskScheduler(taskScheduler);
+		endpoint.setTrigger(trigger);
+		endpoint.setBeanFactory(mock(BeanFactory.class));
+		endpoint.setReceiveTimeout(0);
+		endpoint.setMaxMessagesPerPoll(1);
+		endpoint.afterPropertiesSet();
+		endpoint.start();
+		trigger.await();
+		endpoint.stop();
+		assertEquals(3, consumer.counter.get());
+		assertEquals(0, channel.getQueueSize());
+		errorHandler.throwLastErrorIfAvailable();
+	}
+
+	@Test
+	public void batchedReceiveReportsEveryFailure() throws Throwable {
+		QueueChannel channel = new QueueChannel(new RingBufferQueue(10));
+		channel.setReceiveBatchSize(3);
+		channel.send(badMessage);
+		channel.send(message);
+		channel.send(badMessage);
+		endpoint = new PollingConsumer(channel, consumer);
+		endpoint.setErrorHandler(errorHandler);
+		endpoint.setTaskScheduler(taskScheduler);
+		endpoint.setTrigger(trigger);
+		endpoint.setBeanFactory(mock(BeanFactory.class));
+		endpoint.setReceiveTimeout(0);
+		endpoint.setMaxMessagesPerPoll(1);
+		endpoint.afterPropertiesSet();
+		endpoint.start();
+		trigger.await();
+		endpoint.stop();
+		assertEquals(3, consumer.counter.get());
+		// one failure is rethrown from the poll, the other passed to the ErrorHandler directly
+		assertEquals(2, errorHandler.errorCount.get());
+	}
 
 	private static class TestConsumer implements MessageHandler {
 
@@ -269,8 +344,11 @@ public class PollingConsumerEndpointTests {
 
 		private volatile Throwable lastError;
 
+		private final AtomicInteger errorCount = new AtomicInteger();
+
 		public void handleError(Throwable t) {
 			this.lastError = t;
+			this.errorCount.incrementAndGet();
 		}
 
 		public void throwLastErrorIfAvailable() throws Throwable {
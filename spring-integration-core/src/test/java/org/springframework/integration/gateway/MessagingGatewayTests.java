@@ -26,6 +26,7 @@ import static org.easymock.EasyMock.reset;
 import static org.easymock.EasyMock.verify;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.util.UUID;
 
@@ -40,10 +41,13 @@ import org.springframework.integration.MessageDeliveryException;
 import org.springframework.integration.MessageHeaders;
 import org.springframework.integration.MessagingException;
 import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.channel.QueueChannel;
 import org.springframework.integration.channel.PublishSubscribeChannel;
 import org.springframework.integration.core.MessageHandler;
 import org.springframework.integration.core.PollableChannel;
 import org.springframework.integration.handler.ServiceActivatingHandler;
+import org.springframework.integration.message.ErrorMessage;
+import org.springframework.integration.support.MessageBuilder;
 import org.springframework.integration.test.util.TestUtils;
 
 /**
@@ -283,6 +287,68 @@ public class MessagingGatewayTests {
 		this.messagingGateway.send("hello");		
 	}
 	
+	@Test
+	public void asyncReplyIsSentToCallbackChannel() throws Exception {
+		DirectChannel reqChannel = new DirectChannel();
+		reqChannel.subscribe(new MessageHandler() {
+			public void handleMessage(final Message<?> message) throws MessagingException {
+				new Thread(new Runnable() {
+					public void run() {
+						((MessageChannel) message.getHeaders().getReplyChannel()).send(
+								MessageBuilder.withPayload(message.getPayload() + "!").build());
+					}
+				}).start();
+			}
+		});
+		this.messagingGateway = new MessagingGatewaySupport() {};
+		this.messagingGateway.setRequestChannel(reqChannel);
+		this.messagingGateway.setBeanFactory(TestUtils.createTestApplicationContext());
+		this.messagingGateway.afterPropertiesSet();
+		this.messagingGateway.start();
+		QueueChannel callbackChannel = new QueueChannel();
+		this.messagingGateway.sendAndReceiveMessageAsync("hello", callbackChannel);
+		assertEquals("hello!", callbackChannel.receive(10000).getPayload());
+	}
+
+	@Test
+	public void asyncFailureIsPassedToErrorFlow() {
+		DirectChannel reqChannel = new DirectChannel();
+		reqChannel.subscribe(new MessageHandler() {
+			public void handleMessage(Message<?> message) throws MessagingException {
+				throw new RuntimeException("ooops");
+			}
+		});
+		PublishSubscribeChannel errorChannel = new PublishSubscribeChannel();
+		ServiceActivatingHandler handler  = new ServiceActivatingHandler(new MyErrorService());
+		handler.afterPropertiesSet();
+		errorChannel.subscribe(handler);
+		this.messagingGateway = new MessagingGatewaySupport() {};
+		this.messagingGateway.setRequestChannel(reqChannel);
+		this.messagingGateway.setErrorChannel(errorChannel);
+		this.messagingGateway.setBeanFactory(TestUtils.createTestApplicationContext());
+		this.messagingGateway.afterPropertiesSet();
+		this.messagingGateway.start();
+		QueueChannel callbackChannel = new QueueChannel();
+		this.messagingGateway.sendAndReceiveMessageAsync("hello", callbackChannel);
+		Message<?> reply = callbackChannel.receive(0);
+		assertTrue(reply instanceof ErrorMessage);
+		assertEquals("ooops", ((ErrorMessage) reply).getPayload().getCause().getMessage());
+	}
+
+	@Test(expected = MessagingException.class)
+	public void asyncSendFailureIsRethrownWithoutErrorChannel() {
+		this.messagingGateway = new MessagingGatewaySupport() {};
+		DirectChannel reqChannel = new DirectChannel();
+		reqChannel.subscribe(new MessageHandler() {
+			public void handleMessage(Message<?> message) throws MessagingException {
+				throw new MessagingException(message, "ooops");
+			}
+		});
+		this.messagingGateway.setRequestChannel(reqChannel);
+		this.messagingGateway.afterPropertiesSet();
+		this.messagingGateway.sendAndReceiveMessageAsync("hello", new QueueChannel());
+	}
+
 	public static class MyErrorService {
 		public Message<?> handleErrorMessage(Message<?> errorMessage){
 			return errorMessage;
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.json;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+
+import org.junit.Test;
+
+import org.springframework.integration.json.JsonToObjectTransformerParserTests.TestPerson;
+
+/**
+ * @since 2.1
+ */
+public class JsonBytesToObjectTransformerTests {
+
+	private static final String JSON = "{\"firstName\":\"John\",\"lastName\":\"Doe\",\"age\":42,\"address\":{\"number\":123,\"street\":\"Main Street\"}}";
+
+	private final JsonBytesToObjectTransformer<TestPerson> transformer =
+			new JsonBytesToObjectTransformer<TestPerson>(TestPerson.class);
+
+
+	@Test
+	public void bytesPayload() throws Exception {
+		assertPerson(this.transformer.transformPayload(JSON.getBytes("UTF-8")));
+	}
+
+	@Test
+	public void inputStreamPayload() throws Exception {
+		assertPerson(this.transformer.transformPayload(new ByteArrayInputStream(JSON.getBytes("UTF-8"))));
+	}
+
+	@Test
+	public void stringPayload() throws Exception {
+		assertPerson(this.transformer.transformPayload(JSON));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unsupportedPayload() throws Exception {
+		this.transformer.transformPayload(42);
+	}
+
+
+	private static void assertPerson(TestPerson person) {
+		assertEquals("John", person.getFirstName());
+		assertEquals("Doe", person.getLastName());
+		assertEquals(42, person.getAge());
+		assertEquals("123 Main Street", person.getAddress().toString());
+	}
+
+}
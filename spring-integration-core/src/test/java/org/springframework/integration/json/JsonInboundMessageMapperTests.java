@@ -18,8 +18,10 @@ package org.springframework.integration.json;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.util.Arrays;
@@ -29,6 +31,7 @@ import java.util.Map;
 import java.util.UUID;
 
 import org.codehaus.jackson.JsonGenerationException;
+import org.codehaus.jackson.JsonParser;
 import org.codehaus.jackson.map.JsonMappingException;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.codehaus.jackson.type.TypeReference;
@@ -65,6 +68,42 @@ public class JsonInboundMessageMapperTests {
 		assertThat(result, sameExceptImmutableHeaders(expected));
 	}
 	
+	@Test
+	public void testToMessageFromBytes() throws Exception {
+		UUID id = UUID.randomUUID();
+		byte[] jsonMessage = ("{\"headers\":{\"timestamp\":1,\"id\":\"" + id + "\",\"foo\":123,\"bar\":\"\u00e4bc\"},\"payload\":\"myPayloadStuff\"}").getBytes("UTF-8");
+		Message<String> expected = MessageBuilder.withPayload("myPayloadStuff").setHeader("foo", 123).setHeader("bar", "\u00e4bc").build();
+		JsonInboundMessageMapper mapper = new JsonInboundMessageMapper(String.class);
+		assertThat(mapper.toMessage(jsonMessage), sameExceptImmutableHeaders(expected));
+		assertThat(mapper.toMessage(new ByteArrayInputStream(jsonMessage)), sameExceptImmutableHeaders(expected));
+	}
+
+	@Test
+	public void testToMessageFromInvalidBytes() throws Exception {
+		byte[] jsonMessage = "{\"payload\":\"myPayloadStuff\"}".getBytes("UTF-8");
+		JsonInboundMessageMapper mapper = new JsonInboundMessageMapper(String.class);
+		try {
+			mapper.toMessage(jsonMessage);
+			fail();
+		}
+		catch (IllegalArgumentException ex) {
+			assertTrue(ex.getMessage().endsWith("{\"payload\":\"myPayloadStuff\"}"));
+		}
+	}
+
+	@Test
+	public void testStringHooksUsedForBytes() throws Exception {
+		byte[] jsonMessage = "\"myPayloadStuff\"".getBytes("UTF-8");
+		JsonInboundMessageMapper mapper = new JsonInboundMessageMapper(String.class) {
+			@Override
+			protected Object readPayload(JsonParser parser, String jsonMessage) throws Exception {
+				return jsonMessage + super.readPayload(parser, jsonMessage);
+			}
+		};
+		mapper.setMapToPayload(true);
+		assertEquals("(16 bytes)myPayloadStuff", mapper.toMessage(jsonMessage).getPayload());
+	}
+
 	@Test
 	public void testToMessageWithStringPayload() throws Exception {
 		String jsonMessage = "\"myPayloadStuff\"";
@@ -17,8 +17,10 @@
 package org.springframework.integration.json;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 
 import org.codehaus.jackson.JsonFactory;
@@ -55,6 +57,18 @@ public class JsonOutboundMessageMapperTests {
 		assertTrue(result.contains("\"payload\":\"myPayloadStuff\""));
 	}
 
+	@Test
+	public void testFromMessageToBytes() throws Exception {
+		Message<String> testMessage = MessageBuilder.withPayload("myP\u00e4yloadStuff").build();
+		JsonOutboundMessageMapper mapper = new JsonOutboundMessageMapper();
+		String expected = mapper.fromMessage(testMessage);
+		assertEquals(expected, new String(mapper.fromMessageAsBytes(testMessage), "UTF-8"));
+		ClosingAwareOutputStream stream = new ClosingAwareOutputStream();
+		mapper.fromMessage(testMessage, stream);
+		assertEquals(expected, new String(stream.toByteArray(), "UTF-8"));
+		assertFalse(stream.closed);
+	}
+
 	@Test
 	public void testFromMessageWithMessageHistory() throws Exception {
 		Message<String> testMessage = MessageBuilder.withPayload("myPayloadStuff").build();
@@ -139,4 +153,16 @@ public class JsonOutboundMessageMapperTests {
 
 	}
 
+
+	private static class ClosingAwareOutputStream extends ByteArrayOutputStream {
+
+		private volatile boolean closed;
+
+		@Override
+		public void close() throws IOException {
+			this.closed = true;
+			super.close();
+		}
+	}
+
 }
@@ -46,6 +46,9 @@ public class JsonToObjectTransformerParserTests {
 	@Autowired
 	private volatile MessageChannel customObjectMapperInput;
 
+	@Autowired
+	private volatile MessageChannel bytesInput;
+
 
 	@Test
 	public void defaultObjectMapper() {
@@ -82,6 +85,21 @@ public class JsonToObjectTransformerParserTests {
 	}
 
 
+	@Test
+	public void bytesInputType() throws Exception {
+		String jsonString = "{\"firstName\":\"John\",\"lastName\":\"Doe\",\"age\":42,\"address\":{\"number\":123,\"street\":\"Main Street\"}}";
+		QueueChannel replyChannel = new QueueChannel();
+		Message<byte[]> message = MessageBuilder.withPayload(jsonString.getBytes("UTF-8")).setReplyChannel(replyChannel).build();
+		this.bytesInput.send(message);
+		Message<?> reply = replyChannel.receive(0);
+		assertNotNull(reply);
+		assertEquals(TestPerson.class, reply.getPayload().getClass());
+		TestPerson person = (TestPerson) reply.getPayload();
+		assertEquals("John", person.getFirstName());
+		assertEquals("123 Main Street", person.getAddress().toString());
+	}
+
+
 	static class TestPerson {
 
 		private String firstName;
@@ -50,6 +50,18 @@ public class ObjectToJsonTransformerParserTests {
 	@Autowired
 	private volatile MessageChannel customObjectMapperInput;
 
+	@Autowired
+	private volatile MessageChannel bytesResultInput;
+
+
+	@Test
+	public void bytesResultType() throws Exception {
+		QueueChannel replyChannel = new QueueChannel();
+		this.bytesResultInput.send(MessageBuilder.withPayload("foo").setReplyChannel(replyChannel).build());
+		Message<?> reply = replyChannel.receive(0);
+		assertNotNull(reply);
+		assertEquals("\"foo\"", new String((byte[]) reply.getPayload(), "UTF-8"));
+	}
 
 	@Test
 	public void defaultObjectMapper() {
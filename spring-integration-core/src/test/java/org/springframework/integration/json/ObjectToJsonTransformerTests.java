@@ -39,6 +39,13 @@ public class ObjectToJsonTransformerTests {
 		assertEquals("\"foo\"", result);
 	}
 
+	@Test
+	public void bytesResultType() throws Exception {
+		ObjectToJsonBytesTransformer transformer = new ObjectToJsonBytesTransformer();
+		byte[] result = transformer.transformPayload("f\u00f6o");
+		assertEquals("\"f\u00f6o\"", new String(result, "UTF-8"));
+	}
+
 	@Test
 	public void simpleIntegerPayload() throws Exception {
 		ObjectToJsonTransformer transformer = new  ObjectToJsonTransformer();
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.mapping;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * @since 2.1
+ */
+public class HeaderNameMatcherTests {
+
+	@Test
+	public void exactNamesIgnoreCase() {
+		HeaderNameMatcher matcher = new HeaderNameMatcher(Arrays.asList("Content-Type", "foo"), null);
+		assertTrue(matcher.matches("content-type"));
+		assertTrue(matcher.matches("CONTENT-TYPE"));
+		assertTrue(matcher.matches("Foo"));
+		assertFalse(matcher.matches("foo2"));
+		assertFalse(matcher.matches(null));
+	}
+
+	@Test
+	public void wildcardPatterns() {
+		HeaderNameMatcher matcher = new HeaderNameMatcher(Arrays.asList("foo*", "*bar", "a*b*c"), null);
+		assertTrue(matcher.matches("FOOx"));
+		assertTrue(matcher.matches("xBar"));
+		assertTrue(matcher.matches("a123b456c"));
+		assertFalse(matcher.matches("xfoo"));
+		assertFalse(matcher.matches("barx"));
+		assertFalse(matcher.matches("a123c"));
+	}
+
+	@Test
+	public void matchAll() {
+		HeaderNameMatcher matcher = new HeaderNameMatcher(Arrays.asList("*"), null);
+		assertTrue(matcher.matches("anything"));
+		assertTrue(matcher.matches(""));
+	}
+
+	@Test
+	public void noPatterns() {
+		HeaderNameMatcher matcher = new HeaderNameMatcher(null, null);
+		assertFalse(matcher.matches("foo"));
+	}
+
+	@Test
+	public void symbolicPatternsAreExpanded() {
+		Map<String, Collection<String>> symbolic =
+				Collections.<String, Collection<String>>singletonMap("STANDARD", Arrays.asList("Accept", "Date"));
+		HeaderNameMatcher matcher = new HeaderNameMatcher(Arrays.asList("STANDARD"), symbolic);
+		assertTrue(matcher.matches("accept"));
+		assertTrue(matcher.matches("Date"));
+		assertTrue(matcher.matches("standard"));
+		assertFalse(matcher.matches("Host"));
+	}
+
+	@Test
+	public void decisionsAreStableAcrossRepeatedCalls() {
+		HeaderNameMatcher matcher = new HeaderNameMatcher(Arrays.asList("x-*"), null);
+		for (int i = 0; i < 3000; i++) {
+			assertTrue(matcher.matches("X-" + i));
+			assertFalse(matcher.matches("Y-" + i));
+		}
+	}
+
+}
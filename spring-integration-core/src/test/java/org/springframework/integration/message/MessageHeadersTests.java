@@ -17,6 +17,7 @@
 package org.springframework.integration.message;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
@@ -29,10 +30,14 @@ import java.io.ObjectOutputStream;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 
 import org.junit.Test;
 
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.integration.Message;
 import org.springframework.integration.MessageHeaders;
+import org.springframework.integration.support.MessageBuilder;
 
 /**
  * @author Mark Fisher
@@ -141,6 +146,105 @@ public class MessageHeadersTests {
 		assertNull(output.get("address"));
 	}
 
+	@Test
+	public void derivedHeadersShareUnchangedEntries() throws Exception {
+		Message<String> original = MessageBuilder.withPayload("foo")
+				.setHeader("a", 1).setHeader("b", 2).setHeader("c", 3).build();
+		Message<String> derived = MessageBuilder.fromMessage(original)
+				.setHeader("b", 22).removeHeader("c").setHeader("d", 4).build();
+		MessageHeaders headers = derived.getHeaders();
+		assertEquals(1, headers.get("a"));
+		assertEquals(22, headers.get("b"));
+		assertNull(headers.get("c"));
+		assertFalse(headers.containsKey("c"));
+		assertEquals(4, headers.get("d"));
+		assertFalse(original.getHeaders().getId().equals(headers.getId()));
+		assertEquals(5, headers.size());
+
+		Map<String, Object> expected = new HashMap<String, Object>();
+		expected.put("a", 1);
+		expected.put("b", 22);
+		expected.put("d", 4);
+		expected.put(MessageHeaders.ID, headers.getId());
+		expected.put(MessageHeaders.TIMESTAMP, headers.getTimestamp());
+		assertEquals(expected, new HashMap<String, Object>(headers));
+		assertEquals(expected.keySet(), headers.keySet());
+
+		// the original is unaffected
+		assertEquals(2, original.getHeaders().get("b"));
+		assertEquals(3, original.getHeaders().get("c"));
+		assertNull(original.getHeaders().get("d"));
+
+		MessageHeaders output = (MessageHeaders) serializeAndDeserialize(headers);
+		assertEquals(headers, output);
+	}
+
+	@Test
+	public void longDerivationChainsAreFlattened() {
+		Message<Integer> message = MessageBuilder.withPayload(0).setHeader("first", "x").build();
+		for (int i = 1; i <= 50; i++) {
+			message = MessageBuilder.fromMessage(message).setHeader("h" + i, i).setHeader("last", i).build();
+		}
+		MessageHeaders headers = message.getHeaders();
+		assertEquals("x", headers.get("first"));
+		assertEquals(50, headers.get("h50"));
+		assertEquals(1, headers.get("h1"));
+		assertEquals(50, headers.get("last"));
+		assertEquals(54, headers.size());
+		assertEquals(54, new HashMap<String, Object>(headers).size());
+		assertTrue((Integer) new DirectFieldAccessor(headers).getPropertyValue("depth") <= 4);
+	}
+
+	@Test
+	public void removedHeadersAreNotSharedWithTheOriginal() {
+		Message<String> original = MessageBuilder.withPayload("foo")
+				.setHeader("a", 1).setHeader("large", new byte[1024]).build();
+		Message<String> derived = MessageBuilder.fromMessage(original).removeHeader("large").build();
+		MessageHeaders headers = derived.getHeaders();
+		assertNull(new DirectFieldAccessor(headers).getPropertyValue("parent"));
+		assertFalse(headers.containsKey("large"));
+		assertEquals(1, headers.get("a"));
+		assertEquals(3, headers.size());
+	}
+
+	@Test
+	public void builderSeesOriginalHeaders() {
+		Message<String> original = MessageBuilder.withPayload("foo").setHeader("a", 1).setHeader("b", 2).build();
+		MessageBuilder<String> builder = MessageBuilder.fromMessage(original);
+		assertTrue(builder.build() == original);
+		Message<String> derived = builder.removeHeaders("*").setHeaderIfAbsent("a", 11).build();
+		assertEquals(11, derived.getHeaders().get("a"));
+		assertFalse(derived.getHeaders().containsKey("b"));
+		assertEquals(3, derived.getHeaders().size());
+	}
+
+	@Test
+	public void derivedHeadersAlwaysGetNewId() {
+		Message<String> original = MessageBuilder.withPayload("foo").setHeader("a", 1).build();
+		UUID forged = UUID.randomUUID();
+		Map<String, Object> overlay = MessageHeaders.overlay(original.getHeaders());
+		overlay.put(MessageHeaders.ID, forged);
+		overlay.put(MessageHeaders.TIMESTAMP, 1L);
+		Message<String> derived = new GenericMessage<String>("bar", overlay);
+		assertFalse(forged.equals(derived.getHeaders().getId()));
+		assertFalse(original.getHeaders().getId().equals(derived.getHeaders().getId()));
+		assertFalse(new Long(1).equals(derived.getHeaders().getTimestamp()));
+		assertEquals(1, derived.getHeaders().get("a"));
+	}
+
+	@Test
+	public void restoringOverlayKeepsIdAndTimestamp() {
+		Message<String> original = MessageBuilder.withPayload("foo").setHeader("a", 1).build();
+		MessageHeaders headers = original.getHeaders();
+		Map<String, Object> overlay = MessageHeaders.restoringOverlay(headers, headers.getId(), headers.getTimestamp());
+		overlay.put("b", 2);
+		Message<String> restored = new GenericMessage<String>("foo", overlay);
+		assertEquals(headers.getId(), restored.getHeaders().getId());
+		assertEquals(headers.getTimestamp(), restored.getHeaders().getTimestamp());
+		assertEquals(1, restored.getHeaders().get("a"));
+		assertEquals(2, restored.getHeaders().get("b"));
+	}
+
 
 	private static Object serializeAndDeserialize(Object object) throws Exception {
 		ByteArrayOutputStream baos = new ByteArrayOutputStream();
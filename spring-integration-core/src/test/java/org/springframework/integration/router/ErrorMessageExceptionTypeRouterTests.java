@@ -201,4 +201,24 @@ public class ErrorMessageExceptionTypeRouterTests {
 		assertNull(messageHandlingExceptionChannel.receive(0));
 	}
 
+	@Test
+	public void mappingAddedAfterCauseTypeWasRouted() {
+		Message<?> failedMessage = new GenericMessage<String>("foo");
+		IllegalArgumentException rootCause = new IllegalArgumentException("bad argument");
+		MessageHandlingException error = new MessageHandlingException(failedMessage, "failed", rootCause);
+		ErrorMessage message = new ErrorMessage(error);
+		ErrorMessageExceptionTypeRouter router = new ErrorMessageExceptionTypeRouter();
+		router.setChannelMapping(MessageHandlingException.class.getName(), "messageHandlingExceptionChannel");
+		router.setBeanFactory(beanFactory);
+		router.handleMessage(message);
+		assertNotNull(messageHandlingExceptionChannel.receive(0));
+		router.setChannelMapping(IllegalArgumentException.class.getName(), "illegalArgumentChannel");
+		router.handleMessage(message);
+		assertNotNull(illegalArgumentChannel.receive(0));
+		router.removeChannelMapping(IllegalArgumentException.class.getName());
+		router.handleMessage(message);
+		assertNotNull(messageHandlingExceptionChannel.receive(0));
+		assertNull(illegalArgumentChannel.receive(0));
+	}
+
 }
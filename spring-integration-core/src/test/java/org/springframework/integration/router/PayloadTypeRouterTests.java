@@ -586,4 +586,33 @@ public class PayloadTypeRouterTests {
 
 	public static class C3 implements I4 {}
 
+	@Test
+	public void cachedChannelKeyReplacedWhenMappingsChange() {
+		QueueChannel charSequenceChannel = new QueueChannel();
+		QueueChannel stringChannel = new QueueChannel();
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.registerSingleton("charSequenceChannel", charSequenceChannel);
+		beanFactory.registerSingleton("stringChannel", stringChannel);
+		PayloadTypeRouter router = new PayloadTypeRouter();
+		router.setChannelMapping(CharSequence.class.getName(), "charSequenceChannel");
+		router.setBeanFactory(beanFactory);
+		Message<String> message = new GenericMessage<String>("test");
+		router.handleMessage(message);
+		router.handleMessage(message);
+		assertNotNull(charSequenceChannel.receive(0));
+		assertNotNull(charSequenceChannel.receive(0));
+		router.setChannelMapping(String.class.getName(), "stringChannel");
+		router.handleMessage(message);
+		assertNotNull(stringChannel.receive(0));
+		router.removeChannelMapping(String.class.getName());
+		router.handleMessage(message);
+		assertNotNull(charSequenceChannel.receive(0));
+		Map<String, String> mappings = new ConcurrentHashMap<String, String>();
+		mappings.put(String.class.getName(), "stringChannel");
+		router.setChannelMappings(mappings);
+		router.handleMessage(message);
+		assertNotNull(stringChannel.receive(0));
+		assertNull(charSequenceChannel.receive(0));
+	}
+
 }
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Test;
+import org.springframework.integration.Message;
+import org.springframework.integration.MessageHeaders;
+import org.springframework.integration.codec.CompactMessageCodec;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.util.PatternMatchUtils;
+
+/**
+ * @since 2.1
+ */
+public class AbstractKeyValueMessageStoreTests {
+
+	@Test
+	public void groupIsBuiltWithSingleBulkRetrieve() throws Exception {
+		CountingMessageStore store = new CountingMessageStore();
+		List<Message<?>> messages = this.addMessages(store, "foo", 5);
+		store.reset();
+
+		MessageGroup group = store.getMessageGroup("foo");
+		assertEquals(5, group.size());
+		// one for the group metadata, none for the members
+		assertEquals(1, store.retrieveCount);
+		assertEquals(1, store.retrieveAllCount);
+		Iterator<Message<?>> iterator = group.getMessages().iterator();
+		for (Message<?> message : messages) {
+			Message<?> groupMessage = iterator.next();
+			assertEquals(message.getHeaders().getId(), groupMessage.getHeaders().getId());
+			assertEquals(message.getHeaders().getTimestamp(), groupMessage.getHeaders().getTimestamp());
+			assertFalse(groupMessage.getHeaders().containsKey("CREATED_DATE"));
+		}
+	}
+
+	@Test
+	public void addMessageToGroupStoresMessageAndMetadataTogether() throws Exception {
+		CountingMessageStore store = new CountingMessageStore();
+		this.addMessages(store, "foo", 3);
+		store.reset();
+
+		Message<String> message = MessageBuilder.withPayload("bar").build();
+		MessageGroup group = store.addMessageToGroup("foo", message);
+		assertEquals(4, group.size());
+		assertEquals(1, store.storeAllCount);
+		assertEquals(0, store.storeCount);
+		assertEquals(1, store.retrieveAllCount);
+		assertEquals(message.getHeaders().getId(), store.getMessage(message.getHeaders().getId()).getHeaders().getId());
+	}
+
+	@Test
+	public void removeMessageGroupRemovesMembersInBulk() throws Exception {
+		CountingMessageStore store = new CountingMessageStore();
+		this.addMessages(store, "foo", 4);
+		store.reset();
+
+		store.removeMessageGroup("foo");
+		assertEquals(1, store.removeAllCount);
+		assertEquals(1, store.removeCount);
+		assertEquals(0, store.getMessageCount());
+		assertEquals(0, store.getMessageGroup("foo").size());
+	}
+
+	@Test
+	public void pollMessageFromGroup() throws Exception {
+		CountingMessageStore store = new CountingMessageStore();
+		List<Message<?>> messages = this.addMessages(store, "foo", 2);
+		Message<?> polled = store.pollMessageFromGroup("foo");
+		assertEquals(messages.get(0).getHeaders().getId(), polled.getHeaders().getId());
+		assertEquals(1, store.getMessageGroup("foo").size());
+		polled = store.pollMessageFromGroup("foo");
+		assertEquals(messages.get(1).getHeaders().getId(), polled.getHeaders().getId());
+		assertNull(store.pollMessageFromGroup("foo"));
+	}
+
+	@Test
+	public void iteratorReturnsStoredGroups() throws Exception {
+		CountingMessageStore store = new CountingMessageStore();
+		this.addMessages(store, "foo", 2);
+		this.addMessages(store, "bar", 3);
+		Map<Object, Integer> sizes = new HashMap<Object, Integer>();
+		for (MessageGroup group : store) {
+			sizes.put(group.getGroupId(), group.size());
+		}
+		assertEquals(2, sizes.size());
+		assertEquals(Integer.valueOf(2), sizes.get("foo"));
+		assertEquals(Integer.valueOf(3), sizes.get("bar"));
+	}
+
+	@Test
+	public void messagesAreStoredAsBytesWithCodec() throws Exception {
+		CountingMessageStore store = new CountingMessageStore();
+		Message<String> before = MessageBuilder.withPayload("before").build();
+		store.addMessage(before);
+		store.setMessageCodec(new CompactMessageCodec());
+		List<Message<?>> messages = this.addMessages(store, "foo", 2);
+		for (Message<?> message : messages) {
+			assertTrue(store.map.get("MESSAGE_" + message.getHeaders().getId()) instanceof byte[]);
+		}
+		MessageGroup group = store.getMessageGroup("foo");
+		Iterator<Message<?>> iterator = group.getMessages().iterator();
+		for (Message<?> message : messages) {
+			Message<?> groupMessage = iterator.next();
+			assertEquals(message.getHeaders().getId(), groupMessage.getHeaders().getId());
+			assertEquals(message.getPayload(), groupMessage.getPayload());
+			assertFalse(groupMessage.getHeaders().containsKey("CREATED_DATE"));
+		}
+		assertEquals("before", store.getMessage(before.getHeaders().getId()).getPayload());
+		assertEquals(messages.get(0).getHeaders().getId(), store.pollMessageFromGroup("foo").getHeaders().getId());
+	}
+
+	private List<Message<?>> addMessages(MessageGroupStore store, Object groupId, int count) throws Exception {
+		List<Message<?>> messages = new ArrayList<Message<?>>();
+		for (int i = 0; i < count; i++) {
+			Message<Integer> message = MessageBuilder.withPayload(i).setHeader(MessageHeaders.SEQUENCE_NUMBER, i + 1).build();
+			store.addMessageToGroup(groupId, message);
+			messages.add(message);
+		}
+		return messages;
+	}
+
+
+	private static class CountingMessageStore extends AbstractKeyValueMessageStore {
+
+		private final Map<Object, Object> map = new ConcurrentHashMap<Object, Object>();
+
+		private volatile int retrieveCount;
+
+		private volatile int retrieveAllCount;
+
+		private volatile int storeCount;
+
+		private volatile int storeAllCount;
+
+		private volatile int removeCount;
+
+		private volatile int removeAllCount;
+
+		void reset() {
+			this.retrieveCount = 0;
+			this.retrieveAllCount = 0;
+			this.storeCount = 0;
+			this.storeAllCount = 0;
+			this.removeCount = 0;
+			this.removeAllCount = 0;
+		}
+
+		@Override
+		protected Object doRetrieve(Object id) {
+			this.retrieveCount++;
+			return this.map.get(id);
+		}
+
+		@Override
+		protected void doStore(Object id, Object objectToStore) {
+			this.storeCount++;
+			this.map.put(id, objectToStore);
+		}
+
+		@Override
+		protected Object doRemove(Object id) {
+			this.removeCount++;
+			return this.map.remove(id);
+		}
+
+		@Override
+		protected Map<Object, Object> doRetrieveAll(Collection<?> ids) {
+			this.retrieveAllCount++;
+			Map<Object, Object> result = new ConcurrentHashMap<Object, Object>();
+			for (Object id : ids) {
+				Object value = this.map.get(id);
+				if (value != null) {
+					result.put(id, value);
+				}
+			}
+			return result;
+		}
+
+		@Override
+		protected void doStoreAll(Map<Object, Object> objectsToStore) {
+			this.storeAllCount++;
+			this.map.putAll(objectsToStore);
+		}
+
+		@Override
+		protected void doRemoveAll(Collection<?> ids) {
+			this.removeAllCount++;
+			for (Object id : ids) {
+				this.map.remove(id);
+			}
+		}
+
+		@Override
+		protected Collection<?> doListKeys(String keyPattern) {
+			List<Object> keys = new ArrayList<Object>();
+			for (Object key : this.map.keySet()) {
+				if (PatternMatchUtils.simpleMatch(keyPattern, key.toString())) {
+					keys.add(key);
+				}
+			}
+			return keys;
+		}
+	}
+
+}
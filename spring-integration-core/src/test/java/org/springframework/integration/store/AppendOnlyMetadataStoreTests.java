@@ -0,0 +1,145 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @since 2.1
+ */
+public class AppendOnlyMetadataStoreTests {
+
+	private final File baseDirectory = new File(System.getProperty("java.io.tmpdir"), "appendOnlyMetadataStoreTests");
+
+	private final File file = new File(baseDirectory, "metadata-store.log");
+
+	@Before
+	@After
+	public void cleanup() {
+		if (this.baseDirectory.exists()) {
+			for (File file : this.baseDirectory.listFiles()) {
+				file.delete();
+			}
+			this.baseDirectory.delete();
+		}
+	}
+
+	@Test
+	public void updatesSurviveWithoutDestroy() throws Exception {
+		AppendOnlyMetadataStore store = this.createStore(1000);
+		store.put("foo", "1");
+		store.put("bar", "2");
+		store.put("foo", "3");
+		// no destroy(), as after a crash
+		AppendOnlyMetadataStore recovered = this.createStore(1000);
+		assertEquals("3", recovered.get("foo"));
+		assertEquals("2", recovered.get("bar"));
+		assertNull(recovered.get("baz"));
+		recovered.destroy();
+		store.destroy();
+	}
+
+	@Test
+	public void incompleteRecordIsDiscarded() throws Exception {
+		AppendOnlyMetadataStore store = this.createStore(0);
+		store.put("foo", "1");
+		store.destroy();
+		long validLength = this.file.length();
+		store = this.createStore(0);
+		store.put("foo", "2");
+		store.destroy();
+		RandomAccessFile raf = new RandomAccessFile(this.file, "rw");
+		raf.setLength(this.file.length() - 2);
+		raf.close();
+		store = this.createStore(0);
+		assertEquals("1", store.get("foo"));
+		assertEquals(validLength, this.file.length());
+		store.put("bar", "3");
+		store.destroy();
+		store = this.createStore(0);
+		assertEquals("1", store.get("foo"));
+		assertEquals("3", store.get("bar"));
+		store.destroy();
+	}
+
+	@Test
+	public void corruptRecordIsDiscarded() throws Exception {
+		AppendOnlyMetadataStore store = this.createStore(0);
+		store.put("foo", "1");
+		store.put("foo", "2");
+		store.destroy();
+		RandomAccessFile raf = new RandomAccessFile(this.file, "rw");
+		raf.seek(this.file.length() - 5);
+		raf.write('x');
+		raf.close();
+		store = this.createStore(0);
+		assertEquals("1", store.get("foo"));
+		store.destroy();
+	}
+
+	@Test
+	public void logIsCompacted() throws Exception {
+		AppendOnlyMetadataStore store = this.createStore(1000);
+		store.setCompactionThreshold(10);
+		for (int i = 0; i < 1000; i++) {
+			store.put("foo", "" + i);
+			store.put("bar", "" + i);
+		}
+		assertTrue(this.file.length() < 200);
+		store.destroy();
+		store = this.createStore(1000);
+		assertEquals("999", store.get("foo"));
+		assertEquals("999", store.get("bar"));
+		store.destroy();
+		assertFalse(new File(this.baseDirectory, "metadata-store.log.compacting").exists());
+	}
+
+	@Test
+	public void propertiesAreImported() throws Exception {
+		this.baseDirectory.mkdirs();
+		FileOutputStream outputStream = new FileOutputStream(new File(this.baseDirectory, "metadata-store.properties"));
+		outputStream.write("foo=bar\n".getBytes());
+		outputStream.close();
+		AppendOnlyMetadataStore store = this.createStore(1000);
+		assertEquals("bar", store.get("foo"));
+		store.destroy();
+		new File(this.baseDirectory, "metadata-store.properties").delete();
+		store = this.createStore(1000);
+		assertEquals("bar", store.get("foo"));
+		store.destroy();
+	}
+
+	private AppendOnlyMetadataStore createStore(long fsyncInterval) throws Exception {
+		AppendOnlyMetadataStore store = new AppendOnlyMetadataStore();
+		store.setBaseDirectory(this.baseDirectory.getAbsolutePath());
+		store.setFsyncInterval(fsyncInterval);
+		store.afterPropertiesSet();
+		return store;
+	}
+
+}
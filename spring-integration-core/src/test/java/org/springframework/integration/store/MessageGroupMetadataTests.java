@@ -0,0 +1,67 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.Test;
+import org.springframework.integration.Message;
+import org.springframework.integration.support.MessageBuilder;
+
+/**
+ * @since 2.1
+ */
+public class MessageGroupMetadataTests {
+
+	@Test
+	public void messagesCreatedWithinTheSameMillisecondAreKept() {
+		long createdDate = System.currentTimeMillis();
+		List<Message<?>> messages = new ArrayList<Message<?>>();
+		for (int i = 0; i < 5; i++) {
+			messages.add(MessageBuilder.withPayload(i).setHeader("CREATED_DATE", createdDate).build());
+		}
+		MessageGroupMetadata metadata = new MessageGroupMetadata(new SimpleMessageGroup(messages, "foo"));
+		Iterator<UUID> ids = metadata.messageIdIterator();
+		for (Message<?> message : messages) {
+			assertEquals(message.getHeaders().getId(), ids.next());
+		}
+		assertFalse(ids.hasNext());
+		assertEquals(messages.get(0).getHeaders().getId(), metadata.firstId());
+	}
+
+	@Test
+	public void removeFindsMessageWithAdjustedCreationDate() {
+		long createdDate = System.currentTimeMillis();
+		Message<?> first = MessageBuilder.withPayload("first").setHeader("CREATED_DATE", createdDate).build();
+		Message<?> second = MessageBuilder.withPayload("second").setHeader("CREATED_DATE", createdDate).build();
+		List<Message<?>> messages = new ArrayList<Message<?>>();
+		messages.add(first);
+		messages.add(second);
+		MessageGroupMetadata metadata = new MessageGroupMetadata(new SimpleMessageGroup(messages, "foo"));
+		metadata.remove(second.getHeaders().getId());
+		Iterator<UUID> ids = metadata.messageIdIterator();
+		assertEquals(first.getHeaders().getId(), ids.next());
+		assertFalse(ids.hasNext());
+	}
+
+}
@@ -26,6 +26,7 @@ import java.util.Map;
 import org.codehaus.jackson.JsonGenerationException;
 import org.codehaus.jackson.JsonParseException;
 import org.codehaus.jackson.map.JsonMappingException;
+import org.codehaus.jackson.map.ObjectMapper;
 import org.junit.Test;
 import org.springframework.context.expression.MapAccessor;
 import org.springframework.expression.Expression;
@@ -142,6 +143,26 @@ public class ObjectToMapTransformerTests {
 		assertEquals(valueFromTheMap, valueFromExpression);
 	}
 
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testSameResultAsJsonStringRoundTrip() throws Exception {
+		Employee employee = this.buildEmployee();
+		employee.getPerson().setAge(new BigDecimal("10.5"));
+		ObjectMapper mapper = new ObjectMapper();
+		Map<String, Object> expected = mapper.readValue(mapper.writeValueAsString(employee), Map.class);
+		ObjectToMapTransformer transformer = new ObjectToMapTransformer();
+		transformer.setShouldFlattenKeys(false);
+		Message<?> transformedMessage = transformer.transform(MessageBuilder.withPayload(employee).build());
+		assertEquals(expected, transformedMessage.getPayload());
+		transformer.setShouldFlattenKeys(true);
+		Map<String, Object> flattened = (Map<String, Object>) transformer.transform(
+				MessageBuilder.withPayload(employee).build()).getPayload();
+		assertEquals(10.5, flattened.get("person.age"));
+		assertEquals(1, flattened.get("companyAddress.coordinates.latitude[0]"));
+		assertEquals(((List<Object>) ((Map<String, Object>) expected.get("person")).get("akaNames")).get(2),
+				flattened.get("person.akaNames[2]"));
+	}
+
 	@Test(expected=MessageTransformationException.class)
 	public void testObjectToSpelMapTransformerWithCycle(){
 		Employee employee = this.buildEmployee();
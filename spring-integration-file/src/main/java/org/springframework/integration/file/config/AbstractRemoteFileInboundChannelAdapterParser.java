@@ -78,6 +78,10 @@ public abstract class AbstractRemoteFileInboundChannelAdapterParser extends Abst
 		String remoteFileSeparator = element.getAttribute("remote-file-separator");
 		synchronizerBuilder.addPropertyValue("remoteFileSeparator", remoteFileSeparator);
 		IntegrationNamespaceUtils.setValueIfAttributeDefined(synchronizerBuilder, element, "temporary-file-suffix");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(synchronizerBuilder, element, "concurrent-downloads");
+		IntegrationNamespaceUtils.setReferenceIfAttributeDefined(synchronizerBuilder, element, "download-task-executor", "taskExecutor");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(synchronizerBuilder, element, "max-download-attempts");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(synchronizerBuilder, element, "max-in-flight-bytes");
 		this.configureFilter(synchronizerBuilder, element, parserContext);
 
 		// build the MessageSource
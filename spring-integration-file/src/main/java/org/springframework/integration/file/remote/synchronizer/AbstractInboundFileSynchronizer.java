@@ -19,15 +19,22 @@ package org.springframework.integration.file.remote.synchronizer;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.expression.Expression;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.integration.MessagingException;
@@ -86,6 +93,14 @@ public abstract class AbstractInboundFileSynchronizer<F> implements InboundFileS
 	 */
 	private volatile boolean deleteRemoteFiles;
 
+	private volatile int concurrentDownloads = 1;
+
+	private volatile Executor taskExecutor = new SimpleAsyncTaskExecutor("synchronizer-");
+
+	private volatile int maxDownloadAttempts = 1;
+
+	private volatile long maxInFlightBytes;
+
 
 	/**
 	 * Create a synchronizer with the {@link SessionFactory} used to acquire {@link Session} instances.
@@ -125,6 +140,47 @@ public abstract class AbstractInboundFileSynchronizer<F> implements InboundFileS
 		this.deleteRemoteFiles = deleteRemoteFiles;
 	}
 
+	/**
+	 * Specify the number of files to be downloaded at the same time, each over
+	 * a Session of its own. The default is 1, in which case the files are
+	 * downloaded one after the other over the Session used to list them.
+	 * A higher value is best combined with a caching SessionFactory.
+	 * <p>Either way, the downloaded files appear in the local directory in
+	 * the order of the remote listing.
+	 */
+	public void setConcurrentDownloads(int concurrentDownloads) {
+		Assert.isTrue(concurrentDownloads > 0, "'concurrentDownloads' must be a positive integer");
+		this.concurrentDownloads = concurrentDownloads;
+	}
+
+	/**
+	 * Specify the Executor that runs the downloads when
+	 * {@link #setConcurrentDownloads(int) concurrentDownloads} is greater than 1.
+	 * By default, a new Thread is created for each of them.
+	 */
+	public void setTaskExecutor(Executor taskExecutor) {
+		Assert.notNull(taskExecutor, "'taskExecutor' must not be null");
+		this.taskExecutor = taskExecutor;
+	}
+
+	/**
+	 * Specify how many times the download of a single file is attempted
+	 * before giving up. The default is 1 (no retry).
+	 */
+	public void setMaxDownloadAttempts(int maxDownloadAttempts) {
+		Assert.isTrue(maxDownloadAttempts > 0, "'maxDownloadAttempts' must be a positive integer");
+		this.maxDownloadAttempts = maxDownloadAttempts;
+	}
+
+	/**
+	 * Specify the maximum total size of the files being downloaded concurrently,
+	 * as far as it is known from the remote listing (see {@link #getFileSize(Object)}).
+	 * A non-positive value (the default) means no limit.
+	 */
+	public void setMaxInFlightBytes(long maxInFlightBytes) {
+		this.maxInFlightBytes = maxInFlightBytes;
+	}
+
 	public final void afterPropertiesSet() {
 		Assert.notNull(this.remoteDirectory, "remoteDirectory must not be null");
 	}
@@ -145,9 +201,19 @@ public abstract class AbstractInboundFileSynchronizer<F> implements InboundFileS
 			F[] files = session.list(this.remoteDirectory);
 			if (!ObjectUtils.isEmpty(files)) {
 				Collection<F> filteredFiles = this.filterFiles(files);
-				for (F file : filteredFiles) {
-					if (file != null) {
-						this.copyFileToLocalDirectory(this.remoteDirectory, file, localDirectory, session);
+				if (this.concurrentDownloads > 1) {
+					this.closeSession(session);
+					session = null;
+					this.downloadConcurrently(filteredFiles, localDirectory);
+				}
+				else {
+					for (F file : filteredFiles) {
+						if (file != null) {
+							// the copy takes over the Session, and returns the one to carry on with
+							Session<F> current = session;
+							session = null;
+							session = this.copyFileToLocalDirectory(this.remoteDirectory, file, localDirectory, current);
+						}
 					}
 				}
 			}
@@ -156,68 +222,283 @@ public abstract class AbstractInboundFileSynchronizer<F> implements InboundFileS
 			throw new MessagingException("Problem occurred while synchronizing remote to local directory", e);
 		}
 		finally {
-			if (session != null) {
+			this.closeSession(session);
+		}
+	}
+
+	/**
+	 * Copies the file over the given Session, which is closed if the copy fails,
+	 * and replaced by a new one before each retry.
+	 * @return the Session to be used from now on
+	 */
+	private Session<F> copyFileToLocalDirectory(String remoteDirectoryPath, F remoteFile, File localDirectory, Session<F> session) throws IOException {
+		Download download = this.createDownload(remoteDirectoryPath, remoteFile, localDirectory);
+		if (download == null) {
+			return session;
+		}
+		boolean copied = false;
+		try {
+			int attempt = 1;
+			while (true) {
 				try {
-					session.close();
+					this.copyToTemporaryFile(download, session);
+					break;
 				}
-				catch (Exception ignored) {
-					if (logger.isDebugEnabled()) {
-						logger.debug("failed to close Session", ignored);
+				catch (RuntimeException e) {
+					if (attempt++ >= this.maxDownloadAttempts) {
+						throw e;
 					}
+					this.logRetry(download, e);
+					// the Session may be broken, so a retry starts with a new one
+					this.closeSession(session);
+					session = null;
+					session = this.sessionFactory.getSession();
+					Assert.state(session != null, "failed to acquire a Session");
 				}
 			}
+			this.commit(download, session);
+			copied = true;
+			return session;
+		}
+		finally {
+			if (!copied) {
+				this.closeSession(session);
+			}
 		}
 	}
 
-	private void copyFileToLocalDirectory(String remoteDirectoryPath, F remoteFile, File localDirectory, Session<F> session) throws IOException {
-		String remoteFileName = this.getFilename(remoteFile);
-		String localFileName = this.generateLocalFileName(remoteFileName);
-		String remoteFilePath = remoteDirectoryPath + remoteFileSeparator + remoteFileName;
-		if (!this.isFile(remoteFile)) {
-			if (logger.isDebugEnabled()) {
-				logger.debug("cannot copy, not a file: " + remoteFilePath);
+	/**
+	 * Downloads the files to their temporary names with up to
+	 * {@link #setConcurrentDownloads(int) concurrentDownloads} workers, each
+	 * holding its own Session. The calling thread renames the downloaded files
+	 * in the order of the remote listing, as soon as all files that precede them
+	 * are complete, so that they are handed to the local directory in that order.
+	 * Once a download fails, the workers do not start on any further file.
+	 */
+	private void downloadConcurrently(Collection<F> files, File localDirectory) {
+		final Queue<Download> pending = new ConcurrentLinkedQueue<Download>();
+		List<Download> downloads = new ArrayList<Download>();
+		for (F file : files) {
+			if (file != null) {
+				Download download = this.createDownload(this.remoteDirectory, file, localDirectory);
+				if (download != null) {
+					pending.add(download);
+					downloads.add(download);
+				}
 			}
+		}
+		if (downloads.isEmpty()) {
 			return;
 		}
-				
-		File localFile = new File(localDirectory, localFileName);
-		if (!localFile.exists()) {
-			String tempFileName = localFile.getAbsolutePath() + this.temporaryFileSuffix;
-			File tempFile = new File(tempFileName);
-			InputStream inputStream = null;
-			FileOutputStream fileOutputStream = new FileOutputStream(tempFile);
+		final InFlightBytes inFlightBytes = new InFlightBytes(this.maxInFlightBytes);
+		final AtomicBoolean failed = new AtomicBoolean();
+		int workers = Math.min(this.concurrentDownloads, downloads.size());
+		final CountDownLatch workersDone = new CountDownLatch(workers);
+		for (int i = 0; i < workers; i++) {
+			Runnable worker = new Runnable() {
+				public void run() {
+					try {
+						downloadPending(pending, inFlightBytes, failed);
+					}
+					finally {
+						workersDone.countDown();
+					}
+				}
+			};
 			try {
-				session.read(remoteFilePath, fileOutputStream);
+				this.taskExecutor.execute(worker);
+			}
+			catch (RejectedExecutionException e) {
+				worker.run();
 			}
-			catch (Exception e) {
-				if (e instanceof RuntimeException){
-					throw (RuntimeException) e;
+		}
+		RuntimeException failure = null;
+		Session<F> session = null;
+		boolean completed = false;
+		try {
+			for (Download download : downloads) {
+				try {
+					download.await();
 				}
-				else {
-					throw new MessagingException("Failure occurred while copying from remote to local directory", e);
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new MessagingException("Interrupted while waiting for a download to complete", e);
+				}
+				if (download.skipped) {
+					continue;
+				}
+				if (download.failure != null) {
+					if (failure == null) {
+						failure = download.failure;
+					}
+					continue;
+				}
+				if (session == null && this.deleteRemoteFiles) {
+					session = this.sessionFactory.getSession();
+					Assert.state(session != null, "failed to acquire a Session");
 				}
-			}
-			finally {
 				try {
-					if (inputStream != null) {
-						inputStream.close();
+					this.commit(download, session);
+				}
+				catch (IOException e) {
+					throw new MessagingException("Problem occurred while synchronizing remote to local directory", e);
+				}
+			}
+			completed = true;
+		}
+		finally {
+			this.closeSession(session);
+			if (!completed) {
+				// keep the workers from starting on any other file
+				pending.clear();
+			}
+			try {
+				// the workers may still be downloading, or closing their Sessions
+				workersDone.await();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if (!completed) {
+				for (Download download : downloads) {
+					if (!download.localFile.exists()) {
+						download.tempFile.delete();
 					}
 				}
-				catch (Exception ignored1) {
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	private void downloadPending(Queue<Download> pending, InFlightBytes inFlightBytes, AtomicBoolean failed) {
+		Session<F> session = null;
+		try {
+			Download download;
+			while ((download = pending.poll()) != null) {
+				if (failed.get()) {
+					download.skipped = true;
+					download.done();
+					continue;
 				}
 				try {
+					int attempt = 1;
+					while (true) {
+						try {
+							if (session == null) {
+								session = this.sessionFactory.getSession();
+								Assert.state(session != null, "failed to acquire a Session");
+							}
+							inFlightBytes.acquire(download.size);
+							try {
+								this.copyToTemporaryFile(download, session);
+							}
+							finally {
+								inFlightBytes.release(download.size);
+							}
+							break;
+						}
+						catch (RuntimeException e) {
+							// the Session may be broken, so a retry starts with a new one
+							this.closeSession(session);
+							session = null;
+							if (attempt++ >= this.maxDownloadAttempts) {
+								throw e;
+							}
+							this.logRetry(download, e);
+						}
+					}
+				}
+				catch (RuntimeException e) {
+					download.tempFile.delete();
+					download.failure = e;
+					failed.set(true);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					download.failure = new MessagingException("Interrupted while waiting to download " + download.remoteFilePath, e);
+					failed.set(true);
+				}
+				finally {
+					download.done();
+				}
+			}
+		}
+		finally {
+			this.closeSession(session);
+		}
+	}
+
+	private Download createDownload(String remoteDirectoryPath, F remoteFile, File localDirectory) {
+		String remoteFileName = this.getFilename(remoteFile);
+		String localFileName = this.generateLocalFileName(remoteFileName);
+		String remoteFilePath = remoteDirectoryPath + remoteFileSeparator + remoteFileName;
+		if (!this.isFile(remoteFile)) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("cannot copy, not a file: " + remoteFilePath);
+			}
+			return null;
+		}
+		File localFile = new File(localDirectory, localFileName);
+		if (localFile.exists()) {
+			return null;
+		}
+		return new Download(remoteFilePath, localFile, new File(localFile.getAbsolutePath() + this.temporaryFileSuffix),
+				Math.max(this.getFileSize(remoteFile), 0));
+	}
+
+	private void copyToTemporaryFile(Download download, Session<F> session) {
+		FileOutputStream fileOutputStream = null;
+		try {
+			fileOutputStream = new FileOutputStream(download.tempFile);
+			session.read(download.remoteFilePath, fileOutputStream);
+		}
+		catch (Exception e) {
+			if (e instanceof RuntimeException){
+				throw (RuntimeException) e;
+			}
+			else {
+				throw new MessagingException("Failure occurred while copying from remote to local directory", e);
+			}
+		}
+		finally {
+			try {
+				if (fileOutputStream != null) {
 					fileOutputStream.close();
 				}
-				catch (Exception ignored2) {
+			}
+			catch (Exception ignored) {
+			}
+		}
+	}
+
+	private void commit(Download download, Session<F> session) throws IOException {
+		if (download.tempFile.renameTo(download.localFile)) {
+			if (this.deleteRemoteFiles) {
+				session.remove(download.remoteFilePath);
+				if (logger.isDebugEnabled()) {
+					logger.debug("deleted " + download.remoteFilePath);
 				}
 			}
-			
-			if (tempFile.renameTo(localFile)) {
-				if (this.deleteRemoteFiles) {
-					session.remove(remoteFilePath);
-					if (logger.isDebugEnabled()) {
-						logger.debug("deleted " + remoteFilePath);
-					}
+		}
+	}
+
+	private void logRetry(Download download, Exception e) {
+		download.tempFile.delete();
+		if (logger.isWarnEnabled()) {
+			logger.warn("failed to download " + download.remoteFilePath + ", retrying", e);
+		}
+	}
+
+	private void closeSession(Session<F> session) {
+		if (session != null) {
+			try {
+				session.close();
+			}
+			catch (Exception ignored) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("failed to close Session", ignored);
 				}
 			}
 		}
@@ -234,4 +515,84 @@ public abstract class AbstractInboundFileSynchronizer<F> implements InboundFileS
 
 	protected abstract String getFilename(F file);
 
+	/**
+	 * Return the size of the given remote file in bytes, or a negative value
+	 * if it is not known, in which case the file does not count against the
+	 * {@link #setMaxInFlightBytes(long) maxInFlightBytes}. This implementation
+	 * returns -1.
+	 */
+	protected long getFileSize(F file) {
+		return -1;
+	}
+
+
+	/**
+	 * A remote file to be copied to the local directory.
+	 */
+	private static class Download {
+
+		private final String remoteFilePath;
+
+		private final File localFile;
+
+		private final File tempFile;
+
+		private final long size;
+
+		private final CountDownLatch latch = new CountDownLatch(1);
+
+		private volatile RuntimeException failure;
+
+		private volatile boolean skipped;
+
+		Download(String remoteFilePath, File localFile, File tempFile, long size) {
+			this.remoteFilePath = remoteFilePath;
+			this.localFile = localFile;
+			this.tempFile = tempFile;
+			this.size = size;
+		}
+
+		void done() {
+			this.latch.countDown();
+		}
+
+		void await() throws InterruptedException {
+			this.latch.await();
+		}
+	}
+
+
+	/**
+	 * Bounds the number of bytes being downloaded at a time. A file larger than
+	 * the limit is admitted when no other download is in progress.
+	 */
+	private static class InFlightBytes {
+
+		private final long limit;
+
+		private long bytes;
+
+		InFlightBytes(long limit) {
+			this.limit = limit;
+		}
+
+		synchronized void acquire(long size) throws InterruptedException {
+			if (this.limit <= 0 || size == 0) {
+				return;
+			}
+			while (this.bytes > 0 && this.bytes + size > this.limit) {
+				this.wait();
+			}
+			this.bytes += size;
+		}
+
+		synchronized void release(long size) {
+			if (this.limit <= 0 || size == 0) {
+				return;
+			}
+			this.bytes -= size;
+			this.notifyAll();
+		}
+	}
+
 }
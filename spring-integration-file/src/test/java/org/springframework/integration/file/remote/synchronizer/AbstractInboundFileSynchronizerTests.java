@@ -0,0 +1,327 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.file.remote.synchronizer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.integration.MessagingException;
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.file.remote.session.SessionFactory;
+
+/**
+ * @since 2.1
+ */
+public class AbstractInboundFileSynchronizerTests {
+
+	private final File localDirectory = new File(System.getProperty("java.io.tmpdir"), "synchronizerTests");
+
+	private final StubSessionFactory sessionFactory = new StubSessionFactory();
+
+	@Before
+	@After
+	public void cleanup() {
+		if (this.localDirectory.exists()) {
+			for (File file : this.localDirectory.listFiles()) {
+				file.delete();
+			}
+			this.localDirectory.delete();
+		}
+		this.localDirectory.mkdirs();
+	}
+
+	@Test
+	public void concurrentDownloadsAreHandedOverInListingOrder() {
+		this.sessionFactory.delays.put("a", 200);
+		this.sessionFactory.delays.put("b", 100);
+		this.sessionFactory.delays.put("c", 50);
+		StubSynchronizer synchronizer = new StubSynchronizer(this.sessionFactory);
+		synchronizer.setConcurrentDownloads(3);
+		synchronizer.setDeleteRemoteFiles(true);
+		synchronizer.synchronizeToLocalDirectory(this.localDirectory);
+		assertEquals(Arrays.asList("remote/a", "remote/b", "remote/c"), this.sessionFactory.removed);
+		assertTrue(this.sessionFactory.maxConcurrentReads.get() > 1);
+		for (String name : new String[] {"a", "b", "c"}) {
+			assertTrue(new File(this.localDirectory, name).exists());
+			assertFalse(new File(this.localDirectory, name + ".writing").exists());
+		}
+		assertEquals(0, this.sessionFactory.openSessions.get());
+	}
+
+	@Test
+	public void failedDownloadIsRetried() {
+		this.sessionFactory.failures.put("b", 1);
+		StubSynchronizer synchronizer = new StubSynchronizer(this.sessionFactory);
+		synchronizer.setConcurrentDownloads(2);
+		synchronizer.setMaxDownloadAttempts(2);
+		synchronizer.synchronizeToLocalDirectory(this.localDirectory);
+		assertTrue(new File(this.localDirectory, "b").exists());
+		assertEquals(0, this.sessionFactory.openSessions.get());
+	}
+
+	@Test
+	public void otherFilesAreHandedOverWhenRetriesAreExhausted() {
+		// 'c' is downloaded while 'b' is still being attempted
+		this.sessionFactory.delays.put("b", 100);
+		this.sessionFactory.failures.put("b", 2);
+		StubSynchronizer synchronizer = new StubSynchronizer(this.sessionFactory);
+		synchronizer.setConcurrentDownloads(2);
+		synchronizer.setMaxDownloadAttempts(2);
+		try {
+			synchronizer.synchronizeToLocalDirectory(this.localDirectory);
+			fail("expected MessagingException");
+		}
+		catch (MessagingException e) {
+			// expected
+		}
+		assertTrue(new File(this.localDirectory, "a").exists());
+		assertFalse(new File(this.localDirectory, "b").exists());
+		assertFalse(new File(this.localDirectory, "b.writing").exists());
+		assertTrue(new File(this.localDirectory, "c").exists());
+		assertEquals(0, this.sessionFactory.openSessions.get());
+	}
+
+	@Test
+	public void noFurtherDownloadStartsAfterFailure() {
+		this.sessionFactory.failures.put("a", 1);
+		this.sessionFactory.delays.put("b", 200);
+		StubSynchronizer synchronizer = new StubSynchronizer(this.sessionFactory);
+		synchronizer.setConcurrentDownloads(2);
+		try {
+			synchronizer.synchronizeToLocalDirectory(this.localDirectory);
+			fail("expected MessagingException");
+		}
+		catch (MessagingException e) {
+			// expected
+		}
+		assertFalse(this.sessionFactory.reads.contains("remote/c"));
+		assertFalse(new File(this.localDirectory, "a").exists());
+		assertFalse(new File(this.localDirectory, "c").exists());
+		assertFalse(new File(this.localDirectory, "c.writing").exists());
+		assertEquals(0, this.sessionFactory.openSessions.get());
+	}
+
+	@Test
+	public void inFlightBytesAreBounded() {
+		this.sessionFactory.delays.put("a", 50);
+		this.sessionFactory.delays.put("b", 50);
+		this.sessionFactory.delays.put("c", 50);
+		StubSynchronizer synchronizer = new StubSynchronizer(this.sessionFactory);
+		synchronizer.setConcurrentDownloads(3);
+		synchronizer.setMaxInFlightBytes(15);
+		synchronizer.synchronizeToLocalDirectory(this.localDirectory);
+		assertEquals(1, this.sessionFactory.maxConcurrentReads.get());
+		assertEquals(3, this.localDirectory.list().length);
+	}
+
+	@Test
+	public void sequentialDownloadUsesSingleSession() {
+		StubSynchronizer synchronizer = new StubSynchronizer(this.sessionFactory);
+		synchronizer.setDeleteRemoteFiles(true);
+		synchronizer.synchronizeToLocalDirectory(this.localDirectory);
+		assertEquals(Arrays.asList("remote/a", "remote/b", "remote/c"), this.sessionFactory.removed);
+		assertEquals(1, this.sessionFactory.sessionCount.get());
+	}
+
+
+	@Test
+	public void sequentialRetryUsesNewSession() {
+		this.sessionFactory.failures.put("b", 1);
+		StubSynchronizer synchronizer = new StubSynchronizer(this.sessionFactory);
+		synchronizer.setMaxDownloadAttempts(2);
+		synchronizer.synchronizeToLocalDirectory(this.localDirectory);
+		assertEquals(3, this.localDirectory.list().length);
+		assertEquals(2, this.sessionFactory.sessionCount.get());
+		assertEquals(0, this.sessionFactory.openSessions.get());
+	}
+
+	@Test
+	public void sequentialFailureClosesSession() {
+		this.sessionFactory.failures.put("b", 1);
+		StubSynchronizer synchronizer = new StubSynchronizer(this.sessionFactory);
+		try {
+			synchronizer.synchronizeToLocalDirectory(this.localDirectory);
+			fail("expected MessagingException");
+		}
+		catch (MessagingException e) {
+			// expected
+		}
+		assertEquals(0, this.sessionFactory.openSessions.get());
+	}
+
+	@Test
+	public void commitFailureStopsWorkers() {
+		this.sessionFactory.delays.put("b", 200);
+		this.sessionFactory.removeFailures.add("remote/a");
+		StubSynchronizer synchronizer = new StubSynchronizer(this.sessionFactory);
+		synchronizer.setConcurrentDownloads(2);
+		synchronizer.setDeleteRemoteFiles(true);
+		try {
+			synchronizer.synchronizeToLocalDirectory(this.localDirectory);
+			fail("expected MessagingException");
+		}
+		catch (MessagingException e) {
+			// expected
+		}
+		// the workers are done once the synchronization fails
+		assertEquals(0, this.sessionFactory.openSessions.get());
+		assertTrue(new File(this.localDirectory, "a").exists());
+		assertFalse(new File(this.localDirectory, "b").exists());
+		assertFalse(new File(this.localDirectory, "b.writing").exists());
+		assertFalse(new File(this.localDirectory, "c").exists());
+		assertFalse(new File(this.localDirectory, "c.writing").exists());
+	}
+
+
+	private static class StubSynchronizer extends AbstractInboundFileSynchronizer<String> {
+
+		StubSynchronizer(SessionFactory<String> sessionFactory) {
+			super(sessionFactory);
+			this.setRemoteDirectory("remote");
+			this.afterPropertiesSet();
+		}
+
+		@Override
+		protected boolean isFile(String file) {
+			return true;
+		}
+
+		@Override
+		protected String getFilename(String file) {
+			return file;
+		}
+
+		@Override
+		protected long getFileSize(String file) {
+			return 10;
+		}
+	}
+
+
+	private static class StubSessionFactory implements SessionFactory<String> {
+
+		private final Map<String, Integer> delays = new ConcurrentHashMap<String, Integer>();
+
+		private final Map<String, Integer> failures = new ConcurrentHashMap<String, Integer>();
+
+		private final List<String> reads = new CopyOnWriteArrayList<String>();
+
+		private final List<String> removed = new CopyOnWriteArrayList<String>();
+
+		private final List<String> removeFailures = new CopyOnWriteArrayList<String>();
+
+		private final AtomicInteger openSessions = new AtomicInteger();
+
+		private final AtomicInteger sessionCount = new AtomicInteger();
+
+		private final AtomicInteger concurrentReads = new AtomicInteger();
+
+		private final AtomicInteger maxConcurrentReads = new AtomicInteger();
+
+		public Session<String> getSession() {
+			this.openSessions.incrementAndGet();
+			this.sessionCount.incrementAndGet();
+			return new StubSession();
+		}
+
+
+		private class StubSession implements Session<String> {
+
+			private volatile boolean open = true;
+
+			public String[] list(String path) {
+				return new String[] {"a", "b", "c"};
+			}
+
+			public void read(String source, OutputStream outputStream) throws IOException {
+				reads.add(source);
+				String name = source.substring(source.lastIndexOf('/') + 1);
+				int reads = concurrentReads.incrementAndGet();
+				try {
+					synchronized (maxConcurrentReads) {
+						maxConcurrentReads.set(Math.max(reads, maxConcurrentReads.get()));
+					}
+					Integer delay = delays.get(name);
+					if (delay != null) {
+						Thread.sleep(delay);
+					}
+					Integer remainingFailures = failures.get(name);
+					if (remainingFailures != null && remainingFailures > 0) {
+						failures.put(name, remainingFailures - 1);
+						throw new MessagingException("failed to read " + source);
+					}
+					outputStream.write(name.getBytes());
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				finally {
+					concurrentReads.decrementAndGet();
+				}
+			}
+
+			public boolean remove(String path) throws IOException {
+				if (removeFailures.contains(path)) {
+					throw new IOException("failed to remove " + path);
+				}
+				removed.add(path);
+				return true;
+			}
+
+			public void write(InputStream inputStream, String destination) {
+				throw new UnsupportedOperationException();
+			}
+
+			public void mkdir(String directory) {
+				throw new UnsupportedOperationException();
+			}
+
+			public void rename(String pathFrom, String pathTo) {
+				throw new UnsupportedOperationException();
+			}
+
+			public void close() {
+				if (this.open) {
+					this.open = false;
+					openSessions.decrementAndGet();
+				}
+			}
+
+			public boolean isOpen() {
+				return this.open;
+			}
+		}
+	}
+
+}
@@ -50,4 +50,9 @@ public class FtpInboundFileSynchronizer extends AbstractInboundFileSynchronizer<
 		return (file != null ? file.getName() : null);
 	}
 
+	@Override
+	protected long getFileSize(FTPFile file) {
+		return (file != null ? file.getSize() : -1);
+	}
+
 }
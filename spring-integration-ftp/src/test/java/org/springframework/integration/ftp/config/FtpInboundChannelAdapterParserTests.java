@@ -68,6 +68,10 @@ public class FtpInboundChannelAdapterParserTests {
 			(FtpInboundFileSynchronizer) TestUtils.getPropertyValue(inbound, "synchronizer");
 		assertNotNull(TestUtils.getPropertyValue(fisync, "localFilenameGeneratorExpression"));
 		assertEquals(".foo", TestUtils.getPropertyValue(fisync, "temporaryFileSuffix", String.class));
+		assertEquals(4, TestUtils.getPropertyValue(fisync, "concurrentDownloads"));
+		assertEquals(ac.getBean("downloadExecutor"), TestUtils.getPropertyValue(fisync, "taskExecutor"));
+		assertEquals(3, TestUtils.getPropertyValue(fisync, "maxDownloadAttempts"));
+		assertEquals(1048576L, TestUtils.getPropertyValue(fisync, "maxInFlightBytes"));
 		String remoteFileSeparator = (String) TestUtils.getPropertyValue(fisync, "remoteFileSeparator");
 		assertNotNull(remoteFileSeparator);
 		assertEquals("", remoteFileSeparator);
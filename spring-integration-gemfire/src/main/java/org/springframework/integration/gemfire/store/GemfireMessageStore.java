@@ -19,6 +19,7 @@ package org.springframework.integration.gemfire.store;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.data.gemfire.RegionAttributesFactoryBean;
@@ -30,6 +31,8 @@ import org.springframework.util.Assert;
 import org.springframework.util.PatternMatchUtils;
 
 import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.CacheTransactionManager;
+import com.gemstone.gemfire.cache.CommitConflictException;
 import com.gemstone.gemfire.cache.Region;
 
 /**
@@ -95,6 +98,57 @@ public class GemfireMessageStore extends AbstractKeyValueMessageStore implements
 		return this.messageStoreRegion.remove(id);
 	}
 
+	@Override
+	protected Map<Object, Object> doRetrieveAll(Collection<?> ids) {
+		Assert.notNull(ids, "'ids' must not be null");
+		return this.messageStoreRegion.getAll(ids);
+	}
+
+	@Override
+	protected void doStoreAll(Map<Object, Object> objectsToStore) {
+		Assert.notNull(objectsToStore, "'objectsToStore' must not be null");
+		this.messageStoreRegion.putAll(objectsToStore);
+	}
+
+	/**
+	 * Removes all keys within a single cache transaction, so that the removals
+	 * are applied and distributed together on commit, since a Region offers no
+	 * bulk remove operation. If a transaction is already in progress, the keys
+	 * are removed within it.
+	 */
+	@Override
+	protected void doRemoveAll(Collection<?> ids) {
+		Assert.notNull(ids, "'ids' must not be null");
+		if (ids.isEmpty()) {
+			return;
+		}
+		CacheTransactionManager transactionManager = this.cache.getCacheTransactionManager();
+		boolean localTransaction = !transactionManager.exists();
+		if (localTransaction) {
+			transactionManager.begin();
+		}
+		boolean removed = false;
+		try {
+			for (Object id : ids) {
+				this.messageStoreRegion.remove(id);
+			}
+			removed = true;
+		}
+		finally {
+			if (localTransaction && !removed) {
+				transactionManager.rollback();
+			}
+		}
+		if (localTransaction) {
+			try {
+				transactionManager.commit();
+			}
+			catch (CommitConflictException e) {
+				throw new IllegalStateException("Failed to remove " + ids.size() + " entries from the Gemfire Region", e);
+			}
+		}
+	}
+
 	@Override
 	protected Collection<?> doListKeys(String keyPattern) {
 		Assert.hasText(keyPattern, "'keyPattern' must not be empty");
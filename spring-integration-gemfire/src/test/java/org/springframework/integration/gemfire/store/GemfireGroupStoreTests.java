@@ -42,6 +42,7 @@ import org.springframework.util.Assert;
 import com.gemstone.gemfire.cache.Cache;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
@@ -127,6 +128,9 @@ public class GemfireGroupStoreTests {
 		assertEquals(1, messageGroup.size());
 		
 		store.removeMessageGroup(1);
+		// the messages are removed together within a transaction that has been committed
+		assertNull(store.getMessage(message.getHeaders().getId()));
+		assertFalse(this.cache.getCacheTransactionManager().exists());
 		MessageGroup messageGroupA = store.getMessageGroup(1);
 		assertNotSame(messageGroup, messageGroupA);
 		assertEquals(0, messageGroupA.getMessages().size());
@@ -117,6 +117,9 @@ public class HttpInboundEndpointParser extends AbstractSingleBeanDefinitionParse
 			IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "extract-reply-payload");
 			IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "reply-key");
 			IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "convert-exceptions");
+			if (!element.hasAttribute("view-name")) {
+				IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "async", "asyncEnabled");
+			}
 		}
 		else {
 			IntegrationNamespaceUtils.setValueIfAttributeDefined(
@@ -300,102 +300,118 @@ abstract class HttpRequestHandlingEndpointSupport extends MessagingGatewaySuppor
 	 * Handles the HTTP request by generating a Message and sending it to the request channel. If this gateway's
 	 * 'expectReply' property is true, it will also generate a response from the reply Message once received.
 	 */
-	@SuppressWarnings({ "rawtypes", "unchecked" })
 	protected final Object doHandleRequest(HttpServletRequest servletRequest, HttpServletResponse servletResponse) throws IOException {
 		try {
-			ServletServerHttpRequest request = this.prepareRequest(servletRequest);
-			if (!this.supportedMethods.contains(request.getMethod())) {
-				servletResponse.setStatus(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+			Message<?> message = this.createRequestMessage(servletRequest, servletResponse);
+			if (message == null) {
 				return null;
 			}
-
-			Object requestBody = null;
-			if (this.isReadable(request)) {
-				requestBody = this.extractRequestBody(request);
+			Object reply = null;
+			if (this.expectReply) {
+				reply = this.processReply(this.sendAndReceiveMessage(message), servletResponse);
 			}
-			HttpEntity httpEntity = new HttpEntity(requestBody, request.getHeaders());
-
-			StandardEvaluationContext evaluationContext = this.createEvaluationContext();
-			evaluationContext.setRootObject(httpEntity);
-
-			LinkedMultiValueMap<String, String> requestParams = this.convertParameterMap(servletRequest.getParameterMap());
-			evaluationContext.setVariable("requestParams", requestParams);
-
-			if (StringUtils.hasText(this.path)) {
-				String lookupPath = this.urlPathHelper.getLookupPathForRequest(servletRequest);
-				Map pathVariables = this.pathMatcher.extractUriTemplateVariables(this.path, lookupPath);
-				if (!pathVariables.isEmpty()) {
-					if (logger.isDebugEnabled()) {
-						logger.debug("Mapped path variables: " + pathVariables);
-					}
-					evaluationContext.setVariable("pathVariables", pathVariables);
-				}
+			else {
+				this.send(message);
 			}
+			return reply;
+		}
+		finally {
+			this.postProcessRequest(servletRequest);
+		}
+	}
 
-			Map<String, Object> headers = this.headerMapper.toHeaders(request.getHeaders());
-			Object payload = null;
-			if (this.payloadExpression != null) {
-				// create payload based on SpEL
-				payload = this.payloadExpression.getValue(evaluationContext);
-			}
-			if (!CollectionUtils.isEmpty(this.headerExpressions)) {
-				for (String headerName : this.headerExpressions.keySet()) {
-					Expression headerExpression = this.headerExpressions.get(headerName);
-					Object headerValue = headerExpression.getValue(evaluationContext);
-					if (headerValue != null) {
-						headers.put(headerName, headerValue);
-					}
+	/**
+	 * Generates the request Message for the HTTP request, or returns <code>null</code> (with the response status set
+	 * accordingly) if the request method is not supported.
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	final Message<?> createRequestMessage(HttpServletRequest servletRequest, HttpServletResponse servletResponse) throws IOException {
+		ServletServerHttpRequest request = this.prepareRequest(servletRequest);
+		if (!this.supportedMethods.contains(request.getMethod())) {
+			servletResponse.setStatus(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+			return null;
+		}
+
+		Object requestBody = null;
+		if (this.isReadable(request)) {
+			requestBody = this.extractRequestBody(request);
+		}
+		HttpEntity httpEntity = new HttpEntity(requestBody, request.getHeaders());
+
+		StandardEvaluationContext evaluationContext = this.createEvaluationContext();
+		evaluationContext.setRootObject(httpEntity);
+
+		LinkedMultiValueMap<String, String> requestParams = this.convertParameterMap(servletRequest.getParameterMap());
+		evaluationContext.setVariable("requestParams", requestParams);
+
+		if (StringUtils.hasText(this.path)) {
+			String lookupPath = this.urlPathHelper.getLookupPathForRequest(servletRequest);
+			Map pathVariables = this.pathMatcher.extractUriTemplateVariables(this.path, lookupPath);
+			if (!pathVariables.isEmpty()) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Mapped path variables: " + pathVariables);
 				}
+				evaluationContext.setVariable("pathVariables", pathVariables);
 			}
+		}
 
-			if (payload == null) {
-				if (requestBody != null) {
-					payload = requestBody;		
-				}
-				else {
-					payload = requestParams;
+		Map<String, Object> headers = this.headerMapper.toHeaders(request.getHeaders());
+		Object payload = null;
+		if (this.payloadExpression != null) {
+			// create payload based on SpEL
+			payload = this.payloadExpression.getValue(evaluationContext);
+		}
+		if (!CollectionUtils.isEmpty(this.headerExpressions)) {
+			for (String headerName : this.headerExpressions.keySet()) {
+				Expression headerExpression = this.headerExpressions.get(headerName);
+				Object headerValue = headerExpression.getValue(evaluationContext);
+				if (headerValue != null) {
+					headers.put(headerName, headerValue);
 				}
 			}
-			
-			MessageBuilder<?> messageBuilder = null;
+		}
 
-			if (payload instanceof Message<?>){
-				messageBuilder = MessageBuilder.fromMessage((Message<?>) payload).copyHeadersIfAbsent(headers);
-			}
-			else {
-				messageBuilder = MessageBuilder.withPayload(payload).copyHeaders(headers);
-			}
-			
-			Message<?> message = messageBuilder
-					.setHeader(org.springframework.integration.http.HttpHeaders.REQUEST_URL, request.getURI().toString())
-					.setHeader(org.springframework.integration.http.HttpHeaders.REQUEST_METHOD, request.getMethod().toString())
-					.setHeader(org.springframework.integration.http.HttpHeaders.USER_PRINCIPAL, servletRequest.getUserPrincipal())
-					.build();
-			
-			Object reply = null;
-			if (this.expectReply) {
-				reply = this.sendAndReceiveMessage(message);
-				if (reply != null) {
-					ServletServerHttpResponse response = new ServletServerHttpResponse(servletResponse);
-					this.headerMapper.fromHeaders(((Message<?>) reply).getHeaders(), response.getHeaders());
-					HttpStatus httpStatus = this.resolveHttpStatusFromHeaders(((Message<?>) reply).getHeaders());
-					if (httpStatus != null) {
-						response.setStatusCode(httpStatus);
-					}	
-					response.close();
-					if (this.extractReplyPayload) {
-						reply = ((Message<?>) reply).getPayload();
-					}
-				}
+		if (payload == null) {
+			if (requestBody != null) {
+				payload = requestBody;		
 			}
 			else {
-				this.send(message);
+				payload = requestParams;
 			}
-			return reply;
 		}
-		finally {
-			this.postProcessRequest(servletRequest);
+		
+		MessageBuilder<?> messageBuilder = null;
+
+		if (payload instanceof Message<?>){
+			messageBuilder = MessageBuilder.fromMessage((Message<?>) payload).copyHeadersIfAbsent(headers);
+		}
+		else {
+			messageBuilder = MessageBuilder.withPayload(payload).copyHeaders(headers);
+		}
+		
+		return messageBuilder
+				.setHeader(org.springframework.integration.http.HttpHeaders.REQUEST_URL, request.getURI().toString())
+				.setHeader(org.springframework.integration.http.HttpHeaders.REQUEST_METHOD, request.getMethod().toString())
+				.setHeader(org.springframework.integration.http.HttpHeaders.USER_PRINCIPAL, servletRequest.getUserPrincipal())
+				.build();
+	}
+
+	/**
+	 * Maps the headers and status of the reply Message (if any) to the response and returns the content to be
+	 * written, which is the reply's payload unless 'extractReplyPayload' is false.
+	 */
+	final Object processReply(Message<?> reply, HttpServletResponse servletResponse) {
+		if (reply == null) {
+			return null;
+		}
+		ServletServerHttpResponse response = new ServletServerHttpResponse(servletResponse);
+		this.headerMapper.fromHeaders(reply.getHeaders(), response.getHeaders());
+		HttpStatus httpStatus = this.resolveHttpStatusFromHeaders(reply.getHeaders());
+		if (httpStatus != null) {
+			response.setStatusCode(httpStatus);
 		}
+		response.close();
+		return (this.extractReplyPayload) ? reply.getPayload() : reply;
 	}
 
 	/**
@@ -432,7 +448,7 @@ abstract class HttpRequestHandlingEndpointSupport extends MessagingGatewaySuppor
 	 * @param request current HTTP request
 	 * @see MultipartResolver#cleanupMultipart
 	 */
-	private void postProcessRequest(HttpServletRequest request) {
+	final void postProcessRequest(HttpServletRequest request) {
 		if (this.multipartResolver != null && request instanceof MultipartHttpServletRequest) {
 			this.multipartResolver.cleanupMultipart((MultipartHttpServletRequest) request);
 		}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2011 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,7 +18,9 @@ package org.springframework.integration.http.inbound;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.concurrent.ScheduledFuture;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -29,8 +31,12 @@ import org.springframework.http.MediaType;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.server.ServletServerHttpRequest;
 import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.integration.Message;
+import org.springframework.integration.MessageChannel;
 import org.springframework.integration.MessagingException;
 import org.springframework.integration.http.converter.MultipartAwareFormHttpMessageConverter;
+import org.springframework.integration.message.ErrorMessage;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.HttpRequestHandler;
@@ -53,6 +59,9 @@ import org.springframework.web.HttpRequestHandler;
  * <p/>
  * By default a number of {@link HttpMessageConverter}s are already configured. The list can be overridden by calling
  * the {@link #setMessageConverters(List)} method.
+ * <p/>
+ * On a Servlet 3.0 container, a request-reply gateway may be {@link #setAsyncEnabled(boolean) enabled} to process
+ * requests asynchronously, so that no container thread is held while the reply is pending.
  * 
  * @author Mark Fisher
  * @author Oleg Zhurakousky
@@ -62,6 +71,8 @@ public class HttpRequestHandlingMessagingGateway extends HttpRequestHandlingEndp
 
 	private volatile boolean convertExceptions;
 
+	private volatile boolean asyncEnabled;
+
 
 	public HttpRequestHandlingMessagingGateway() {
 		this(true);
@@ -83,6 +94,26 @@ public class HttpRequestHandlingMessagingGateway extends HttpRequestHandlingEndp
 		this.convertExceptions = convertExceptions;
 	}
 
+	/**
+	 * Specify whether requests should be processed asynchronously (default false). If true, and the servlet container
+	 * supports asynchronous processing (Servlet 3.0, with the servlet and its filters marked as async-supported), the
+	 * container thread is released as soon as the request Message has been sent. The response is then written by the
+	 * thread that sends the reply, or when the reply timeout elapses, in which case the response is empty, as it would
+	 * be for a synchronous request. The timeout is scheduled with the "taskScheduler" bean; without it, the timeout of
+	 * the container applies. If the container ends the request first, because its timeout elapses or the request
+	 * fails, the response is completed empty and a reply that arrives later is discarded. Otherwise, and for a
+	 * gateway that does not expect a reply, requests are processed synchronously.
+	 * <p/>
+	 * Any failure is written as the response if 'convertExceptions' is true, or else results in a 500 status, since it
+	 * can no longer be propagated to the container.
+	 * 
+	 * @param asyncEnabled the flag to set
+	 * @since 2.1
+	 */
+	public void setAsyncEnabled(boolean asyncEnabled) {
+		this.asyncEnabled = asyncEnabled;
+	}
+
 	/**
 	 * Handles the HTTP request by generating a Message and sending it to the request channel. If this gateway's
 	 * 'expectReply' property is true, it will also generate a response from the reply Message once received. That
@@ -90,6 +121,13 @@ public class HttpRequestHandlingMessagingGateway extends HttpRequestHandlingEndp
 	 */
 	public final void handleRequest(HttpServletRequest servletRequest, HttpServletResponse servletResponse)
 			throws ServletException, IOException {
+		if (this.asyncEnabled && isExpectReply()) {
+			Object asyncContext = ServletAsyncSupport.startAsync(servletRequest);
+			if (asyncContext != null) {
+				this.handleRequestAsync(asyncContext, servletRequest, servletResponse);
+				return;
+			}
+		}
 		Object responseContent = null;
 		try {
 			responseContent = super.doHandleRequest(servletRequest, servletResponse);
@@ -98,14 +136,46 @@ public class HttpRequestHandlingMessagingGateway extends HttpRequestHandlingEndp
 			responseContent = handleExceptionInternal(e);
 		}
 		if (responseContent != null) {
-			ServletServerHttpRequest request = new ServletServerHttpRequest(servletRequest);
-			ServletServerHttpResponse response = new ServletServerHttpResponse(servletResponse);
-			if (responseContent instanceof HttpStatus) {
-				response.setStatusCode((HttpStatus) responseContent);
+			this.writeResponseContent(responseContent, servletRequest, servletResponse);
+		}
+	}
+
+	private void handleRequestAsync(Object asyncContext, HttpServletRequest servletRequest,
+			HttpServletResponse servletResponse) {
+		AsyncReply asyncReply = new AsyncReply(asyncContext, servletRequest, servletResponse);
+		try {
+			ServletAsyncSupport.addListener(asyncContext, asyncReply);
+			Message<?> message = this.createRequestMessage(servletRequest, servletResponse);
+			if (message == null) {
+				asyncReply.complete(null);
+				return;
+			}
+			long timeout = this.getReplyTimeout();
+			TaskScheduler taskScheduler = this.getTaskScheduler();
+			if (taskScheduler != null && timeout >= 0) {
+				ServletAsyncSupport.setTimeout(asyncContext, 0);
+				asyncReply.timeoutFuture = taskScheduler.schedule(asyncReply,
+						new Date(System.currentTimeMillis() + timeout));
 			}
 			else {
-				this.writeResponse(responseContent, response, request.getHeaders().getAccept());
+				ServletAsyncSupport.setTimeout(asyncContext, timeout);
 			}
+			this.sendAndReceiveMessageAsync(message, asyncReply);
+		}
+		catch (Throwable t) {
+			asyncReply.fail(t);
+		}
+	}
+
+	private void writeResponseContent(Object responseContent, HttpServletRequest servletRequest,
+			HttpServletResponse servletResponse) throws IOException {
+		ServletServerHttpRequest request = new ServletServerHttpRequest(servletRequest);
+		ServletServerHttpResponse response = new ServletServerHttpResponse(servletResponse);
+		if (responseContent instanceof HttpStatus) {
+			response.setStatusCode((HttpStatus) responseContent);
+		}
+		else {
+			this.writeResponse(responseContent, response, request.getHeaders().getAccept());
 		}
 	}
 
@@ -143,4 +213,153 @@ public class HttpRequestHandlingMessagingGateway extends HttpRequestHandlingEndp
 				+ content.getClass().getName() + "] and accept types [" + acceptTypes + "]");
 	}
 
+
+
+	/**
+	 * The reply channel for a request that is processed asynchronously. Whichever comes first of the reply, a failure,
+	 * the timeout and the container ending the request (its own timeout or an error) completes the request; anything
+	 * after that is ignored. The response is only written while holding this object's monitor, so the container's
+	 * events, which it delivers before completing the request itself, wait for a reply that is being written.
+	 */
+	private class AsyncReply implements MessageChannel, Runnable, ServletAsyncSupport.AsyncCallback {
+
+		private final Object asyncContext;
+
+		private final HttpServletRequest servletRequest;
+
+		private final HttpServletResponse servletResponse;
+
+		private boolean done;
+
+		private volatile ScheduledFuture<?> timeoutFuture;
+
+		AsyncReply(Object asyncContext, HttpServletRequest servletRequest, HttpServletResponse servletResponse) {
+			this.asyncContext = asyncContext;
+			this.servletRequest = servletRequest;
+			this.servletResponse = servletResponse;
+		}
+
+		public boolean send(Message<?> message) {
+			return this.send(message, -1);
+		}
+
+		public boolean send(Message<?> message, long timeout) {
+			if (message instanceof ErrorMessage) {
+				return this.fail(((ErrorMessage) message).getPayload());
+			}
+			synchronized (this) {
+				if (!this.markDone()) {
+					return false;
+				}
+				Object responseContent = null;
+				try {
+					responseContent = processReply(message, this.servletResponse);
+				}
+				catch (Exception e) {
+					responseContent = this.handleFailure(e);
+				}
+				this.complete(responseContent);
+				return true;
+			}
+		}
+
+		/**
+		 * Invoked by the TaskScheduler when the reply timeout has elapsed.
+		 */
+		public void run() {
+			this.onTimeout();
+		}
+
+		/**
+		 * Invoked for the reply timeout, and by the container when its own timeout has elapsed.
+		 * Completes the request with an empty response, as for a synchronous request.
+		 */
+		public synchronized void onTimeout() {
+			if (this.markDone()) {
+				this.complete(null);
+			}
+		}
+
+		/**
+		 * Invoked by the container when the request fails, for example because the client disconnected.
+		 */
+		public synchronized void onError(Throwable t) {
+			if (this.markDone()) {
+				if (logger.isWarnEnabled()) {
+					logger.warn("asynchronous HTTP request failed before the reply was received", t);
+				}
+				this.complete(null);
+			}
+		}
+
+		/**
+		 * Invoked by the container once the request has been completed, by this object or otherwise.
+		 */
+		public synchronized void onComplete() {
+			this.markDone();
+		}
+
+		synchronized boolean fail(Throwable failure) {
+			if (!this.markDone()) {
+				return false;
+			}
+			Exception exception = (failure instanceof Exception) ? (Exception) failure
+					: new MessagingException("error occurred handling HTTP request", failure);
+			this.complete(this.handleFailure(exception));
+			return true;
+		}
+
+		/**
+		 * Mark the request as done, cancelling the reply timeout.
+		 * @return false if it was already done
+		 */
+		private boolean markDone() {
+			if (this.done) {
+				return false;
+			}
+			this.done = true;
+			ScheduledFuture<?> timeoutFuture = this.timeoutFuture;
+			if (timeoutFuture != null) {
+				timeoutFuture.cancel(false);
+			}
+			return true;
+		}
+
+		private Object handleFailure(Exception exception) {
+			try {
+				return handleExceptionInternal(exception);
+			}
+			catch (Exception e) {
+				logger.error("error occurred handling HTTP request", e);
+				return HttpStatus.INTERNAL_SERVER_ERROR;
+			}
+		}
+
+		synchronized void complete(Object responseContent) {
+			this.done = true;
+			try {
+				if (responseContent != null) {
+					writeResponseContent(responseContent, this.servletRequest, this.servletResponse);
+				}
+			}
+			catch (Exception e) {
+				logger.error("failed to write HTTP response", e);
+				if (!this.servletResponse.isCommitted()) {
+					this.servletResponse.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+				}
+			}
+			finally {
+				postProcessRequest(this.servletRequest);
+				try {
+					ServletAsyncSupport.complete(this.asyncContext);
+				}
+				catch (IllegalStateException e) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("asynchronous HTTP request was already completed", e);
+					}
+				}
+			}
+		}
+	}
+
 }
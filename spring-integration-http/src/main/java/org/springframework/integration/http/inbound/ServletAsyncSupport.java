@@ -0,0 +1,175 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.http.inbound;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Access to the asynchronous request processing of Servlet 3.0 containers. The methods
+ * are invoked reflectively, so that the HTTP endpoints still run on Servlet 2.x containers,
+ * where requests are simply always processed synchronously.
+ *
+ * @since 2.1
+ */
+abstract class ServletAsyncSupport {
+
+	/**
+	 * Methods by name for each class; a method that does not exist is cached as {@link #NO_METHOD}.
+	 */
+	private static final Map<Class<?>, Map<String, Object>> methodCache =
+			new ConcurrentHashMap<Class<?>, Map<String, Object>>();
+
+	private static final Object NO_METHOD = new Object();
+
+
+	/**
+	 * Put the request into asynchronous mode, releasing the container thread once the
+	 * current dispatch returns.
+	 * @return the AsyncContext of the request, or <code>null</code> if the container or the
+	 * servlet (or one of its filters) does not support asynchronous processing
+	 */
+	static Object startAsync(HttpServletRequest request) {
+		Method isAsyncSupported = findMethod(request.getClass(), "isAsyncSupported");
+		Method startAsync = findMethod(request.getClass(), "startAsync");
+		if (isAsyncSupported == null || startAsync == null
+				|| !((Boolean) ReflectionUtils.invokeMethod(isAsyncSupported, request))) {
+			return null;
+		}
+		return ReflectionUtils.invokeMethod(startAsync, request);
+	}
+
+	/**
+	 * Set the container's timeout for the asynchronous request. Zero or less means no timeout.
+	 */
+	static void setTimeout(Object asyncContext, long timeout) {
+		ReflectionUtils.invokeMethod(findMethod(asyncContext.getClass(), "setTimeout", long.class), asyncContext, timeout);
+	}
+
+	/**
+	 * Register a callback for the container's timeout, error and completion events of the
+	 * asynchronous request, by way of a proxy for the container's AsyncListener interface.
+	 */
+	static void addListener(Object asyncContext, final AsyncCallback callback) {
+		Method addListener = findMethod(asyncContext.getClass(), "addListener", Object.class);
+		Assert.state(addListener != null, "AsyncContext does not support listeners");
+		Class<?> listenerType = addListener.getParameterTypes()[0];
+		Object listener = Proxy.newProxyInstance(listenerType.getClassLoader(), new Class<?>[] { listenerType },
+				new InvocationHandler() {
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+						String name = method.getName();
+						if ("onTimeout".equals(name)) {
+							callback.onTimeout();
+						}
+						else if ("onError".equals(name)) {
+							Method getThrowable = (args[0] != null) ? findMethod(args[0].getClass(), "getThrowable") : null;
+							callback.onError((getThrowable != null) ?
+									(Throwable) ReflectionUtils.invokeMethod(getThrowable, args[0]) : null);
+						}
+						else if ("onComplete".equals(name)) {
+							callback.onComplete();
+						}
+						else if ("equals".equals(name)) {
+							return (proxy == args[0]);
+						}
+						else if ("hashCode".equals(name)) {
+							return System.identityHashCode(proxy);
+						}
+						else if ("toString".equals(name)) {
+							return "AsyncListener for " + callback;
+						}
+						return null;
+					}
+				});
+		ReflectionUtils.invokeMethod(addListener, asyncContext, listener);
+	}
+
+	/**
+	 * Complete the asynchronous request, committing the response.
+	 */
+	static void complete(Object asyncContext) {
+		ReflectionUtils.invokeMethod(findMethod(asyncContext.getClass(), "complete"), asyncContext);
+	}
+
+	/**
+	 * Find a public method by name. With a parameter type of <code>Object</code>, any method
+	 * of that name with a single parameter is accepted.
+	 */
+	private static Method findMethod(Class<?> clazz, String name, Class<?>... paramTypes) {
+		Map<String, Object> methods = methodCache.get(clazz);
+		if (methods == null) {
+			methods = new ConcurrentHashMap<String, Object>();
+			methodCache.put(clazz, methods);
+		}
+		Object method = methods.get(name);
+		if (method == null) {
+			method = doFindMethod(clazz, name, paramTypes);
+			if (method == null) {
+				method = NO_METHOD;
+			}
+			else {
+				ReflectionUtils.makeAccessible((Method) method);
+			}
+			methods.put(name, method);
+		}
+		return (method != NO_METHOD) ? (Method) method : null;
+	}
+
+	private static Method doFindMethod(Class<?> clazz, String name, Class<?>... paramTypes) {
+		if (paramTypes.length == 1 && Object.class.equals(paramTypes[0])) {
+			for (Method method : clazz.getMethods()) {
+				if (method.getName().equals(name) && method.getParameterTypes().length == 1) {
+					return method;
+				}
+			}
+			return null;
+		}
+		return ReflectionUtils.findMethod(clazz, name, paramTypes);
+	}
+
+
+	/**
+	 * Receives the container's events for an asynchronous request.
+	 */
+	interface AsyncCallback {
+
+		/**
+		 * The container's timeout for the request has elapsed.
+		 */
+		void onTimeout();
+
+		/**
+		 * The asynchronous request failed, for example because the client disconnected.
+		 */
+		void onError(Throwable t);
+
+		/**
+		 * The asynchronous request has been completed.
+		 */
+		void onComplete();
+
+	}
+
+}
@@ -21,10 +21,12 @@ import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
 
 import javax.xml.transform.Source;
 
@@ -46,6 +48,7 @@ import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessageHandlingException;
 import org.springframework.integration.MessagingException;
+import org.springframework.integration.channel.MessagePublishingErrorHandler;
 import org.springframework.integration.core.MessageHandler;
 import org.springframework.integration.handler.AbstractReplyProducingMessageHandler;
 import org.springframework.integration.http.converter.SerializingHttpMessageConverter;
@@ -68,6 +71,10 @@ import org.springframework.web.client.RestTemplate;
  * When there is a response body, the {@link HttpStatus} enum instance will instead be
  * copied to the MessageHeaders of the reply. In both cases, the response headers will
  * be mapped to the reply Message's headers by this handler's {@link HeaderMapper} instance.
+ * <p/>
+ * If an 'asyncExecutor' is provided, requests are executed by that Executor and the reply
+ * Message is sent by the thread that completes the exchange, so that the sending thread is
+ * not blocked for the duration of the HTTP request.
  * 
  * @author Mark Fisher
  * @author Oleg Zhurakousky
@@ -95,6 +102,16 @@ public class HttpRequestExecutingMessageHandler extends AbstractReplyProducingMe
 
 	private final Map<String, Expression> uriVariableExpressions = new HashMap<String, Expression>();
 
+	private volatile Map.Entry<String, Expression>[] uriVariableExpressionEntries = this.toEntryArray(this.uriVariableExpressions);
+
+	private volatile Executor asyncExecutor;
+
+	private volatile int maxInFlightRequests;
+
+	private volatile Semaphore inFlightPermits;
+
+	private final MessagePublishingErrorHandler asyncErrorHandler = new MessagePublishingErrorHandler();
+
 	private final RestTemplate restTemplate;
 
 	private final StandardEvaluationContext evaluationContext;
@@ -214,9 +231,33 @@ public class HttpRequestExecutingMessageHandler extends AbstractReplyProducingMe
 		synchronized (this.uriVariableExpressions) {
 			this.uriVariableExpressions.clear();
 			this.uriVariableExpressions.putAll(uriVariableExpressions);
+			this.uriVariableExpressionEntries = this.toEntryArray(this.uriVariableExpressions);
 		}
 	}
 
+	/**
+	 * Specify an {@link Executor} for executing requests asynchronously. The thread that
+	 * passes the request Message to this handler then returns immediately, and the reply
+	 * Message (if any) is sent by the Executor's thread once the response has been received.
+	 * Failures are sent as an ErrorMessage to the request Message's 'errorChannel' header, if
+	 * present, or else to the default "errorChannel". By default, requests are executed
+	 * synchronously.
+	 * @since 2.1
+	 */
+	public void setAsyncExecutor(Executor asyncExecutor) {
+		this.asyncExecutor = asyncExecutor;
+	}
+
+	/**
+	 * Specify the maximum number of requests that may be in flight at once when an
+	 * 'asyncExecutor' is provided. Once the limit is reached, the sending thread blocks
+	 * until a request has completed. Zero or less (the default) means no limit.
+	 * @since 2.1
+	 */
+	public void setMaxInFlightRequests(int maxInFlightRequests) {
+		this.maxInFlightRequests = maxInFlightRequests;
+	}
+
 	/**
 	 * Set to true if you wish 'Set-Cookie' headers in responses to be
 	 * transferred as 'Cookie' headers in subsequent interactions for
@@ -233,6 +274,10 @@ public class HttpRequestExecutingMessageHandler extends AbstractReplyProducingMe
 		BeanFactory beanFactory = this.getBeanFactory();
 		if (beanFactory != null) {
 			this.evaluationContext.setBeanResolver(new BeanFactoryResolver(beanFactory));
+			this.asyncErrorHandler.setBeanFactory(beanFactory);
+		}
+		if (this.asyncExecutor != null && this.maxInFlightRequests > 0) {
+			this.inFlightPermits = new Semaphore(this.maxInFlightRequests);
 		}
 		ConversionService conversionService = this.getConversionService();
 		if (conversionService != null) {
@@ -248,11 +293,67 @@ public class HttpRequestExecutingMessageHandler extends AbstractReplyProducingMe
 
 	@Override
 	protected Object handleRequestMessage(Message<?> requestMessage) {
+		if (this.asyncExecutor != null) {
+			this.executeAsync(requestMessage);
+			return null;
+		}
+		return this.executeRequest(requestMessage);
+	}
+
+	@Override
+	protected boolean isAsync() {
+		return this.asyncExecutor != null;
+	}
+
+	private void executeAsync(final Message<?> requestMessage) {
+		final Semaphore permits = this.inFlightPermits;
+		if (permits != null) {
+			try {
+				permits.acquire();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new MessageHandlingException(requestMessage, "interrupted while waiting to execute HTTP request", e);
+			}
+		}
+		try {
+			this.asyncExecutor.execute(new Runnable() {
+				public void run() {
+					try {
+						handleAsyncResult(executeRequest(requestMessage), requestMessage);
+					}
+					catch (MessagingException e) {
+						asyncErrorHandler.handleError(e);
+					}
+					catch (Throwable t) {
+						asyncErrorHandler.handleError(new MessageHandlingException(requestMessage, t));
+					}
+					finally {
+						if (permits != null) {
+							permits.release();
+						}
+					}
+				}
+			});
+		}
+		catch (RuntimeException e) {
+			if (permits != null) {
+				permits.release();
+			}
+			throw e;
+		}
+	}
+
+	private Object executeRequest(Message<?> requestMessage) {
 		try {
-			Map<String, Object> uriVariables = new HashMap<String, Object>();
-			for (Map.Entry<String, Expression> entry : this.uriVariableExpressions.entrySet()) {
-				Object value = entry.getValue().getValue(this.evaluationContext, requestMessage, String.class);
-				uriVariables.put(entry.getKey(), value);
+			Map<String, Object> uriVariables = Collections.emptyMap();
+			Map.Entry<String, Expression>[] uriVariableExpressionEntries = this.uriVariableExpressionEntries;
+			if (uriVariableExpressionEntries.length > 0) {
+				uriVariables = new HashMap<String, Object>(uriVariableExpressionEntries.length * 2);
+				for (Map.Entry<String, Expression> entry : uriVariableExpressionEntries) {
+					Object value = entry.getValue().getValue(this.evaluationContext, requestMessage, String.class);
+					uriVariables.put(entry.getKey(), value);
+				}
 			}
 			HttpEntity<?> httpRequest = this.generateHttpRequest(requestMessage);
 			ResponseEntity<?> httpResponse = this.restTemplate.exchange(this.uri, this.httpMethod, httpRequest, this.expectedResponseType, uriVariables);
@@ -285,6 +386,11 @@ public class HttpRequestExecutingMessageHandler extends AbstractReplyProducingMe
 		}
 	}
 
+	@SuppressWarnings("unchecked")
+	private Map.Entry<String, Expression>[] toEntryArray(Map<String, Expression> expressions) {
+		return expressions.entrySet().toArray(new Map.Entry[expressions.size()]);
+	}
+
 	/**
 	 * Convert Set-Cookie to Cookie
 	 */
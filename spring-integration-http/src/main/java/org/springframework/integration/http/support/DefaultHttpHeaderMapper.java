@@ -21,6 +21,7 @@ import java.net.URISyntaxException;
 import java.nio.charset.Charset;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
@@ -45,9 +46,9 @@ import org.springframework.http.MediaType;
 import org.springframework.integration.MessageHeaders;
 import org.springframework.integration.context.IntegrationContextUtils;
 import org.springframework.integration.mapping.HeaderMapper;
+import org.springframework.integration.mapping.HeaderNameMatcher;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.ObjectUtils;
-import org.springframework.util.PatternMatchUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -234,11 +235,37 @@ public class DefaultHttpHeaderMapper implements HeaderMapper<HttpHeaders>, BeanF
 
 	public static final String HTTP_RESPONSE_HEADER_NAME_PATTERN = "HTTP_RESPONSE_HEADERS";
 
+	private static final Set<String> HTTP_HEADER_NAMES = new HashSet<String>();
+
+	/**
+	 * Standard header names keyed by both their canonical and lower case
+	 * forms, so the typed accessors below can be selected without repeated
+	 * case-insensitive comparisons.
+	 */
+	private static final Map<String, String> STANDARD_HEADER_NAMES = new HashMap<String, String>();
+
+	private static final Map<String, Collection<String>> SYMBOLIC_HEADER_NAME_PATTERNS = new HashMap<String, Collection<String>>();
+
+	static {
+		HTTP_HEADER_NAMES.addAll(Arrays.asList(HTTP_REQUEST_HEADER_NAMES));
+		HTTP_HEADER_NAMES.addAll(Arrays.asList(HTTP_RESPONSE_HEADER_NAMES));
+		for (String name : HTTP_HEADER_NAMES) {
+			STANDARD_HEADER_NAMES.put(name, name);
+			STANDARD_HEADER_NAMES.put(name.toLowerCase(), name);
+		}
+		SYMBOLIC_HEADER_NAME_PATTERNS.put(HTTP_REQUEST_HEADER_NAME_PATTERN, Arrays.asList(HTTP_REQUEST_HEADER_NAMES));
+		SYMBOLIC_HEADER_NAME_PATTERNS.put(HTTP_RESPONSE_HEADER_NAME_PATTERN, Arrays.asList(HTTP_RESPONSE_HEADER_NAMES));
+	}
+
 
 	private volatile String[] outboundHeaderNames = new String[0];
 
 	private volatile String[] inboundHeaderNames = new String[0];
 
+	private volatile HeaderNameMatcher outboundHeaderMatcher = new HeaderNameMatcher(null, null);
+
+	private volatile HeaderNameMatcher inboundHeaderMatcher = new HeaderNameMatcher(null, null);
+
 	private volatile String userDefinedHeaderPrefix = "X-";
 
 	public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
@@ -255,6 +282,7 @@ public class DefaultHttpHeaderMapper implements HeaderMapper<HttpHeaders>, BeanF
 	 */
 	public void setOutboundHeaderNames(String[] outboundHeaderNames) {
 		this.outboundHeaderNames = (outboundHeaderNames != null) ? outboundHeaderNames : new String[0];
+		this.outboundHeaderMatcher = new HeaderNameMatcher(Arrays.asList(this.outboundHeaderNames), SYMBOLIC_HEADER_NAME_PATTERNS);
 	}
 
 	/**
@@ -268,6 +296,7 @@ public class DefaultHttpHeaderMapper implements HeaderMapper<HttpHeaders>, BeanF
 	 */
 	public void setInboundHeaderNames(String[] inboundHeaderNames) {
 		this.inboundHeaderNames = (inboundHeaderNames != null) ? inboundHeaderNames : new String[0];
+		this.inboundHeaderMatcher = new HeaderNameMatcher(Arrays.asList(this.inboundHeaderNames), SYMBOLIC_HEADER_NAME_PATTERNS);
 	}
 
 	/**
@@ -291,8 +320,7 @@ public class DefaultHttpHeaderMapper implements HeaderMapper<HttpHeaders>, BeanF
 			if (this.shouldMapOutboundHeader(name)) {
 				Object value = headers.get(name);
 				if (value != null) {
-					if (!this.containsElementIgnoreCase(HTTP_REQUEST_HEADER_NAMES, name) && 
-						!this.containsElementIgnoreCase(HTTP_RESPONSE_HEADER_NAMES, name)) {
+					if (getStandardHeaderName(name) == null) {
 						// prefix the user-defined header names if not already prefixed
 						name = name.startsWith(this.userDefinedHeaderPrefix) ? name : this.userDefinedHeaderPrefix + name;
 					}
@@ -318,7 +346,7 @@ public class DefaultHttpHeaderMapper implements HeaderMapper<HttpHeaders>, BeanF
 		Set<String> headerNames = source.keySet();
 		for (String name : headerNames) {
 			if (this.shouldMapInboundHeader(name)) {
-				if (!ObjectUtils.containsElement(HTTP_REQUEST_HEADER_NAMES, name) && !ObjectUtils.containsElement(HTTP_RESPONSE_HEADER_NAMES, name)) {
+				if (!HTTP_HEADER_NAMES.contains(name)) {
 					String prefixedName = name.startsWith(this.userDefinedHeaderPrefix) ? name : this.userDefinedHeaderPrefix + name;
 					Object value = source.containsKey(prefixedName) ? this.getHttpHeader(source, prefixedName) : this.getHttpHeader(source, name);
 					if (value != null) {
@@ -348,56 +376,34 @@ public class DefaultHttpHeaderMapper implements HeaderMapper<HttpHeaders>, BeanF
 		}
 	}
 
-	private boolean containsElementIgnoreCase(String[] headerNames, String name){
-		for (String headerName : headerNames) {
-			if (headerName.equalsIgnoreCase(name)){
-				return true;
-			}
-		}
-		return false;
+	/**
+	 * Returns the canonical name of a standard HTTP header, matched case-insensitively,
+	 * or null if the given name is not a standard header.
+	 */
+	private static String getStandardHeaderName(String name) {
+		String standardName = STANDARD_HEADER_NAMES.get(name);
+		return (standardName != null) ? standardName : STANDARD_HEADER_NAMES.get(name.toLowerCase());
 	}
 
 	private boolean shouldMapOutboundHeader(String headerName) {
-		return this.shouldMapHeader(headerName, this.outboundHeaderNames);
+		return this.shouldMapHeader(headerName, this.outboundHeaderMatcher);
 	}
 
 	private boolean shouldMapInboundHeader(String headerName) {
-		return this.shouldMapHeader(headerName, this.inboundHeaderNames);
+		return this.shouldMapHeader(headerName, this.inboundHeaderMatcher);
 	}
 
-	private boolean shouldMapHeader(String headerName, String[] patterns) {
-		if (patterns != null && patterns.length > 0) {
-			for (String pattern : patterns) {
-				if (PatternMatchUtils.simpleMatch(pattern.toLowerCase(), headerName.toLowerCase())) {
-					if (logger.isDebugEnabled()) {
-						logger.debug(MessageFormat.format("headerName=[{0}] WILL be mapped, matched pattern={1}", headerName, pattern));
-					}
-					return true;
-				}
-				else if (HTTP_REQUEST_HEADER_NAME_PATTERN.equals(pattern)
-						&& this.containsElementIgnoreCase(HTTP_REQUEST_HEADER_NAMES, headerName)) {
-					if (logger.isDebugEnabled()) {
-						logger.debug(MessageFormat.format("headerName=[{0}] WILL be mapped, matched pattern={1}", headerName, pattern));
-					}
-					return true;
-				}
-				else if (HTTP_RESPONSE_HEADER_NAME_PATTERN.equals(pattern)
-						&& this.containsElementIgnoreCase(HTTP_RESPONSE_HEADER_NAMES, headerName)) {
-					if (logger.isDebugEnabled()) {
-						logger.debug(MessageFormat.format("headerName=[{0}] WILL be mapped, matched pattern={1}", headerName, pattern));
-					}
-					return true;
-				}
-			}
-		}
+	private boolean shouldMapHeader(String headerName, HeaderNameMatcher headerMatcher) {
+		boolean shouldMap = headerMatcher.matches(headerName);
 		if (logger.isDebugEnabled()) {
-			logger.debug(MessageFormat.format("headerName=[{0}] WILL NOT be mapped", headerName));
+			logger.debug(MessageFormat.format("headerName=[{0}] WILL " + (shouldMap ? "" : "NOT ") + "be mapped", headerName));
 		}
-		return false;
+		return shouldMap;
 	}
 
 	private void setHttpHeader(HttpHeaders target, String name, Object value) {
-		if (ACCEPT.equalsIgnoreCase(name)) {
+		String standardName = getStandardHeaderName(name);
+		if (ACCEPT.equals(standardName)) {
 			if (value instanceof Collection<?>) {
 				Collection<?> values = (Collection<?>) value;
 				if (!CollectionUtils.isEmpty(values)) {
@@ -437,7 +443,7 @@ public class DefaultHttpHeaderMapper implements HeaderMapper<HttpHeaders>, BeanF
 						"Expected MediaType or String value for 'Accept' header value, but received: " + clazz);
 			}
 		}
-		else if (ACCEPT_CHARSET.equalsIgnoreCase(name)) {
+		else if (ACCEPT_CHARSET.equals(standardName)) {
 			if (value instanceof Collection<?>) {
 				Collection<?> values = (Collection<?>) value;
 				if (!CollectionUtils.isEmpty(values)) {
@@ -488,7 +494,7 @@ public class DefaultHttpHeaderMapper implements HeaderMapper<HttpHeaders>, BeanF
 						"Expected Charset or String value for 'Accept-Charset' header value, but received: " + clazz);
 			}
 		}
-		else if (ALLOW.equalsIgnoreCase(name)) {
+		else if (ALLOW.equals(standardName)) {
 			if (value instanceof Collection<?>) {
 				Collection<?> values = (Collection<?>) value;
 				if (!CollectionUtils.isEmpty(values)) {
@@ -536,7 +542,7 @@ public class DefaultHttpHeaderMapper implements HeaderMapper<HttpHeaders>, BeanF
 				}
 			}
 		}
-		else if (CACHE_CONTROL.equalsIgnoreCase(name)) {
+		else if (CACHE_CONTROL.equals(standardName)) {
 			if (value instanceof String) {
 				target.setCacheControl((String) value);
 			}
@@ -546,7 +552,7 @@ public class DefaultHttpHeaderMapper implements HeaderMapper<HttpHeaders>, BeanF
 						"Expected String value for 'Cache-Control' header value, but received: " + clazz);				
 			}
 		}
-		else if (CONTENT_LENGTH.equalsIgnoreCase(name)) {
+		else if (CONTENT_LENGTH.equals(standardName)) {
 			if (value instanceof Number) {
 				target.setContentLength(((Number) value).longValue());
 			}
@@ -559,7 +565,7 @@ public class DefaultHttpHeaderMapper implements HeaderMapper<HttpHeaders>, BeanF
 						"Expected Number or String value for 'Content-Length' header value, but received: " + clazz);
 			}
 		}
-		else if (CONTENT_TYPE.equalsIgnoreCase(name)) {
+		else if (CONTENT_TYPE.equals(standardName)) {
 			if (value instanceof MediaType) {
 				target.setContentType((MediaType) value);
 			}
@@ -572,7 +578,7 @@ public class DefaultHttpHeaderMapper implements HeaderMapper<HttpHeaders>, BeanF
 						"Expected MediaType or String value for 'Content-Type' header value, but received: " + clazz);
 			}
 		}
-		else if (DATE.equalsIgnoreCase(name)) {
+		else if (DATE.equals(standardName)) {
 			if (value instanceof Date) {
 				target.setDate(((Date) value).getTime());
 			}
@@ -588,7 +594,7 @@ public class DefaultHttpHeaderMapper implements HeaderMapper<HttpHeaders>, BeanF
 						"Expected Date, Number, or String value for 'Date' header value, but received: " + clazz);
 			}
 		}
-		else if (ETAG.equalsIgnoreCase(name)) {
+		else if (ETAG.equals(standardName)) {
 			if (value instanceof String) {
 				target.setETag((String) value);
 			}
@@ -598,7 +604,7 @@ public class DefaultHttpHeaderMapper implements HeaderMapper<HttpHeaders>, BeanF
 						"Expected String value for 'ETag' header value, but received: " + clazz);
 			}
 		}
-		else if (EXPIRES.equalsIgnoreCase(name)) {
+		else if (EXPIRES.equals(standardName)) {
 			if (value instanceof Date) {
 				target.setExpires(((Date) value).getTime());
 			}
@@ -614,7 +620,7 @@ public class DefaultHttpHeaderMapper implements HeaderMapper<HttpHeaders>, BeanF
 						"Expected Date, Number, or String value for 'Expires' header value, but received: " + clazz);
 			}
 		}
-		else if (IF_MODIFIED_SINCE.equalsIgnoreCase(name)) {
+		else if (IF_MODIFIED_SINCE.equals(standardName)) {
 			if (value instanceof Date) {
 				target.setIfModifiedSince(((Date) value).getTime());
 			}
@@ -630,7 +636,7 @@ public class DefaultHttpHeaderMapper implements HeaderMapper<HttpHeaders>, BeanF
 						"Expected Date, Number, or String value for 'If-Modified-Since' header value, but received: " + clazz);
 			}
 		}
-		else if (IF_NONE_MATCH.equalsIgnoreCase(name)) {
+		else if (IF_NONE_MATCH.equals(standardName)) {
 			if (value instanceof String) {
 				target.setIfNoneMatch((String) value);
 			}
@@ -656,7 +662,7 @@ public class DefaultHttpHeaderMapper implements HeaderMapper<HttpHeaders>, BeanF
 				}
 			}
 		}
-		else if (LAST_MODIFIED.equalsIgnoreCase(name)) {
+		else if (LAST_MODIFIED.equals(standardName)) {
 			if (value instanceof Date) {
 				target.setLastModified(((Date) value).getTime());
 			}
@@ -672,7 +678,7 @@ public class DefaultHttpHeaderMapper implements HeaderMapper<HttpHeaders>, BeanF
 						"Expected Date, Number, or String value for 'Last-Modified' header value, but received: " + clazz);
 			}
 		}
-		else if (LOCATION.equalsIgnoreCase(name)) {
+		else if (LOCATION.equals(standardName)) {
 			if (value instanceof URI) {
 				target.setLocation((URI) value);
 			}
@@ -690,7 +696,7 @@ public class DefaultHttpHeaderMapper implements HeaderMapper<HttpHeaders>, BeanF
 						"Expected URI or String value for 'Location' header value, but received: " + clazz);
 			}
 		}
-		else if (PRAGMA.equalsIgnoreCase(name)) {
+		else if (PRAGMA.equals(standardName)) {
 			if (value instanceof String) {
 				target.setPragma((String) value);
 			}
@@ -741,53 +747,54 @@ public class DefaultHttpHeaderMapper implements HeaderMapper<HttpHeaders>, BeanF
 	}
 
 	private Object getHttpHeader(HttpHeaders source, String name) {
-		if (ACCEPT.equalsIgnoreCase(name)) {
+		String standardName = getStandardHeaderName(name);
+		if (ACCEPT.equals(standardName)) {
 			return source.getAccept();
 		}
-		else if (ACCEPT_CHARSET.equalsIgnoreCase(name)) {
+		else if (ACCEPT_CHARSET.equals(standardName)) {
 			return source.getAcceptCharset();
 		}
-		else if (ALLOW.equalsIgnoreCase(name)) {
+		else if (ALLOW.equals(standardName)) {
 			return source.getAllow();
 		}
-		else if (CACHE_CONTROL.equalsIgnoreCase(name)) {
+		else if (CACHE_CONTROL.equals(standardName)) {
 			String cacheControl = source.getCacheControl();
 			return (StringUtils.hasText(cacheControl)) ? cacheControl : null;
 		}
-		else if (CONTENT_LENGTH.equalsIgnoreCase(name)) {
+		else if (CONTENT_LENGTH.equals(standardName)) {
 			long contentLength = source.getContentLength();
 			return (contentLength > -1) ? contentLength : null;
 		}
-		else if (CONTENT_TYPE.equalsIgnoreCase(name)) {
+		else if (CONTENT_TYPE.equals(standardName)) {
 			return source.getContentType();
 		}
-		else if (DATE.equalsIgnoreCase(name)) {
+		else if (DATE.equals(standardName)) {
 			long date = source.getDate();
 			return (date > -1) ? date : null;
 		}
-		else if (ETAG.equalsIgnoreCase(name)) {
+		else if (ETAG.equals(standardName)) {
 			String eTag = source.getETag();
 			return (StringUtils.hasText(eTag)) ? eTag : null;
 		}
-		else if (EXPIRES.equalsIgnoreCase(name)) {
+		else if (EXPIRES.equals(standardName)) {
 			long expires = source.getExpires();
 			return (expires > -1) ? expires : null;
 		}
-		else if (IF_NONE_MATCH.equalsIgnoreCase(name)) {
+		else if (IF_NONE_MATCH.equals(standardName)) {
 			return source.getIfNoneMatch();
 		}
-		else if (IF_UNMODIFIED_SINCE.equalsIgnoreCase(name)) {
+		else if (IF_UNMODIFIED_SINCE.equals(standardName)) {
 			long unmodifiedSince = source.getIfNotModifiedSince();
 			return (unmodifiedSince > -1) ? unmodifiedSince : null;
 		}
-		else if (LAST_MODIFIED.equalsIgnoreCase(name)) {
+		else if (LAST_MODIFIED.equals(standardName)) {
 			long lastModified = source.getLastModified();
 			return (lastModified > -1) ? lastModified : null;
 		}
-		else if (LOCATION.equalsIgnoreCase(name)) {
+		else if (LOCATION.equals(standardName)) {
 			return source.getLocation();
 		}
-		else if (PRAGMA.equalsIgnoreCase(name)) {
+		else if (PRAGMA.equals(standardName)) {
 			String pragma = source.getPragma();
 			return (StringUtils.hasText(pragma)) ? pragma : null;
 		}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.http.support;
+
+import java.net.URI;
+import java.util.Map;
+
+import org.apache.commons.httpclient.HostConfiguration;
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+import org.apache.commons.httpclient.protocol.Protocol;
+import org.apache.commons.httpclient.util.IdleConnectionTimeoutThread;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.http.client.CommonsClientHttpRequestFactory;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link CommonsClientHttpRequestFactory} whose connections are pooled and kept alive by a
+ * {@link MultiThreadedHttpConnectionManager}, with configurable limits for the total number of
+ * connections and for the number of connections per host (route). Unlike the JDK-based default
+ * factory of the RestTemplate, concurrent requests to the same host reuse a bounded set of
+ * persistent connections.
+ * <p/>
+ * Requires Commons HttpClient 3.x on the classpath.
+ *
+ * @since 2.1
+ */
+public class PoolingCommonsClientHttpRequestFactory extends CommonsClientHttpRequestFactory implements InitializingBean {
+
+	private final MultiThreadedHttpConnectionManager connectionManager;
+
+	private volatile long idleConnectionTimeout;
+
+	private volatile IdleConnectionTimeoutThread idleConnectionTimeoutThread;
+
+
+	public PoolingCommonsClientHttpRequestFactory() {
+		this(new MultiThreadedHttpConnectionManager());
+	}
+
+	private PoolingCommonsClientHttpRequestFactory(MultiThreadedHttpConnectionManager connectionManager) {
+		super(new HttpClient(connectionManager));
+		this.connectionManager = connectionManager;
+	}
+
+
+	/**
+	 * Set the maximum number of connections across all hosts. The default is 20.
+	 */
+	public void setMaxTotalConnections(int maxTotalConnections) {
+		Assert.isTrue(maxTotalConnections > 0, "maxTotalConnections must be greater than 0");
+		this.getConnectionManagerParams().setMaxTotalConnections(maxTotalConnections);
+	}
+
+	/**
+	 * Set the maximum number of connections per host, unless overridden for that host
+	 * by {@link #setMaxConnectionsPerRoute(Map)}. The default is 2.
+	 */
+	public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+		Assert.isTrue(maxConnectionsPerHost > 0, "maxConnectionsPerHost must be greater than 0");
+		this.getConnectionManagerParams().setDefaultMaxConnectionsPerHost(maxConnectionsPerHost);
+	}
+
+	/**
+	 * Set the maximum number of connections for individual hosts. The keys are URLs that
+	 * identify the host by scheme, name and (optionally) port, e.g. "http://example.com:8080".
+	 */
+	public void setMaxConnectionsPerRoute(Map<String, Integer> maxConnectionsPerRoute) {
+		Assert.notNull(maxConnectionsPerRoute, "maxConnectionsPerRoute must not be null");
+		for (Map.Entry<String, Integer> entry : maxConnectionsPerRoute.entrySet()) {
+			URI uri = URI.create(entry.getKey());
+			Assert.hasText(uri.getHost(), "route '" + entry.getKey() + "' does not specify a host");
+			String scheme = (uri.getScheme() != null) ? uri.getScheme() : "http";
+			HostConfiguration hostConfiguration = new HostConfiguration();
+			hostConfiguration.setHost(uri.getHost(), Protocol.getProtocol(scheme).resolvePort(uri.getPort()), scheme);
+			this.getConnectionManagerParams().setMaxConnectionsPerHost(hostConfiguration, entry.getValue());
+		}
+	}
+
+	/**
+	 * Set the timeout in milliseconds for establishing a connection. Zero (the default)
+	 * means no timeout.
+	 */
+	public void setConnectTimeout(int connectTimeout) {
+		Assert.isTrue(connectTimeout >= 0, "connectTimeout must not be negative");
+		this.getConnectionManagerParams().setConnectionTimeout(connectTimeout);
+	}
+
+	/**
+	 * Set the timeout in milliseconds to wait for a pooled connection to become available
+	 * when the limit for its host has been reached. Zero (the default) means no timeout.
+	 */
+	public void setConnectionRequestTimeout(long connectionRequestTimeout) {
+		Assert.isTrue(connectionRequestTimeout >= 0, "connectionRequestTimeout must not be negative");
+		this.getHttpClient().getParams().setConnectionManagerTimeout(connectionRequestTimeout);
+	}
+
+	/**
+	 * Set the time in milliseconds after which a kept-alive connection that has not been
+	 * used is closed. Zero or less (the default) means that idle connections are kept open
+	 * until the server closes them.
+	 */
+	public void setIdleConnectionTimeout(long idleConnectionTimeout) {
+		this.idleConnectionTimeout = idleConnectionTimeout;
+	}
+
+	public void afterPropertiesSet() {
+		if (this.idleConnectionTimeout > 0) {
+			IdleConnectionTimeoutThread thread = new IdleConnectionTimeoutThread();
+			thread.setName("http-idle-connection-timeout");
+			thread.setConnectionTimeout(this.idleConnectionTimeout);
+			thread.setTimeoutInterval(Math.max(this.idleConnectionTimeout / 2, 100));
+			thread.addConnectionManager(this.connectionManager);
+			thread.start();
+			this.idleConnectionTimeoutThread = thread;
+		}
+	}
+
+	@Override
+	public void destroy() {
+		IdleConnectionTimeoutThread thread = this.idleConnectionTimeoutThread;
+		if (thread != null) {
+			thread.shutdown();
+			this.idleConnectionTimeoutThread = null;
+		}
+		super.destroy();
+	}
+
+	private HttpConnectionManagerParams getConnectionManagerParams() {
+		return this.connectionManager.getParams();
+	}
+
+}
@@ -90,6 +90,8 @@ public class HttpInboundGatewayParserTests {
 		assertThat((Boolean) getPropertyValue(gateway, "convertExceptions"), is(true));
 		assertThat((PollableChannel) getPropertyValue(gateway, "replyChannel"), is(responses));
 		assertNotNull(TestUtils.getPropertyValue(gateway, "errorChannel"));
+		assertThat((Boolean) getPropertyValue(gateway, "asyncEnabled"), is(true));
+		assertThat((Boolean) getPropertyValue(withMappedHeaders, "asyncEnabled"), is(false));
 	}
 	
 	@Test(timeout=1000)
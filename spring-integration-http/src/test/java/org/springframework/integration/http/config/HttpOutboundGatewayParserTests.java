@@ -80,6 +80,7 @@ public class HttpOutboundGatewayParserTests {
 		assertEquals("UTF-8", handlerAccessor.getPropertyValue("charset"));
 		assertEquals(true, handlerAccessor.getPropertyValue("extractPayload"));
 		assertEquals(false, handlerAccessor.getPropertyValue("transferCookies"));
+		assertNull(handlerAccessor.getPropertyValue("asyncExecutor"));
 	}
 
 	@Test
@@ -127,6 +128,8 @@ public class HttpOutboundGatewayParserTests {
 		assertTrue(ObjectUtils.containsElement(mappedRequestHeaders, "requestHeader2"));
 		assertEquals("responseHeader", mappedResponseHeaders[0]);
 		assertEquals(true, handlerAccessor.getPropertyValue("transferCookies"));
+		assertEquals(this.applicationContext.getBean("testExecutor"), handlerAccessor.getPropertyValue("asyncExecutor"));
+		assertEquals(10, handlerAccessor.getPropertyValue("maxInFlightRequests"));
 	}
 
 
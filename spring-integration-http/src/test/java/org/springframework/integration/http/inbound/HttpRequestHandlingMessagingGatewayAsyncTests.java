@@ -0,0 +1,237 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.http.inbound;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import org.springframework.integration.Message;
+import org.springframework.integration.MessageChannel;
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.channel.ExecutorChannel;
+import org.springframework.integration.handler.AbstractReplyProducingMessageHandler;
+import org.springframework.integration.http.MockHttpServletRequest;
+import org.springframework.integration.test.util.TestUtils;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * @since 2.1
+ */
+public class HttpRequestHandlingMessagingGatewayAsyncTests {
+
+	@Test
+	public void replyIsWrittenAfterContainerThreadReturns() throws Exception {
+		final CountDownLatch handleRequestReturned = new CountDownLatch(1);
+		ExecutorChannel requestChannel = new ExecutorChannel(Executors.newSingleThreadExecutor());
+		requestChannel.subscribe(new AbstractReplyProducingMessageHandler() {
+			protected Object handleRequestMessage(Message<?> requestMessage) {
+				try {
+					handleRequestReturned.await(10, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return requestMessage.getPayload().toString().toUpperCase();
+			}
+		});
+		HttpRequestHandlingMessagingGateway gateway = this.createGateway(requestChannel, 10000);
+		AsyncMockHttpServletRequest request = this.createRequest(true);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		gateway.handleRequest(request, response);
+		assertFalse(request.asyncContext.completed.await(0, TimeUnit.MILLISECONDS));
+		handleRequestReturned.countDown();
+		assertTrue(request.asyncContext.completed.await(10, TimeUnit.SECONDS));
+		assertEquals("HELLO", response.getContentAsString());
+		assertEquals(0, request.asyncContext.timeout);
+	}
+
+	@Test
+	public void timeoutCompletesWithEmptyResponse() throws Exception {
+		ExecutorChannel requestChannel = new ExecutorChannel(Executors.newSingleThreadExecutor());
+		requestChannel.subscribe(new AbstractReplyProducingMessageHandler() {
+			protected Object handleRequestMessage(Message<?> requestMessage) {
+				return null;
+			}
+		});
+		HttpRequestHandlingMessagingGateway gateway = this.createGateway(requestChannel, 100);
+		AsyncMockHttpServletRequest request = this.createRequest(true);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		gateway.handleRequest(request, response);
+		assertTrue(request.asyncContext.completed.await(10, TimeUnit.SECONDS));
+		assertEquals(200, response.getStatus());
+		assertEquals("", response.getContentAsString());
+	}
+
+	@Test
+	public void lateReplyAfterContainerTimeoutIsDiscarded() throws Exception {
+		final CountDownLatch timedOut = new CountDownLatch(1);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		ExecutorChannel requestChannel = new ExecutorChannel(executor);
+		requestChannel.subscribe(new AbstractReplyProducingMessageHandler() {
+			protected Object handleRequestMessage(Message<?> requestMessage) {
+				try {
+					timedOut.await(10, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return requestMessage.getPayload().toString().toUpperCase();
+			}
+		});
+		HttpRequestHandlingMessagingGateway gateway = this.createGateway(requestChannel, 10000);
+		AsyncMockHttpServletRequest request = this.createRequest(true);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		gateway.handleRequest(request, response);
+		request.asyncContext.listener.onTimeout(null);
+		assertTrue(request.asyncContext.completed.await(0, TimeUnit.MILLISECONDS));
+		timedOut.countDown();
+		// the executor's single thread has sent the late reply once this task has run
+		executor.submit(new Runnable() {
+			public void run() {
+			}
+		}).get(10, TimeUnit.SECONDS);
+		assertEquals("", response.getContentAsString());
+		assertEquals(1, request.asyncContext.completions.get());
+	}
+
+	@Test
+	public void failureResultsInServerError() throws Exception {
+		DirectChannel requestChannel = new DirectChannel();
+		requestChannel.subscribe(new AbstractReplyProducingMessageHandler() {
+			protected Object handleRequestMessage(Message<?> requestMessage) {
+				throw new IllegalStateException("planned");
+			}
+		});
+		HttpRequestHandlingMessagingGateway gateway = this.createGateway(requestChannel, 10000);
+		AsyncMockHttpServletRequest request = this.createRequest(true);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		gateway.handleRequest(request, response);
+		assertTrue(request.asyncContext.completed.await(0, TimeUnit.MILLISECONDS));
+		assertEquals(500, response.getStatus());
+	}
+
+	@Test
+	public void fallsBackToSynchronousProcessing() throws Exception {
+		DirectChannel requestChannel = new DirectChannel();
+		requestChannel.subscribe(new AbstractReplyProducingMessageHandler() {
+			protected Object handleRequestMessage(Message<?> requestMessage) {
+				return requestMessage.getPayload().toString().toUpperCase();
+			}
+		});
+		HttpRequestHandlingMessagingGateway gateway = this.createGateway(requestChannel, 10000);
+		AsyncMockHttpServletRequest request = this.createRequest(false);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		gateway.handleRequest(request, response);
+		assertEquals("HELLO", response.getContentAsString());
+		assertEquals(null, request.asyncContext);
+	}
+
+	private HttpRequestHandlingMessagingGateway createGateway(MessageChannel requestChannel, long replyTimeout) {
+		HttpRequestHandlingMessagingGateway gateway = new HttpRequestHandlingMessagingGateway(true);
+		gateway.setRequestPayloadType(String.class);
+		gateway.setRequestChannel(requestChannel);
+		gateway.setReplyTimeout(replyTimeout);
+		gateway.setAsyncEnabled(true);
+		gateway.setBeanFactory(TestUtils.createTestApplicationContext());
+		gateway.afterPropertiesSet();
+		return gateway;
+	}
+
+	private AsyncMockHttpServletRequest createRequest(boolean asyncSupported) {
+		AsyncMockHttpServletRequest request = new AsyncMockHttpServletRequest(asyncSupported);
+		request.setMethod("POST");
+		request.setContentType("text/plain");
+		request.setContent("hello".getBytes());
+		return request;
+	}
+
+
+	/**
+	 * Provides the methods of a Servlet 3.0 request that are used for asynchronous processing.
+	 */
+	public static class AsyncMockHttpServletRequest extends MockHttpServletRequest {
+
+		private final boolean asyncSupported;
+
+		private volatile MockAsyncContext asyncContext;
+
+		public AsyncMockHttpServletRequest(boolean asyncSupported) {
+			this.asyncSupported = asyncSupported;
+		}
+
+		public boolean isAsyncSupported() {
+			return this.asyncSupported;
+		}
+
+		public MockAsyncContext startAsync() {
+			this.asyncContext = new MockAsyncContext();
+			return this.asyncContext;
+		}
+	}
+
+
+	public static class MockAsyncContext {
+
+		private final CountDownLatch completed = new CountDownLatch(1);
+
+		private final AtomicInteger completions = new AtomicInteger();
+
+		private volatile long timeout = 30000;
+
+		private volatile MockAsyncListener listener;
+
+		public void setTimeout(long timeout) {
+			this.timeout = timeout;
+		}
+
+		public void addListener(MockAsyncListener listener) {
+			this.listener = listener;
+		}
+
+		public void complete() {
+			if (this.completions.incrementAndGet() > 1) {
+				throw new IllegalStateException("already completed");
+			}
+			this.completed.countDown();
+		}
+	}
+
+
+	/**
+	 * Mirrors the Servlet 3.0 AsyncListener, which is proxied by the gateway.
+	 */
+	public static interface MockAsyncListener {
+
+		void onComplete(Object event);
+
+		void onTimeout(Object event);
+
+		void onError(Object event);
+
+		void onStartAsync(Object event);
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2011 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -26,6 +26,10 @@ import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import javax.xml.transform.Source;
@@ -34,10 +38,12 @@ import org.junit.Test;
 import org.springframework.beans.DirectFieldAccessor;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.integration.Message;
 import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.message.ErrorMessage;
 import org.springframework.integration.http.outbound.HttpRequestExecutingMessageHandler;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.util.MultiValueMap;
@@ -640,6 +646,63 @@ public class HttpRequestExecutingMessageHandlerTests {
 		*/
 	}
 	
+	@Test
+	public void asyncReplyIsSentByExecutorThread() throws Exception {
+		HttpRequestExecutingMessageHandler handler = new HttpRequestExecutingMessageHandler("http://www.springsource.org/spring-integration");
+		final CountDownLatch latch = new CountDownLatch(1);
+		final AtomicInteger maxInFlight = new AtomicInteger();
+		RestTemplate template = new RestTemplate() {
+			private final AtomicInteger inFlight = new AtomicInteger();
+			@Override
+			@SuppressWarnings("unchecked")
+			public <T> ResponseEntity<T> exchange(String url, HttpMethod method, HttpEntity<?> requestEntity,
+					Class<T> responseType, Map<String, ?> uriVariables) throws RestClientException {
+				int current = this.inFlight.incrementAndGet();
+				maxInFlight.set(Math.max(maxInFlight.get(), current));
+				try {
+					latch.await(10, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				this.inFlight.decrementAndGet();
+				return new ResponseEntity<T>((T) requestEntity.getBody(), HttpStatus.OK);
+			}
+		};
+		new DirectFieldAccessor(handler).setPropertyValue("restTemplate", template);
+		handler.setAsyncExecutor(Executors.newCachedThreadPool());
+		handler.setMaxInFlightRequests(2);
+		QueueChannel replyChannel = new QueueChannel();
+		handler.setOutputChannel(replyChannel);
+		handler.afterPropertiesSet();
+		handler.handleMessage(MessageBuilder.withPayload("foo").build());
+		handler.handleMessage(MessageBuilder.withPayload("bar").build());
+		assertNull(replyChannel.receive(0));
+		latch.countDown();
+		handler.handleMessage(MessageBuilder.withPayload("baz").build());
+		for (int i = 0; i < 3; i++) {
+			Message<?> reply = replyChannel.receive(10000);
+			assertNotNull(reply);
+			assertEquals(HttpStatus.OK, reply.getHeaders().get(org.springframework.integration.http.HttpHeaders.STATUS_CODE));
+		}
+		assertTrue(maxInFlight.get() <= 2);
+	}
+
+	@Test
+	public void asyncFailureIsSentToErrorChannel() throws Exception {
+		HttpRequestExecutingMessageHandler handler = new HttpRequestExecutingMessageHandler("http://www.springsource.org/spring-integration");
+		MockRestTemplate template = new MockRestTemplate();
+		new DirectFieldAccessor(handler).setPropertyValue("restTemplate", template);
+		handler.setAsyncExecutor(Executors.newSingleThreadExecutor());
+		handler.afterPropertiesSet();
+		QueueChannel errorChannel = new QueueChannel();
+		Message<?> message = MessageBuilder.withPayload("foo").setErrorChannel(errorChannel).build();
+		handler.handleMessage(message);
+		Message<?> error = errorChannel.receive(10000);
+		assertTrue(error instanceof ErrorMessage);
+		assertEquals("intentional", ((ErrorMessage) error).getPayload().getCause().getMessage());
+	}
+
 	public static class City{
 		private String name;
 		public City(String name){
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.http.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.httpclient.HostConfiguration;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+import org.apache.commons.httpclient.util.IdleConnectionTimeoutThread;
+import org.junit.Test;
+
+import org.springframework.integration.test.util.TestUtils;
+
+/**
+ * @since 2.1
+ */
+public class PoolingCommonsClientHttpRequestFactoryTests {
+
+	@Test
+	public void maxConnectionsPerRouteResolvesSchemeAndPort() {
+		PoolingCommonsClientHttpRequestFactory factory = new PoolingCommonsClientHttpRequestFactory();
+		factory.setMaxConnectionsPerHost(4);
+		Map<String, Integer> routes = new HashMap<String, Integer>();
+		routes.put("http://example.com:8080", 5);
+		routes.put("https://secure.example.com", 7);
+		routes.put("http://plain.example.com/some/path", 3);
+		factory.setMaxConnectionsPerRoute(routes);
+		HttpConnectionManagerParams params = getParams(factory);
+		assertEquals(5, params.getMaxConnectionsPerHost(hostConfiguration("example.com", 8080, "http")));
+		assertEquals(7, params.getMaxConnectionsPerHost(hostConfiguration("secure.example.com", 443, "https")));
+		assertEquals(3, params.getMaxConnectionsPerHost(hostConfiguration("plain.example.com", 80, "http")));
+		// other ports and hosts keep the default
+		assertEquals(4, params.getMaxConnectionsPerHost(hostConfiguration("example.com", 80, "http")));
+		assertEquals(4, params.getMaxConnectionsPerHost(hostConfiguration("other.example.com", 80, "http")));
+		factory.destroy();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void routeWithoutHostIsRejected() {
+		PoolingCommonsClientHttpRequestFactory factory = new PoolingCommonsClientHttpRequestFactory();
+		factory.setMaxConnectionsPerRoute(Collections.singletonMap("example.com", 5));
+	}
+
+	@Test
+	public void idleConnectionTimeoutThreadIsStoppedOnDestroy() throws Exception {
+		PoolingCommonsClientHttpRequestFactory factory = new PoolingCommonsClientHttpRequestFactory();
+		factory.setIdleConnectionTimeout(1000);
+		factory.afterPropertiesSet();
+		IdleConnectionTimeoutThread thread =
+				TestUtils.getPropertyValue(factory, "idleConnectionTimeoutThread", IdleConnectionTimeoutThread.class);
+		assertNotNull(thread);
+		assertTrue(thread.isAlive());
+		factory.destroy();
+		thread.join(5000);
+		assertFalse(thread.isAlive());
+		assertNull(TestUtils.getPropertyValue(factory, "idleConnectionTimeoutThread"));
+		// a second destroy is harmless
+		factory.destroy();
+	}
+
+	@Test
+	public void noIdleConnectionTimeoutThreadByDefault() {
+		PoolingCommonsClientHttpRequestFactory factory = new PoolingCommonsClientHttpRequestFactory();
+		factory.afterPropertiesSet();
+		assertNull(TestUtils.getPropertyValue(factory, "idleConnectionTimeoutThread"));
+		factory.destroy();
+	}
+
+
+	private static HttpConnectionManagerParams getParams(PoolingCommonsClientHttpRequestFactory factory) {
+		return TestUtils.getPropertyValue(factory, "connectionManager", MultiThreadedHttpConnectionManager.class).getParams();
+	}
+
+	private static HostConfiguration hostConfiguration(String host, int port, String scheme) {
+		HostConfiguration hostConfiguration = new HostConfiguration();
+		hostConfiguration.setHost(host, port, scheme);
+		return hostConfiguration;
+	}
+
+}
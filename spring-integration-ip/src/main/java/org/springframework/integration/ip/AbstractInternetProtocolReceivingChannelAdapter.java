@@ -154,6 +154,13 @@ public abstract class AbstractInternetProtocolReceivingChannelAdapter
 		this.poolSize = poolSize;
 	}
 
+	/**
+	 * @return the size of the thread pool of the default task executor
+	 */
+	public int getPoolSize() {
+		return poolSize;
+	}
+
 	public void setTaskExecutor(Executor taskExecutor) {
 		this.taskExecutor = taskExecutor;
 	}
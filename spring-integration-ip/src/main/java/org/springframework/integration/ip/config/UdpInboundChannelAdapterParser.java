@@ -34,6 +34,10 @@ public class UdpInboundChannelAdapterParser extends AbstractChannelAdapterParser
 	
 	private static final String BASE_PACKAGE = "org.springframework.integration.ip.udp";
 
+	private static final String[] DATAGRAM_CHANNEL_ATTRIBUTES = {
+		"dispatcher-count", "queue-capacity", "batch-size"
+	};
+
 	protected AbstractBeanDefinition doParse(Element element, ParserContext parserContext, String channelName) {
 		BeanDefinitionBuilder builder = parseUdp(element, parserContext);
 		IpAdapterParserUtils.addCommonSocketOptions(builder, element);
@@ -49,6 +53,9 @@ public class UdpInboundChannelAdapterParser extends AbstractChannelAdapterParser
 				IpAdapterParserUtils.TASK_EXECUTOR);
 		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element,
 				IpAdapterParserUtils.LOOKUP_HOST);
+		for (String attributeName : DATAGRAM_CHANNEL_ATTRIBUTES) {
+			IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, attributeName);
+		}
 		return builder.getBeanDefinition();
 	}
 
@@ -71,11 +78,21 @@ public class UdpInboundChannelAdapterParser extends AbstractChannelAdapterParser
 	private BeanDefinitionBuilder parseUdp(Element element, ParserContext parserContext) {
 		BeanDefinitionBuilder builder;
 		String multicast = IpAdapterParserUtils.getMulticast(element);
+		boolean datagramChannel = false;
+		for (String attributeName : DATAGRAM_CHANNEL_ATTRIBUTES) {
+			datagramChannel |= element.hasAttribute(attributeName);
+		}
 		if (multicast.equals("false")) {
 			builder = BeanDefinitionBuilder.genericBeanDefinition(BASE_PACKAGE +
-					".UnicastReceivingChannelAdapter");
+					(datagramChannel ? ".DatagramChannelReceivingChannelAdapter" : ".UnicastReceivingChannelAdapter"));
 		}
 		else {
+			if (datagramChannel) {
+				parserContext.getReaderContext().error(
+						"dispatcher-count, queue-capacity and batch-size"
+							+ " are not supported for a multicast UDP/IP channel adapter",
+							element);
+			}
 			builder = BeanDefinitionBuilder.genericBeanDefinition(BASE_PACKAGE +
 					".MulticastReceivingChannelAdapter");
 			String mcAddress = element
@@ -19,10 +19,12 @@ import java.io.UnsupportedEncodingException;
 
 import org.springframework.integration.Message;
 import org.springframework.integration.MessageHandlingException;
+import org.springframework.integration.codec.MessageCodec;
 import org.springframework.integration.ip.IpHeaders;
 import org.springframework.integration.mapping.InboundMessageMapper;
 import org.springframework.integration.mapping.OutboundMessageMapper;
 import org.springframework.integration.support.MessageBuilder;
+import org.springframework.util.Assert;
 
 /**
  * Maps incoming data from a {@link TcpConnection} to a {@link Message}.
@@ -32,6 +34,8 @@ import org.springframework.integration.support.MessageBuilder;
  * Inbound messages include headers representing the remote end of the 
  * connection as well as a connection id that can be used by a {@link TcpSender}
  * to correlate which connection to send a reply.
+ * If a {@link MessageCodec} is provided, the whole Message (rather than
+ * just its payload) is transferred.
  * @author Gary Russell
  * @since 2.0
  *
@@ -46,36 +50,43 @@ public class TcpMessageMapper implements
 
 	private volatile boolean applySequence = false;
 
-	@SuppressWarnings("deprecation")
+	private volatile MessageCodec messageCodec;
+
+	@SuppressWarnings({ "deprecation", "unchecked" })
 	public Message<Object> toMessage(TcpConnection connection) throws Exception {
 		Message<Object> message = null;
 		Object payload = connection.getPayload();
 		if (payload != null) {
 			String connectionId = connection.getConnectionId();
+			MessageBuilder<Object> builder;
+			if (this.messageCodec != null) {
+				Assert.isInstanceOf(byte[].class, payload, "When using a MessageCodec, the socket mapper expects " +
+						"a byte array payload");
+				builder = MessageBuilder.fromMessage((Message<Object>) this.messageCodec.decode((byte[]) payload));
+			}
+			else {
+				builder = MessageBuilder.withPayload(payload);
+			}
+			builder.setHeader(IpHeaders.HOSTNAME, connection.getHostName())
+					.setHeader(IpHeaders.IP_ADDRESS, connection.getHostAddress())
+					.setHeader(IpHeaders.REMOTE_PORT, connection.getPort())
+					.setHeader(IpHeaders.CONNECTION_ID, connectionId);
 			if (this.applySequence) {
-				message = MessageBuilder.withPayload(payload)
-						.setHeader(IpHeaders.HOSTNAME, connection.getHostName())
-						.setHeader(IpHeaders.IP_ADDRESS, connection.getHostAddress())
-						.setHeader(IpHeaders.REMOTE_PORT, connection.getPort())
-						.setHeader(IpHeaders.CONNECTION_ID, connectionId)
-						.setCorrelationId(connectionId)
-						.setSequenceNumber((int) connection.incrementAndGetConnectionSequence())
-						.build();
+				builder.setCorrelationId(connectionId)
+						.setSequenceNumber((int) connection.incrementAndGetConnectionSequence());
 			} else {
-				message = MessageBuilder.withPayload(payload)
-						.setHeader(IpHeaders.HOSTNAME, connection.getHostName())
-						.setHeader(IpHeaders.IP_ADDRESS, connection.getHostAddress())
-						.setHeader(IpHeaders.REMOTE_PORT, connection.getPort())
-						.setHeader(IpHeaders.CONNECTION_ID, connectionId)
-						.setHeader(IpHeaders.CONNECTION_SEQ, connection.incrementAndGetConnectionSequence())
-						.build();
+				builder.setHeader(IpHeaders.CONNECTION_SEQ, connection.incrementAndGetConnectionSequence());
 			}
+			message = builder.build();
 		}
 		return message;
 
 	}
 
 	public Object fromMessage(Message<?> message) throws Exception {
+		if (this.messageCodec != null) {
+			return this.messageCodec.encode(message);
+		}
 		if (this.stringToBytes) {
 			return getPayloadAsBytes(message);
 		}
@@ -127,6 +138,20 @@ public class TcpMessageMapper implements
 		this.stringToBytes = stringToBytes;
 	}
 
+	/**
+	 * Sets a codec for the whole Message, including its headers, to be
+	 * sent as the bytes it encodes, and to be decoded from the bytes
+	 * received. Both ends of the connection must use the same codec.
+	 * Since the received bytes come from the remote peer, a
+	 * {@link org.springframework.integration.codec.CompactMessageCodec} used
+	 * here should not have Java serialization enabled unless that peer is
+	 * trusted. By default, only the payload is sent.
+	 * @param messageCodec the codec to set
+	 */
+	public void setMessageCodec(MessageCodec messageCodec) {
+		this.messageCodec = messageCodec;
+	}
+
 	/**
 	 * @param applySequence the applySequence to set
 	 */
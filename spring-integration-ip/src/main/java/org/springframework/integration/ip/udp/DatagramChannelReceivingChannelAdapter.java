@@ -0,0 +1,332 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.ip.udp;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.integration.MessagingException;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.util.Assert;
+
+/**
+ * A channel adapter to receive incoming UDP packets through a {@link DatagramChannel}.
+ * Unlike the {@link UnicastReceivingChannelAdapter}, a single receive loop reads into a
+ * reused direct buffer, copying only the bytes of the datagram into a pooled packet, and
+ * only places the packets in a bounded queue. Dispatcher tasks, run by the task executor,
+ * take them from the queue in batches to map them to Messages and send them to the output
+ * channel, and then return them to the pool. A packet must therefore not be referenced
+ * once {@link #handlePacket(DatagramPacket)} has returned.
+ * <p/>
+ * If the queue is full, the packet is dropped, and the queue overflow count is incremented.
+ * Packets still queued when the adapter is stopped are discarded and counted as dropped.
+ * The counts of received, dropped and overflowed packets are exposed as managed attributes.
+ *
+ * @since 2.1
+ */
+public class DatagramChannelReceivingChannelAdapter extends UnicastReceivingChannelAdapter {
+
+	private volatile DatagramChannel channel;
+
+	private volatile int dispatcherCount = 1;
+
+	private volatile int queueCapacity = 10000;
+
+	private volatile int batchSize = 100;
+
+	private volatile BlockingQueue<DatagramPacket> queue;
+
+	private final AtomicLong receivedPacketCount = new AtomicLong();
+
+	private final AtomicLong droppedPacketCount = new AtomicLong();
+
+	private final AtomicLong queueOverflowCount = new AtomicLong();
+
+
+	/**
+	 * Constructs a DatagramChannelReceivingChannelAdapter that listens on the specified port.
+	 * @param port The port.
+	 */
+	public DatagramChannelReceivingChannelAdapter(int port) {
+		super(port);
+	}
+
+	/**
+	 * Constructs a DatagramChannelReceivingChannelAdapter that listens for packets on
+	 * the specified port. Enables setting the lengthCheck option, which expects
+	 * a length to precede the incoming packets.
+	 * @param port The port.
+	 * @param lengthCheck If true, enables the lengthCheck Option.
+	 */
+	public DatagramChannelReceivingChannelAdapter(int port, boolean lengthCheck) {
+		super(port, lengthCheck);
+	}
+
+
+	/**
+	 * The number of tasks that take packets from the queue and send them to the output
+	 * channel (default 1). The task executor must have a thread available for each of them;
+	 * unless a task executor is provided, the count may not exceed the pool size.
+	 * @param dispatcherCount The number of dispatcher tasks.
+	 */
+	public void setDispatcherCount(int dispatcherCount) {
+		Assert.isTrue(dispatcherCount > 0, "dispatcherCount must be greater than 0");
+		this.dispatcherCount = dispatcherCount;
+	}
+
+	/**
+	 * The capacity of the queue between the receive loop and the dispatcher tasks
+	 * (default 10000). Packets that arrive while the queue is full are dropped.
+	 * @param queueCapacity The queue capacity.
+	 */
+	public void setQueueCapacity(int queueCapacity) {
+		Assert.isTrue(queueCapacity > 0, "queueCapacity must be greater than 0");
+		this.queueCapacity = queueCapacity;
+	}
+
+	/**
+	 * The maximum number of packets a dispatcher task takes from the queue at once (default 100).
+	 * @param batchSize The batch size.
+	 */
+	public void setBatchSize(int batchSize) {
+		Assert.isTrue(batchSize > 0, "batchSize must be greater than 0");
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * @return the number of packets that have been received.
+	 */
+	@ManagedAttribute
+	public long getReceivedPacketCount() {
+		return this.receivedPacketCount.get();
+	}
+
+	/**
+	 * @return the number of packets that could not be mapped or sent.
+	 */
+	@ManagedAttribute
+	public long getDroppedPacketCount() {
+		return this.droppedPacketCount.get();
+	}
+
+	/**
+	 * @return the number of packets that were dropped because the queue was full.
+	 */
+	@ManagedAttribute
+	public long getQueueOverflowCount() {
+		return this.queueOverflowCount.get();
+	}
+
+	/**
+	 * @return the number of packets waiting to be dispatched.
+	 */
+	@ManagedAttribute
+	public int getQueueSize() {
+		BlockingQueue<DatagramPacket> queue = this.queue;
+		return (queue != null) ? queue.size() : 0;
+	}
+
+	@Override
+	protected void onInit() {
+		super.onInit();
+		if (this.getTaskExecutor() == null) {
+			Assert.isTrue(this.dispatcherCount <= this.getPoolSize(), "dispatcherCount (" + this.dispatcherCount
+					+ ") must not exceed the poolSize (" + this.getPoolSize() + ") of the default task executor");
+		}
+	}
+
+	@Override
+	public void run() {
+		if (logger.isDebugEnabled()) {
+			logger.debug("UDP Receiver running on port:" + this.getPort());
+		}
+		checkTaskExecutor("UDP-Incoming-Msg-Handler");
+		this.getSocket();
+		final DatagramChannel channel = this.channel;
+		if (channel == null) {
+			return;
+		}
+		final BlockingQueue<DatagramPacket> queue;
+		final BlockingQueue<DatagramPacket> packetPool;
+		synchronized (this) {
+			// a fresh queue for each start, so that dispatchers of a previous start end
+			queue = new ArrayBlockingQueue<DatagramPacket>(this.queueCapacity);
+			packetPool = new ArrayBlockingQueue<DatagramPacket>(
+					Math.min(this.queueCapacity, this.dispatcherCount * this.batchSize * 2));
+			this.queue = queue;
+		}
+		for (int i = 0; i < this.dispatcherCount; i++) {
+			this.getTaskExecutor().execute(new Runnable() {
+				public void run() {
+					dispatch(queue, packetPool);
+				}
+			});
+		}
+		this.setListening(true);
+		this.receiveLoop(channel, queue, packetPool);
+		this.setListening(false);
+		this.discardQueuedPackets(queue);
+	}
+
+	private void receiveLoop(DatagramChannel channel, BlockingQueue<DatagramPacket> queue,
+			BlockingQueue<DatagramPacket> packetPool) {
+		int bufferSize = this.getReceiveBufferSize();
+		ByteBuffer buffer = ByteBuffer.allocateDirect(bufferSize);
+		while (this.isActive()) {
+			try {
+				buffer.clear();
+				InetSocketAddress sender = (InetSocketAddress) channel.receive(buffer);
+				if (sender == null) {
+					continue;
+				}
+				buffer.flip();
+				DatagramPacket packet = packetPool.poll();
+				if (packet == null) {
+					packet = new DatagramPacket(new byte[bufferSize], bufferSize);
+				}
+				int length = buffer.remaining();
+				buffer.get(packet.getData(), 0, length);
+				packet.setData(packet.getData(), 0, length);
+				packet.setSocketAddress(sender);
+				this.receivedPacketCount.incrementAndGet();
+				if (!queue.offer(packet)) {
+					packetPool.offer(packet);
+					this.queueOverflowCount.incrementAndGet();
+					if (logger.isDebugEnabled()) {
+						logger.debug("Queue full; dropped packet from " + sender);
+					}
+				}
+			}
+			catch (ClosedChannelException e) {
+				break;
+			}
+			catch (IOException e) {
+				if (this.isActive()) {
+					logger.error("Failed to receive packet", e);
+				}
+			}
+		}
+	}
+
+	private void dispatch(BlockingQueue<DatagramPacket> queue, BlockingQueue<DatagramPacket> packetPool) {
+		List<DatagramPacket> batch = new ArrayList<DatagramPacket>(this.batchSize);
+		while (this.isActive() && this.queue == queue) {
+			DatagramPacket packet = null;
+			try {
+				packet = queue.poll(100, TimeUnit.MILLISECONDS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+			if (packet == null) {
+				continue;
+			}
+			batch.add(packet);
+			queue.drainTo(batch, this.batchSize - 1);
+			for (DatagramPacket each : batch) {
+				try {
+					if (!this.handlePacket(each)) {
+						this.droppedPacketCount.incrementAndGet();
+					}
+				}
+				catch (Exception e) {
+					this.droppedPacketCount.incrementAndGet();
+					logger.error("Failed to send message for packet", e);
+				}
+				packetPool.offer(each);
+			}
+			batch.clear();
+		}
+		this.discardQueuedPackets(queue);
+	}
+
+	/**
+	 * Removes the packets left in the queue of a stopped adapter, counting them as dropped.
+	 */
+	private void discardQueuedPackets(BlockingQueue<DatagramPacket> queue) {
+		List<DatagramPacket> discarded = new ArrayList<DatagramPacket>();
+		queue.drainTo(discarded);
+		if (!discarded.isEmpty()) {
+			this.droppedPacketCount.addAndGet(discarded.size());
+			if (logger.isDebugEnabled()) {
+				logger.debug("Discarded " + discarded.size() + " queued packet(s) on stop");
+			}
+		}
+	}
+
+	@Override
+	protected synchronized DatagramSocket getSocket() {
+		if (this.getTheSocket() == null) {
+			DatagramChannel channel = null;
+			try {
+				channel = DatagramChannel.open();
+				DatagramSocket socket = channel.socket();
+				this.setSocketAttributes(socket);
+				String localAddress = this.getLocalAddress();
+				if (localAddress == null) {
+					socket.bind(new InetSocketAddress(this.getPort()));
+				}
+				else {
+					InetAddress whichNic = InetAddress.getByName(localAddress);
+					socket.bind(new InetSocketAddress(whichNic, this.getPort()));
+				}
+				this.setSocket(socket);
+				this.channel = channel;
+			}
+			catch (IOException e) {
+				if (channel != null) {
+					try {
+						channel.close();
+					}
+					catch (IOException ex) {
+						// ignore
+					}
+				}
+				throw new MessagingException("failed to create DatagramChannel", e);
+			}
+		}
+		return super.getSocket();
+	}
+
+	@Override
+	protected void doStop() {
+		super.doStop();
+		this.channel = null;
+		BlockingQueue<DatagramPacket> queue;
+		synchronized (this) {
+			queue = this.queue;
+			this.queue = null;
+		}
+		if (queue != null) {
+			this.discardQueuedPackets(queue);
+		}
+	}
+
+}
@@ -135,26 +135,38 @@ public class UnicastReceivingChannelAdapter extends AbstractInternetProtocolRece
 	protected boolean asyncSendMessage(final DatagramPacket packet) {
 		this.getTaskExecutor().execute(new Runnable(){
 			public void run() {
-				Message<byte[]> message = null;
-				try {
-					message = mapper.toMessage(packet);
-					if (logger.isDebugEnabled()) {
-						logger.debug("Received:" + message);
-					}
-				}
-				catch (Exception e) {
-					logger.error("Failed to map packet to message ", e);
-				}
-				if (message != null) {
-					if (message.getHeaders().containsKey(IpHeaders.ACK_ADDRESS)) {
-						sendAck(message);
-					}
-					sendMessage(message);
-				}
+				handlePacket(packet);
 			}});
 		return true;
 	}
 
+	/**
+	 * Maps the packet to a Message, sends an acknowledgment if one was requested,
+	 * and sends the Message to the output channel.
+	 * @param packet The packet.
+	 * @return false if the packet could not be mapped to a Message.
+	 */
+	protected boolean handlePacket(DatagramPacket packet) {
+		Message<byte[]> message = null;
+		try {
+			message = mapper.toMessage(packet);
+			if (logger.isDebugEnabled()) {
+				logger.debug("Received:" + message);
+			}
+		}
+		catch (Exception e) {
+			logger.error("Failed to map packet to message ", e);
+		}
+		if (message == null) {
+			return false;
+		}
+		if (message.getHeaders().containsKey(IpHeaders.ACK_ADDRESS)) {
+			sendAck(message);
+		}
+		sendMessage(message);
+		return true;
+	}
+
 	protected DatagramPacket receive() throws Exception {
 		DatagramSocket socket = this.getSocket();
 		final byte[] buffer = new byte[this.getReceiveBufferSize()];
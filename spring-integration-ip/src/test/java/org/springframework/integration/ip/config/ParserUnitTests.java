@@ -50,6 +50,7 @@ import org.springframework.integration.ip.tcp.connection.TcpNetClientConnectionF
 import org.springframework.integration.ip.tcp.connection.TcpNetServerConnectionFactory;
 import org.springframework.integration.ip.tcp.connection.TcpNioClientConnectionFactory;
 import org.springframework.integration.ip.tcp.connection.TcpNioServerConnectionFactory;
+import org.springframework.integration.ip.udp.DatagramChannelReceivingChannelAdapter;
 import org.springframework.integration.ip.udp.DatagramPacketMessageMapper;
 import org.springframework.integration.ip.udp.MulticastReceivingChannelAdapter;
 import org.springframework.integration.ip.udp.MulticastSendingMessageHandler;
@@ -75,6 +76,10 @@ public class ParserUnitTests {
 	@Qualifier(value="testInUdp")
 	UnicastReceivingChannelAdapter udpIn;
 
+	@Autowired
+	@Qualifier(value="testInUdpDatagramChannel")
+	UnicastReceivingChannelAdapter udpInDatagramChannel;
+
 	@Autowired
 	@Qualifier(value="testInUdpMulticast")
 	MulticastReceivingChannelAdapter udpInMulticast;
@@ -214,6 +219,15 @@ public class ParserUnitTests {
 		assertFalse((Boolean)mapperAccessor.getPropertyValue("lookupHost"));
 	}
 
+	@Test
+	public void testInUdpDatagramChannel() {
+		assertTrue(udpInDatagramChannel instanceof DatagramChannelReceivingChannelAdapter);
+		DirectFieldAccessor dfa = new DirectFieldAccessor(udpInDatagramChannel);
+		assertEquals(2, dfa.getPropertyValue("dispatcherCount"));
+		assertEquals(500, dfa.getPropertyValue("queueCapacity"));
+		assertEquals(50, dfa.getPropertyValue("batchSize"));
+	}
+
 	@Test
 	public void testInUdpMulticast() {
 		DirectFieldAccessor dfa = new DirectFieldAccessor(udpInMulticast);
@@ -20,12 +20,16 @@ import static org.junit.Assert.assertNull;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
 import java.net.Socket;
 
 import javax.net.SocketFactory;
 
 import org.junit.Test;
+import org.springframework.core.serializer.support.SerializationFailedException;
 import org.springframework.integration.Message;
+import org.springframework.integration.codec.CompactMessageCodec;
 import org.springframework.integration.ip.IpHeaders;
 import org.springframework.integration.support.MessageBuilder;
 
@@ -195,4 +199,37 @@ public class TcpMessageMapperTests {
 	}
 	
 	
-}
\ No newline at end of file
+
+	@Test
+	public void testMessageCodec() throws Exception {
+		TcpMessageMapper mapper = new TcpMessageMapper();
+		mapper.setMessageCodec(new CompactMessageCodec());
+		Message<String> outbound = MessageBuilder.withPayload(TEST_PAYLOAD)
+				.setHeader("foo", "bar")
+				.build();
+		byte[] bytes = (byte[]) mapper.fromMessage(outbound);
+		TcpConnection connection = mock(TcpConnection.class);
+		when(connection.getPayload()).thenReturn(bytes);
+		when(connection.getHostName()).thenReturn("MyHost");
+		when(connection.getConnectionId()).thenReturn("anId");
+		Message<Object> message = mapper.toMessage(connection);
+		assertEquals(TEST_PAYLOAD, message.getPayload());
+		assertEquals("bar", message.getHeaders().get("foo"));
+		assertEquals("MyHost", message.getHeaders().get(IpHeaders.HOSTNAME));
+		assertEquals("anId", message.getHeaders().get(IpHeaders.CONNECTION_ID));
+	}
+
+	@Test(expected = SerializationFailedException.class)
+	public void testMessageCodecRejectsJavaSerializedMessage() throws Exception {
+		TcpMessageMapper mapper = new TcpMessageMapper();
+		mapper.setMessageCodec(new CompactMessageCodec());
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(MessageBuilder.withPayload(TEST_PAYLOAD).build());
+		out.flush();
+		TcpConnection connection = mock(TcpConnection.class);
+		when(connection.getPayload()).thenReturn(bytes.toByteArray());
+		mapper.toMessage(connection);
+	}
+
+}
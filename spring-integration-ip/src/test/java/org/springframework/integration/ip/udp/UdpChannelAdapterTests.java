@@ -2,18 +2,23 @@ package org.springframework.integration.ip.udp;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.Inet4Address;
 import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.LogFactory;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.springframework.integration.Message;
+import org.springframework.integration.MessagingException;
 import org.springframework.integration.channel.DirectChannel;
 import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.core.MessageHandler;
 import org.springframework.integration.core.SubscribableChannel;
 import org.springframework.integration.handler.ServiceActivatingHandler;
 import org.springframework.integration.ip.util.SocketTestUtils;
@@ -46,6 +51,137 @@ public class UdpChannelAdapterTests {
 		assertEquals(new String(message.getPayload()), new String(receivedMessage.getPayload()));
 	}
 	
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testDatagramChannelReceiver() throws Exception {
+		QueueChannel channel = new QueueChannel(10);
+		int port = SocketTestUtils.findAvailableUdpSocket();
+		DatagramChannelReceivingChannelAdapter adapter = new DatagramChannelReceivingChannelAdapter(port);
+		adapter.setOutputChannel(channel);
+		adapter.setDispatcherCount(2);
+		adapter.setBatchSize(3);
+		ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+		taskScheduler.initialize();
+		adapter.setTaskScheduler(taskScheduler);
+		adapter.start();
+		SocketTestUtils.waitListening(adapter);
+
+		DatagramPacketMessageMapper mapper = new DatagramPacketMessageMapper();
+		DatagramSocket socket = new DatagramSocket(SocketTestUtils.findAvailableUdpSocket());
+		for (int i = 0; i < 5; i++) {
+			Message<byte[]> message = MessageBuilder.withPayload(("ABCD" + i).getBytes()).build();
+			DatagramPacket packet = mapper.fromMessage(message);
+			packet.setSocketAddress(new InetSocketAddress("localhost", port));
+			socket.send(packet);
+		}
+		for (int i = 0; i < 5; i++) {
+			Message<byte[]> receivedMessage = (Message<byte[]>) channel.receive(2000);
+			assertNotNull(receivedMessage);
+			assertTrue(new String(receivedMessage.getPayload()).startsWith("ABCD"));
+		}
+		assertEquals(5, adapter.getReceivedPacketCount());
+		assertEquals(0, adapter.getDroppedPacketCount());
+		assertEquals(0, adapter.getQueueOverflowCount());
+		socket.close();
+		adapter.stop();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testDatagramChannelReceiverRestart() throws Exception {
+		QueueChannel channel = new QueueChannel(10);
+		int port = SocketTestUtils.findAvailableUdpSocket();
+		DatagramChannelReceivingChannelAdapter adapter = new DatagramChannelReceivingChannelAdapter(port);
+		adapter.setOutputChannel(channel);
+		ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+		taskScheduler.initialize();
+		adapter.setTaskScheduler(taskScheduler);
+		DatagramPacketMessageMapper mapper = new DatagramPacketMessageMapper();
+		DatagramSocket socket = new DatagramSocket(SocketTestUtils.findAvailableUdpSocket());
+		// the longer payloads come first, so bytes left over in a reused packet would show
+		String[] payloads = { "ABCDEFGH", "ABCD" };
+		for (String payload : payloads) {
+			adapter.start();
+			SocketTestUtils.waitListening(adapter);
+			for (int i = 0; i < 3; i++) {
+				DatagramPacket packet = mapper.fromMessage(MessageBuilder.withPayload(payload.getBytes()).build());
+				packet.setSocketAddress(new InetSocketAddress("localhost", port));
+				socket.send(packet);
+			}
+			for (int i = 0; i < 3; i++) {
+				Message<byte[]> receivedMessage = (Message<byte[]>) channel.receive(2000);
+				assertNotNull(receivedMessage);
+				assertEquals(payload, new String(receivedMessage.getPayload()));
+			}
+			adapter.stop();
+			for (int i = 0; i < 100 && adapter.isListening(); i++) {
+				Thread.sleep(50);
+			}
+		}
+		assertEquals(6, adapter.getReceivedPacketCount());
+		assertEquals(0, adapter.getDroppedPacketCount());
+		socket.close();
+		taskScheduler.destroy();
+	}
+
+	@Test
+	public void testDatagramChannelReceiverCountsPacketsDiscardedOnStop() throws Exception {
+		final CountDownLatch handling = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		DirectChannel channel = new DirectChannel();
+		channel.subscribe(new MessageHandler() {
+			public void handleMessage(Message<?> message) throws MessagingException {
+				handling.countDown();
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		int port = SocketTestUtils.findAvailableUdpSocket();
+		DatagramChannelReceivingChannelAdapter adapter = new DatagramChannelReceivingChannelAdapter(port);
+		adapter.setOutputChannel(channel);
+		adapter.setBatchSize(1);
+		ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+		taskScheduler.initialize();
+		adapter.setTaskScheduler(taskScheduler);
+		adapter.start();
+		SocketTestUtils.waitListening(adapter);
+
+		DatagramPacketMessageMapper mapper = new DatagramPacketMessageMapper();
+		DatagramSocket socket = new DatagramSocket(SocketTestUtils.findAvailableUdpSocket());
+		for (int i = 0; i < 3; i++) {
+			DatagramPacket packet = mapper.fromMessage(MessageBuilder.withPayload(("ABCD" + i).getBytes()).build());
+			packet.setSocketAddress(new InetSocketAddress("localhost", port));
+			socket.send(packet);
+		}
+		assertTrue(handling.await(10, TimeUnit.SECONDS));
+		// the dispatcher is held up by the first packet, the others wait in the queue
+		for (int i = 0; i < 100 && adapter.getQueueSize() < 2; i++) {
+			Thread.sleep(50);
+		}
+		assertEquals(2, adapter.getQueueSize());
+		adapter.stop();
+		release.countDown();
+		assertEquals(0, adapter.getQueueSize());
+		assertEquals(3, adapter.getReceivedPacketCount());
+		assertEquals(2, adapter.getDroppedPacketCount());
+		socket.close();
+		taskScheduler.destroy();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDatagramChannelReceiverDispatcherCountExceedsPoolSize() throws Exception {
+		DatagramChannelReceivingChannelAdapter adapter =
+				new DatagramChannelReceivingChannelAdapter(SocketTestUtils.findAvailableUdpSocket());
+		adapter.setOutputChannel(new QueueChannel());
+		adapter.setPoolSize(2);
+		adapter.setDispatcherCount(3);
+		adapter.afterPropertiesSet();
+	}
+
 	@SuppressWarnings("unchecked")
 	@Test
 	public void testUnicastSender() throws Exception {
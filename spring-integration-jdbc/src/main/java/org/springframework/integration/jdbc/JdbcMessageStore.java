@@ -14,6 +14,10 @@
 package org.springframework.integration.jdbc;
 
 import java.sql.PreparedStatement;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectStreamConstants;
+import java.io.PushbackInputStream;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
@@ -31,7 +35,7 @@ import javax.sql.DataSource;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.core.serializer.DefaultDeserializer;
 import org.springframework.core.serializer.Deserializer;
 import org.springframework.core.serializer.Serializer;
 import org.springframework.core.serializer.support.DeserializingConverter;
@@ -39,11 +43,11 @@ import org.springframework.core.serializer.support.SerializingConverter;
 import org.springframework.dao.DataAccessException;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessageHeaders;
+import org.springframework.integration.codec.MessageCodec;
 import org.springframework.integration.store.AbstractMessageGroupStore;
 import org.springframework.integration.store.MessageGroup;
 import org.springframework.integration.store.MessageStore;
 import org.springframework.integration.store.SimpleMessageGroup;
-import org.springframework.integration.support.MessageBuilder;
 import org.springframework.integration.util.UUIDConverter;
 import org.springframework.jdbc.core.JdbcOperations;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -219,6 +223,20 @@ public class JdbcMessageStore extends AbstractMessageGroupStore implements Messa
 		this.lobHandler = lobHandler;
 	}
 
+	/**
+	 * The codec for both writing messages to byte arrays for storage and reading them back,
+	 * for example a {@link org.springframework.integration.codec.CompactMessageCodec}, instead
+	 * of Java serialization (the default). Messages that were stored with Java serialization
+	 * before the codec was set can still be read.
+	 * 
+	 * @param messageCodec the codec to set
+	 */
+	public void setMessageCodec(MessageCodec messageCodec) {
+		Assert.notNull(messageCodec, "'messageCodec' must not be null");
+		this.setSerializer(messageCodec);
+		this.setDeserializer(new LegacyFallbackDeserializer(messageCodec));
+	}
+
 	/**
 	 * A converter for serializing messages to byte arrays for storage.
 	 * 
@@ -274,7 +292,7 @@ public class JdbcMessageStore extends AbstractMessageGroupStore implements Messa
 		return list.get(0);
 	}
 
-	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@SuppressWarnings("unchecked")
 	public <T> Message<T> addMessage(final Message<T> message) {
 		if (message.getHeaders().containsKey(SAVED_KEY)) {
 			Message<T> saved = (Message<T>) getMessage(message.getHeaders().getId());
@@ -286,12 +304,12 @@ public class JdbcMessageStore extends AbstractMessageGroupStore implements Messa
 		}
 
 		final long createdDate = System.currentTimeMillis();
-		Message<T> result = MessageBuilder.fromMessage(message).setHeader(SAVED_KEY, Boolean.TRUE)
-				.setHeader(CREATED_DATE_KEY, new Long(createdDate)).build();
-		
-		Map innerMap = (Map) new DirectFieldAccessor(result.getHeaders()).getPropertyValue("headers");
-		// using reflection to set ID since it is immutable through MessageHeaders
-		innerMap.put(MessageHeaders.ID, message.getHeaders().get(MessageHeaders.ID));
+		Map<String, Object> headers = MessageHeaders.overlay(message.getHeaders());
+		headers.put(SAVED_KEY, Boolean.TRUE);
+		headers.put(CREATED_DATE_KEY, new Long(createdDate));
+		// the stored Message keeps the ID of the original
+		Message<T> result = createStoredMessage(message.getPayload(), headers,
+				message.getHeaders().getId(), null);
 		
 		final String messageId = getKey(result.getHeaders().getId());
 		final byte[] messageBytes = serializer.convert(result);
@@ -577,4 +595,33 @@ public class JdbcMessageStore extends AbstractMessageGroupStore implements Messa
 			return message;
 		}
 	}
+
+	/**
+	 * Reads Messages with the configured codec, except for those that were
+	 * stored with Java serialization before the codec was set.
+	 */
+	private static class LegacyFallbackDeserializer implements Deserializer<Message<?>> {
+
+		private static final int JAVA_SERIALIZATION_MAGIC = (ObjectStreamConstants.STREAM_MAGIC >>> 8) & 0xFF;
+
+		private final MessageCodec messageCodec;
+
+		private final Deserializer<Object> legacyDeserializer = new DefaultDeserializer();
+
+		private LegacyFallbackDeserializer(MessageCodec messageCodec) {
+			this.messageCodec = messageCodec;
+		}
+
+		public Message<?> deserialize(InputStream inputStream) throws IOException {
+			PushbackInputStream pushback = new PushbackInputStream(inputStream, 1);
+			int first = pushback.read();
+			if (first >= 0) {
+				pushback.unread(first);
+			}
+			if (first == JAVA_SERIALIZATION_MAGIC) {
+				return (Message<?>) this.legacyDeserializer.deserialize(pushback);
+			}
+			return this.messageCodec.deserialize(pushback);
+		}
+	}
 }
@@ -41,6 +41,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.serializer.Deserializer;
 import org.springframework.core.serializer.Serializer;
 import org.springframework.integration.Message;
+import org.springframework.integration.codec.CompactMessageCodec;
 import org.springframework.integration.message.GenericMessage;
 import org.springframework.integration.store.MessageGroup;
 import org.springframework.integration.store.MessageGroupCallback;
@@ -116,6 +117,22 @@ public class JdbcMessageStoreTests {
 		assertEquals("foo", result.getPayload());
 	}
 
+	@Test
+	@Transactional
+	public void testJavaSerializedMessageIsReadWithCodec() throws Exception {
+		Message<String> message = MessageBuilder.withPayload("foo").setHeader("bar", 123).build();
+		Message<String> saved = messageStore.addMessage(message);
+		JdbcMessageStore codecStore = new JdbcMessageStore(dataSource);
+		codecStore.setMessageCodec(new CompactMessageCodec());
+		Message<?> result = codecStore.getMessage(saved.getHeaders().getId());
+		assertNotNull(result);
+		assertEquals("foo", result.getPayload());
+		assertEquals(123, result.getHeaders().get("bar"));
+		assertEquals(saved.getHeaders().getTimestamp(), result.getHeaders().getTimestamp());
+		Message<String> encoded = codecStore.addMessage(MessageBuilder.withPayload("baz").build());
+		assertEquals("baz", codecStore.getMessage(encoded.getHeaders().getId()).getPayload());
+	}
+
 	@Test
 	@Transactional
 	public void testAddAndGetWithDifferentRegion() throws Exception {
@@ -16,15 +16,23 @@
 
 package org.springframework.integration.jms;
 
+import java.util.Iterator;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.jms.Connection;
 import javax.jms.ConnectionFactory;
 import javax.jms.DeliveryMode;
 import javax.jms.Destination;
+import javax.jms.ExceptionListener;
 import javax.jms.JMSException;
 import javax.jms.MessageConsumer;
+import javax.jms.MessageListener;
 import javax.jms.MessageProducer;
 import javax.jms.QueueConnection;
 import javax.jms.QueueConnectionFactory;
@@ -33,6 +41,7 @@ import javax.jms.TemporaryQueue;
 import javax.jms.TemporaryTopic;
 import javax.jms.Topic;
 
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.expression.Expression;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessageChannel;
@@ -48,17 +57,25 @@ import org.springframework.jms.support.converter.MessageConverter;
 import org.springframework.jms.support.converter.SimpleMessageConverter;
 import org.springframework.jms.support.destination.DestinationResolver;
 import org.springframework.jms.support.destination.DynamicDestinationResolver;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
 import org.springframework.util.Assert;
 
 /**
  * An outbound Messaging Gateway for request/reply JMS.
+ * <p>
+ * By default a reply consumer is created for every request. When the
+ * {@link #setUseReplyListener(boolean) reply listener} is enabled, a single long-lived
+ * consumer per gateway receives all replies instead and hands each one over to the
+ * waiting request by its correlation id.
  * 
  * @author Mark Fisher
  * @author Arjen Poutsma
  * @author Juergen Hoeller
  * @author Oleg Zhurakousky
  */
-public class JmsOutboundGateway extends AbstractReplyProducingMessageHandler {
+public class JmsOutboundGateway extends AbstractReplyProducingMessageHandler implements DisposableBean {
+
+	private static final long MIN_UNCLAIMED_REPLY_RETENTION = 5000;
 
 	private volatile Destination requestDestination;
 
@@ -102,6 +119,18 @@ public class JmsOutboundGateway extends AbstractReplyProducingMessageHandler {
 
 	private final Object initializationMonitor = new Object();
 
+	private volatile boolean useReplyListener;
+
+	private volatile ReplyListener replyListener;
+
+	private final Object replyListenerMonitor = new Object();
+
+	private final ConcurrentMap<String, PendingReply> pendingReplies = new ConcurrentHashMap<String, PendingReply>();
+
+	private final AtomicLong replyTimeoutCount = new AtomicLong();
+
+	private final AtomicLong lateReplyCount = new AtomicLong();
+
 
 	/**
 	 * Set whether message delivery should be persistent or non-persistent,
@@ -306,6 +335,50 @@ public class JmsOutboundGateway extends AbstractReplyProducingMessageHandler {
 		this.extractReplyPayload = extractReplyPayload;
 	}
 
+	/**
+	 * Specify whether a single long-lived reply listener should receive the replies for
+	 * all requests sent by this gateway rather than creating a consumer per request.
+	 * The listener consumes from the reply destination, if one is configured, or otherwise
+	 * from a {@link TemporaryQueue} that is created once and kept for the lifetime of the
+	 * listener. A configured reply destination must be dedicated to this gateway, since
+	 * every message arriving on it is treated as a reply to one of its requests.
+	 * <p>
+	 * Replies are correlated by the generated value of the 'correlationKey' property if
+	 * one is provided, or else by matching their JMSCorrelationID to the JMSMessageID
+	 * of the request.
+	 * <p>
+	 * Default is 'false'.
+	 */
+	public void setUseReplyListener(boolean useReplyListener) {
+		this.useReplyListener = useReplyListener;
+	}
+
+	/**
+	 * Return the number of requests that did not receive a reply within the 'receiveTimeout'
+	 * while relying upon the reply listener.
+	 */
+	@ManagedAttribute
+	public long getReplyTimeoutCount() {
+		return this.replyTimeoutCount.get();
+	}
+
+	/**
+	 * Return the number of replies received by the reply listener that could not be
+	 * matched to a waiting request, typically because that request had already timed out.
+	 */
+	@ManagedAttribute
+	public long getLateReplyCount() {
+		return this.lateReplyCount.get();
+	}
+
+	/**
+	 * Return the number of requests currently waiting for a reply from the reply listener.
+	 */
+	@ManagedAttribute
+	public int getPendingReplyCount() {
+		return this.pendingReplies.size();
+	}
+
 	/**
 	 * Specify the Spring Integration reply channel. If this property is not
 	 * set the gateway will check for a 'replyChannel' header on the request.
@@ -386,7 +459,8 @@ public class JmsOutboundGateway extends AbstractReplyProducingMessageHandler {
 		}
 		final Message<?> requestMessage = MessageBuilder.fromMessage(message).build();
 		try {
-			javax.jms.Message jmsReply = this.sendAndReceive(requestMessage);
+			javax.jms.Message jmsReply = (this.useReplyListener) ?
+					this.sendAndReceiveWithReplyListener(requestMessage) : this.sendAndReceive(requestMessage);
 			if (jmsReply == null) {
 				throw new MessageTimeoutException(message,
 						"failed to receive JMS response within timeout of: " + this.receiveTimeout + "ms");
@@ -459,6 +533,107 @@ public class JmsOutboundGateway extends AbstractReplyProducingMessageHandler {
 		}
 	}
 
+	/**
+	 * Sends the request with the reply listener's destination as its JMSReplyTo and waits for the listener
+	 * to hand over the reply carrying the request's correlation id.
+	 */
+	private javax.jms.Message sendAndReceiveWithReplyListener(Message<?> requestMessage) throws JMSException {
+		ReplyListener listener = this.getReplyListener();
+		String correlationId = null;
+		PendingReply pendingReply = new PendingReply(true);
+		try {
+			Connection connection = createConnection();
+			Session session = null;
+			MessageProducer messageProducer = null;
+			try {
+				session = createSession(connection);
+				Object objectToSend = requestMessage;
+				if (this.extractRequestPayload) {
+					objectToSend = requestMessage.getPayload();
+				}
+				javax.jms.Message jmsRequest = this.messageConverter.toMessage(objectToSend, session);
+				headerMapper.fromHeaders(requestMessage.getHeaders(), jmsRequest);
+				jmsRequest.setJMSReplyTo(listener.getDestination());
+
+				Integer priority = requestMessage.getHeaders().getPriority();
+				if (priority == null) {
+					priority = this.priority;
+				}
+				messageProducer = session.createProducer(this.getRequestDestination(requestMessage, session));
+				if (this.correlationKey != null) {
+					correlationId = UUID.randomUUID().toString();
+					if (this.correlationKey.equals("JMSCorrelationID")) {
+						jmsRequest.setJMSCorrelationID(correlationId);
+					}
+					else {
+						jmsRequest.setStringProperty(this.correlationKey, correlationId);
+					}
+					this.pendingReplies.put(correlationId, pendingReply);
+					this.sendRequestMessage(jmsRequest, messageProducer, priority);
+				}
+				else {
+					this.sendRequestMessage(jmsRequest, messageProducer, priority);
+					correlationId = jmsRequest.getJMSMessageID();
+					// a fast reply may already have been buffered by the listener
+					PendingReply earlyReply = this.pendingReplies.putIfAbsent(correlationId, pendingReply);
+					if (earlyReply != null) {
+						earlyReply.claim();
+						pendingReply = earlyReply;
+					}
+				}
+			}
+			finally {
+				JmsUtils.closeMessageProducer(messageProducer);
+				JmsUtils.closeSession(session);
+				ConnectionFactoryUtils.releaseConnection(connection, this.connectionFactory, false);
+			}
+			javax.jms.Message reply = pendingReply.waitForReply(this.receiveTimeout);
+			if (reply == null) {
+				this.replyTimeoutCount.incrementAndGet();
+			}
+			return reply;
+		}
+		finally {
+			if (correlationId != null) {
+				this.pendingReplies.remove(correlationId);
+			}
+		}
+	}
+
+	private ReplyListener getReplyListener() throws JMSException {
+		ReplyListener listener = this.replyListener;
+		if (listener == null) {
+			synchronized (this.replyListenerMonitor) {
+				listener = this.replyListener;
+				if (listener == null) {
+					listener = new ReplyListener();
+					listener.start();
+					this.replyListener = listener;
+				}
+			}
+		}
+		return listener;
+	}
+
+	private void stopReplyListener(ReplyListener listener) {
+		synchronized (this.replyListenerMonitor) {
+			if (this.replyListener == listener) {
+				this.replyListener = null;
+			}
+		}
+		listener.stop();
+	}
+
+	/**
+	 * Stops the reply listener, if one has been started.
+	 */
+	public void destroy() {
+		ReplyListener listener = this.replyListener;
+		if (listener != null) {
+			this.stopReplyListener(listener);
+		}
+	}
+
 	/**
 	 * Creates the MessageConsumer before sending the request Message since we are generating our own correlationId value for the MessageSelector.
 	 */
@@ -617,4 +792,168 @@ public class JmsOutboundGateway extends AbstractReplyProducingMessageHandler {
 		return connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
 	}
 
+
+
+	/**
+	 * Holder for a request waiting on the reply listener. Entries created by the listener for replies
+	 * that arrive before their request has been registered remain unclaimed until that request picks them up.
+	 */
+	private static class PendingReply {
+
+		private final CountDownLatch latch = new CountDownLatch(1);
+
+		private final long createdTime = System.currentTimeMillis();
+
+		private volatile javax.jms.Message reply;
+
+		private volatile boolean claimed;
+
+		PendingReply(boolean claimed) {
+			this.claimed = claimed;
+		}
+
+		void claim() {
+			this.claimed = true;
+		}
+
+		boolean isUnclaimedSince(long time) {
+			return !this.claimed && this.createdTime < time;
+		}
+
+		void setReply(javax.jms.Message reply) {
+			this.reply = reply;
+			this.latch.countDown();
+		}
+
+		javax.jms.Message waitForReply(long timeout) {
+			try {
+				if (timeout < 0) {
+					this.latch.await();
+				}
+				else {
+					this.latch.await(timeout, TimeUnit.MILLISECONDS);
+				}
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return this.reply;
+		}
+	}
+
+
+	/**
+	 * The single consumer receiving all replies for this gateway on its own Connection.
+	 * A Connection failure stops the listener, and the next request starts a new one.
+	 */
+	private class ReplyListener implements MessageListener, ExceptionListener {
+
+		private volatile Connection connection;
+
+		private volatile Session session;
+
+		private volatile MessageConsumer consumer;
+
+		private volatile Destination destination;
+
+		void start() throws JMSException {
+			try {
+				this.connection = createConnection();
+				this.session = createSession(this.connection);
+				this.destination = getReplyDestination(this.session);
+				this.consumer = this.session.createConsumer(this.destination);
+				this.consumer.setMessageListener(this);
+				try {
+					this.connection.setExceptionListener(this);
+				}
+				catch (JMSException e) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Unable to register an ExceptionListener for the reply listener's Connection", e);
+					}
+				}
+				this.connection.start();
+			}
+			catch (JMSException e) {
+				this.stop();
+				throw e;
+			}
+		}
+
+		Destination getDestination() {
+			return this.destination;
+		}
+
+		void stop() {
+			JmsUtils.closeMessageConsumer(this.consumer);
+			JmsUtils.closeSession(this.session);
+			deleteDestinationIfTemporary(this.destination);
+			ConnectionFactoryUtils.releaseConnection(this.connection, connectionFactory, true);
+		}
+
+		public void onMessage(javax.jms.Message reply) {
+			try {
+				String correlationId = (correlationKey == null || correlationKey.equals("JMSCorrelationID")) ?
+						reply.getJMSCorrelationID() : reply.getStringProperty(correlationKey);
+				if (correlationId == null) {
+					lateReplyCount.incrementAndGet();
+					if (logger.isWarnEnabled()) {
+						logger.warn("Discarding reply without a correlation id: " + reply);
+					}
+					return;
+				}
+				if (correlationKey != null) {
+					PendingReply pendingReply = pendingReplies.get(correlationId);
+					if (pendingReply != null) {
+						pendingReply.setReply(reply);
+					}
+					else {
+						this.discardLateReply(reply);
+					}
+				}
+				else {
+					PendingReply unclaimedReply = new PendingReply(false);
+					unclaimedReply.setReply(reply);
+					PendingReply pendingReply = pendingReplies.putIfAbsent(correlationId, unclaimedReply);
+					if (pendingReply != null) {
+						pendingReply.setReply(reply);
+					}
+					else {
+						this.expireUnclaimedReplies();
+					}
+				}
+			}
+			catch (JMSException e) {
+				logger.error("Failed to handle reply message: " + reply, e);
+			}
+		}
+
+		public void onException(JMSException exception) {
+			logger.warn("Reply listener Connection failed, it will be restarted on the next request", exception);
+			stopReplyListener(this);
+		}
+
+		/**
+		 * Replies correlated by the request's JMSMessageID may arrive before the request has been registered;
+		 * those that are never claimed belong to requests that have already timed out.
+		 */
+		private void expireUnclaimedReplies() {
+			long retention = Math.max(receiveTimeout, MIN_UNCLAIMED_REPLY_RETENTION);
+			long expiryTime = System.currentTimeMillis() - retention;
+			for (Iterator<PendingReply> iterator = pendingReplies.values().iterator(); iterator.hasNext();) {
+				PendingReply pendingReply = iterator.next();
+				if (pendingReply.isUnclaimedSince(expiryTime)) {
+					iterator.remove();
+					this.discardLateReply(pendingReply.reply);
+				}
+			}
+		}
+
+		private void discardLateReply(javax.jms.Message reply) {
+			lateReplyCount.incrementAndGet();
+			if (logger.isDebugEnabled()) {
+				logger.debug("Discarding late reply: " + reply);
+			}
+		}
+	}
+
 }
@@ -16,25 +16,51 @@
 
 package org.springframework.integration.jms;
 
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.jms.Connection;
 import javax.jms.Destination;
 import javax.jms.JMSException;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
 
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.expression.Expression;
 import org.springframework.integration.Message;
+import org.springframework.integration.MessageChannel;
 import org.springframework.integration.MessageDeliveryException;
+import org.springframework.integration.channel.MessagePublishingErrorHandler;
+import org.springframework.integration.context.IntegrationContextUtils;
 import org.springframework.integration.handler.AbstractMessageHandler;
 import org.springframework.integration.handler.ExpressionEvaluatingMessageProcessor;
+import org.springframework.jms.connection.ConnectionFactoryUtils;
 import org.springframework.jms.core.JmsTemplate;
 import org.springframework.jms.core.MessagePostProcessor;
+import org.springframework.jms.support.JmsUtils;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.util.Assert;
 
 /**
  * A MessageConsumer that sends the converted Message payload within a JMS Message.
+ * <p>
+ * When the {@link #setBatchSize(int) batch size} is greater than 1, Messages are
+ * accumulated and sent in batches on a single cached transacted Session and producer
+ * instead of through the JmsTemplate, with one local JMS transaction per batch.
+ * A batch is sent as soon as it is full and, when a {@link TaskScheduler} is available,
+ * every {@link #setBatchTimeout(long) batch timeout} milliseconds. Since the Messages of
+ * a batch may have been handed over by different threads, the failure of a batch is not
+ * propagated to the sender; the batch is rolled back and each of its Messages is sent
+ * to the error channel within a {@link MessageDeliveryException}.
  * 
  * @author Mark Fisher
  * @author Oleg Zhurakousky
  */
-public class JmsSendingMessageHandler extends AbstractMessageHandler {
+public class JmsSendingMessageHandler extends AbstractMessageHandler implements DisposableBean {
 
 	private final JmsTemplate jmsTemplate;
 
@@ -48,6 +74,42 @@ public class JmsSendingMessageHandler extends AbstractMessageHandler {
 
 	private volatile ExpressionEvaluatingMessageProcessor<?> destinationExpressionProcessor;
 
+	private volatile int batchSize = 1;
+
+	private volatile long batchTimeout = 1000;
+
+	private volatile MessageChannel errorChannel;
+
+	private volatile MessagePublishingErrorHandler errorHandler;
+
+	private volatile ScheduledFuture<?> batchTimeoutTask;
+
+	private final List<Message<?>> batch = new ArrayList<Message<?>>();
+
+	private final Object batchMonitor = new Object();
+
+	/**
+	 * Full batches in the order in which they were taken, guarded by the batchMonitor.
+	 */
+	private final LinkedList<List<Message<?>>> readyBatches = new LinkedList<List<Message<?>>>();
+
+	/**
+	 * Guards the cached Session and producer; never acquired while holding the
+	 * batchMonitor, so that sending a batch does not hold up the senders adding to
+	 * the next one.
+	 */
+	private final Object sendMonitor = new Object();
+
+	private Connection batchConnection;
+
+	private Session batchSession;
+
+	private MessageProducer batchProducer;
+
+	private final AtomicLong sentBatchCount = new AtomicLong();
+
+	private final AtomicLong failedBatchCount = new AtomicLong();
+
 
 	public JmsSendingMessageHandler(JmsTemplate jmsTemplate) {
 		this.jmsTemplate = jmsTemplate;
@@ -86,6 +148,59 @@ public class JmsSendingMessageHandler extends AbstractMessageHandler {
 		this.extractPayload = extractPayload;
 	}
 
+	/**
+	 * Specify the maximum number of Messages to send within a single JMS transaction.
+	 * A value greater than 1 enables batching. Default is 1.
+	 */
+	public void setBatchSize(int batchSize) {
+		Assert.isTrue(batchSize > 0, "'batchSize' must be greater than 0");
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Specify the interval in milliseconds at which an incomplete batch is sent.
+	 * Default is 1000.
+	 */
+	public void setBatchTimeout(long batchTimeout) {
+		Assert.isTrue(batchTimeout > 0, "'batchTimeout' must be greater than 0");
+		this.batchTimeout = batchTimeout;
+	}
+
+	/**
+	 * Specify the channel to which the Messages of a failed batch should be sent.
+	 * If not provided, the 'errorChannel' header of each Message is used, falling
+	 * back to the global 'errorChannel'.
+	 */
+	public void setErrorChannel(MessageChannel errorChannel) {
+		this.errorChannel = errorChannel;
+	}
+
+	/**
+	 * Specify the scheduler that sends incomplete batches after the batch timeout.
+	 * If not provided, the context's 'taskScheduler' bean is used. This is public
+	 * so that a handler created outside of an application context can still batch.
+	 */
+	@Override
+	public void setTaskScheduler(TaskScheduler taskScheduler) {
+		super.setTaskScheduler(taskScheduler);
+	}
+
+	/**
+	 * Return the number of batches that have been committed.
+	 */
+	@ManagedAttribute
+	public long getSentBatchCount() {
+		return this.sentBatchCount.get();
+	}
+
+	/**
+	 * Return the number of batches that have been rolled back.
+	 */
+	@ManagedAttribute
+	public long getFailedBatchCount() {
+		return this.failedBatchCount.get();
+	}
+
 	@Override
 	public String getComponentType() {
 		return "jms:outbound-channel-adapter";
@@ -97,6 +212,25 @@ public class JmsSendingMessageHandler extends AbstractMessageHandler {
 			this.destinationExpressionProcessor.setBeanFactory(getBeanFactory());
 			this.destinationExpressionProcessor.setConversionService(getConversionService());
 		}
+		if (this.batchSize > 1) {
+			this.errorHandler = (this.getBeanFactory() != null) ?
+					new MessagePublishingErrorHandler(IntegrationContextUtils.getChannelResolver(this.getBeanFactory())) :
+					new MessagePublishingErrorHandler();
+			if (this.errorChannel != null) {
+				this.errorHandler.setDefaultErrorChannel(this.errorChannel);
+			}
+			TaskScheduler taskScheduler = this.getTaskScheduler();
+			if (taskScheduler != null) {
+				this.batchTimeoutTask = taskScheduler.scheduleWithFixedDelay(new Runnable() {
+					public void run() {
+						flush();
+					}
+				}, this.batchTimeout);
+			}
+			else if (logger.isWarnEnabled()) {
+				logger.warn("No TaskScheduler is available, incomplete batches will only be sent once full or on destroy()");
+			}
+		}
 	}
 
 	@Override
@@ -104,6 +238,20 @@ public class JmsSendingMessageHandler extends AbstractMessageHandler {
 		if (message == null) {
 			throw new IllegalArgumentException("message must not be null");
 		}
+		if (this.batchSize > 1) {
+			boolean full = false;
+			synchronized (this.batchMonitor) {
+				this.batch.add(message);
+				if (this.batch.size() >= this.batchSize) {
+					this.takeBatch();
+					full = true;
+				}
+			}
+			if (full) {
+				this.sendReadyBatches();
+			}
+			return;
+		}
 		Object destination = this.determineDestination(message);
 		Object objectToSend = (this.extractPayload) ? message.getPayload() : message;
 		MessagePostProcessor messagePostProcessor = new HeaderMappingMessagePostProcessor(message, this.headerMapper);
@@ -147,6 +295,147 @@ public class JmsSendingMessageHandler extends AbstractMessageHandler {
 	}
 
 
+	/**
+	 * Send any Messages of the current incomplete batch.
+	 */
+	public void flush() {
+		synchronized (this.batchMonitor) {
+			if (!this.batch.isEmpty()) {
+				this.takeBatch();
+			}
+		}
+		this.sendReadyBatches();
+	}
+
+	/**
+	 * Sends the pending batch and releases the cached Session and Connection.
+	 */
+	public void destroy() {
+		if (this.batchTimeoutTask != null) {
+			this.batchTimeoutTask.cancel(false);
+		}
+		this.flush();
+		synchronized (this.sendMonitor) {
+			this.releaseBatchResources();
+		}
+	}
+
+	/**
+	 * Moves the current batch to the ready batches. Must be called while holding the batchMonitor.
+	 */
+	private void takeBatch() {
+		this.readyBatches.add(new ArrayList<Message<?>>(this.batch));
+		this.batch.clear();
+	}
+
+	/**
+	 * Sends the ready batches in order. Whichever thread holds the sendMonitor sends
+	 * the batches taken by others in the meantime as well.
+	 */
+	private void sendReadyBatches() {
+		synchronized (this.sendMonitor) {
+			while (true) {
+				List<Message<?>> messages;
+				synchronized (this.batchMonitor) {
+					messages = this.readyBatches.poll();
+				}
+				if (messages == null) {
+					return;
+				}
+				this.sendBatch(messages);
+			}
+		}
+	}
+
+	/**
+	 * Must be called while holding the sendMonitor.
+	 */
+	private void sendBatch(List<Message<?>> messages) {
+		try {
+			Session session = this.obtainBatchSession();
+			for (Message<?> message : messages) {
+				Destination destination = this.resolveBatchDestination(message, session);
+				Object objectToSend = (this.extractPayload) ? message.getPayload() : message;
+				javax.jms.Message jmsMessage = this.jmsTemplate.getMessageConverter().toMessage(objectToSend, session);
+				this.headerMapper.fromHeaders(message.getHeaders(), jmsMessage);
+				if (this.jmsTemplate.isExplicitQosEnabled()) {
+					Integer priority = message.getHeaders().getPriority();
+					this.batchProducer.send(destination, jmsMessage, this.jmsTemplate.getDeliveryMode(),
+							(priority != null) ? priority : this.jmsTemplate.getPriority(), this.jmsTemplate.getTimeToLive());
+				}
+				else {
+					this.batchProducer.send(destination, jmsMessage);
+				}
+			}
+			session.commit();
+			this.sentBatchCount.incrementAndGet();
+			if (logger.isDebugEnabled()) {
+				logger.debug("committed batch of " + messages.size() + " messages");
+			}
+		}
+		catch (Exception e) {
+			this.failedBatchCount.incrementAndGet();
+			try {
+				if (this.batchSession != null) {
+					this.batchSession.rollback();
+				}
+			}
+			catch (Exception rollbackException) {
+				logger.debug("failed to roll back batch", rollbackException);
+			}
+			// the Session or Connection may be broken, start afresh with the next batch
+			this.releaseBatchResources();
+			MessagePublishingErrorHandler errorHandler = this.errorHandler;
+			if (errorHandler == null) {
+				errorHandler = new MessagePublishingErrorHandler();
+				errorHandler.setDefaultErrorChannel(this.errorChannel);
+				this.errorHandler = errorHandler;
+			}
+			for (Message<?> message : messages) {
+				errorHandler.handleError(new MessageDeliveryException(message,
+						"failed to send batch of " + messages.size() + " JMS messages", e));
+			}
+		}
+	}
+
+	private Session obtainBatchSession() throws JMSException {
+		if (this.batchSession == null) {
+			this.batchConnection = this.jmsTemplate.getConnectionFactory().createConnection();
+			this.batchSession = this.batchConnection.createSession(true, Session.SESSION_TRANSACTED);
+			this.batchProducer = this.batchSession.createProducer(null);
+		}
+		return this.batchSession;
+	}
+
+	private Destination resolveBatchDestination(Message<?> message, Session session) throws JMSException {
+		Object destination = this.determineDestination(message);
+		if (destination instanceof Destination) {
+			return (Destination) destination;
+		}
+		String destinationName = (String) destination;
+		if (destinationName == null) {
+			if (this.jmsTemplate.getDefaultDestination() != null) {
+				return this.jmsTemplate.getDefaultDestination();
+			}
+			destinationName = this.jmsTemplate.getDefaultDestinationName();
+		}
+		if (destinationName == null) {
+			throw new MessageDeliveryException(message, "No destination has been configured and the JmsTemplate has no default destination.");
+		}
+		return this.jmsTemplate.getDestinationResolver().resolveDestinationName(
+				session, destinationName, this.jmsTemplate.isPubSubDomain());
+	}
+
+	private void releaseBatchResources() {
+		JmsUtils.closeMessageProducer(this.batchProducer);
+		JmsUtils.closeSession(this.batchSession);
+		ConnectionFactoryUtils.releaseConnection(this.batchConnection, this.jmsTemplate.getConnectionFactory(), false);
+		this.batchProducer = null;
+		this.batchSession = null;
+		this.batchConnection = null;
+	}
+
+
 	private static class HeaderMappingMessagePostProcessor implements MessagePostProcessor {
 
 		private final Message<?> integrationMessage;
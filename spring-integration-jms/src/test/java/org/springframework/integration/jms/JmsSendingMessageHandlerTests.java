@@ -0,0 +1,188 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.jms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.Connection;
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.Session;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.command.ActiveMQQueue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.integration.Message;
+import org.springframework.integration.MessageDeliveryException;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.message.ErrorMessage;
+import org.springframework.integration.message.GenericMessage;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.support.converter.SimpleMessageConverter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * @since 2.1
+ */
+public class JmsSendingMessageHandlerTests {
+
+	private final Destination queue = new ActiveMQQueue("batching.handler.test");
+
+	private JmsTemplate jmsTemplate;
+
+	private Connection brokerConnection;
+
+	@Before
+	public void setup() throws Exception {
+		ActiveMQConnectionFactory connectionFactory = new ActiveMQConnectionFactory("vm://localhost?broker.persistent=false");
+		// keeps the embedded broker alive between the template's connections
+		this.brokerConnection = connectionFactory.createConnection();
+		this.jmsTemplate = new JmsTemplate(connectionFactory);
+		this.jmsTemplate.setReceiveTimeout(1000);
+	}
+
+	@After
+	public void drain() throws Exception {
+		this.jmsTemplate.setReceiveTimeout(100);
+		while (this.jmsTemplate.receive(this.queue) != null) {
+			// discard
+		}
+		this.brokerConnection.close();
+	}
+
+	@Test
+	public void sendsOnlyFullBatchesUntilFlushed() {
+		JmsSendingMessageHandler handler = new JmsSendingMessageHandler(this.jmsTemplate);
+		handler.setDestination(this.queue);
+		handler.setBatchSize(5);
+		handler.afterPropertiesSet();
+		for (int i = 0; i < 12; i++) {
+			handler.handleMessage(new GenericMessage<String>("test" + i));
+		}
+		assertEquals(2, handler.getSentBatchCount());
+		for (int i = 0; i < 10; i++) {
+			assertEquals("test" + i, this.jmsTemplate.receiveAndConvert(this.queue));
+		}
+		this.jmsTemplate.setReceiveTimeout(200);
+		assertNull(this.jmsTemplate.receive(this.queue));
+		handler.destroy();
+		assertEquals(3, handler.getSentBatchCount());
+		assertEquals("test10", this.jmsTemplate.receiveAndConvert(this.queue));
+		assertEquals("test11", this.jmsTemplate.receiveAndConvert(this.queue));
+	}
+
+	@Test
+	public void sendsIncompleteBatchAfterTimeout() throws Exception {
+		ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+		scheduler.afterPropertiesSet();
+		JmsSendingMessageHandler handler = new JmsSendingMessageHandler(this.jmsTemplate);
+		handler.setDestination(this.queue);
+		handler.setBatchSize(100);
+		handler.setBatchTimeout(100);
+		handler.setTaskScheduler(scheduler);
+		handler.afterPropertiesSet();
+		handler.handleMessage(new GenericMessage<String>("foo"));
+		assertEquals("foo", this.jmsTemplate.receiveAndConvert(this.queue));
+		assertTrue(handler.getSentBatchCount() >= 1);
+		handler.destroy();
+		scheduler.destroy();
+	}
+
+	@Test
+	public void failedBatchIsRolledBackAndSentToErrorChannel() {
+		QueueChannel errorChannel = new QueueChannel();
+		JmsSendingMessageHandler handler = new JmsSendingMessageHandler(this.jmsTemplate);
+		handler.setDestination(this.queue);
+		handler.setBatchSize(3);
+		handler.setErrorChannel(errorChannel);
+		handler.afterPropertiesSet();
+		handler.handleMessage(new GenericMessage<String>("good"));
+		// not convertible by the SimpleMessageConverter
+		handler.handleMessage(new GenericMessage<Object>(new Object()));
+		handler.handleMessage(new GenericMessage<String>("good again"));
+		assertEquals(0, handler.getSentBatchCount());
+		assertEquals(1, handler.getFailedBatchCount());
+		for (int i = 0; i < 3; i++) {
+			Message<?> errorMessage = errorChannel.receive(0);
+			assertNotNull(errorMessage);
+			assertTrue(errorMessage instanceof ErrorMessage);
+			assertTrue(errorMessage.getPayload() instanceof MessageDeliveryException);
+		}
+		this.jmsTemplate.setReceiveTimeout(200);
+		assertNull(this.jmsTemplate.receive(this.queue));
+
+		// the next batch uses a fresh Session
+		for (int i = 0; i < 3; i++) {
+			handler.handleMessage(new GenericMessage<String>("retry" + i));
+		}
+		assertEquals(1, handler.getSentBatchCount());
+		assertEquals("retry0", this.jmsTemplate.receiveAndConvert(this.queue));
+		handler.destroy();
+	}
+
+	@Test(timeout = 10000)
+	public void messagesAreAddedWhileABatchIsSent() throws Exception {
+		final CountDownLatch converting = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		this.jmsTemplate.setMessageConverter(new SimpleMessageConverter() {
+			@Override
+			public javax.jms.Message toMessage(Object object, Session session) throws JMSException {
+				if ("block".equals(object)) {
+					converting.countDown();
+					try {
+						release.await(10, TimeUnit.SECONDS);
+					}
+					catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				return super.toMessage(object, session);
+			}
+		});
+		final JmsSendingMessageHandler handler = new JmsSendingMessageHandler(this.jmsTemplate);
+		handler.setDestination(this.queue);
+		handler.setBatchSize(2);
+		handler.afterPropertiesSet();
+		Thread sender = new Thread(new Runnable() {
+			public void run() {
+				handler.handleMessage(new GenericMessage<String>("block"));
+				handler.handleMessage(new GenericMessage<String>("next"));
+			}
+		});
+		sender.start();
+		assertTrue(converting.await(10, TimeUnit.SECONDS));
+		// the batch being sent must not hold up adding to the next one
+		handler.handleMessage(new GenericMessage<String>("added"));
+		release.countDown();
+		sender.join(10000);
+		handler.destroy();
+		assertEquals(2, handler.getSentBatchCount());
+		assertEquals("block", this.jmsTemplate.receiveAndConvert(this.queue));
+		assertEquals("next", this.jmsTemplate.receiveAndConvert(this.queue));
+		assertEquals("added", this.jmsTemplate.receiveAndConvert(this.queue));
+	}
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2002-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.jms.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+import org.springframework.integration.Message;
+import org.springframework.integration.MessageChannel;
+import org.springframework.integration.core.MessagingTemplate;
+import org.springframework.integration.jms.JmsOutboundGateway;
+import org.springframework.integration.message.GenericMessage;
+import org.springframework.integration.test.util.TestUtils;
+
+/**
+ * @since 2.1
+ */
+public class JmsOutboundGatewayReplyListenerTests {
+
+	private ClassPathXmlApplicationContext context;
+
+	@Before
+	public void prepare() {
+		ActiveMqTestUtils.prepare();
+		this.context = new ClassPathXmlApplicationContext("JmsOutboundGatewayReplyListenerTests-context.xml", this.getClass());
+	}
+
+	@After
+	public void cleanup() {
+		this.context.close();
+	}
+
+	@Test
+	public void concurrentRequestsWithTemporaryReplyQueue() throws Exception {
+		this.verifyConcurrentRequests("temporaryQueueChannel", "temporaryQueueGateway");
+	}
+
+	@Test
+	public void concurrentRequestsWithFixedReplyQueue() throws Exception {
+		this.verifyConcurrentRequests("fixedQueueChannel", "fixedQueueGateway");
+	}
+
+	private void verifyConcurrentRequests(String channelName, String gatewayName) throws Exception {
+		final MessagingTemplate template = new MessagingTemplate(this.context.getBean(channelName, MessageChannel.class));
+		template.setReceiveTimeout(10000);
+		ExecutorService executor = Executors.newFixedThreadPool(10);
+		List<Future<Message<?>>> replies = new ArrayList<Future<Message<?>>>();
+		for (int i = 0; i < 50; i++) {
+			final String payload = "request" + i;
+			replies.add(executor.submit(new Callable<Message<?>>() {
+				public Message<?> call() throws Exception {
+					return template.sendAndReceive(new GenericMessage<String>(payload));
+				}
+			}));
+		}
+		for (int i = 0; i < 50; i++) {
+			assertEquals("REQUEST" + i, replies.get(i).get().getPayload());
+		}
+		executor.shutdown();
+		JmsOutboundGateway gateway = TestUtils.getPropertyValue(this.context.getBean(gatewayName), "handler", JmsOutboundGateway.class);
+		assertEquals(0, gateway.getPendingReplyCount());
+		assertEquals(0, gateway.getReplyTimeoutCount());
+		assertEquals(0, gateway.getLateReplyCount());
+		assertTrue(TestUtils.getPropertyValue(gateway, "replyListener") != null);
+	}
+
+}
@@ -83,6 +83,8 @@ public abstract class AbstractMailReceiver extends IntegrationObjectSupport impl
 
 	private final Object folderMonitor = new Object();
 
+	private volatile boolean expungePending;
+
 
 	public AbstractMailReceiver() {
 		this.url = null;
@@ -171,6 +173,18 @@ public abstract class AbstractMailReceiver extends IntegrationObjectSupport impl
 		return this.folder;
 	}
 
+	/**
+	 * Indicates whether received messages are passed on as they are, with their content
+	 * loaded from the folder on demand, instead of as fully downloaded copies. If true, the
+	 * folder is kept open after {@link #receive()}, so that the content can be loaded later.
+	 * Since a message stays RECENT for as long as the folder is open, every received message
+	 * is then flagged to prevent duplicates, and messages deleted by one call to
+	 * {@link #receive()} are expunged by the next. False by default.
+	 */
+	protected boolean isLazyLoadContent() {
+		return false;
+	}
+
 	/**
 	 * Subclasses must implement this method to return new mail messages.
 	 */
@@ -223,8 +237,13 @@ public abstract class AbstractMailReceiver extends IntegrationObjectSupport impl
 	
 	public Message[] receive() throws javax.mail.MessagingException {	
 		synchronized (this.folderMonitor) {
+			boolean lazyLoadContent = this.isLazyLoadContent();
 			try {
 				this.openFolder();
+				if (this.expungePending) {
+					this.expungePending = false;
+					this.getFolder().expunge();
+				}
 				if (logger.isInfoEnabled()) {
 					logger.info("attempting to receive mail from folder [" + this.getFolder().getFullName() + "]");
 				}
@@ -252,7 +271,7 @@ public abstract class AbstractMailReceiver extends IntegrationObjectSupport impl
 				}
 				
 				for (int i = 0; i < messages.length; i++) {
-					if (!recentFlagSupported){
+					if (!recentFlagSupported || lazyLoadContent){
 						if (flags != null && flags.contains(Flags.Flag.USER)){
 							if (logger.isDebugEnabled()){
 								logger.debug("USER flags are supported by this mail server. Flagging message with '" + SI_USER_FLAG + "' user flag");
@@ -272,7 +291,7 @@ public abstract class AbstractMailReceiver extends IntegrationObjectSupport impl
 						Message message = messages[i];
 						if (this.selectorExpression.getValue(this.context, message, Boolean.class)){
 							this.setAdditionalFlags(message);
-							copiedMessages.add(new MimeMessage((MimeMessage) message));
+							copiedMessages.add(lazyLoadContent ? message : new MimeMessage((MimeMessage) message));
 						}	
 						else {
 							if (logger.isDebugEnabled()){
@@ -283,16 +302,19 @@ public abstract class AbstractMailReceiver extends IntegrationObjectSupport impl
 					}
 					else {
 						this.setAdditionalFlags(messages[i]);
-						copiedMessages.add(new MimeMessage((MimeMessage) messages[i]));
+						copiedMessages.add(lazyLoadContent ? messages[i] : new MimeMessage((MimeMessage) messages[i]));
 					}	
 				}
 				if (this.shouldDeleteMessages()) {
 					this.deleteMessages(messages);
+					this.expungePending = lazyLoadContent && messages.length > 0;
 				}
 				return copiedMessages.toArray(new Message[]{});
 			}
 			finally {
-				MailTransportUtils.closeFolder(this.folder, this.shouldDeleteMessages);
+				if (!lazyLoadContent) {
+					MailTransportUtils.closeFolder(this.folder, this.shouldDeleteMessages);
+				}
 			}
 		}	
 	}
@@ -339,6 +361,7 @@ public abstract class AbstractMailReceiver extends IntegrationObjectSupport impl
 		synchronized (this.folderMonitor) {
 			MailTransportUtils.closeFolder(this.folder, this.shouldDeleteMessages);
 			MailTransportUtils.closeService(this.store);
+			this.expungePending = false;
 			this.folder = null;
 			this.store = null;
 			this.initialized = false;
@@ -16,6 +16,7 @@
 
 package org.springframework.integration.mail;
 
+import javax.mail.FetchProfile;
 import javax.mail.Flags;
 import javax.mail.Flags.Flag;
 import javax.mail.Folder;
@@ -41,6 +42,11 @@ import com.sun.mail.imap.IMAPMessage;
  * the option of blocking until new messages are available prior to calling
  * {@link #receive()}. That option is only available if the server supports
  * the {@link IMAPFolder#idle() idle} command.
+ * <p/>
+ * By default, each received message is a fully downloaded copy. If 'lazyLoadContent' is
+ * true, the messages of the folder are passed on instead: their envelope, headers and
+ * structure are fetched in a batch by {@link #receive()}, but body parts are only loaded
+ * from the server when they are accessed.
  * 
  * @author Arjen Poutsma
  * @author Mark Fisher
@@ -50,6 +56,8 @@ public class ImapMailReceiver extends AbstractMailReceiver {
 
 	private volatile boolean shouldMarkMessagesAsRead = true;
 
+	private volatile boolean lazyLoadContent;
+
 	private final MessageCountListener messageCountListener = new SimpleMessageCountListener();
 
 	public ImapMailReceiver() {
@@ -83,6 +91,27 @@ public class ImapMailReceiver extends AbstractMailReceiver {
 		this.shouldMarkMessagesAsRead = shouldMarkMessagesAsRead;
 	}
 
+	/**
+	 * Specify whether the content of received messages should be loaded from the server
+	 * only when it is accessed, rather than downloaded for every message upon receipt.
+	 * The folder then stays open between calls to {@link #receive()} (until this receiver
+	 * is destroyed), and the messages must not be used once it has been closed. Since
+	 * messages stay RECENT while the folder is open, new messages are recognized by the
+	 * '{@value #SI_USER_FLAG}' user flag (or FLAGGED, if the server does not support user
+	 * flags) instead, which is set on every received message. Messages that are deleted
+	 * are expunged at the start of the next call to {@link #receive()}, so they must have
+	 * been processed by then. Default is false.
+	 * @since 2.1
+	 */
+	public void setLazyLoadContent(boolean lazyLoadContent) {
+		this.lazyLoadContent = lazyLoadContent;
+	}
+
+	@Override
+	protected boolean isLazyLoadContent() {
+		return this.lazyLoadContent;
+	}
+
 	/**
 	 * This method is unique to the IMAP receiver and only works if IMAP IDLE
 	 * is supported (see RFC 2177 for more detail).
@@ -110,7 +139,9 @@ public class ImapMailReceiver extends AbstractMailReceiver {
 	 * folder that are {@link javax.mail.Flags.Flag#RECENT RECENT}, not
 	 * {@link javax.mail.Flags.Flag#ANSWERED ANSWERED}, and not
 	 * {@link javax.mail.Flags.Flag#DELETED DELETED}. The search term is used
-	 * to {@link Folder#search(SearchTerm) search} for new messages.
+	 * to {@link Folder#search(SearchTerm) search} for new messages. If RECENT is not
+	 * supported, or the content is loaded lazily, messages flagged by a previous
+	 * call are excluded instead of relying on RECENT.
 	 *
 	 * @return the new messages
 	 * @throws MessagingException in case of JavaMail errors
@@ -135,7 +166,7 @@ public class ImapMailReceiver extends AbstractMailReceiver {
 		boolean recentFlagSupported = false;
 		if (supportedFlags != null) {
 			recentFlagSupported = supportedFlags.contains(Flags.Flag.RECENT);
-			if (recentFlagSupported) {
+			if (recentFlagSupported && !this.lazyLoadContent) {
 				searchTerm = new FlagTerm(new Flags(Flags.Flag.RECENT), true);
 			}
 			if (supportedFlags.contains(Flags.Flag.ANSWERED)) {
@@ -167,7 +198,7 @@ public class ImapMailReceiver extends AbstractMailReceiver {
 			}
 		}
 
-		if (!recentFlagSupported) {
+		if (!recentFlagSupported || this.lazyLoadContent) {
 			NotTerm notFlagged = null;
 			if (this.getFolder().getPermanentFlags().contains(Flags.Flag.USER)) {
 				logger.debug("This email server does not support RECENT flag, but it does support " +
@@ -191,6 +222,25 @@ public class ImapMailReceiver extends AbstractMailReceiver {
 		return searchTerm;
 	}
 
+	/**
+	 * Fetches the envelope, structure and flags of the given messages. If the content is
+	 * loaded lazily, all headers are fetched as well, so that they are not loaded with a
+	 * separate request for each message.
+	 */
+	@Override
+	protected void fetchMessages(Message[] messages) throws MessagingException {
+		if (!this.lazyLoadContent) {
+			super.fetchMessages(messages);
+			return;
+		}
+		FetchProfile contentsProfile = new FetchProfile();
+		contentsProfile.add(FetchProfile.Item.ENVELOPE);
+		contentsProfile.add(FetchProfile.Item.CONTENT_INFO);
+		contentsProfile.add(FetchProfile.Item.FLAGS);
+		contentsProfile.add(IMAPFolder.FetchProfileItem.HEADERS);
+		this.getFolder().fetch(messages, contentsProfile);
+	}
+
 	protected void setAdditionalFlags(Message message) throws MessagingException {
 		super.setAdditionalFlags(message);
 		if (this.shouldMarkMessagesAsRead) {
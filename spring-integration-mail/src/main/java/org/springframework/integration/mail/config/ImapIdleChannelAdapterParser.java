@@ -86,6 +86,7 @@ public class ImapIdleChannelAdapterParser extends AbstractSingleBeanDefinitionPa
 		if (StringUtils.hasText(markAsRead)){
 			receiverBuilder.addPropertyValue("shouldMarkMessagesAsRead", markAsRead);
 		}
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(receiverBuilder, element, "lazy-load-content");
 		
 		String selectorExpression = element.getAttribute("mail-filter-expression");
 		
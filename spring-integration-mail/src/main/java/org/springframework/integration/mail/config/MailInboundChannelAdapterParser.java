@@ -84,6 +84,7 @@ public class MailInboundChannelAdapterParser extends AbstractPollingInboundChann
 		if (StringUtils.hasText(markAsRead)){
 			receiverBuilder.addPropertyValue("shouldMarkMessagesAsRead", markAsRead);
 		}
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(receiverBuilder, element, "lazy-load-content");
 		
 		String selectorExpression = element.getAttribute("mail-filter-expression");
 		
@@ -64,6 +64,8 @@ public class MailReceiverFactoryBean implements FactoryBean<MailReceiver>, Dispo
 	
 	private volatile Boolean shouldMarkMessagesAsRead = null;
 
+	private volatile boolean lazyLoadContent;
+
 	private volatile int maxFetchSize = 1;
 	
 	private volatile Expression selectorExpression;
@@ -101,6 +103,10 @@ public class MailReceiverFactoryBean implements FactoryBean<MailReceiver>, Dispo
 		return shouldMarkMessagesAsRead != null && shouldMarkMessagesAsRead;
 	}
 
+	public void setLazyLoadContent(boolean lazyLoadContent) {
+		this.lazyLoadContent = lazyLoadContent;
+	}
+
 	public void setMaxFetchSize(int maxFetchSize) {
 		this.maxFetchSize = maxFetchSize;
 	}
@@ -170,9 +176,13 @@ public class MailReceiverFactoryBean implements FactoryBean<MailReceiver>, Dispo
 			if (this.isShouldMarkMessagesAsRead() && this.logger.isWarnEnabled()) {
 				logger.warn("Setting 'should-mark-messages-as-read' to 'true' while using POP3 has no effect");
 			}
+			if (this.lazyLoadContent && this.logger.isWarnEnabled()) {
+				logger.warn("Setting 'lazy-load-content' to 'true' while using POP3 has no effect");
+			}
 		}
 		else if (isImap) {
 			((ImapMailReceiver) receiver).setShouldMarkMessagesAsRead(this.shouldMarkMessagesAsRead);
+			((ImapMailReceiver) receiver).setLazyLoadContent(this.lazyLoadContent);
 		}
 		receiver.afterPropertiesSet();
 		return receiver;
@@ -17,6 +17,7 @@ package org.springframework.integration.mail;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
@@ -28,6 +29,7 @@ import java.lang.reflect.Field;
 import java.util.Properties;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import javax.mail.FetchProfile;
 import javax.mail.Flags;
 import javax.mail.Flags.Flag;
 import javax.mail.Folder;
@@ -280,6 +282,99 @@ public class ImapMailReceiverTests {
 		verify(msg2, times(1)).setFlag(Flag.SEEN, true);
 		verify(receiver, times(0)).deleteMessages((Message[]) Mockito.any());
 	}
+	@Test
+	public void receiveWithLazyLoadContent() throws Exception {
+		ImapMailReceiver receiver = new ImapMailReceiver();
+		receiver.setLazyLoadContent(true);
+		receiver = spy(receiver);
+		receiver.afterPropertiesSet();
+		Field folderField = AbstractMailReceiver.class.getDeclaredField("folder");
+		folderField.setAccessible(true);
+		final IMAPFolder folder = mock(IMAPFolder.class);
+		when(folder.getPermanentFlags()).thenReturn(new Flags(Flags.Flag.USER));
+		when(folder.isOpen()).thenReturn(true);
+		folderField.set(receiver, folder);
+
+		Message msg1 = mock(MimeMessage.class);
+		Message msg2 = mock(MimeMessage.class);
+		final Message[] messages = new Message[]{msg1, msg2};
+
+		doAnswer(new Answer<Object>() {
+			public Object answer(InvocationOnMock invocation) throws Throwable {
+				return null;
+			}
+		}).when(receiver).openFolder();
+
+		doAnswer(new Answer<Object>() {
+			public Object answer(InvocationOnMock invocation) throws Throwable {
+				return messages;
+			}
+		}).when(receiver).searchForNewMessages();
+
+		final AtomicInteger fetchedWithHeaders = new AtomicInteger();
+		doAnswer(new Answer<Object>() {
+			public Object answer(InvocationOnMock invocation) throws Throwable {
+				FetchProfile profile = (FetchProfile) invocation.getArguments()[1];
+				if (profile.contains(IMAPFolder.FetchProfileItem.HEADERS)
+						&& profile.contains(FetchProfile.Item.CONTENT_INFO)) {
+					fetchedWithHeaders.incrementAndGet();
+				}
+				return null;
+			}
+		}).when(folder).fetch(Mockito.eq(messages), (FetchProfile) Mockito.any());
+
+		Message[] received = receiver.receive();
+		assertEquals(2, received.length);
+		assertSame(msg1, received[0]);
+		assertSame(msg2, received[1]);
+		assertEquals(1, fetchedWithHeaders.get());
+		verify(msg1, times(1)).setFlag(Flag.SEEN, true);
+		verify(folder, times(0)).close(Mockito.anyBoolean());
+	}
+
+	@Test
+	public void lazyLoadContentFlagsMessagesAndExpungesDeletionsOnNextPoll() throws Exception {
+		ImapMailReceiver receiver = new ImapMailReceiver();
+		receiver.setLazyLoadContent(true);
+		receiver.setShouldDeleteMessages(true);
+		receiver = spy(receiver);
+		receiver.afterPropertiesSet();
+		Field folderField = AbstractMailReceiver.class.getDeclaredField("folder");
+		folderField.setAccessible(true);
+		final IMAPFolder folder = mock(IMAPFolder.class);
+		Flags permanentFlags = new Flags(Flags.Flag.RECENT);
+		permanentFlags.add(Flags.Flag.USER);
+		when(folder.getPermanentFlags()).thenReturn(permanentFlags);
+		when(folder.isOpen()).thenReturn(true);
+		folderField.set(receiver, folder);
+
+		Message msg1 = mock(MimeMessage.class);
+		final Message[] messages = new Message[]{msg1};
+
+		doAnswer(new Answer<Object>() {
+			public Object answer(InvocationOnMock invocation) throws Throwable {
+				return null;
+			}
+		}).when(receiver).openFolder();
+
+		doAnswer(new Answer<Object>() {
+			public Object answer(InvocationOnMock invocation) throws Throwable {
+				return messages;
+			}
+		}).when(receiver).searchForNewMessages();
+
+		receiver.receive();
+		Flags siFlags = new Flags();
+		siFlags.add(AbstractMailReceiver.SI_USER_FLAG);
+		verify(msg1, times(1)).setFlags(siFlags, true);
+		verify(msg1, times(1)).setFlag(Flag.DELETED, true);
+		verify(folder, times(0)).expunge();
+
+		receiver.receive();
+		verify(folder, times(1)).expunge();
+		verify(folder, times(0)).close(Mockito.anyBoolean());
+	}
+
 	@Test
 	@Ignore
 	public void testMessageHistory() throws Exception{
@@ -201,6 +201,23 @@ public class InboundChannelAdapterParserTests {
 		assertEquals(33, value);
 	}
 
+	@Test
+	public void imapWithLazyLoadContent() {
+		AbstractMailReceiver receiver = this.getReceiver("imapWithLazyLoadContent");
+		assertEquals(ImapMailReceiver.class, receiver.getClass());
+		Object value = new DirectFieldAccessor(receiver).getPropertyValue("lazyLoadContent");
+		assertEquals(true, value);
+		assertEquals(false, new DirectFieldAccessor(this.getReceiver("imapWithMaxFetchSize")).getPropertyValue("lazyLoadContent"));
+	}
+
+	@Test
+	public void imapIdleWithLazyLoadContent() {
+		AbstractMailReceiver receiver = this.getReceiver("imapIdleWithLazyLoadContent");
+		assertEquals(ImapMailReceiver.class, receiver.getClass());
+		Object value = new DirectFieldAccessor(receiver).getPropertyValue("lazyLoadContent");
+		assertEquals(true, value);
+	}
+
 
 	//==================== INT-1161 ====================
 
@@ -17,14 +17,14 @@
 package org.springframework.integration.mongodb.store;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
-import org.springframework.beans.DirectFieldAccessor;
 import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.data.mapping.context.MappingContext;
 import org.springframework.data.mongodb.MongoDbFactory;
@@ -39,7 +39,6 @@ import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessageHeaders;
-import org.springframework.integration.message.GenericMessage;
 import org.springframework.integration.store.AbstractMessageGroupStore;
 import org.springframework.integration.store.MessageGroup;
 import org.springframework.integration.store.MessageGroupStore;
@@ -48,9 +47,10 @@ import org.springframework.integration.store.SimpleMessageGroup;
 import org.springframework.jmx.export.annotation.ManagedAttribute;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
-import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
 import com.mongodb.DBObject;
 
 import static org.springframework.data.mongodb.core.query.Criteria.where;
@@ -58,15 +58,28 @@ import static org.springframework.data.mongodb.core.query.Criteria.where;
 /**
  * An implementation of both the {@link MessageStore} and {@link MessageGroupStore}
  * strategies that relies upon MongoDB for persistence.
+ * <p>
+ * By default the group metadata is kept on each grouped message document. When
+ * {@link #setUseGroupDocuments(boolean) group documents} are enabled, the metadata of
+ * each group is instead kept in a single document of a companion collection
+ * (named after the message collection with a {@value #GROUP_COLLECTION_SUFFIX} suffix)
+ * which is updated atomically, and every grouped message carries a group sequence
+ * assigned from that document so the group can be polled in insertion order.
+ * <p>
+ * The indexes required by the store's queries are created in {@link #afterPropertiesSet()}.
  * 
  * @author Mark Fisher
  * @author Oleg Zhurakousky
  * @since 2.1
  */
-public class MongoDbMessageStore extends AbstractMessageGroupStore implements MessageStore, BeanClassLoaderAware {
+public class MongoDbMessageStore extends AbstractMessageGroupStore implements MessageStore, BeanClassLoaderAware, InitializingBean {
+
+	public final static String GROUP_COLLECTION_SUFFIX = "_groups";
 
 	private final static String DEFAULT_COLLECTION_NAME = "messages";
 
+	private final static String MESSAGE_ID_KEY = "headers.id";
+
 	private final static String GROUP_ID_KEY = "_groupId";
 
 	private final static String GROUP_COMPLETE_KEY = "_group_complete";
@@ -81,13 +94,25 @@ public class MongoDbMessageStore extends AbstractMessageGroupStore implements Me
 	
 	private final static String CREATED_DATE = "_createdDate";
 
+	private final static String GROUP_SEQUENCE_KEY = "_group_sequence";
+
 
 	private final MongoTemplate template;
 
+	private final MessageReadingMongoConverter converter;
+
 	private final String collectionName;
 
+	private final String groupCollectionName;
+
 	private volatile ClassLoader classLoader = ClassUtils.getDefaultClassLoader();
 
+	private volatile boolean useGroupDocuments;
+
+	private volatile boolean indexesEnsured;
+
+	private final Object indexMonitor = new Object();
+
 
 	/**
 	 * Create a MongoDbMessageStore using the provided {@link MongoDbFactory}.and the default collection name.
@@ -101,10 +126,11 @@ public class MongoDbMessageStore extends AbstractMessageGroupStore implements Me
 	 */
 	public MongoDbMessageStore(MongoDbFactory mongoDbFactory, String collectionName) {
 		Assert.notNull(mongoDbFactory, "mongoDbFactory must not be null");
-		MessageReadingMongoConverter converter = new MessageReadingMongoConverter(mongoDbFactory, new MongoMappingContext());
-		converter.afterPropertiesSet();
-		this.template = new MongoTemplate(mongoDbFactory, converter);
+		this.converter = new MessageReadingMongoConverter(mongoDbFactory, new MongoMappingContext());
+		this.converter.afterPropertiesSet();
+		this.template = new MongoTemplate(mongoDbFactory, this.converter);
 		this.collectionName = (StringUtils.hasText(collectionName)) ? collectionName : DEFAULT_COLLECTION_NAME;
+		this.groupCollectionName = this.collectionName + GROUP_COLLECTION_SUFFIX;
 	}
 
 
@@ -113,14 +139,66 @@ public class MongoDbMessageStore extends AbstractMessageGroupStore implements Me
 		this.classLoader = classLoader;
 	}
 
+	/**
+	 * Specify whether the metadata of each message group should be kept in a single
+	 * group document that is updated atomically rather than on every grouped message.
+	 * Default is 'false'. This setting must not be changed for a collection that
+	 * already contains grouped messages, and must be set before the store is first used.
+	 */
+	public void setUseGroupDocuments(boolean useGroupDocuments) {
+		this.useGroupDocuments = useGroupDocuments;
+	}
+
+	/**
+	 * Ensures the indexes used by the message and group queries exist. They are
+	 * otherwise created when the store is first used.
+	 */
+	public void afterPropertiesSet() {
+		this.ensureIndexes();
+	}
+
+	/**
+	 * Creates the indexes once, matching the sort of each group query: the most recently
+	 * updated member for the group metadata and the oldest member for polling, or the
+	 * group sequence if group documents are used.
+	 */
+	private void ensureIndexes() {
+		if (this.indexesEnsured) {
+			return;
+		}
+		synchronized (this.indexMonitor) {
+			if (this.indexesEnsured) {
+				return;
+			}
+			DBCollection collection = this.template.getCollection(this.collectionName);
+			collection.ensureIndex(new BasicDBObject(MESSAGE_ID_KEY, 1));
+			if (this.useGroupDocuments) {
+				BasicDBObject sequenceIndex = new BasicDBObject(GROUP_ID_KEY, 1);
+				sequenceIndex.put(GROUP_SEQUENCE_KEY, 1);
+				collection.ensureIndex(sequenceIndex);
+			}
+			else {
+				BasicDBObject updateIndex = new BasicDBObject(GROUP_ID_KEY, 1);
+				updateIndex.put(GROUP_UPDATE_TIMESTAMP_KEY, -1);
+				collection.ensureIndex(updateIndex);
+				BasicDBObject createdIndex = new BasicDBObject(GROUP_ID_KEY, 1);
+				createdIndex.put(CREATED_DATE, 1);
+				collection.ensureIndex(createdIndex);
+			}
+			this.indexesEnsured = true;
+		}
+	}
+
 	public <T> Message<T> addMessage(Message<T> message) {
 		Assert.notNull(message, "'message' must not be null");
+		this.ensureIndexes();
 		this.template.insert(new MessageWrapper(message), this.collectionName);
 		return message;
 	}
 
 	public Message<?> getMessage(UUID id) {
 		Assert.notNull(id, "'id' must not be null");
+		this.ensureIndexes();
 		MessageWrapper messageWrapper = this.template.findOne(whereMessageIdIs(id), MessageWrapper.class, this.collectionName);
 		return (messageWrapper != null) ? messageWrapper.getMessage() : null;
 	}
@@ -132,12 +210,17 @@ public class MongoDbMessageStore extends AbstractMessageGroupStore implements Me
 
 	public Message<?> removeMessage(UUID id) {
 		Assert.notNull(id, "'id' must not be null");
+		this.ensureIndexes();
 		MessageWrapper messageWrapper =  this.template.findAndRemove(whereMessageIdIs(id), MessageWrapper.class, this.collectionName);
 		return (messageWrapper != null) ? messageWrapper.getMessage() : null;
 	}
 
 	public MessageGroup getMessageGroup(Object groupId) {
 		Assert.notNull(groupId, "'groupId' must not be null");
+		this.ensureIndexes();
+		if (this.useGroupDocuments) {
+			return this.buildMessageGroup(groupId, this.findGroupDocument(groupId));
+		}
 		List<MessageWrapper> messageWrappers = this.template.find(whereGroupIdIs(groupId), MessageWrapper.class, this.collectionName);
 		List<Message<?>> messages = new ArrayList<Message<?>>();
 		long timestamp = 0;
@@ -168,10 +251,22 @@ public class MongoDbMessageStore extends AbstractMessageGroupStore implements Me
 	public MessageGroup addMessageToGroup(Object groupId, Message<?> message) {
 		Assert.notNull(groupId, "'groupId' must not be null");
 		Assert.notNull(message, "'message' must not be null");
-		MessageGroup messageGroup = this.getMessageGroup(groupId);
+		this.ensureIndexes();
+		if (this.useGroupDocuments) {
+			return this.addMessageToGroupDocument(groupId, message);
+		}
+		// only the most recently updated member is needed to carry the group metadata over
+		MessageWrapper lastUpdated = this.template.findOne(whereGroupIdIs(groupId), MessageWrapper.class, this.collectionName);
 
-		long messageGroupTimestamp = messageGroup.getTimestamp();
-		long lastModified = messageGroup.getLastModified();
+		long messageGroupTimestamp = 0;
+		long lastModified = 0;
+		boolean complete = false;
+		int lastReleasedSequenceNumber = 0;
+		if (lastUpdated != null) {
+			messageGroupTimestamp = lastUpdated.getGroupTimestamp();
+			complete = lastUpdated.isCompletedGroup();
+			lastReleasedSequenceNumber = lastUpdated.getLastReleasedSequenceNumber();
+		}
 		
 		if (messageGroupTimestamp == 0){
 			messageGroupTimestamp = System.currentTimeMillis();
@@ -185,41 +280,56 @@ public class MongoDbMessageStore extends AbstractMessageGroupStore implements Me
 		wrapper.setGroupId(groupId);
 		wrapper.setGroupTimestamp(messageGroupTimestamp);
 		wrapper.setLastModified(lastModified);
-		wrapper.setCompletedGroup(messageGroup.isComplete());
-		wrapper.setLastReleasedSequenceNumber(messageGroup.getLastReleasedMessageSequenceNumber());
+		wrapper.setCompletedGroup(complete);
+		wrapper.setLastReleasedSequenceNumber(lastReleasedSequenceNumber);
 		
 		this.template.insert(wrapper, this.collectionName);
-		return this.getMessageGroup(groupId);
+		return new LazyMessageGroup(groupId, messageGroupTimestamp, lastModified, complete, lastReleasedSequenceNumber);
 	}
 
 	public MessageGroup removeMessageFromGroup(Object groupId, Message<?> messageToRemove) {
 		Assert.notNull(groupId, "'groupId' must not be null");
 		Assert.notNull(messageToRemove, "'messageToRemove' must not be null");
-		this.removeMessage(messageToRemove.getHeaders().getId());
-		this.updateGroup(groupId);
+		Message<?> removed = this.removeMessage(messageToRemove.getHeaders().getId());
+		if (this.useGroupDocuments) {
+			if (removed != null) {
+				this.updateGroupDocument(groupId, null, null, false);
+			}
+		}
+		else {
+			this.updateGroup(groupId);
+		}
 		return this.getMessageGroup(groupId);
 	}
 
 	public void removeMessageGroup(Object groupId) {
-		List<MessageWrapper> messageWrappers = this.template.find(whereGroupIdIs(groupId), MessageWrapper.class, this.collectionName);
-		for (MessageWrapper messageWrapper : messageWrappers) {
-			this.removeMessageFromGroup(groupId, messageWrapper.getMessage());
+		Assert.notNull(groupId, "'groupId' must not be null");
+		this.template.getCollection(this.collectionName).remove(new BasicDBObject(GROUP_ID_KEY, groupId));
+		if (this.useGroupDocuments) {
+			this.template.getCollection(this.groupCollectionName).remove(new BasicDBObject("_id", groupId));
 		}
 	}
 
+	/**
+	 * Lists the group ids with a 'distinct' query and builds each {@link MessageGroup} lazily.
+	 */
 	public Iterator<MessageGroup> iterator() {
-		List<MessageWrapper> groupedMessages = this.template.find(whereGroupIdExists(), MessageWrapper.class, this.collectionName);
-		Map<Object, MessageGroup> messageGroups = new HashMap<Object, MessageGroup>();
-		for (MessageWrapper groupedMessage : groupedMessages) {
-			Object groupId = groupedMessage.getGroupId();
-			if (!messageGroups.containsKey(groupId)) {
-				messageGroups.put(groupId, this.getMessageGroup(groupId));
-			}
+		List<?> groupIds;
+		if (this.useGroupDocuments) {
+			groupIds = this.template.getCollection(this.groupCollectionName).distinct("_id");
+		}
+		else {
+			groupIds = this.template.getCollection(this.collectionName).distinct(GROUP_ID_KEY);
 		}
-		return messageGroups.values().iterator();
+		return new MessageGroupIterator(groupIds.iterator());
 	}
 	
 	public void completeGroup(Object groupId) {
+		Assert.notNull(groupId, "'groupId' must not be null");
+		if (this.useGroupDocuments) {
+			this.updateGroupDocument(groupId, null, new BasicDBObject(GROUP_COMPLETE_KEY, true), false);
+			return;
+		}
 		Update update = Update.update(GROUP_COMPLETE_KEY, true);
 		Query q = whereGroupIdIs(groupId);
 		this.template.updateFirst(q, update, this.collectionName);
@@ -227,31 +337,125 @@ public class MongoDbMessageStore extends AbstractMessageGroupStore implements Me
 	}
 
 	public void setLastReleasedSequenceNumberForGroup(Object groupId, int sequenceNumber) {
+		Assert.notNull(groupId, "'groupId' must not be null");
+		if (this.useGroupDocuments) {
+			this.updateGroupDocument(groupId, null, new BasicDBObject(LAST_RELEASED_SEQUENCE_NUMBER, sequenceNumber), false);
+			return;
+		}
 		Update update = Update.update(LAST_RELEASED_SEQUENCE_NUMBER, sequenceNumber);
 		Query q = whereGroupIdIs(groupId);
 		this.template.updateFirst(q, update, this.collectionName);
 		this.updateGroup(groupId);
 	}
 	
+	/**
+	 * Removes the oldest message of the group with a single 'findAndModify' so that
+	 * concurrent pollers never receive the same message.
+	 */
 	public Message<?> pollMessageFromGroup(Object groupId) {
 		Assert.notNull(groupId, "'groupId' must not be null");
-		List<MessageWrapper> messageWrappers = this.template.find(whereGroupIdIsOrdered(groupId), MessageWrapper.class, this.collectionName);
+		this.ensureIndexes();
+		DBObject sort = new BasicDBObject((this.useGroupDocuments) ? GROUP_SEQUENCE_KEY : CREATED_DATE, 1);
+		DBObject removed = this.template.getCollection(this.collectionName)
+				.findAndModify(new BasicDBObject(GROUP_ID_KEY, groupId), null, sort, true, null, false, false);
 		Message<?> message = null;
-		
-		if (!CollectionUtils.isEmpty(messageWrappers)){
-			message = messageWrappers.get(0).getMessage();
-			this.removeMessageFromGroup(groupId, message);
+		if (removed != null) {
+			message = this.converter.read(MessageWrapper.class, removed).getMessage();
+		}
+		if (this.useGroupDocuments) {
+			if (message != null) {
+				this.updateGroupDocument(groupId, null, null, false);
+			}
+		}
+		else {
+			this.updateGroup(groupId);
 		}
-		this.updateGroup(groupId);
 		return message;
 	}
 
+	/*
+	 * Group document support
+	 */
+
+	private MessageGroup addMessageToGroupDocument(Object groupId, Message<?> message) {
+		long now = System.currentTimeMillis();
+		DBObject increments = new BasicDBObject(GROUP_SEQUENCE_KEY, 1L);
+		DBObject groupDocument = this.updateGroupDocument(groupId, increments, null, true);
+		Object timestamp = groupDocument.get(GROUP_TIMESTAMP_KEY);
+		if (timestamp == null) {
+			// first message of the group; only the winner of a concurrent race sets the creation time
+			DBObject query = new BasicDBObject("_id", groupId);
+			query.put(GROUP_TIMESTAMP_KEY, new BasicDBObject("$exists", false));
+			this.template.getCollection(this.groupCollectionName).update(query,
+					new BasicDBObject("$set", new BasicDBObject(GROUP_TIMESTAMP_KEY, now)));
+		}
+		MessageWrapper wrapper = new MessageWrapper(message);
+		wrapper.setGroupId(groupId);
+		wrapper.setGroupSequence(((Number) groupDocument.get(GROUP_SEQUENCE_KEY)).longValue());
+		this.template.insert(wrapper, this.collectionName);
+		Number lastModified = (Number) groupDocument.get(GROUP_UPDATE_TIMESTAMP_KEY);
+		Number lastReleasedSequenceNumber = (Number) groupDocument.get(LAST_RELEASED_SEQUENCE_NUMBER);
+		Boolean complete = (Boolean) groupDocument.get(GROUP_COMPLETE_KEY);
+		return new LazyMessageGroup(groupId, (timestamp != null) ? ((Number) timestamp).longValue() : now,
+				(lastModified != null) ? lastModified.longValue() : now, (complete != null) && complete.booleanValue(),
+				(lastReleasedSequenceNumber != null) ? lastReleasedSequenceNumber.intValue() : 0);
+	}
+
+	private DBObject findGroupDocument(Object groupId) {
+		return this.template.getCollection(this.groupCollectionName).findOne(new BasicDBObject("_id", groupId));
+	}
+
+	/**
+	 * Atomically applies the provided '$inc' and '$set' modifiers to the group document, creating it
+	 * only when 'upsert' is true, and always refreshes the group's last modified time.
+	 * @return the updated group document, or null if it does not exist and 'upsert' is false
+	 */
+	private DBObject updateGroupDocument(Object groupId, DBObject increments, DBObject values, boolean upsert) {
+		DBObject set = new BasicDBObject(GROUP_UPDATE_TIMESTAMP_KEY, System.currentTimeMillis());
+		if (values != null) {
+			set.putAll(values);
+		}
+		DBObject update = new BasicDBObject("$set", set);
+		if (increments != null) {
+			update.put("$inc", increments);
+		}
+		return this.template.getCollection(this.groupCollectionName)
+				.findAndModify(new BasicDBObject("_id", groupId), null, null, false, update, true, upsert);
+	}
+
+	private MessageGroup buildMessageGroup(Object groupId, DBObject groupDocument) {
+		if (groupDocument == null) {
+			return new SimpleMessageGroup(new ArrayList<Message<?>>(), groupId, 0, false);
+		}
+		Query query = new Query(where(GROUP_ID_KEY).is(groupId));
+		query.sort().on(GROUP_SEQUENCE_KEY, Order.ASCENDING);
+		List<MessageWrapper> messageWrappers = this.template.find(query, MessageWrapper.class, this.collectionName);
+		List<Message<?>> messages = new ArrayList<Message<?>>(messageWrappers.size());
+		for (MessageWrapper messageWrapper : messageWrappers) {
+			messages.add(messageWrapper.getMessage());
+		}
+		Number timestamp = (Number) groupDocument.get(GROUP_TIMESTAMP_KEY);
+		Number lastModified = (Number) groupDocument.get(GROUP_UPDATE_TIMESTAMP_KEY);
+		Number lastReleasedSequenceNumber = (Number) groupDocument.get(LAST_RELEASED_SEQUENCE_NUMBER);
+		Boolean complete = (Boolean) groupDocument.get(GROUP_COMPLETE_KEY);
+
+		SimpleMessageGroup messageGroup = new SimpleMessageGroup(messages, groupId,
+				(timestamp != null) ? timestamp.longValue() : 0, (complete != null) && complete.booleanValue());
+		if (lastModified != null) {
+			messageGroup.setLastModified(lastModified.longValue());
+		}
+		if (lastReleasedSequenceNumber != null && lastReleasedSequenceNumber.intValue() > 0) {
+			messageGroup.setLastReleasedMessageSequenceNumber(lastReleasedSequenceNumber.intValue());
+		}
+		return messageGroup;
+	}
+
 	/*
 	 * Common Queries
 	 */
 
 	private static Query whereMessageIdIs(UUID id) {
-		return new Query(where("headers.id").is(id.toString()));
+		return new Query(where(MESSAGE_ID_KEY).is(id.toString()));
 	}
 
 	private static Query whereGroupIdIs(Object groupId) {
@@ -259,16 +463,6 @@ public class MongoDbMessageStore extends AbstractMessageGroupStore implements Me
 		q.sort().on(GROUP_UPDATE_TIMESTAMP_KEY, Order.DESCENDING);
 		return q;
 	}
-
-	private static Query whereGroupIdExists() {
-		return new Query(where(GROUP_ID_KEY).exists(true));
-	}
-	
-	private static Query whereGroupIdIsOrdered(Object groupId) {
-		Query q = new Query(where(GROUP_ID_KEY).is(groupId)).limit(1);
-		q.sort().on(CREATED_DATE, Order.ASCENDING);
-		return q;
-	}
 	
 	private void updateGroup(Object groupId) {
 		Update update = Update.update(GROUP_UPDATE_TIMESTAMP_KEY, System.currentTimeMillis());
@@ -277,6 +471,121 @@ public class MongoDbMessageStore extends AbstractMessageGroupStore implements Me
 	}
 
 
+	private class MessageGroupIterator implements Iterator<MessageGroup> {
+
+		private final Iterator<?> idIterator;
+
+		private MessageGroupIterator(Iterator<?> idIterator) {
+			this.idIterator = idIterator;
+		}
+
+		public boolean hasNext() {
+			return this.idIterator.hasNext();
+		}
+
+		public MessageGroup next() {
+			return getMessageGroup(this.idIterator.next());
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+
+	/**
+	 * The group returned when a message is added. It carries the group metadata that is
+	 * already known and only reads (and deserializes) the messages of the group if the
+	 * caller asks for them.
+	 */
+	private class LazyMessageGroup implements MessageGroup {
+
+		private final Object groupId;
+
+		private final long timestamp;
+
+		private final long lastModified;
+
+		private volatile boolean complete;
+
+		private final int lastReleasedSequenceNumber;
+
+		private volatile MessageGroup messageGroup;
+
+		private LazyMessageGroup(Object groupId, long timestamp, long lastModified, boolean complete,
+				int lastReleasedSequenceNumber) {
+			this.groupId = groupId;
+			this.timestamp = timestamp;
+			this.lastModified = lastModified;
+			this.complete = complete;
+			this.lastReleasedSequenceNumber = lastReleasedSequenceNumber;
+		}
+
+		private MessageGroup getLoadedGroup() {
+			if (this.messageGroup == null) {
+				MessageGroup loaded = getMessageGroup(this.groupId);
+				if (this.complete) {
+					loaded.complete();
+				}
+				this.messageGroup = loaded;
+			}
+			return this.messageGroup;
+		}
+
+		public boolean canAdd(Message<?> message) {
+			return this.getLoadedGroup().canAdd(message);
+		}
+
+		public Collection<Message<?>> getMessages() {
+			return this.getLoadedGroup().getMessages();
+		}
+
+		public Object getGroupId() {
+			return this.groupId;
+		}
+
+		public int getLastReleasedMessageSequenceNumber() {
+			return this.lastReleasedSequenceNumber;
+		}
+
+		public boolean isComplete() {
+			return this.complete;
+		}
+
+		public void complete() {
+			this.complete = true;
+			if (this.messageGroup != null) {
+				this.messageGroup.complete();
+			}
+		}
+
+		public int getSequenceSize() {
+			return this.getLoadedGroup().getSequenceSize();
+		}
+
+		public int size() {
+			return this.getLoadedGroup().size();
+		}
+
+		public Message<?> getOne() {
+			return this.getLoadedGroup().getOne();
+		}
+
+		public long getTimestamp() {
+			return this.timestamp;
+		}
+
+		public long getLastModified() {
+			return this.lastModified;
+		}
+
+		@Override
+		public String toString() {
+			return "LazyMessageGroup[groupId=" + this.groupId + "]";
+		}
+	}
+
+
 	/**
 	 * Custom implementation of the {@link MappingMongoConverter} strategy.
 	 */
@@ -305,6 +614,7 @@ public class MongoDbMessageStore extends AbstractMessageGroupStore implements Me
 			long groupTimestamp = 0;
 			long lastModified = 0;
 			int lastReleasedSequenceNumber = 0;
+			long groupSequence = 0;
 			if (source instanceof MessageWrapper) {
 				MessageWrapper wrapper = (MessageWrapper) source;
 				message = wrapper.getMessage();
@@ -313,6 +623,7 @@ public class MongoDbMessageStore extends AbstractMessageGroupStore implements Me
 				lastReleasedSequenceNumber = wrapper.getLastReleasedSequenceNumber();
 				groupTimestamp = wrapper.getGroupTimestamp();
 				lastModified = wrapper.getLastModified();
+				groupSequence = wrapper.getGroupSequence();
 			}
 			else {
 				Class<?> sourceType = (source != null) ? source.getClass() : null;
@@ -320,7 +631,11 @@ public class MongoDbMessageStore extends AbstractMessageGroupStore implements Me
 			}
 			target.put(CREATED_DATE, System.currentTimeMillis());
 			target.put(PAYLOAD_TYPE_KEY, message.getPayload().getClass().getName());
-			if (groupId != null) {
+			if (groupId != null && groupSequence > 0) {
+				target.put(GROUP_ID_KEY, groupId);
+				target.put(GROUP_SEQUENCE_KEY, groupSequence);
+			}
+			else if (groupId != null) {
 				target.put(GROUP_ID_KEY, groupId);
 				target.put(GROUP_COMPLETE_KEY, groupComplete);
 				target.put(LAST_RELEASED_SEQUENCE_NUMBER, lastReleasedSequenceNumber);
@@ -350,11 +665,8 @@ public class MongoDbMessageStore extends AbstractMessageGroupStore implements Me
 						throw new IllegalStateException("failed to load class: " + payloadType, e);
 					}
 				}
-				GenericMessage message = new GenericMessage(payload, headers);
-				Map innerMap = (Map) new DirectFieldAccessor(message.getHeaders()).getPropertyValue("headers");
-				// using reflection to set ID and TIMESTAMP since they are immutable through MessageHeaders
-				innerMap.put(MessageHeaders.ID, UUID.fromString((String) headers.get(MessageHeaders.ID)));
-				innerMap.put(MessageHeaders.TIMESTAMP, headers.get(MessageHeaders.TIMESTAMP));
+				Message<?> message = createStoredMessage(payload, headers,
+						UUID.fromString((String) headers.get(MessageHeaders.ID)), (Long) headers.get(MessageHeaders.TIMESTAMP));
 				Long groupTimestamp = (Long)source.get(GROUP_TIMESTAMP_KEY);
 				Long lastModified = (Long)source.get(GROUP_UPDATE_TIMESTAMP_KEY);
 				Integer lastReleasedSequenceNumber = (Integer)source.get(LAST_RELEASED_SEQUENCE_NUMBER);
@@ -417,6 +729,8 @@ public class MongoDbMessageStore extends AbstractMessageGroupStore implements Me
 
 		private volatile boolean completedGroup;
 
+		private volatile long groupSequence;
+
 		public MessageWrapper(Message<?> message) {
 			this.message = message;
 		}
@@ -464,5 +778,13 @@ public class MongoDbMessageStore extends AbstractMessageGroupStore implements Me
 		public void setCompletedGroup(boolean completedGroup) {
 			this.completedGroup = completedGroup;
 		}
+
+		public long getGroupSequence() {
+			return groupSequence;
+		}
+
+		public void setGroupSequence(long groupSequence) {
+			this.groupSequence = groupSequence;
+		}
 	}
 }
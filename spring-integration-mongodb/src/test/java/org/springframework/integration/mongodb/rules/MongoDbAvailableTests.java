@@ -39,6 +39,7 @@ public abstract class MongoDbAvailableTests {
 		MongoDbFactory mongoDbFactory = new SimpleMongoDbFactory(new Mongo(), "test");
 		MongoTemplate template = new MongoTemplate(mongoDbFactory);
 		template.dropCollection("messages");
+		template.dropCollection("messages_groups");
 		return mongoDbFactory;
 	}
 
@@ -250,6 +250,101 @@ public class MongoDbMessageGroupStoreTests extends MongoDbAvailableTests {
 		assertEquals(2, counter);
 	}
 	
+	@Test
+	@MongoDbAvailable
+	public void testGroupDocumentsAddCompleteAndRemove() throws Exception{	
+		MongoDbFactory mongoDbFactory = this.prepareMongoFactory();
+		MongoDbMessageStore store = new MongoDbMessageStore(mongoDbFactory);
+		store.setUseGroupDocuments(true);
+		store.afterPropertiesSet();
+
+		MessageGroup messageGroup = store.getMessageGroup(1);
+		assertEquals(0, messageGroup.size());
+		Message<?> messageA = new GenericMessage<String>("A");
+		store.addMessageToGroup(1, messageA);
+		messageGroup = store.addMessageToGroup(1, new GenericMessage<String>("B"));
+		assertEquals(2, messageGroup.size());
+		assertTrue(messageGroup.getTimestamp() > 0);
+		assertEquals("A", messageGroup.getOne().getPayload());
+
+		store.completeGroup(1);
+		store.setLastReleasedSequenceNumberForGroup(1, 5);
+		messageGroup = store.removeMessageFromGroup(1, messageA);
+		assertEquals(1, messageGroup.size());
+		assertTrue(messageGroup.isComplete());
+		assertEquals(5, messageGroup.getLastReleasedMessageSequenceNumber());
+
+		// validate that the updates were propagated to Mongo as well
+		store = new MongoDbMessageStore(mongoDbFactory);
+		store.setUseGroupDocuments(true);
+		messageGroup = store.getMessageGroup(1);
+		assertEquals(1, messageGroup.size());
+		assertTrue(messageGroup.isComplete());
+
+		store.removeMessageGroup(1);
+		assertEquals(0, store.getMessageGroup(1).size());
+		assertFalse(store.iterator().hasNext());
+	}
+
+	@Test
+	@MongoDbAvailable
+	public void testGroupDocumentsPollInInsertionOrder() throws Exception{	
+		MongoDbFactory mongoDbFactory = this.prepareMongoFactory();
+		MongoDbMessageStore store = new MongoDbMessageStore(mongoDbFactory);
+		store.setUseGroupDocuments(true);
+		store.afterPropertiesSet();
+
+		for (int i = 0; i < 5; i++) {
+			store.addMessageToGroup(1, new GenericMessage<Integer>(i));
+		}
+		store.addMessageToGroup(2, new GenericMessage<Integer>(100));
+		Iterator<MessageGroup> iterator = store.iterator();
+		int counter = 0;
+		while (iterator.hasNext()) {
+			iterator.next();
+			counter++;
+		}
+		assertEquals(2, counter);
+
+		for (int i = 0; i < 5; i++) {
+			assertEquals(i, store.pollMessageFromGroup(1).getPayload());
+		}
+		assertNull(store.pollMessageFromGroup(1));
+		assertEquals(0, store.getMessageGroup(1).size());
+		assertEquals(1, store.getMessageGroup(2).size());
+	}
+
+	@Test
+	@MongoDbAvailable
+	public void testGroupDocumentsNotCreatedForMissingGroups() throws Exception{	
+		MongoDbFactory mongoDbFactory = this.prepareMongoFactory();
+		MongoDbMessageStore store = new MongoDbMessageStore(mongoDbFactory);
+		store.setUseGroupDocuments(true);
+		store.afterPropertiesSet();
+
+		assertNull(store.pollMessageFromGroup(1));
+		store.removeMessageFromGroup(1, new GenericMessage<String>("A"));
+		store.completeGroup(1);
+		store.setLastReleasedSequenceNumberForGroup(1, 5);
+		assertFalse(store.iterator().hasNext());
+		assertFalse(store.getMessageGroup(1).isComplete());
+	}
+
+	@Test
+	@MongoDbAvailable
+	public void testPollMessageFromGroup() throws Exception{	
+		MongoDbFactory mongoDbFactory = this.prepareMongoFactory();
+		MongoDbMessageStore store = new MongoDbMessageStore(mongoDbFactory);
+		store.afterPropertiesSet();
+
+		store.addMessageToGroup(1, new GenericMessage<String>("1"));
+		Thread.sleep(10);
+		store.addMessageToGroup(1, new GenericMessage<String>("2"));
+		assertEquals("1", store.pollMessageFromGroup(1).getPayload());
+		assertEquals("2", store.pollMessageFromGroup(1).getPayload());
+		assertNull(store.pollMessageFromGroup(1));
+	}
+	
 //	@Test
 //	@MongoDbAvailable
 //	public void testConcurrentModifications() throws Exception{	
@@ -19,6 +19,7 @@ package org.springframework.integration.mongodb.store;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
 
@@ -27,8 +28,10 @@ import org.springframework.data.mongodb.core.SimpleMongoDbFactory;
 import org.springframework.integration.Message;
 import org.springframework.integration.mongodb.rules.MongoDbAvailable;
 import org.springframework.integration.mongodb.rules.MongoDbAvailableTests;
+import org.springframework.integration.store.MessageGroup;
 import org.springframework.integration.support.MessageBuilder;
 
+import com.mongodb.DBObject;
 import com.mongodb.Mongo;
 
 /**
@@ -81,6 +84,40 @@ public class MongoDbMessageStoreTests extends MongoDbAvailableTests{
 		assertEquals(messageToStore, retrievedMessage);
 	}
 
+	@Test
+	@MongoDbAvailable
+	public void indexesAreCreatedOnFirstUse() throws Exception {
+		MongoDbFactory mongoDbFactory = new SimpleMongoDbFactory(new Mongo(), "test");
+		mongoDbFactory.getDb().getCollection("indexTest").drop();
+		MongoDbMessageStore store = new MongoDbMessageStore(mongoDbFactory, "indexTest");
+		store.addMessage(MessageBuilder.withPayload("Hello").build());
+		boolean updateIndexFound = false;
+		for (DBObject index : mongoDbFactory.getDb().getCollection("indexTest").getIndexInfo()) {
+			DBObject key = (DBObject) index.get("key");
+			if (key.containsField("_groupId") && key.containsField("_group_update_timestamp")) {
+				assertEquals(-1, ((Number) key.get("_group_update_timestamp")).intValue());
+				updateIndexFound = true;
+			}
+		}
+		assertTrue(updateIndexFound);
+	}
+
+	@Test
+	@MongoDbAvailable
+	public void addMessageToGroupReturnsGroupWithAddedMessage() throws Exception {
+		MongoDbFactory mongoDbFactory = new SimpleMongoDbFactory(new Mongo(), "test");
+		MongoDbMessageStore store = new MongoDbMessageStore(mongoDbFactory);
+		store.removeMessageGroup("lazyGroup");
+		Message<?> first = MessageBuilder.withPayload("foo").build();
+		Message<?> second = MessageBuilder.withPayload("bar").build();
+		MessageGroup group = store.addMessageToGroup("lazyGroup", first);
+		assertEquals("lazyGroup", group.getGroupId());
+		assertTrue(group.getTimestamp() > 0);
+		group = store.addMessageToGroup("lazyGroup", second);
+		assertEquals(2, group.size());
+		assertEquals(2, group.getMessages().size());
+		store.removeMessageGroup("lazyGroup");
+	}
 
 	public static class Person {
 
@@ -16,7 +16,12 @@
 
 package org.springframework.integration.redis.store;
 
+import java.io.ObjectStreamConstants;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.springframework.data.redis.connection.RedisConnectionFactory;
@@ -26,6 +31,7 @@ import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer
 import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.SerializationException;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.integration.codec.MessageCodec;
 import org.springframework.integration.store.AbstractKeyValueMessageStore;
 import org.springframework.integration.store.MessageGroupStore;
 import org.springframework.integration.store.MessageStore;
@@ -41,6 +47,8 @@ public class RedisMessageStore extends AbstractKeyValueMessageStore {
 
 	private final RedisTemplate<Object, Object> redisTemplate;
 
+	private volatile boolean customValueSerializer;
+
 	public RedisMessageStore(RedisConnectionFactory connectionFactory) {
 		this.redisTemplate = new RedisTemplate<Object, Object>();
 		this.redisTemplate.setConnectionFactory(connectionFactory);
@@ -48,10 +56,33 @@ public class RedisMessageStore extends AbstractKeyValueMessageStore {
 		this.redisTemplate.setValueSerializer(new JdkSerializationRedisSerializer());
 	}
 
+	/**
+	 * Specify the serializer for the stored values. If a
+	 * {@link #setMessageCodec(MessageCodec) MessageCodec} is also set, Messages
+	 * are handed to this serializer as the byte arrays produced by the codec.
+	 */
 	public void setValueSerializer(RedisSerializer<?> valueSerializer) {
 		Assert.notNull(valueSerializer, "'valueSerializer' must not be null");
+		this.customValueSerializer = true;
 		this.redisTemplate.setValueSerializer(valueSerializer);
 	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Unless a custom {@link #setValueSerializer(RedisSerializer) value serializer}
+	 * is set, the encoded bytes are stored as they are, while the group metadata
+	 * is still stored with Java serialization, and Messages that were stored with
+	 * Java serialization before the codec was set can still be read.
+	 */
+	@Override
+	public void setMessageCodec(MessageCodec messageCodec) {
+		super.setMessageCodec(messageCodec);
+		if (!this.customValueSerializer) {
+			this.redisTemplate.setValueSerializer((messageCodec != null) ?
+					new EncodedMessageRedisSerializer() : new JdkSerializationRedisSerializer());
+		}
+	}
 	
 	@Override
 	protected Object doRetrieve(Object id){
@@ -88,10 +119,91 @@ public class RedisMessageStore extends AbstractKeyValueMessageStore {
 	}
 
 
+	/**
+	 * Retrieves all values with a single MGET.
+	 */
+	@Override
+	protected Map<Object, Object> doRetrieveAll(Collection<?> ids) {
+		Assert.notNull(ids, "'ids' must not be null");
+		Map<Object, Object> retrievedObjects = new HashMap<Object, Object>();
+		if (ids.isEmpty()) {
+			return retrievedObjects;
+		}
+		List<Object> keys = new ArrayList<Object>(ids);
+		List<Object> values = redisTemplate.opsForValue().multiGet(keys);
+		if (values != null) {
+			for (int i = 0; i < keys.size() && i < values.size(); i++) {
+				retrievedObjects.put(keys.get(i), values.get(i));
+			}
+		}
+		return retrievedObjects;
+	}
+
+	/**
+	 * Stores all values with a single MSET.
+	 */
+	@Override
+	protected void doStoreAll(Map<Object, Object> objectsToStore) {
+		Assert.notNull(objectsToStore, "'objectsToStore' must not be null");
+		if (objectsToStore.isEmpty()) {
+			return;
+		}
+		try {
+			redisTemplate.opsForValue().multiSet(objectsToStore);
+		}
+		catch (SerializationException e) {
+			throw new IllegalArgumentException("If relying on the default RedisSerializer (JdkSerializationRedisSerializer) " +
+					"the Object must be Serializable. Either make it Serializable or provide your own implementation of " +
+					"RedisSerializer via 'setValueSerializer(..)'", e);
+		}
+	}
+
+	/**
+	 * Removes all keys with a single DEL.
+	 */
+	@Override
+	protected void doRemoveAll(Collection<?> ids) {
+		Assert.notNull(ids, "'ids' must not be null");
+		if (!ids.isEmpty()) {
+			redisTemplate.delete(new ArrayList<Object>(ids));
+		}
+	}
+
 	@Override
 	protected Collection<?> doListKeys(String keyPattern) {
 		Assert.hasText(keyPattern, "'keyPattern' must not be empty");
 		Set<Object> keys = redisTemplate.keys(keyPattern);
 		return keys;
 	}
+
+
+	/**
+	 * Passes the byte arrays of encoded Messages through unchanged, and uses Java
+	 * serialization for other values, such as the group metadata and Messages that
+	 * were stored before a codec was set.
+	 */
+	private static class EncodedMessageRedisSerializer implements RedisSerializer<Object> {
+
+		private static final int JAVA_SERIALIZATION_MAGIC = (ObjectStreamConstants.STREAM_MAGIC >>> 8) & 0xFF;
+
+		private final JdkSerializationRedisSerializer javaSerializer = new JdkSerializationRedisSerializer();
+
+		public byte[] serialize(Object value) throws SerializationException {
+			if (value instanceof byte[]) {
+				return (byte[]) value;
+			}
+			return this.javaSerializer.serialize(value);
+		}
+
+		public Object deserialize(byte[] bytes) throws SerializationException {
+			if (bytes == null || bytes.length == 0) {
+				return null;
+			}
+			if ((bytes[0] & 0xFF) == JAVA_SERIALIZATION_MAGIC) {
+				return this.javaSerializer.deserialize(bytes);
+			}
+			return bytes;
+		}
+	}
+
 }
@@ -20,7 +20,11 @@ import java.util.UUID;
 
 import org.junit.Test;
 import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.integration.Message;
+import org.springframework.integration.codec.CompactMessageCodec;
 import org.springframework.integration.message.GenericMessage;
 import org.springframework.integration.redis.rules.RedisAvailable;
 import org.springframework.integration.redis.rules.RedisAvailableTests;
@@ -114,6 +118,38 @@ public class RedisMessageStoreTests extends RedisAvailableTests {
 		assertEquals("Hello Redis", retrievedMessage.getPayload());
 		assertNull(store.getMessage(stringMessage.getHeaders().getId()));
 	}
+
+	@Test
+	@RedisAvailable
+	public void testMessageCodecStoresEncodedBytesAndReadsLegacyMessages(){
+		JedisConnectionFactory jcf = this.getConnectionFactoryForTest();
+		RedisMessageStore store = new RedisMessageStore(jcf);
+		Message<String> legacyMessage = new GenericMessage<String>("Hello Redis");
+		store.addMessage(legacyMessage);
+		store.setMessageCodec(new CompactMessageCodec());
+		Message<String> encodedMessage = new GenericMessage<String>("Hello Codec");
+		store.addMessage(encodedMessage);
+		assertEquals("Hello Redis", store.getMessage(legacyMessage.getHeaders().getId()).getPayload());
+		assertEquals("Hello Codec", store.getMessage(encodedMessage.getHeaders().getId()).getPayload());
+
+		RedisTemplate<String, byte[]> rawTemplate = new RedisTemplate<String, byte[]>();
+		rawTemplate.setConnectionFactory(jcf);
+		rawTemplate.setKeySerializer(new StringRedisSerializer());
+		rawTemplate.setValueSerializer(new RedisSerializer<byte[]>() {
+			public byte[] serialize(byte[] bytes) {
+				return bytes;
+			}
+			public byte[] deserialize(byte[] bytes) {
+				return bytes;
+			}
+		});
+		rawTemplate.afterPropertiesSet();
+		byte[] stored = rawTemplate.opsForValue().get("MESSAGE_" + encodedMessage.getHeaders().getId());
+		// stored as the codec wrote it, not wrapped in Java serialization
+		assertEquals(new CompactMessageCodec().encode(encodedMessage).length, stored.length);
+		store.removeMessage(legacyMessage.getHeaders().getId());
+		store.removeMessage(encodedMessage.getHeaders().getId());
+	}
 	
 	@SuppressWarnings("serial")
 	public static class Person implements Serializable{
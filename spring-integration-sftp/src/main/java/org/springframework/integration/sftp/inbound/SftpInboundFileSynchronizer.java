@@ -46,4 +46,9 @@ public class SftpInboundFileSynchronizer extends AbstractInboundFileSynchronizer
 		return (file != null ? file.getFilename() : null);
 	}
 
+	@Override
+	protected long getFileSize(LsEntry file) {
+		return (file != null && file.getAttrs() != null ? file.getAttrs().getSize() : -1);
+	}
+
 }
@@ -76,6 +76,8 @@ public class InboundChannelAdapterParserTests {
 		assertNotNull(TestUtils.getPropertyValue(synchronizer, "localFilenameGeneratorExpression"));
 		String remoteFileSeparator = (String) TestUtils.getPropertyValue(synchronizer, "remoteFileSeparator");
 		assertEquals(".bar", TestUtils.getPropertyValue(synchronizer, "temporaryFileSuffix", String.class));
+		assertEquals(2, TestUtils.getPropertyValue(synchronizer, "concurrentDownloads"));
+		assertEquals(2, TestUtils.getPropertyValue(synchronizer, "maxDownloadAttempts"));
 		assertNotNull(remoteFileSeparator);
 		assertEquals(".", remoteFileSeparator);
 		PollableChannel requestChannel = context.getBean("requestChannel", PollableChannel.class);